@@ -0,0 +1,115 @@
+/**
+ * @format
+ */
+
+import {
+  CLUSTER_MAX_ZOOM,
+  MapItem,
+  MapRisk,
+  MapViewport,
+  applyMarkerDiff,
+  diffMarkers,
+  layoutMarkers,
+} from '../src/utils/mapMarkers';
+
+const CENTER = { lat: 45.764, lng: 4.8357 };
+
+const makeRisks = (count: number, spreadDeg = 0.009): MapRisk[] => {
+  const risks: MapRisk[] = [];
+  for (let i = 0; i < count; i++) {
+    // Pseudo-aléatoire déterministe
+    const a = Math.sin(i * 12.9898) * 43758.5453;
+    const b = Math.sin(i * 78.233) * 12345.6789;
+    risks.push({
+      id: `r${i}`,
+      lat: CENTER.lat + (a - Math.floor(a) - 0.5) * 2 * spreadDeg,
+      lng: CENTER.lng + (b - Math.floor(b) - 0.5) * 2 * spreadDeg,
+      title: `Risque ${i}`,
+      category: 'naturel',
+      severity: i % 10 === 0 ? 'critique' : 'faible',
+      distance: i,
+      description: '',
+      color: i % 10 === 0 ? '#EF4444' : '#10B981',
+      icon: '⚠️',
+    });
+  }
+  return risks;
+};
+
+const viewport = (zoom: number, halfDeg = 0.009): MapViewport => ({
+  south: CENTER.lat - halfDeg,
+  west: CENTER.lng - halfDeg,
+  north: CENTER.lat + halfDeg,
+  east: CENTER.lng + halfDeg,
+  zoom,
+});
+
+const countRisks = (items: MapItem[]): number =>
+  items.reduce((sum, item) => sum + (item.kind === 'cluster' ? item.count : 1), 0);
+
+describe('layoutMarkers', () => {
+  test('keeps one marker per risk above the clustering zoom', () => {
+    const risks = makeRisks(200);
+    const items = layoutMarkers(risks, viewport(CLUSTER_MAX_ZOOM + 1));
+    expect(items).toHaveLength(200);
+    expect(items.every((item) => item.kind === 'risk')).toBe(true);
+  });
+
+  test('clusters at low zoom without losing risks', () => {
+    const risks = makeRisks(500);
+    const items = layoutMarkers(risks, viewport(14));
+    expect(items.length).toBeLessThan(500);
+    expect(countRisks(items)).toBe(500);
+  });
+
+  test('drops risks outside the padded viewport', () => {
+    const risks = makeRisks(100);
+    const far = { ...risks[0], id: 'far', lat: CENTER.lat + 1 };
+    const items = layoutMarkers([...risks, far], viewport(17));
+    expect(items.find((item) => item.id === 'far')).toBeUndefined();
+  });
+});
+
+describe('diffMarkers', () => {
+  test('reports only added, removed and changed items', () => {
+    const risks = makeRisks(50);
+    const shown = new Map<string, MapItem>();
+    applyMarkerDiff(shown, diffMarkers(shown, layoutMarkers(risks, null)));
+    expect(shown.size).toBe(50);
+
+    const next = risks.slice(1).map((risk) => (risk.id === 'r2' ? { ...risk, title: 'Modifié' } : risk));
+    next.push({ ...risks[0], id: 'new' });
+    const diff = diffMarkers(shown, layoutMarkers(next, null));
+
+    expect(diff.removed).toEqual(['r0']);
+    expect(diff.added.map((item) => item.id)).toEqual(['new']);
+    expect(diff.changed.map((item) => item.id)).toEqual(['r2']);
+  });
+
+  test('is empty when nothing changed', () => {
+    const risks = makeRisks(50);
+    const shown = new Map<string, MapItem>();
+    applyMarkerDiff(shown, diffMarkers(shown, layoutMarkers(risks, viewport(14))));
+    const diff = diffMarkers(shown, layoutMarkers(risks, viewport(14)));
+    expect(diff).toEqual({ added: [], removed: [], changed: [] });
+  });
+});
+
+// Mesures indicatives (pas d'assertion de durée : les machines de CI varient)
+describe('benchmarks', () => {
+  test.each([1000, 10000])('layout + diff for %i markers', (count) => {
+    const risks = makeRisks(count);
+    const shown = new Map<string, MapItem>();
+    const runs = 20;
+
+    const start = Date.now();
+    for (let i = 0; i < runs; i++) {
+      const zoom = i % 2 === 0 ? 14 : 17;
+      applyMarkerDiff(shown, diffMarkers(shown, layoutMarkers(risks, viewport(zoom))));
+    }
+    const perRunMs = (Date.now() - start) / runs;
+
+    console.log(`[mapMarkers] ${count} marqueurs: ${perRunMs.toFixed(2)} ms / (layout + diff)`);
+    expect(countRisks(Array.from(shown.values()))).toBe(count);
+  });
+});
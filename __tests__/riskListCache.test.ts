@@ -0,0 +1,132 @@
+/**
+ * @format
+ */
+
+import { NativeModules } from 'react-native';
+import { RiskListIndex } from '../src/services/riskListCache';
+import { Risk, RiskFilters, RiskSeverity } from '../src/types';
+
+jest.mock('../src/services/api', () => ({ apiClient: {} }));
+
+interface IndexedRow {
+  categoryId: string;
+  severity: string;
+  creatorId: string | null;
+}
+
+// RiskFilterModule en mémoire : compte les lignes qui traversent le bridge
+const rows: IndexedRow[] = [];
+const appended: number[] = [];
+const fakeModule = {
+  resetIndex: jest.fn(async () => {
+    rows.length = 0;
+  }),
+  appendRisks: jest.fn(async (batch: IndexedRow[]) => {
+    rows.push(...batch);
+    appended.push(batch.length);
+  }),
+  query: jest.fn(async (filters: RiskFilters) =>
+    rows
+      .map((row, i) => ({ row, i }))
+      .filter(
+        ({ row }) =>
+          (!filters.categoryId || row.categoryId === filters.categoryId) &&
+          (!filters.severity || row.severity === filters.severity) &&
+          (!filters.creatorId || row.creatorId === filters.creatorId)
+      )
+      .map(({ i }) => i)
+  ),
+};
+
+const makeRisk = (id: number, categoryId = 'cat-1', updatedAt = '2026-01-01T00:00:00Z'): Risk => ({
+  id: `r${id}`,
+  title: `Risque ${id}`,
+  categoryId,
+  severity: id % 2 === 0 ? RiskSeverity.FAIBLE : RiskSeverity.CRITIQUE,
+  latitude: 45.76,
+  longitude: 4.83,
+  tenantId: 't1',
+  creatorId: 'u1',
+  createdAt: '2026-01-01T00:00:00Z',
+  updatedAt,
+});
+
+const range = (from: number, to: number, categoryId?: string): Risk[] =>
+  Array.from({ length: to - from }, (_, i) => makeRisk(from + i, categoryId));
+
+const ids = (risks: Risk[]): string[] => risks.map((risk) => risk.id);
+
+describe('RiskListIndex', () => {
+  beforeEach(() => {
+    NativeModules.RiskFilterModule = fakeModule;
+    rows.length = 0;
+    appended.length = 0;
+    jest.clearAllMocks();
+  });
+
+  it("n'envoie que les nouvelles lignes quand la liste de base se prolonge", async () => {
+    const index = new RiskListIndex();
+    const page1 = range(0, 100);
+    const page2 = range(100, 200);
+
+    expect(await index.showBase(page1)).toBe(true);
+    expect(await index.showBase(page1)).toBe(false);
+    expect(await index.showBase([...page1, ...page2])).toBe(false);
+
+    expect(appended).toEqual([100, 100]);
+    expect(fakeModule.resetIndex).toHaveBeenCalledTimes(1);
+    expect(index.risks).toHaveLength(200);
+  });
+
+  it('reconstruit l’index quand la tête de liste a changé', async () => {
+    const index = new RiskListIndex();
+    const page1 = range(0, 100);
+    await index.showBase(page1);
+
+    const edited = [makeRisk(0, 'cat-1', '2026-02-01T00:00:00Z'), ...page1.slice(1)];
+
+    expect(await index.showBase(edited)).toBe(true);
+    expect(appended).toEqual([100, 100]);
+    expect(index.risks[0].updatedAt).toBe('2026-02-01T00:00:00Z');
+  });
+
+  it('filtre localement sans appel natif quand aucun filtre n’est actif', async () => {
+    const index = new RiskListIndex();
+    await index.showBase(range(0, 10));
+
+    expect(ids(await index.query({}))).toEqual(ids(range(0, 10)));
+    expect(fakeModule.query).not.toHaveBeenCalled();
+
+    const critical = await index.query({ severity: RiskSeverity.CRITIQUE });
+    expect(ids(critical)).toEqual(['r1', 'r3', 'r5', 'r7', 'r9']);
+  });
+
+  it('place les lignes des pages filtrées après la liste de base, sans doublon', async () => {
+    const index = new RiskListIndex();
+    await index.showBase(range(0, 4, 'cat-2'));
+    // Page filtrée par le serveur : r2 déjà chargé, r10 et r11 au-delà de la liste de base
+    await index.addFiltered([makeRisk(10, 'cat-2'), makeRisk(2, 'cat-2'), makeRisk(11, 'cat-2')]);
+
+    expect(appended).toEqual([4, 2]);
+    expect(ids(await index.query({ categoryId: 'cat-2' }))).toEqual(['r0', 'r1', 'r2', 'r3', 'r10', 'r11']);
+
+    // La liste de base rattrape r10 : il reprend sa place, sans nouvel envoi au module natif
+    expect(await index.showBase([...range(0, 4, 'cat-2'), makeRisk(5, 'cat-2'), makeRisk(10, 'cat-2')])).toBe(false);
+    expect(appended).toEqual([4, 2, 1]);
+    expect(ids(await index.query({ categoryId: 'cat-2' }))).toEqual(['r0', 'r1', 'r2', 'r3', 'r5', 'r10', 'r11']);
+    expect(ids(index.risks)).toEqual(['r0', 'r1', 'r2', 'r3', 'r5', 'r10']);
+  });
+
+  it('filtre en JS sans module natif', async () => {
+    delete NativeModules.RiskFilterModule;
+    const index = new RiskListIndex();
+    await index.showBase(range(0, 6));
+    await index.addFiltered([makeRisk(20, 'cat-3')]);
+
+    expect(ids(await index.query({ categoryId: 'cat-3' }))).toEqual(['r20']);
+
+    await index.clear();
+    expect(await index.query({ categoryId: 'cat-3' })).toEqual([]);
+    expect(index.risks).toEqual([]);
+  });
+});
@@ -0,0 +1,269 @@
+/**
+ * @format
+ */
+
+import http from 'http';
+import { AddressInfo } from 'net';
+import { MemoryTileStore, RiskTileCache } from '../src/services/riskTileCache';
+import { Risk, RiskSeverity } from '../src/types';
+
+// Le client axios et les métriques natives ne sont pas chargés en test
+jest.mock('../src/services/api', () => ({ apiClient: {} }));
+jest.mock('../src/services/metrics', () => ({ incrementCounter: jest.fn() }));
+
+const CENTER = { lat: 45.764, lng: 4.8357 };
+
+const makeRisk = (id: string, latitude: number, longitude: number): Risk => ({
+  id,
+  title: `Risque ${id}`,
+  categoryId: 'cat-1',
+  severity: RiskSeverity.FAIBLE,
+  latitude,
+  longitude,
+  tenantId: 't1',
+  creatorId: 'u1',
+  createdAt: '2026-01-01T00:00:00Z',
+  updatedAt: '2026-01-01T00:00:00Z',
+});
+
+const distanceKm = (lat1: number, lon1: number, lat2: number, lon2: number): number => {
+  const dLat = (lat2 - lat1) * Math.PI / 180;
+  const dLon = (lon2 - lon1) * Math.PI / 180;
+  const a =
+    Math.sin(dLat / 2) ** 2 +
+    Math.cos(lat1 * Math.PI / 180) * Math.cos(lat2 * Math.PI / 180) * Math.sin(dLon / 2) ** 2;
+  return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+};
+
+// Grille de risques tous les 0,01° autour du centre
+const RISKS: Risk[] = [];
+for (let i = -10; i <= 10; i++) {
+  for (let j = -10; j <= 10; j++) {
+    RISKS.push(makeRisk(`r${i}_${j}`, CENTER.lat + i * 0.01, CENTER.lng + j * 0.01));
+  }
+}
+
+/** Serveur /risks/nearby simulé : ETag par réponse, 304 sur If-None-Match, pannes forcées. */
+interface MockServer {
+  url: string;
+  requests: string[];
+  failNext: number;
+  close: () => Promise<void>;
+}
+
+const startServer = async (): Promise<MockServer> => {
+  const state = { requests: [] as string[], failNext: 0 };
+  const server = http.createServer((req, res) => {
+    const url = new URL(req.url ?? '/', 'http://localhost');
+    state.requests.push(url.search);
+    if (state.failNext > 0) {
+      state.failNext--;
+      res.writeHead(503);
+      res.end();
+      return;
+    }
+    const lat = Number(url.searchParams.get('lat'));
+    const lng = Number(url.searchParams.get('lng'));
+    const radiusKm = Number(url.searchParams.get('radius_km'));
+    const risks = RISKS.filter((r) => distanceKm(lat, lng, r.latitude, r.longitude) <= radiusKm);
+    const etag = `"${risks.length}-${risks.map((r) => r.id).join(',').length}"`;
+    if (req.headers['if-none-match'] === etag) {
+      res.writeHead(304, { ETag: etag });
+      res.end();
+      return;
+    }
+    const body = JSON.stringify(risks);
+    res.writeHead(200, {
+      'Content-Type': 'application/json',
+      'Content-Length': Buffer.byteLength(body),
+      ETag: etag,
+    });
+    res.end(body);
+  });
+  await new Promise<void>((resolve) => server.listen(0, '127.0.0.1', resolve));
+  const { port } = server.address() as AddressInfo;
+  return {
+    url: `http://127.0.0.1:${port}`,
+    get requests() {
+      return state.requests;
+    },
+    get failNext() {
+      return state.failNext;
+    },
+    set failNext(value: number) {
+      state.failNext = value;
+    },
+    close: () => new Promise<void>((resolve) => server.close(() => resolve())),
+  };
+};
+
+/** Équivalent de ApiClient.getRisksInTile sur le module http de Node. */
+const httpFetcher = (baseUrl: string) =>
+  (lat: number, lng: number, radiusKm: number, etag?: string) =>
+    new Promise<{ notModified: boolean; risks: Risk[]; etag?: string; bytes: number }>((resolve, reject) => {
+      const path = `/risks/nearby?lat=${lat}&lng=${lng}&radius_km=${radiusKm}`;
+      const req = http.get(`${baseUrl}${path}`, { headers: etag ? { 'If-None-Match': etag } : {} }, (res) => {
+        const chunks: Buffer[] = [];
+        res.on('data', (chunk: Buffer) => chunks.push(chunk));
+        res.on('end', () => {
+          if (res.statusCode === 304) {
+            resolve({ notModified: true, risks: [], etag, bytes: 0 });
+          } else if (res.statusCode !== 200) {
+            reject(new Error(`HTTP ${res.statusCode}`));
+          } else {
+            const body = Buffer.concat(chunks);
+            resolve({
+              notModified: false,
+              risks: JSON.parse(body.toString('utf8')),
+              etag: res.headers.etag,
+              bytes: body.length,
+            });
+          }
+        });
+      });
+      req.on('error', reject);
+    });
+
+describe('RiskTileCache contre un serveur simulé', () => {
+  let server: MockServer;
+
+  beforeEach(async () => {
+    server = await startServer();
+    jest.spyOn(console, 'warn').mockImplementation(() => undefined);
+  });
+
+  afterEach(async () => {
+    (console.warn as jest.Mock).mockRestore();
+    await server.close();
+  });
+
+  it('ne retélécharge que les tuiles périmées, revalidées par 304', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+
+    const first = (await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000)).risks!;
+    const tiles = cache.tilesForZone(CENTER.lat, CENTER.lng, 3).length;
+    expect(server.requests).toHaveLength(tiles);
+
+    // Tuiles fraîches : aucune requête
+    const second = (await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000)).risks!;
+    expect(server.requests).toHaveLength(tiles);
+    expect(second.map((r) => r.id).sort()).toEqual(first.map((r) => r.id).sort());
+
+    // Tuiles périmées : requêtes conditionnelles, 304 partout
+    await cache.syncZone(CENTER.lat, CENTER.lng, 3, -1);
+    const m = cache.getMetrics();
+    expect(m.tilesFetched).toBe(tiles);
+    expect(m.tileHits).toBe(tiles);
+    expect(m.tilesNotModified).toBe(tiles);
+    expect(m.hitRatio).toBeCloseTo(2 / 3);
+  });
+
+  it('compte les risques reçus hors tuile : une synchro à froid télécharge plus que la zone', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+
+    const { risks, count } = await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+
+    const m = cache.getMetrics();
+    expect(count).toBe(risks!.length);
+    // Chaque risque n'est gardé que dans sa tuile, mais reçu aussi par les voisines
+    expect(m.risksKept).toBe(count);
+    expect(m.risksDownloaded).toBeGreaterThan(m.risksKept);
+    expect(m.overlapRatio).toBeGreaterThan(0);
+    expect(m.bytesDownloaded).toBeGreaterThan(Buffer.byteLength(JSON.stringify(risks)));
+    expect(m.bytesSaved).toBe(0);
+  });
+
+  it('saute une tuile en échec sans interrompre la synchronisation', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+    const tiles = cache.tilesForZone(CENTER.lat, CENTER.lng, 3).length;
+    server.failNext = 1;
+
+    const partial = await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+
+    expect(server.requests).toHaveLength(tiles);
+    expect(cache.getMetrics().tilesFailed).toBe(1);
+    expect(cache.size).toBe(tiles - 1);
+    expect(partial.count).toBeGreaterThan(0);
+
+    // La tuile manquante est reprise au refresh suivant, les autres restent en cache
+    const complete = await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+    expect(server.requests).toHaveLength(tiles + 1);
+    expect(complete.count).toBeGreaterThan(partial.count);
+  });
+
+  it('échoue si aucune tuile ne répond, pour garder le cache de l\'appelant', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+    server.failNext = 1000;
+
+    await expect(cache.syncZone(CENTER.lat, CENTER.lng, 1, 60000)).rejects.toThrow('HTTP 503');
+  });
+
+  it('télécharge les tuiles en parallèle, sans dépasser maxConcurrentFetches', async () => {
+    const fetcher = httpFetcher(server.url);
+    let inFlight = 0;
+    let maxInFlight = 0;
+    const cache = new RiskTileCache(new MemoryTileStore(async (lat, lng, radiusKm, etag) => {
+      inFlight++;
+      maxInFlight = Math.max(maxInFlight, inFlight);
+      try {
+        return await fetcher(lat, lng, radiusKm, etag);
+      } finally {
+        inFlight--;
+      }
+    }), 64, 3);
+    const tiles = cache.tilesForZone(CENTER.lat, CENTER.lng, 3).length;
+
+    await cache.syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+
+    expect(tiles).toBeGreaterThan(3);
+    expect(maxInFlight).toBe(3);
+    expect(server.requests).toHaveLength(tiles);
+    expect(cache.size).toBe(tiles);
+  });
+
+  it('repart des métadonnées relues : hits si fraîches, 304 avec les ETags du store sinon', async () => {
+    // Le store survit au contexte JS, comme le store natif à un nouveau Headless JS
+    const store = new MemoryTileStore(httpFetcher(server.url));
+    const first = await new RiskTileCache(store).syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+    const restored = new RiskTileCache(store);
+    const zone = restored.tilesForZone(CENTER.lat, CENTER.lng, 3);
+    restored.restore(zone.map(({ row, col }) => ({ row, col, fetchedAt: Date.now(), bytes: 100, count: 0 })));
+
+    const fresh = await restored.syncZone(CENTER.lat, CENTER.lng, 3, 60000);
+    expect(server.requests).toHaveLength(zone.length);
+    expect(fresh.count).toBe(first.count);
+
+    await restored.syncZone(CENTER.lat, CENTER.lng, 3, -1);
+    const m = restored.getMetrics();
+    expect(server.requests).toHaveLength(2 * zone.length);
+    expect(m.tilesNotModified).toBe(zone.length);
+    expect(m.tilesFetched).toBe(0);
+    expect(m.bytesSaved).toBe(2 * 100 * zone.length);
+  });
+
+  it('recharge les tuiles restaurées que le store ne garde plus', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+    const zone = cache.tilesForZone(CENTER.lat, CENTER.lng, 1);
+    cache.restore(zone.map(({ row, col }) => ({ row, col, fetchedAt: Date.now(), bytes: 100, count: 5 })));
+
+    const lost = await cache.syncZone(CENTER.lat, CENTER.lng, 1, 60000);
+    expect(lost.missing).toHaveLength(zone.length);
+    expect(cache.size).toBe(0);
+
+    const reloaded = await cache.syncZone(CENTER.lat, CENTER.lng, 1, 60000);
+    expect(server.requests).toHaveLength(zone.length);
+    expect(reloaded.missing).toHaveLength(0);
+    expect(reloaded.count).toBeGreaterThan(0);
+  });
+
+  it('garde une tuile déjà chargée si son rafraîchissement échoue', async () => {
+    const cache = new RiskTileCache(new MemoryTileStore(httpFetcher(server.url)));
+    const before = (await cache.syncZone(CENTER.lat, CENTER.lng, 1, 60000)).risks!;
+    server.failNext = 1;
+
+    const after = (await cache.syncZone(CENTER.lat, CENTER.lng, 1, -1)).risks!;
+
+    expect(after.map((r) => r.id).sort()).toEqual(before.map((r) => r.id).sort());
+    expect(cache.getMetrics().tilesFailed).toBe(1);
+  });
+});
@@ -0,0 +1,114 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Résolution locale de la commune d'une position (Java pur).
+ *
+ * La commune est cherchée dans le CommuneIndex ; le réseau (contour + risques
+ * Géorisques) n'est sollicité que si la position sort de tous les contours en
+ * cache, ou pour rafraîchir des risques plus vieux que risksTtlMs. Hors ligne,
+ * des risques périmés valent mieux que pas de commune.
+ */
+public final class CommuneResolver {
+
+    /** Source réseau d'une commune contenant la position (geo.api.gouv.fr + Géorisques). */
+    public interface Source {
+        CommuneBoundary fetchCommune(double lat, double lon) throws IOException;
+
+        String fetchRisks(CommuneBoundary commune, double lat, double lon) throws IOException;
+    }
+
+    /** Sauvegarde de l'ensemble des communes en cache. */
+    public interface Persister {
+        void persist(List<CommuneBoundary> communes);
+    }
+
+    public static final class Result {
+        public final CommuneBoundary commune;
+        public final boolean fromCache;
+
+        Result(CommuneBoundary commune, boolean fromCache) {
+            this.commune = commune;
+            this.fromCache = fromCache;
+        }
+    }
+
+    private final CommuneIndex index;
+    private final Source source;
+    private final Persister persister;
+    private final LongSupplier clock;
+    private final long risksTtlMs;
+    private final int maxCommunes;
+    private long hits;
+    private long networkLookups;
+
+    public CommuneResolver(CommuneIndex index, Source source, Persister persister, LongSupplier clock,
+                           long risksTtlMs, int maxCommunes) {
+        this.index = index;
+        this.source = source;
+        this.persister = persister;
+        this.clock = clock;
+        this.risksTtlMs = risksTtlMs;
+        this.maxCommunes = maxCommunes;
+    }
+
+    /**
+     * Commune contenant la position. Synchronisé : deux ticks rapprochés hors des
+     * contours connus ne déclenchent qu'un appel réseau.
+     */
+    public synchronized Result resolve(double lat, double lon) throws IOException {
+        long now = clock.getAsLong();
+        CommuneBoundary cached = index.find(lat, lon);
+
+        if (cached != null && now - cached.fetchedAt <= risksTtlMs) {
+            hits++;
+            return new Result(cached, true);
+        }
+
+        if (cached != null) {
+            // Contour connu, risques périmés : seuls les risques sont rechargés
+            try {
+                CommuneBoundary refreshed = cached.withRisks(source.fetchRisks(cached, lat, lon), now);
+                networkLookups++;
+                store(refreshed);
+                return new Result(refreshed, false);
+            } catch (IOException e) {
+                hits++;
+                return new Result(cached, true);
+            }
+        }
+
+        networkLookups++;
+        CommuneBoundary fetched = source.fetchCommune(lat, lon);
+        store(fetched);
+        return new Result(fetched, false);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getNetworkLookups() {
+        return networkLookups;
+    }
+
+    private void store(CommuneBoundary commune) {
+        index.put(commune);
+        // Au-delà de maxCommunes, la commune chargée le plus anciennement est oubliée
+        List<CommuneBoundary> all = index.all();
+        while (all.size() > maxCommunes) {
+            CommuneBoundary oldest = all.get(0);
+            for (CommuneBoundary candidate : all) {
+                if (candidate.fetchedAt < oldest.fetchedAt) {
+                    oldest = candidate;
+                }
+            }
+            index.remove(oldest.code);
+            all.remove(oldest);
+        }
+        persister.persist(all);
+    }
+}
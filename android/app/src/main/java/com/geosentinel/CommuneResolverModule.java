@@ -0,0 +1,100 @@
+package com.geosentinel;
+
+import android.content.Context;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CommuneResolverModule extends ReactContextBaseJavaModule {
+    // Contours des communes traversées, partagés entre l'app et le Headless JS (voir CommuneCacheFile)
+    public static final String CACHE_FILE_NAME = "commune_cache.bin";
+    // Les risques Géorisques d'une commune évoluent rarement
+    private static final long RISKS_TTL_MS = 7L * 24 * 3600 * 1000;
+    private static final int MAX_COMMUNES = 100;
+
+    private static CommuneResolver resolver;
+    // Résolutions sérialisées : un seul appel réseau à la fois
+    private static final ExecutorService resolveExecutor = Executors.newSingleThreadExecutor();
+    private static final ExecutorService persistExecutor = Executors.newSingleThreadExecutor();
+
+    public CommuneResolverModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "CommuneResolverModule";
+    }
+
+    // ✅ Commune de la position : contour en cache si possible, sinon geo.api.gouv.fr + Géorisques
+    @ReactMethod
+    public void resolveCommune(double latitude, double longitude, Promise promise) {
+        Context context = getReactApplicationContext();
+        resolveExecutor.execute(() -> {
+            try {
+                CommuneResolver.Result result = getResolver(context).resolve(latitude, longitude);
+                WritableMap map = Arguments.createMap();
+                map.putString("code", result.commune.code);
+                map.putString("name", result.commune.name);
+                map.putString("risksJson", result.commune.risksJson);
+                map.putBoolean("fromCache", result.fromCache);
+                promise.resolve(map);
+            } catch (Exception e) {
+                android.util.Log.w("CommuneResolver", "⚠️ Commune non résolue: " + e.getMessage());
+                promise.reject("NETWORK", e.getMessage());
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            CommuneResolver current = getResolver(getReactApplicationContext());
+            WritableMap result = Arguments.createMap();
+            result.putDouble("hits", current.getHits());
+            result.putDouble("networkLookups", current.getNetworkLookups());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    public static synchronized CommuneResolver getResolver(Context context) {
+        if (resolver == null) {
+            File file = new File(context.getApplicationContext().getFilesDir(), CACHE_FILE_NAME);
+            CommuneIndex index = new CommuneIndex();
+            if (file.exists()) {
+                try {
+                    for (CommuneBoundary commune : CommuneCacheFile.read(file)) {
+                        index.put(commune);
+                    }
+                    android.util.Log.d("CommuneResolver", "✅ Communes en cache: " + index.size());
+                } catch (Exception e) {
+                    android.util.Log.w("CommuneResolver", "⚠️ Cache communes illisible, ignoré", e);
+                    index.clear();
+                }
+            }
+            resolver = new CommuneResolver(
+                index,
+                new HttpCommuneSource(System::currentTimeMillis),
+                communes -> persistExecutor.execute(() -> {
+                    try {
+                        CommuneCacheFile.write(file, communes);
+                    } catch (Exception e) {
+                        android.util.Log.e("CommuneResolver", "❌ Erreur sauvegarde communes", e);
+                    }
+                }),
+                System::currentTimeMillis,
+                RISKS_TTL_MS,
+                MAX_COMMUNES
+            );
+        }
+        return resolver;
+    }
+}
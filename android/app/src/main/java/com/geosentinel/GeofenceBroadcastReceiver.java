@@ -0,0 +1,53 @@
+package com.geosentinel;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+// Transitions des geofences de GeofenceMonitor : entrée dans un risque ou sortie de la frontière
+public class GeofenceBroadcastReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (event == null) {
+            return;
+        }
+        if (event.hasError()) {
+            android.util.Log.e("GeofenceReceiver", "Erreur geofencing: "
+                + GeofenceStatusCodes.getStatusCodeString(event.getErrorCode()));
+            return;
+        }
+
+        try (WakeLockCoordinator.Hold hold = PipelineWakeLock.get(context)
+                .acquire("alerte", PipelineWakeLock.ALERT_TIMEOUT_MS)) {
+            Location location = event.getTriggeringLocation();
+            if (location != null) {
+                LocationTrackingService.onGeofenceLocation(location);
+            }
+            List<String> entered = new ArrayList<>();
+            boolean boundaryExit = false;
+            for (Geofence fence : event.getTriggeringGeofences()) {
+                String id = fence.getRequestId();
+                if (GeofencePlanner.BOUNDARY_ID.equals(id)) {
+                    boundaryExit = event.getGeofenceTransition() == Geofence.GEOFENCE_TRANSITION_EXIT;
+                } else if (event.getGeofenceTransition() == Geofence.GEOFENCE_TRANSITION_ENTER) {
+                    entered.add(id);
+                }
+            }
+
+            if (!entered.isEmpty()) {
+                LocationTrackingService.notifyGeofenceEntries(context, entered, location);
+            }
+            if (boundaryExit && location != null) {
+                android.util.Log.d("GeofenceReceiver", "🧭 Frontière quittée, rotation des geofences");
+                GeofenceMonitor.onBoundaryExit(location.getLatitude(), location.getLongitude());
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.geosentinel;
+
+import android.annotation.SuppressLint;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mode geofencing : la surveillance des risques proches est confiée au système
+ * (GeofencingClient). Les risques les plus proches sont enregistrés comme
+ * geofences ENTER, plus une frontière EXIT qui déclenche la rotation du jeu
+ * (GeofencePlanner). GeofenceBroadcastReceiver reçoit les transitions.
+ *
+ * Tant que le plan est complet, LocationTrackingService peut passer en fixes
+ * passifs : le CPU n'est réveillé que par les transitions. Les changements de
+ * couverture (rotation incomplète, échec d'enregistrement, arrêt) lui sont
+ * signalés par CoverageListener, sans attendre un fix qui ne viendrait pas.
+ */
+public final class GeofenceMonitor {
+    // Délai de détection accepté : le système regroupe les transitions pour économiser la batterie
+    private static final int RESPONSIVENESS_MS = 5000;
+
+    private static Context appContext;
+    private static GeofencingClient client;
+    private static PendingIntent pendingIntent;
+    private static GeofencePlanner planner;
+    private static GeofencePlanner.Plan plan;
+    private static RiskProximityIndex plannedIndex;
+    private static final Set<String> registeredIds = new HashSet<>();
+    // Risque enregistré → indice dans plannedIndex, pour les notifications
+    private static final Map<String, Integer> registeredEntries = new HashMap<>();
+
+    private static CoverageListener coverageListener;
+    private static boolean lastCovering;
+
+    /** Couverture gagnée ou perdue ; appelé sous le verrou du moniteur, à reposter si le travail est long. */
+    public interface CoverageListener {
+        void onCoverageChanged(boolean covering);
+    }
+
+    private GeofenceMonitor() {
+    }
+
+    public static synchronized void setCoverageListener(CoverageListener listener) {
+        coverageListener = listener;
+        lastCovering = isCovering();
+    }
+
+    /**
+     * Active le mode ou met à jour ses paramètres ; le jeu de geofences est
+     * recalculé au prochain fix si le rayon ou la frontière changent.
+     *
+     * @param maxBoundaryMeters frontière maximale, couverte par la zone de risques en cache
+     */
+    public static synchronized void start(Context context, double alertRadiusMeters, double maxBoundaryMeters) {
+        if (appContext == null) {
+            appContext = context.getApplicationContext();
+            client = LocationServices.getGeofencingClient(appContext);
+            Intent intent = new Intent(appContext, GeofenceBroadcastReceiver.class);
+            // Mutable : le système ajoute l'événement de transition à l'intent
+            int flags = PendingIntent.FLAG_UPDATE_CURRENT
+                | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S ? PendingIntent.FLAG_MUTABLE : 0);
+            pendingIntent = PendingIntent.getBroadcast(appContext, 0, intent, flags);
+        }
+        double boundary = Math.max(maxBoundaryMeters, GeofencePlanner.MIN_BOUNDARY_METERS);
+        if (planner == null || planner.getAlertRadiusMeters() != alertRadiusMeters
+                || planner.getMaxBoundaryMeters() != boundary) {
+            planner = new GeofencePlanner(GeofencePlanner.MAX_GEOFENCES - 1, alertRadiusMeters, boundary);
+            plan = null;
+        }
+        android.util.Log.d("GeofenceMonitor", "🧭 Mode geofencing actif (rayon " + alertRadiusMeters
+            + "m, frontière max " + Math.round(boundary) + "m)");
+    }
+
+    public static synchronized boolean isActive() {
+        return planner != null;
+    }
+
+    /** Vrai si les geofences suffisent à la position courante (fixes GPS inutiles). */
+    public static synchronized boolean isCovering() {
+        return planner != null && plan != null && plan.complete
+            && plannedIndex == LocationTrackingService.getRiskIndex();
+    }
+
+    /** Nouveau fix ou nouvel index : rotation si la frontière est quittée ou le cache a changé. */
+    public static synchronized void onPosition(double latitude, double longitude) {
+        if (planner == null) {
+            return;
+        }
+        RiskProximityIndex index = LocationTrackingService.getRiskIndex();
+        if (index == null) {
+            return;
+        }
+        if (plan == null || plannedIndex != index || !plan.contains(latitude, longitude)) {
+            rotate(index, latitude, longitude);
+        }
+    }
+
+    /** Sortie de la frontière signalée par le système. */
+    public static synchronized void onBoundaryExit(double latitude, double longitude) {
+        RiskProximityIndex index = LocationTrackingService.getRiskIndex();
+        if (planner == null || index == null) {
+            return;
+        }
+        rotate(index, latitude, longitude);
+    }
+
+    /** Indice du risque dans l'index courant, -1 s'il n'est plus enregistré. */
+    public static synchronized int entryOf(String id) {
+        Integer entry = registeredEntries.get(id);
+        return entry != null && plannedIndex == LocationTrackingService.getRiskIndex() ? entry : -1;
+    }
+
+    public static synchronized void stop() {
+        if (planner == null) {
+            return;
+        }
+        client.removeGeofences(pendingIntent);
+        registeredIds.clear();
+        registeredEntries.clear();
+        planner = null;
+        plan = null;
+        plannedIndex = null;
+        android.util.Log.d("GeofenceMonitor", "Mode geofencing arrêté");
+        notifyCoverage();
+    }
+
+    private static void notifyCoverage() {
+        boolean covering = isCovering();
+        if (covering != lastCovering) {
+            lastCovering = covering;
+            if (coverageListener != null) {
+                coverageListener.onCoverageChanged(covering);
+            }
+        }
+    }
+
+    // Nouveau plan : ne retire et n'ajoute que les geofences qui changent, la frontière est remplacée
+    @SuppressLint("MissingPermission") // Permissions de localisation vérifiées avant le démarrage du suivi
+    private static void rotate(RiskProximityIndex index, double latitude, double longitude) {
+        GeofencePlanner.Plan next = planner.plan(index, latitude, longitude);
+        GeofencePlanner.Changes changes = GeofencePlanner.diff(registeredIds, next, index);
+
+        if (!changes.removedIds.isEmpty()) {
+            client.removeGeofences(changes.removedIds);
+        }
+
+        List<Geofence> fences = new ArrayList<>(changes.addedIndices.length + 1);
+        fences.add(new Geofence.Builder()
+            .setRequestId(GeofencePlanner.BOUNDARY_ID)
+            .setCircularRegion(latitude, longitude, (float) next.boundaryRadiusMeters)
+            .setExpirationDuration(Geofence.NEVER_EXPIRE)
+            .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_EXIT)
+            .setNotificationResponsiveness(RESPONSIVENESS_MS)
+            .build());
+        for (int risk : changes.addedIndices) {
+            fences.add(new Geofence.Builder()
+                .setRequestId(index.getId(risk))
+                .setCircularRegion(index.getLatitude(risk), index.getLongitude(risk), (float) next.alertRadiusMeters)
+                .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER)
+                .setNotificationResponsiveness(RESPONSIVENESS_MS)
+                .build());
+        }
+        // Déjà dans le rayon d'un risque ajouté : ENTER immédiat (le cooldown évite les doublons)
+        GeofencingRequest request = new GeofencingRequest.Builder()
+            .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
+            .addGeofences(fences)
+            .build();
+        client.addGeofences(request, pendingIntent)
+            .addOnFailureListener(e -> {
+                // Localisation désactivée ou permission retirée : retour au suivi par fixes
+                android.util.Log.e("GeofenceMonitor", "❌ Enregistrement des geofences impossible", e);
+                synchronized (GeofenceMonitor.class) {
+                    if (planner != null) {
+                        client.removeGeofences(pendingIntent);
+                    }
+                    plan = null;
+                    registeredIds.clear();
+                    registeredEntries.clear();
+                    notifyCoverage();
+                }
+            });
+
+        registeredIds.removeAll(changes.removedIds);
+        registeredEntries.clear();
+        for (int risk : next.riskIndices) {
+            registeredIds.add(index.getId(risk));
+            registeredEntries.put(index.getId(risk), risk);
+        }
+        plan = next;
+        plannedIndex = index;
+        Metrics.GEOFENCE_ROTATIONS.increment();
+        android.util.Log.d("GeofenceMonitor", "🔁 Rotation : " + next + " (+" + changes.addedIndices.length
+            + " / -" + changes.removedIds.size() + ")");
+        notifyCoverage();
+    }
+}
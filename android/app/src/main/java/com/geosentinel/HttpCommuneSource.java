@@ -0,0 +1,120 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Source réseau du CommuneResolver : contour via geo.api.gouv.fr, risques via Géorisques.
+ */
+public final class HttpCommuneSource implements CommuneResolver.Source {
+    private static final String COMMUNE_URL =
+        "https://geo.api.gouv.fr/communes?lat=%s&lon=%s&fields=code,nom,contour&format=json";
+    private static final String RISKS_URL =
+        "https://georisques.gouv.fr/api/v1/gaspar/risques?code_insee=%s";
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+
+    private final LongSupplier clock;
+
+    public HttpCommuneSource(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public CommuneBoundary fetchCommune(double lat, double lon) throws IOException {
+        try {
+            JSONArray communes = new JSONArray(get(String.format(Locale.US, COMMUNE_URL, lat, lon)));
+            if (communes.length() == 0) {
+                throw new IOException("Aucune commune à " + lat + "," + lon);
+            }
+            JSONObject commune = communes.getJSONObject(0);
+            CommuneBoundary boundary = new CommuneBoundary(
+                commune.getString("code"),
+                commune.getString("nom"),
+                parseRings(commune.getJSONObject("contour")),
+                "[]",
+                clock.getAsLong()
+            );
+            return boundary.withRisks(fetchRisks(boundary, lat, lon), boundary.fetchedAt);
+        } catch (JSONException e) {
+            throw new IOException("Réponse geo.api.gouv.fr invalide", e);
+        }
+    }
+
+    @Override
+    public String fetchRisks(CommuneBoundary commune, double lat, double lon) throws IOException {
+        try {
+            JSONObject response = new JSONObject(get(String.format(Locale.US, RISKS_URL, commune.code)));
+            JSONArray data = response.optJSONArray("data");
+            if (data == null || data.length() == 0) {
+                return "[]";
+            }
+            JSONArray details = data.getJSONObject(0).optJSONArray("risques_detail");
+            return details != null ? details.toString() : "[]";
+        } catch (JSONException e) {
+            throw new IOException("Réponse Géorisques invalide", e);
+        }
+    }
+
+    // GeoJSON Polygon ou MultiPolygon → anneaux lon, lat entrelacés
+    private static double[][] parseRings(JSONObject geometry) throws JSONException {
+        List<double[]> rings = new ArrayList<>();
+        JSONArray coordinates = geometry.getJSONArray("coordinates");
+        if ("MultiPolygon".equals(geometry.getString("type"))) {
+            for (int p = 0; p < coordinates.length(); p++) {
+                addRings(coordinates.getJSONArray(p), rings);
+            }
+        } else {
+            addRings(coordinates, rings);
+        }
+        return rings.toArray(new double[0][]);
+    }
+
+    private static void addRings(JSONArray polygon, List<double[]> rings) throws JSONException {
+        for (int r = 0; r < polygon.length(); r++) {
+            JSONArray points = polygon.getJSONArray(r);
+            double[] ring = new double[points.length() * 2];
+            for (int i = 0; i < points.length(); i++) {
+                JSONArray point = points.getJSONArray(i);
+                ring[i * 2] = point.getDouble(0);
+                ring[i * 2 + 1] = point.getDouble(1);
+            }
+            rings.add(ring);
+        }
+    }
+
+    private static String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("Accept", "application/json");
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " pour " + url);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Appel POST /auth/refresh du TokenBroker sur HttpURLConnection (Java pur).
+ */
+public final class HttpTokenRefresher implements TokenBroker.Refresher {
+    private static final int TIMEOUT_MS = 10000;
+
+    private final Supplier<String> baseUrl;
+
+    public HttpTokenRefresher(Supplier<String> baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public TokenBroker.Tokens refresh(String refreshToken) throws IOException {
+        String base = baseUrl.get();
+        if (base == null || base.isEmpty()) {
+            throw new IOException("URL API inconnue");
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + "/auth/refresh").openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+
+            byte[] body = ("{\"refreshToken\":\"" + escape(refreshToken) + "\"}").getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == 400 || status == 401 || status == 403) {
+                throw new TokenBroker.SessionExpiredException("Refresh token refusé (" + status + ")");
+            }
+            if (status < 200 || status >= 300) {
+                throw new IOException("Refresh en échec: HTTP " + status);
+            }
+
+            String response = readFully(connection.getInputStream());
+            return new TokenBroker.Tokens(jsonString(response, "accessToken"), jsonString(response, "refreshToken"));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Les JWT sont en base64url : pas de guillemet ni d'échappement à gérer
+    static String jsonString(String json, String field) {
+        Matcher matcher = Pattern.compile("\"" + field + "\"\\s*:\\s*\"([^\"\\\\]*)\"").matcher(json);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
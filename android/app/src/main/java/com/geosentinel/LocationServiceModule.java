@@ -3,18 +3,29 @@ package com.geosentinel;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import java.util.ArrayList;
+import java.util.List;
 
 @ReactModule(name = LocationServiceModule.NAME)
 public class LocationServiceModule extends ReactContextBaseJavaModule {
     public static final String NAME = "LocationServiceBridge";
+    // État de queryRisksAhead (fix précédent du Headless JS), distinct de celui du service
+    private static HazardEta jsHazardEta;
     
     LocationServiceModule(ReactApplicationContext context) {
         super(context);
+        // Permet à LocationTrackingService d'émettre onLocationUpdate / onLocationBatch
+        LocationTrackingService.setReactContext(context);
     }
 
     @Override
@@ -22,35 +33,134 @@ public class LocationServiceModule extends ReactContextBaseJavaModule {
         return NAME;
     }
 
+    /**
+     * Démarre le pipeline de suivi (LocationTrackingService). options.stages
+     * choisit les étapes (voir PipelineStages) ; à défaut, alertes JS seules.
+     */
     @ReactMethod
-    public void startService(Promise promise) {
+    public void startService(ReadableMap options, Promise promise) {
         try {
             Context context = getReactApplicationContext();
-            Intent serviceIntent = new Intent(context, LocationForegroundService.class);
-            
+            Intent serviceIntent = new Intent(context, LocationTrackingService.class);
+
+            PipelineStages stages = PipelineStages.JS_ALERTS;
+            if (options.hasKey("stages")) {
+                ReadableArray ids = options.getArray("stages");
+                List<String> stageIds = new ArrayList<>();
+                for (int i = 0; i < ids.size(); i++) {
+                    stageIds.add(ids.getString(i));
+                }
+                stages = PipelineStages.parse(stageIds);
+            }
+            serviceIntent.putExtra("stages", stages.ids().toArray(new String[0]));
+
+            if (options.hasKey("tourneeType")) {
+                serviceIntent.putExtra("tourneeType", options.getString("tourneeType"));
+            }
+            if (options.hasKey("alertRadiusMeters")) {
+                serviceIntent.putExtra("alertRadiusMeters", options.getDouble("alertRadiusMeters"));
+            }
+            if (options.hasKey("riskLoadZoneKm")) {
+                serviceIntent.putExtra("riskLoadZoneKm", options.getDouble("riskLoadZoneKm"));
+            }
+            if (options.hasKey("apiCallDelayMinutes")) {
+                serviceIntent.putExtra("cacheMaxAgeMs", (long) (options.getDouble("apiCallDelayMinutes") * 60000));
+            }
+            serviceIntent.putExtra("adaptiveSampling",
+                options.hasKey("adaptiveSampling") && options.getBoolean("adaptiveSampling"));
+            serviceIntent.putExtra("tickSampling",
+                options.hasKey("tickSampling") && options.getBoolean("tickSampling"));
+            if (options.hasKey("etaAlertSeconds")) {
+                serviceIntent.putExtra("etaAlertSeconds", options.getInt("etaAlertSeconds"));
+            }
+            serviceIntent.putExtra("geofencing",
+                options.hasKey("geofencing") && options.getBoolean("geofencing"));
+            serviceIntent.putExtra("etaInterpolate",
+                options.hasKey("etaInterpolate") && options.getBoolean("etaInterpolate"));
+            if (options.hasKey("batchMaxSize")) {
+                serviceIntent.putExtra("batchMaxSize", options.getInt("batchMaxSize"));
+            }
+            if (options.hasKey("batchMaxLatencyMs")) {
+                serviceIntent.putExtra("batchMaxLatencyMs", (long) options.getDouble("batchMaxLatencyMs"));
+            }
+
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
                 context.startForegroundService(serviceIntent);
             } else {
                 context.startService(serviceIntent);
             }
-            
-            android.util.Log.d("LocationServiceModule", "Foreground service started");
+
+            android.util.Log.d("LocationServiceModule", "Pipeline started: " + stages);
             promise.resolve(true);
-            
+
         } catch (Exception e) {
             android.util.Log.e("LocationServiceModule", "Error starting service", e);
             promise.reject("ERROR", e.getMessage());
         }
     }
 
+    // Retards mesurés de la boucle de ticks du pipeline (null si la synchro ne tourne pas)
+    @ReactMethod
+    public void getTickStats(Promise promise) {
+        TickStats.Snapshot stats = LocationTrackingService.getTickStats();
+        if (stats == null) {
+            promise.resolve(null);
+            return;
+        }
+
+        WritableMap result = Arguments.createMap();
+        result.putDouble("ticks", stats.ticks);
+        result.putDouble("coalesced", stats.coalesced);
+        result.putDouble("skipped", stats.skipped);
+        result.putDouble("failures", stats.failures);
+        result.putDouble("lastLatenessMs", stats.lastLatenessMs);
+        result.putDouble("maxLatenessMs", stats.maxLatenessMs);
+        result.putDouble("meanLatenessMs", stats.meanLatenessMs);
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void resetAlertCooldowns(Promise promise) {
+        LocationTrackingService.resetAlertCooldowns(getReactApplicationContext());
+        promise.resolve(true);
+    }
+
+    // ✅ Alertes du tick Headless JS : [{ id, title, category, severity, distance, etaMs }].
+    // Une seule notification groupée, cooldowns et limite partagés avec les alertes natives.
+    @ReactMethod
+    public void dispatchRiskAlerts(ReadableArray risks, Promise promise) {
+        try {
+            List<RiskAlertDispatcher.Hit> hits = new ArrayList<>(risks.size());
+            for (int i = 0; i < risks.size(); i++) {
+                ReadableMap risk = risks.getMap(i);
+                hits.add(new RiskAlertDispatcher.Hit(
+                    risk.getString("id"),
+                    risk.hasKey("title") ? risk.getString("title") : "",
+                    risk.hasKey("category") ? risk.getString("category") : "",
+                    risk.hasKey("severity") ? risk.getString("severity") : null,
+                    risk.hasKey("distance") ? risk.getDouble("distance") : Double.NaN,
+                    risk.hasKey("etaMs") ? (long) risk.getDouble("etaMs") : 0));
+            }
+
+            RiskAlertDispatcher.Result dispatched =
+                LocationTrackingService.dispatchAlerts(getReactApplicationContext(), hits, false);
+            WritableMap result = Arguments.createMap();
+            result.putInt("notified", dispatched.notified);
+            result.putInt("held", dispatched.held);
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e("LocationServiceModule", "Error dispatching risk alerts", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
     @ReactMethod
     public void stopService(Promise promise) {
         try {
             Context context = getReactApplicationContext();
-            Intent serviceIntent = new Intent(context, LocationForegroundService.class);
-            context.stopService(serviceIntent);
+            context.stopService(new Intent(context, LocationTrackingService.class));
             
-            android.util.Log.d("LocationServiceModule", "Foreground service stopped");
+            android.util.Log.d("LocationServiceModule", "Pipeline stopped");
             promise.resolve(true);
             
         } catch (Exception e) {
@@ -58,4 +168,142 @@ public class LocationServiceModule extends ReactContextBaseJavaModule {
             promise.reject("ERROR", e.getMessage());
         }
     }
+
+    // Remplace l'index spatial natif par le contenu du cache JS (appelé après refreshRiskCache)
+    // centerLat/centerLon : position autour de laquelle la zone a été chargée
+    @ReactMethod
+    public void updateRiskIndex(ReadableArray risks, double centerLat, double centerLon, Promise promise) {
+        try {
+            int count = risks.size();
+            String[] ids = new String[count];
+            String[] titles = new String[count];
+            String[] categories = new String[count];
+            String[] severities = new String[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+
+            for (int i = 0; i < count; i++) {
+                ReadableMap risk = risks.getMap(i);
+                ids[i] = risk.getString("id");
+                titles[i] = risk.hasKey("title") ? risk.getString("title") : null;
+                categories[i] = risk.hasKey("category") ? risk.getString("category") : null;
+                severities[i] = risk.hasKey("severity") ? risk.getString("severity") : null;
+                latitudes[i] = risk.getDouble("latitude");
+                longitudes[i] = risk.getDouble("longitude");
+            }
+
+            LocationTrackingService.setRiskIndex(
+                new RiskProximityIndex(ids, titles, categories, severities, latitudes, longitudes),
+                centerLat,
+                centerLon
+            );
+
+            android.util.Log.d("LocationServiceModule", "Index des risques mis à jour: " + count + " risques");
+            promise.resolve(count);
+
+        } catch (Exception e) {
+            android.util.Log.e("LocationServiceModule", "Error updating risk index", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Zone couverte par l'index (couloir de préchargement) : sert à décider, en mode
+    // alertes natives, quand réveiller le Headless JS pour recharger
+    @ReactMethod
+    public void setRiskZone(double startLat, double startLon, double endLat, double endLon,
+                            double halfWidthMeters, Promise promise) {
+        try {
+            LocationTrackingService.setRiskZone(
+                new PrefetchCorridor(startLat, startLon, endLat, endLon, halfWidthMeters));
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Risques de l'index à moins de radiusMeters : [{ id, title, category, severity, latitude, longitude, distance }]
+    @ReactMethod
+    public void queryNearbyRisks(double latitude, double longitude, double radiusMeters, Promise promise) {
+        try {
+            RiskProximityIndex index = LocationTrackingService.getRiskIndex();
+            WritableArray result = Arguments.createArray();
+
+            if (index != null) {
+                int[] indices = new int[index.size()];
+                double[] distances = new double[index.size()];
+                int found = index.queryWithin(latitude, longitude, radiusMeters, indices, distances);
+
+                for (int i = 0; i < found; i++) {
+                    WritableMap item = Arguments.createMap();
+                    putRisk(item, index, indices[i]);
+                    item.putDouble("distance", distances[i]);
+                    result.pushMap(item);
+                }
+            }
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            android.util.Log.e("LocationServiceModule", "Error querying risk index", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Risques atteints dans moins de horizonMs sur la trajectoire courante, ou
+    // dont le rayon a été traversé depuis le fix précédent : [{ ...risque, distance, etaMs }].
+    // speed < 0 ou heading < 0 : vitesse dérivée des fixes successifs
+    @ReactMethod
+    public void queryRisksAhead(double latitude, double longitude, double speed, double heading,
+                                double timeMs, double radiusMeters, double horizonMs, Promise promise) {
+        try {
+            RiskProximityIndex index = LocationTrackingService.getRiskIndex();
+            WritableArray result = Arguments.createArray();
+
+            if (index != null) {
+                HazardEta eta = hazardEtaFor(radiusMeters, (long) horizonMs);
+                int[] indices = new int[index.size()];
+                long[] etas = new long[index.size()];
+                double[] distances = new double[index.size()];
+                int found;
+                synchronized (eta) {
+                    found = eta.update(index, latitude, longitude, (long) timeMs,
+                        speed >= 0 ? speed : Double.NaN, heading >= 0 ? heading : Double.NaN,
+                        indices, etas, distances);
+                }
+
+                for (int i = 0; i < found; i++) {
+                    WritableMap item = Arguments.createMap();
+                    putRisk(item, index, indices[i]);
+                    item.putDouble("distance", distances[i]);
+                    item.putDouble("etaMs", etas[i]);
+                    result.pushMap(item);
+                }
+            }
+
+            promise.resolve(result);
+
+        } catch (Exception e) {
+            android.util.Log.e("LocationServiceModule", "Error querying risks ahead", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Les risques de la zone ne sont gardés que côté natif : le JS notifie avec ces champs
+    private static void putRisk(WritableMap item, RiskProximityIndex index, int i) {
+        item.putString("id", index.getId(i));
+        item.putString("title", index.getTitle(i));
+        item.putString("category", index.getCategory(i));
+        item.putString("severity", index.getSeverity(i));
+        item.putDouble("latitude", index.getLatitude(i));
+        item.putDouble("longitude", index.getLongitude(i));
+    }
+
+    // Un flux de positions JS : l'état (fix précédent) est gardé tant que les paramètres ne changent pas
+    private static synchronized HazardEta hazardEtaFor(double radiusMeters, long horizonMs) {
+        if (jsHazardEta == null || jsHazardEta.getAlertRadiusMeters() != radiusMeters
+                || jsHazardEta.getHorizonMs() != horizonMs) {
+            jsHazardEta = new HazardEta(radiusMeters, horizonMs, true);
+        }
+        return jsHazardEta;
+    }
 }
\ No newline at end of file
@@ -1,20 +1,78 @@
 package com.geosentinel;
 
+import android.content.Context;
 import android.content.Intent;
+import android.location.Location;
+import android.os.SystemClock;
 import com.facebook.react.HeadlessJsTaskService;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.jstasks.HeadlessJsTaskConfig;
 import javax.annotation.Nullable;
 
 public class LocationTaskService extends HeadlessJsTaskService {
+    public static final int TASK_TIMEOUT_MS = 60000; // Timeout de 60 secondes
+
+    // Début de la tâche en cours (elapsedRealtime), 0 si aucune
+    private static volatile long busySince = 0;
+    // Maintien du CPU pendant la tâche (refresh API et contrôle des risques côté JS)
+    private static volatile WakeLockCoordinator.Hold taskHold;
+
+    // Appelé par la boucle juste avant startService : couvre aussi le délai de démarrage du JS
+    public static void markStarting(Context context) {
+        busySince = SystemClock.elapsedRealtime();
+        WakeLockCoordinator.Hold previous = taskHold;
+        taskHold = PipelineWakeLock.get(context).acquire("headless", TASK_TIMEOUT_MS);
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    // Vrai tant que la tâche précédente n'est pas terminée (borné par le timeout)
+    public static boolean isBusy() {
+        long since = busySince;
+        return since > 0 && SystemClock.elapsedRealtime() - since < TASK_TIMEOUT_MS;
+    }
+
+    // Dernier fix du pipeline, passé à la tâche : JS n'appelle plus getCurrentPosition
+    static void putFix(Intent intent, Location fix) {
+        intent.putExtra("latitude", fix.getLatitude());
+        intent.putExtra("longitude", fix.getLongitude());
+        intent.putExtra("accuracy", (double) fix.getAccuracy());
+        intent.putExtra("speed", fix.hasSpeed() ? (double) fix.getSpeed() : -1.0);
+        intent.putExtra("heading", fix.hasBearing() ? (double) fix.getBearing() : -1.0);
+        intent.putExtra("timestamp", (double) fix.getTime());
+    }
 
     @Override
     protected @Nullable HeadlessJsTaskConfig getTaskConfig(Intent intent) {
+        // taskData côté JS : { latitude, longitude, accuracy, speed, heading, timestamp } ou {}
+        WritableMap data = Arguments.createMap();
+        if (intent != null && intent.hasExtra("latitude")) {
+            for (String key : new String[] { "latitude", "longitude", "accuracy", "speed", "heading", "timestamp" }) {
+                data.putDouble(key, intent.getDoubleExtra(key, -1));
+            }
+        }
         return new HeadlessJsTaskConfig(
             "LocationTracking", // Nom de la tâche enregistrée dans index.js
-            Arguments.createMap(),
-            60000, // Timeout de 60 secondes
+            data,
+            TASK_TIMEOUT_MS,
             true  // Autorisé en foreground
         );
     }
-}
\ No newline at end of file
+
+    @Override
+    public void onHeadlessJsTaskFinish(int taskId) {
+        super.onHeadlessJsTaskFinish(taskId);
+        long since = busySince;
+        if (since > 0) {
+            Metrics.HEADLESS_TASK_MS.record(SystemClock.elapsedRealtime() - since);
+        }
+        busySince = 0;
+        WakeLockCoordinator.Hold hold = taskHold;
+        taskHold = null;
+        if (hold != null) {
+            hold.close();
+        }
+    }
+}
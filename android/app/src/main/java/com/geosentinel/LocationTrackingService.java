@@ -9,11 +9,13 @@ import android.content.Context;
 import android.content.Intent;
 import android.location.Location;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
-import android.os.PowerManager;
+import android.os.SystemClock;
 import androidx.core.app.NotificationCompat;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.bridge.ReactApplicationContext;
@@ -23,24 +25,252 @@ import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Service unique du pipeline de suivi : un seul abonnement au fournisseur de
+ * position, une seule notification permanente et un seul wake lock partagé.
+ * Les étapes actives (PipelineStages) sont choisies par JS au démarrage :
+ * source → filtre (FixFilter) → proximité → notification, et la synchro
+ * (PipelineSync : ticks, file sortante, tâche Headless JS).
+ */
 public class LocationTrackingService extends Service {
     private static final String CHANNEL_ID = "location_tracking_channel";
     private static final int NOTIFICATION_ID = 12345;
     
     private FusedLocationProviderClient fusedLocationClient;
     private LocationCallback locationCallback;
-    private PowerManager.WakeLock wakeLock;
     
-    private long timeInterval = 10000; // 10 secondes par défaut
-    private int distanceInterval = 10; // 10 mètres par défaut
     private String tourneeType = "velo";
+    private PipelineStages stages = PipelineStages.JS_ALERTS;
+    private FixFilter fixFilter;
+    private PipelineSync sync;
+    // Politique d'échantillonnage GPS : fixe par type de tournée, ou adaptative
+    private SamplingPolicy samplingPolicy = SamplingPolicy.Fixed.forTourneeType(tourneeType);
+    private SamplingPolicy.Decision currentSampling;
+    
+    private static final String ALERT_CHANNEL_ID = "risk-alerts-final";
     
     private static ReactApplicationContext reactContext;
+    // Index spatial des risques en cache, remplacé en bloc à chaque refresh
+    private static volatile RiskProximityIndex riskIndex;
+    private static volatile long riskIndexUpdatedAt = 0;
+    private static volatile double riskIndexCenterLat;
+    private static volatile double riskIndexCenterLon;
+    // Zone chargée par JS (cercle ou couloir) ; null = cercle riskLoadZoneKm autour du centre
+    private static volatile PrefetchCorridor riskZone;
+    
+    // Mode alertes natives : le callback GPS notifie lui-même, le Headless JS
+    // n'est réveillé que pour rafraîchir le cache
+    private static volatile boolean nativeAlertsActive = false;
+    private static volatile long cacheMaxAgeMs = 180000; // 3 min, comme updateInterval côté JS
+    private static volatile double riskLoadZoneKm = 3;
+    private static volatile long taskIntervalMs = 30000;
+    private static volatile Location lastFix;
+    // Alertes regroupées par contrôle, limitées par canal ; cooldowns persistés entre redémarrages
+    public static final String ALERT_STATE_FILE_NAME = "risk_alerts.state";
+    private static RiskAlertDispatcher alertDispatcher;
+    private static final ExecutorService alertStateExecutor = Executors.newSingleThreadExecutor();
+    // Entrées geofence retenues par la limite : renotifiées à la recharge du seau
+    private static final Handler alertRetryHandler = new Handler(Looper.getMainLooper());
+    private static Runnable alertRetry;
+    
+    private volatile double alertRadiusMeters = 100;
+    private int[] nearbyIndices = new int[0];
+    private double[] nearbyDistances = new double[0];
+    // Alerte au temps d'arrivée (voiture) : null = test de distance seul
+    private long etaHorizonMs = 0;
+    private boolean etaInterpolate = false;
+    private HazardEta hazardEta;
+    private long[] nearbyEtas = new long[0];
+    // Mode geofencing : fixes passifs tant que les geofences couvrent la position
+    private boolean passiveSampling = false;
+    private final Handler coverageHandler = new Handler(Looper.getMainLooper());
+    private final Runnable coverageRunnable = this::onGeofenceCoverageChanged;
+    private final GeofenceMonitor.CoverageListener coverageListener = covering -> coverageHandler.post(coverageRunnable);
+    private final Handler samplingHandler = new Handler(Looper.getMainLooper());
+    
+    // Mode batch : fixes émis vers JS en un seul événement onLocationBatch par flush.
+    // Le regroupement au niveau du provider (maxUpdateDelay) n'est demandé que si
+    // aucune étape native ne dépend de la fraîcheur du fix (voir providerBatchDelayMs)
+    private static final int BATCH_CAPACITY = 256;
+    private LocationBatchBuffer batchBuffer;
+    private final Handler batchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable batchFlushRunnable = this::flushLocationBatch;
+    
+    // Paramètres tenant modifiés en cours de session : pris en compte sans redémarrage
+    private final SettingsStore.Listener settingsListener = settings -> {
+        if (settings == null) {
+            return;
+        }
+        alertRadiusMeters = settings.alertRadiusMeters;
+        riskLoadZoneKm = settings.riskLoadZoneKm;
+        cacheMaxAgeMs = settings.cacheMaxAgeMs();
+        if (settings.taskIntervalMs() != taskIntervalMs) {
+            taskIntervalMs = settings.taskIntervalMs();
+            if (sync != null) {
+                sync.setInterval(taskIntervalMs);
+            }
+            samplingHandler.post(this::applyTickSampling);
+        }
+        if (GeofenceMonitor.isActive()) {
+            GeofenceMonitor.start(this, alertRadiusMeters, maxGeofenceBoundaryMeters());
+        }
+    };
     
     public static void setReactContext(ReactApplicationContext context) {
         reactContext = context;
     }
+    
+    public static void setRiskIndex(RiskProximityIndex index, double centerLat, double centerLon) {
+        setRiskIndex(index, centerLat, centerLon, System.currentTimeMillis());
+    }
+    
+    public static void setRiskIndex(RiskProximityIndex index, double centerLat, double centerLon, long updatedAt) {
+        riskIndexCenterLat = centerLat;
+        riskIndexCenterLon = centerLon;
+        riskIndexUpdatedAt = updatedAt;
+        riskZone = null;
+        riskIndex = index;
+        // Nouveau cache : les geofences sont recalculées sans attendre un fix (passifs en mode geofencing)
+        Location fix = lastFix;
+        if (fix != null) {
+            GeofenceMonitor.onPosition(fix.getLatitude(), fix.getLongitude());
+        }
+    }
+    
+    public static void setRiskZone(PrefetchCorridor zone) {
+        riskZone = zone;
+    }
+    
+    /** Dernier fix accepté par le filtre, passé à la tâche Headless JS. */
+    public static Location getLastFix() {
+        return lastFix;
+    }
+
+    public static TickStats.Snapshot getTickStats() {
+        return PipelineSync.getTickStats();
+    }
+
+    public static RiskProximityIndex getRiskIndex() {
+        return riskIndex;
+    }
+    
+    public static boolean isNativeAlertsActive() {
+        return nativeAlertsActive;
+    }
+    
+    public static void resetAlertCooldowns(Context context) {
+        RiskAlertDispatcher dispatcher = getAlertDispatcher(context);
+        dispatcher.reset();
+        saveAlertState(context, dispatcher);
+    }
+
+    public static synchronized RiskAlertDispatcher getAlertDispatcher(Context context) {
+        if (alertDispatcher == null) {
+            Context appContext = context.getApplicationContext();
+            alertDispatcher = new RiskAlertDispatcher(new RiskAlertNotifier(appContext));
+            File file = new File(appContext.getFilesDir(), ALERT_STATE_FILE_NAME);
+            if (file.exists()) {
+                try {
+                    alertDispatcher.load(file);
+                    android.util.Log.d("LocationService", "📖 Cooldowns rechargés: "
+                        + alertDispatcher.trackedCount() + " risque(s)");
+                } catch (IOException e) {
+                    android.util.Log.w("LocationService", "⚠️ État des alertes illisible, repart à zéro", e);
+                }
+            }
+        }
+        return alertDispatcher;
+    }
+
+    /**
+     * Envoie les risques d'un contrôle au dispatcher (fix natif, tick JS ou geofence)
+     * et persiste l'état hors du thread appelant s'il a changé.
+     */
+    public static RiskAlertDispatcher.Result dispatchAlerts(Context context, List<RiskAlertDispatcher.Hit> hits,
+                                                            boolean entriesOnly) {
+        RiskAlertDispatcher dispatcher = getAlertDispatcher(context);
+        long now = System.currentTimeMillis();
+        RiskAlertDispatcher.Result result = entriesOnly
+            ? dispatcher.dispatchEntries(ALERT_CHANNEL_ID, hits, now)
+            : dispatcher.dispatch(ALERT_CHANNEL_ID, hits, now);
+        onAlertResult(context, dispatcher, result, now);
+        return result;
+    }
+
+    private static void onAlertResult(Context context, RiskAlertDispatcher dispatcher,
+                                      RiskAlertDispatcher.Result result, long now) {
+        if (result.notified > 0) {
+            Metrics.NATIVE_ALERTS.add(result.notified);
+            Metrics.ALERT_NOTIFICATIONS.increment();
+            android.util.Log.d("LocationService", "🚨 Notification groupée: " + result.notified + " risque(s)");
+        }
+        if (result.held > 0) {
+            Metrics.ALERTS_RATE_LIMITED.increment();
+            android.util.Log.d("LocationService", "⏳ " + result.held + " risque(s) retenu(s) par la limite");
+        }
+        if (result.stateChanged) {
+            saveAlertState(context, dispatcher);
+        }
+        scheduleAlertRetry(context, dispatcher.pendingDelayMs(ALERT_CHANNEL_ID, now));
+    }
+
+    private static synchronized void scheduleAlertRetry(Context context, long delayMs) {
+        if (alertRetry != null) {
+            alertRetryHandler.removeCallbacks(alertRetry);
+            alertRetry = null;
+        }
+        if (delayMs < 0) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        alertRetry = () -> {
+            RiskAlertDispatcher dispatcher = getAlertDispatcher(appContext);
+            long now = System.currentTimeMillis();
+            onAlertResult(appContext, dispatcher, dispatcher.flushPending(ALERT_CHANNEL_ID, now), now);
+        };
+        alertRetryHandler.postDelayed(alertRetry, delayMs);
+    }
+
+    private static void saveAlertState(Context context, RiskAlertDispatcher dispatcher) {
+        File file = new File(context.getApplicationContext().getFilesDir(), ALERT_STATE_FILE_NAME);
+        alertStateExecutor.execute(() -> {
+            try {
+                dispatcher.save(file, System.currentTimeMillis());
+            } catch (IOException e) {
+                android.util.Log.e("LocationService", "❌ Sauvegarde de l'état des alertes impossible", e);
+            }
+        });
+    }
+    
+    // Vrai si le Headless JS doit recharger : zone quittée, cache périmé, ou sortie
+    // de zone prévue avant deux ticks (préchargement)
+    public static boolean needsCacheRefresh(long now) {
+        RiskProximityIndex index = riskIndex;
+        Location fix = lastFix;
+        if (index == null || fix == null) {
+            return RiskCacheRefresh.isNeeded(index != null ? index.size() : 0,
+                now - riskIndexUpdatedAt, cacheMaxAgeMs, 0, riskLoadZoneKm);
+        }
+        PrefetchCorridor zone = riskZone;
+        if (zone == null) {
+            zone = PrefetchCorridor.circle(riskIndexCenterLat, riskIndexCenterLon, riskLoadZoneKm * 1000);
+        }
+        if (RiskCacheRefresh.isNeeded(index.size(), now - riskIndexUpdatedAt, cacheMaxAgeMs,
+                zone, fix.getLatitude(), fix.getLongitude())) {
+            return true;
+        }
+        return fix.hasSpeed() && fix.hasBearing()
+            && zone.prefetchDue(fix.getLatitude(), fix.getLongitude(), fix.getSpeed(), fix.getBearing(),
+                PrefetchCorridor.leadMs(taskIntervalMs));
+    }
 
     @Override
     public void onCreate() {
@@ -48,107 +278,453 @@ public class LocationTrackingService extends Service {
         
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
         
-        // Créer le canal de notification
-        createNotificationChannel();
+        // Redémarrage à chaud (START_STICKY) : on repart de la dernière zone persistée
+        if (riskIndex == null) {
+            RiskCacheModule.loadForService(this);
+        }
         
-        // Acquérir Wake Lock
-        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
-        wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, "GestionRisques::LocationWakeLock");
-        wakeLock.acquire();
+        SettingsStoreModule.getStore(this).addListener(settingsListener);
+        GeofenceMonitor.setCoverageListener(coverageListener);
         
-        android.util.Log.d("LocationService", "Service créé avec Wake Lock");
+        // Lire l'intervalle des ticks depuis le snapshot en mémoire, à défaut depuis les préférences
+        LocationSettings settings = SettingsStoreModule.getStore(this).get();
+        taskIntervalMs = settings != null
+            ? settings.taskIntervalMs()
+            : PreferencesModule.getTaskIntervalForService(this);
+        
+        // Créer les canaux de notification
+        createNotificationChannel();
+        createAlertChannel();
+        
+        // Pas de wake lock permanent : maintiens courts autour de chaque travail,
+        // comptés pour cette session (voir PipelineWakeLock)
+        PipelineWakeLock.get(this).endSession();
+        android.util.Log.d("LocationService", "Service créé");
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         // Récupérer les paramètres
         if (intent != null) {
-            tourneeType = intent.getStringExtra("tourneeType");
+            if (intent.hasExtra("tourneeType")) {
+                tourneeType = intent.getStringExtra("tourneeType");
+            }
+            String[] stageIds = intent.getStringArrayExtra("stages");
+            if (stageIds != null) {
+                stages = PipelineStages.parse(Arrays.asList(stageIds));
+            }
+            alertRadiusMeters = intent.getDoubleExtra("alertRadiusMeters", alertRadiusMeters);
+            riskLoadZoneKm = intent.getDoubleExtra("riskLoadZoneKm", riskLoadZoneKm);
+            cacheMaxAgeMs = intent.getLongExtra("cacheMaxAgeMs", cacheMaxAgeMs);
+            nativeAlertsActive = stages.has(PipelineStages.Stage.NOTIFIER);
+            etaHorizonMs = intent.getIntExtra("etaAlertSeconds", 0) * 1000L;
+            etaInterpolate = intent.getBooleanExtra("etaInterpolate", false);
+            hazardEta = null;
+            if (nativeAlertsActive && intent.getBooleanExtra("geofencing", false)) {
+                GeofenceMonitor.start(this, alertRadiusMeters, maxGeofenceBoundaryMeters());
+            } else {
+                GeofenceMonitor.stop();
+            }
+            configureBatching(
+                intent.getIntExtra("batchMaxSize", 0),
+                intent.getLongExtra("batchMaxLatencyMs", 0)
+            );
             
-            // Configurer selon le type de tournée
-            switch (tourneeType) {
-                case "pieds":
-                    timeInterval = 30000; // 30 secondes
-                    distanceInterval = 30; // 30 mètres
-                    break;
-                case "velo":
-                    timeInterval = 15000; // 15 secondes
-                    distanceInterval = 10; // 10 mètres
-                    break;
-                case "voiture":
-                    timeInterval = 10000; // 10 secondes
-                    distanceInterval = 10; // 10 mètres
-                    break;
+            // Configurer selon le type de tournée (pieds 30s/30m, velo 15s/10m, voiture 10s/10m),
+            // ou un fix équilibré par tick quand seule la tâche Headless lit la position
+            if (intent.getBooleanExtra("adaptiveSampling", false)) {
+                samplingPolicy = AdaptiveSamplingPolicy.forTourneeType(tourneeType);
+            } else if (intent.getBooleanExtra("tickSampling", false)) {
+                samplingPolicy = new SamplingPolicy.PerTick(taskIntervalMs);
+            } else {
+                samplingPolicy = SamplingPolicy.Fixed.forTourneeType(tourneeType);
             }
         }
         
         // Démarrer en foreground
         startForeground(NOTIFICATION_ID, createNotification());
         
-        // Démarrer le tracking GPS
-        startLocationUpdates();
+        // Source : un seul abonnement GPS pour toutes les étapes et la tâche Headless
+        if (stages.has(PipelineStages.Stage.SOURCE)) {
+            fixFilter = stages.has(PipelineStages.Stage.FILTER)
+                ? FixFilter.forAlertRadius(alertRadiusMeters)
+                : null;
+            startLocationUpdates();
+        } else if (locationCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+        }
         
-        android.util.Log.d("LocationService", "Service démarré - Mode: " + tourneeType);
+        // Sync : redémarrée si le mode d'alerte change (ticks Headless sautés ou non)
+        if (sync != null) {
+            sync.stop();
+            sync = null;
+        }
+        if (stages.has(PipelineStages.Stage.SYNC)) {
+            sync = new PipelineSync(this, nativeAlertsActive);
+            sync.start(taskIntervalMs);
+        }
+        
+        android.util.Log.d("LocationService", "Service démarré - Mode: " + tourneeType + ", étapes: " + stages);
         
         // START_STICKY = relance automatique si tué
         return START_STICKY;
     }
 
     private void startLocationUpdates() {
-        try {
-            LocationRequest locationRequest = new LocationRequest.Builder(
-                Priority.PRIORITY_HIGH_ACCURACY,
-                timeInterval
-            )
-            .setMinUpdateIntervalMillis(timeInterval / 2)
-            .setMinUpdateDistanceMeters(distanceInterval)
-            .build();
-            
+        if (locationCallback == null) {
             locationCallback = new LocationCallback() {
                 @Override
                 public void onLocationResult(LocationResult locationResult) {
                     if (locationResult == null) {
                         return;
                     }
-                    
-                    for (Location location : locationResult.getLocations()) {
-                        sendLocationToReactNative(location);
+                    try (WakeLockCoordinator.Hold hold = PipelineWakeLock.get(LocationTrackingService.this)
+                            .acquire("alerte", PipelineWakeLock.ALERT_TIMEOUT_MS)) {
+                        onFixes(locationResult);
                     }
                 }
             };
+        }
+        
+        // Premier fix : réglages "proche d'un risque" tant qu'on ne connaît pas la position
+        requestLocationUpdates(samplingPolicy.decide(0, 0, alertRadiusMeters));
+        android.util.Log.d("LocationService", "Tracking GPS démarré (" + currentSampling + ")");
+    }
+
+    // Fixes reçus : filtre, recherche des risques, alertes natives, envoi à JS et réglage du GPS
+    private void onFixes(LocationResult locationResult) {
+        Location last = null;
+        Location coarse = null;
+        for (Location location : locationResult.getLocations()) {
+            Metrics.GPS_FIXES.increment();
+            Metrics.GPS_FIX_LATENCY_MS.record(fixAgeMs(location));
+            if (fixFilter != null && !fixFilter.accept(location.getLatitude(), location.getLongitude(),
+                    location.hasAccuracy() ? location.getAccuracy() : 0,
+                    location.getElapsedRealtimeNanos() / 1000000L)) {
+                Metrics.GPS_FIXES_REJECTED.increment();
+                if (fixFilter.lastRejectedInaccurate()) {
+                    coarse = location;
+                }
+                continue;
+            }
+            lastFix = location;
+            last = location;
+            int nearbyCount = stages.has(PipelineStages.Stage.PROXIMITY) ? findNearbyRisks(location) : 0;
+            if (nativeAlertsActive) {
+                notifyNearbyRisks(nearbyCount, location);
+            }
+            if (batchBuffer != null) {
+                batchBuffer.add(location.getLatitude(), location.getLongitude(),
+                    location.getAccuracy(), location.getTime(), nearbyCount,
+                    SystemClock.elapsedRealtime());
+            } else {
+                sendLocationToReactNative(location, nearbyCount);
+            }
+        }
+        
+        if (batchBuffer != null) {
+            scheduleBatchFlush();
+        }
+        
+        if (last != null) {
+            GeofenceMonitor.onPosition(last.getLatitude(), last.getLongitude());
+            updateSampling(last);
+        } else if (coarse != null) {
+            // Fixes trop imprécis pour les alertes (précision équilibrée) : ils règlent quand même
+            // le GPS, sinon aucun fix accepté ne ramènerait la haute précision à l'approche d'un risque
+            updateSampling(coarse);
+        }
+    }
+
+    private void requestLocationUpdates(SamplingPolicy.Decision decision) {
+        try {
+            int priority = passiveSampling ? Priority.PRIORITY_PASSIVE
+                : decision.highAccuracy ? Priority.PRIORITY_HIGH_ACCURACY : Priority.PRIORITY_BALANCED_POWER_ACCURACY;
+            LocationRequest locationRequest = new LocationRequest.Builder(priority, decision.intervalMs)
+            .setMinUpdateIntervalMillis(decision.intervalMs / 2)
+            .setMinUpdateDistanceMeters(decision.minDistanceMeters)
+            .setMaxUpdateDelayMillis(providerBatchDelayMs())
+            .build();
             
+            // Remplace la demande en cours (même callback)
+            fusedLocationClient.removeLocationUpdates(locationCallback);
             fusedLocationClient.requestLocationUpdates(
                 locationRequest,
                 locationCallback,
                 Looper.getMainLooper()
             );
-            
-            android.util.Log.d("LocationService", "Tracking GPS démarré");
+            currentSampling = decision;
             
         } catch (SecurityException e) {
             android.util.Log.e("LocationService", "Erreur permissions", e);
         }
     }
 
-    private void sendLocationToReactNative(Location location) {
+    // Ajuste intervalle et précision selon la vitesse et la distance au risque le plus proche.
+    // La position réelle peut être jusqu'à la précision du fix plus près du risque
+    private void updateSampling(Location location) {
+        double speed = location.hasSpeed() ? location.getSpeed() : 0;
+        double accuracy = location.hasAccuracy() ? location.getAccuracy() : 0;
+        double searchRadius = samplingPolicy.searchRadiusMeters(speed, alertRadiusMeters);
+        RiskProximityIndex index = riskIndex;
+        double nearest;
+        if (searchRadius <= 0) {
+            nearest = Double.POSITIVE_INFINITY;
+        } else if (index == null) {
+            // Cache pas encore chargé : distance inconnue, on reste en réglages "proche d'un risque"
+            nearest = 0;
+        } else {
+            nearest = Math.max(0, index.nearestDistance(location.getLatitude(), location.getLongitude(),
+                searchRadius + accuracy) - accuracy);
+        }
+        
+        SamplingPolicy.Decision next = samplingPolicy.decide(speed, nearest, alertRadiusMeters);
+        // Geofences en place : le système détecte les entrées, plus besoin de demander des fixes
+        boolean passive = GeofenceMonitor.isCovering();
+        if (passive != passiveSampling) {
+            passiveSampling = passive;
+            android.util.Log.d("LocationService", passive
+                ? "🧭 Geofences actives : fixes passifs" : "Geofences insuffisantes : reprise du GPS");
+            requestLocationUpdates(next);
+        } else if (next.differsSignificantlyFrom(currentSampling)) {
+            android.util.Log.d("LocationService", "Échantillonnage: " + currentSampling + " → " + next);
+            requestLocationUpdates(next);
+        }
+    }
+
+    // Intervalle des ticks modifié en cours de session : la demande GPS du preset JS le suit
+    private void applyTickSampling() {
+        if (!(samplingPolicy instanceof SamplingPolicy.PerTick) || locationCallback == null) {
+            return;
+        }
+        samplingPolicy = new SamplingPolicy.PerTick(taskIntervalMs);
+        requestLocationUpdates(samplingPolicy.decide(0, 0, alertRadiusMeters));
+    }
+
+    // Couverture perdue hors d'un fix (rotation incomplète, échec d'enregistrement) :
+    // en fixes passifs aucun fix ne viendrait relancer le GPS, on le fait ici
+    private void onGeofenceCoverageChanged() {
+        if (sync != null) {
+            sync.onCoverageChanged();
+        }
+        if (locationCallback == null || !stages.has(PipelineStages.Stage.SOURCE)) {
+            return;
+        }
+        Location fix = lastFix;
+        if (fix != null) {
+            updateSampling(fix);
+            return;
+        }
+        boolean passive = GeofenceMonitor.isCovering();
+        if (passive != passiveSampling) {
+            passiveSampling = passive;
+            requestLocationUpdates(samplingPolicy.decide(0, 0, alertRadiusMeters));
+        }
+    }
+
+    // Interroge l'index natif : pas de parcours complet du cache ni de réveil JS.
+    // Avec l'alerte au temps d'arrivée, les risques atteints dans moins de
+    // etaHorizonMs sur la trajectoire courante sont aussi renvoyés (HazardEta)
+    private int findNearbyRisks(Location location) {
+        RiskProximityIndex index = riskIndex;
+        if (index == null || index.size() == 0) {
+            return 0;
+        }
+        if (nearbyIndices.length < index.size()) {
+            nearbyIndices = new int[index.size()];
+            nearbyDistances = new double[index.size()];
+            nearbyEtas = new long[index.size()];
+        }
+        if (etaAlertsEnabled()) {
+            // Rayon modifié en cours de session : la trajectoire repart du fix courant
+            if (hazardEta == null || hazardEta.getAlertRadiusMeters() != alertRadiusMeters) {
+                hazardEta = new HazardEta(alertRadiusMeters, etaHorizonMs, etaInterpolate);
+            }
+            return hazardEta.update(
+                index,
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getElapsedRealtimeNanos() / 1000000L,
+                location.hasSpeed() ? location.getSpeed() : Double.NaN,
+                location.hasBearing() ? location.getBearing() : Double.NaN,
+                nearbyIndices,
+                nearbyEtas,
+                nearbyDistances
+            );
+        }
+        return index.queryWithin(
+            location.getLatitude(),
+            location.getLongitude(),
+            alertRadiusMeters,
+            nearbyIndices,
+            nearbyDistances
+        );
+    }
+
+    private boolean etaAlertsEnabled() {
+        return etaHorizonMs > 0 || etaInterpolate;
+    }
+
+    // Temps écoulé depuis l'acquisition du fix (horloge monotone, comme le fix)
+    private static long fixAgeMs(Location location) {
+        return (SystemClock.elapsedRealtimeNanos() - location.getElapsedRealtimeNanos()) / 1000000L;
+    }
+
+    // Notifie les risques trouvés par findNearbyRisks en une notification groupée (RiskAlertDispatcher)
+    private void notifyNearbyRisks(int nearbyCount, Location location) {
+        RiskProximityIndex index = riskIndex;
+        if (index == null) {
+            return;
+        }
+
+        List<RiskAlertDispatcher.Hit> hits = new ArrayList<>(nearbyCount);
+        for (int i = 0; i < nearbyCount; i++) {
+            long etaMs = etaAlertsEnabled() ? nearbyEtas[i] : 0;
+            hits.add(toHit(index, nearbyIndices[i], nearbyDistances[i], etaMs));
+        }
+
+        if (dispatchAlerts(this, hits, false).notified > 0) {
+            Metrics.FIX_TO_NOTIFICATION_MS.record(fixAgeMs(location));
+        }
+    }
+
+    // Position de la transition : en fixes passifs, c'est souvent la seule position récente
+    public static void onGeofenceLocation(Location location) {
+        lastFix = location;
+    }
+
+    /**
+     * Entrées dans des geofences de risque (GeofenceBroadcastReceiver) : même
+     * dispatcher, donc même cooldown et même limite que les alertes à chaque fix.
+     */
+    public static void notifyGeofenceEntries(Context context, List<String> enteredIds, Location location) {
+        RiskProximityIndex index = riskIndex;
+        if (index == null) {
+            return;
+        }
+
+        List<RiskAlertDispatcher.Hit> hits = new ArrayList<>(enteredIds.size());
+        for (String id : enteredIds) {
+            int entry = GeofenceMonitor.entryOf(id);
+            if (entry < 0) {
+                continue;
+            }
+            double distance = location != null
+                ? GeoMath.haversineMeters(location.getLatitude(), location.getLongitude(),
+                    index.getLatitude(entry), index.getLongitude(entry))
+                : Double.NaN;
+            hits.add(toHit(index, entry, distance, 0));
+        }
+
+        int notified = dispatchAlerts(context, hits, true).notified;
+        if (notified > 0) {
+            Metrics.GEOFENCE_ALERTS.add(notified);
+        }
+    }
+
+    private static RiskAlertDispatcher.Hit toHit(RiskProximityIndex index, int entry, double distance, long etaMs) {
+        return new RiskAlertDispatcher.Hit(index.getId(entry), index.getTitle(entry), index.getCategory(entry),
+            index.getSeverity(entry), distance, etaMs);
+    }
+
+    // Frontière maximale des geofences : la position reste à plus de REFRESH_MARGIN_METERS
+    // du bord de la zone en cache, les risques non enregistrés au-delà sont connus
+    private double maxGeofenceBoundaryMeters() {
+        return PrefetchCorridor.REFRESH_MARGIN_METERS - alertRadiusMeters - GeofencePlanner.SAFETY_MARGIN_METERS;
+    }
+
+    private void sendLocationToReactNative(Location location, int nearbyRiskCount) {
         if (reactContext != null && reactContext.hasActiveCatalystInstance()) {
             WritableMap params = Arguments.createMap();
             params.putDouble("latitude", location.getLatitude());
             params.putDouble("longitude", location.getLongitude());
             params.putDouble("accuracy", location.getAccuracy());
             params.putDouble("timestamp", location.getTime());
+            params.putInt("nearbyRiskCount", nearbyRiskCount);
             
             reactContext
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit("onLocationUpdate", params);
-            
-            android.util.Log.d("LocationService", 
-                String.format("Position: %.4f, %.4f", 
-                    location.getLatitude(), 
-                    location.getLongitude()));
         }
     }
 
+    // Proximité, alertes, HazardEta, échantillonnage et geofences travaillent sur chaque
+    // fix à sa réception : un fix retenu par le provider arriverait jusqu'à
+    // maxLatencyMs trop tard (et lastFix, lu par la tâche Headless, serait périmé).
+    // Dans ce cas seul l'envoi à JS est regroupé.
+    private long providerBatchDelayMs() {
+        if (batchBuffer == null
+                || stages.has(PipelineStages.Stage.PROXIMITY)
+                || stages.has(PipelineStages.Stage.NOTIFIER)) {
+            return 0;
+        }
+        return batchBuffer.getMaxLatencyMs();
+    }
+
+    // batchMaxSize <= 0 : un événement onLocationUpdate par fix (comportement historique)
+    private void configureBatching(int maxBatchSize, long maxLatencyMs) {
+        flushLocationBatch();
+        if (maxBatchSize <= 0) {
+            batchBuffer = null;
+            return;
+        }
+        int size = Math.min(maxBatchSize, BATCH_CAPACITY);
+        batchBuffer = new LocationBatchBuffer(BATCH_CAPACITY, size, Math.max(0, maxLatencyMs));
+        android.util.Log.d("LocationService", "📦 Mode batch: " + size + " fixes / " + maxLatencyMs + "ms max");
+    }
+
+    private void scheduleBatchFlush() {
+        batchHandler.removeCallbacks(batchFlushRunnable);
+        long now = SystemClock.elapsedRealtime();
+        if (batchBuffer.shouldFlush(now)) {
+            flushLocationBatch();
+            return;
+        }
+        long delay = batchBuffer.millisUntilDue(now);
+        if (delay >= 0) {
+            batchHandler.postDelayed(batchFlushRunnable, delay);
+        }
+    }
+
+    // Un seul événement par flush, en tableaux parallèles (pas de map par fix)
+    private void flushLocationBatch() {
+        batchHandler.removeCallbacks(batchFlushRunnable);
+        LocationBatchBuffer buffer = batchBuffer;
+        if (buffer == null || buffer.size() == 0) {
+            return;
+        }
+        if (reactContext == null || !reactContext.hasActiveCatalystInstance()) {
+            // JS absent : on garde les fixes, le tampon écrase les plus anciens
+            return;
+        }
+
+        WritableArray latitudes = Arguments.createArray();
+        WritableArray longitudes = Arguments.createArray();
+        WritableArray accuracies = Arguments.createArray();
+        WritableArray timestamps = Arguments.createArray();
+        WritableArray nearbyRiskCounts = Arguments.createArray();
+        int count = buffer.drainTo((latitude, longitude, accuracy, timestamp, nearbyRiskCount) -> {
+            latitudes.pushDouble(latitude);
+            longitudes.pushDouble(longitude);
+            accuracies.pushDouble(accuracy);
+            timestamps.pushDouble(timestamp);
+            nearbyRiskCounts.pushInt(nearbyRiskCount);
+        });
+
+        WritableMap params = Arguments.createMap();
+        params.putInt("count", count);
+        params.putArray("latitudes", latitudes);
+        params.putArray("longitudes", longitudes);
+        params.putArray("accuracies", accuracies);
+        params.putArray("timestamps", timestamps);
+        params.putArray("nearbyRiskCounts", nearbyRiskCounts);
+        params.putDouble("dropped", buffer.getDropped());
+
+        reactContext
+            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+            .emit("onLocationBatch", params);
+    }
+
     private void createNotificationChannel() {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             NotificationChannel channel = new NotificationChannel(
@@ -163,6 +739,22 @@ public class LocationTrackingService extends Service {
         }
     }
 
+    // Même canal que les alertes notifee du Headless JS
+    private void createAlertChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                ALERT_CHANNEL_ID,
+                "Alertes risques",
+                NotificationManager.IMPORTANCE_HIGH
+            );
+            channel.setDescription("Alertes de proximité des risques");
+            channel.enableVibration(true);
+            
+            NotificationManager notificationManager = getSystemService(NotificationManager.class);
+            notificationManager.createNotificationChannel(channel);
+        }
+    }
+
     private Notification createNotification() {
         Intent notificationIntent = new Intent(this, MainActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(
@@ -198,9 +790,29 @@ public class LocationTrackingService extends Service {
             fusedLocationClient.removeLocationUpdates(locationCallback);
         }
         
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
+        flushLocationBatch();
+        batchHandler.removeCallbacks(batchFlushRunnable);
+        
+        SettingsStoreModule.getStore(this).removeListener(settingsListener);
+        GeofenceMonitor.setCoverageListener(null);
+        coverageHandler.removeCallbacks(coverageRunnable);
+        samplingHandler.removeCallbacksAndMessages(null);
+        GeofenceMonitor.stop();
+        if (sync != null) {
+            sync.stop();
         }
+        nativeAlertsActive = false;
+        lastFix = null;
+        if (fixFilter != null) {
+            android.util.Log.d("LocationService", "Filtre: " + fixFilter);
+        }
+        
+        // Temps de maintien cumulé de la session (union des maintiens, pas sa durée totale)
+        WakeLockCoordinator.Stats wakeStats = PipelineWakeLock.get(this).endSession();
+        Metrics.WAKE_LOCK_HOLD_MS.record(wakeStats.heldMs);
+        Metrics.WAKE_LOCK_TIMEOUTS.add(wakeStats.timeouts);
+        android.util.Log.d("LocationService", "🔋 Wake lock session: " + wakeStats);
+        MetricsModule.dumpFromService(this, true);
         
         android.util.Log.d("LocationService", "Service arrêté");
     }
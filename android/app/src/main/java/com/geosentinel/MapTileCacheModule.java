@@ -0,0 +1,173 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.os.Process;
+import android.util.Base64;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MapTileCacheModule extends ReactContextBaseJavaModule {
+    // Répertoire du cache disque (voir MapTileCache), sous cacheDir : vidable par le système
+    public static final String CACHE_DIR_NAME = "map_tiles";
+    private static final long MAX_CACHE_BYTES = 50L * 1024 * 1024;
+    private static final String KEY_TILE_TTL_HOURS = "mapTileTtlHours";
+    private static final int DEFAULT_TILE_TTL_HOURS = 7 * 24;
+    // Fichiers Leaflet versionnés : jamais périmés, retéléchargés seulement si évincés
+    private static final long ASSET_TTL_MS = Long.MAX_VALUE;
+    // Rayon préchargé : la carte est bornée à ~1 km autour de l'utilisateur
+    private static final double PREFETCH_RADIUS_KM = 1.0;
+
+    private static MapTileCache cache;
+    private static MapTilePrefetcher prefetcher;
+    // Tuiles affichées par la carte (le nombre de connexions est borné par HttpTileFetcher)
+    private static final ExecutorService tileExecutor = Executors.newFixedThreadPool(2);
+    // Préchargement : un seul thread en priorité basse, derrière les tuiles affichées
+    private static final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(runnable ->
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "map-tile-prefetch"));
+    // Incrémenté à la fermeture de la carte : les préchargements en cours s'arrêtent
+    private static final AtomicInteger prefetchGeneration = new AtomicInteger();
+
+    public MapTileCacheModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "MapTileCacheModule";
+    }
+
+    // ✅ Fichier texte (JS/CSS Leaflet) depuis le cache disque, téléchargé au premier appel
+    @ReactMethod
+    public void getAsset(String url, Promise promise) {
+        Context context = getReactApplicationContext();
+        tileExecutor.execute(() -> {
+            try {
+                if (!url.startsWith("https://")) {
+                    throw new IllegalArgumentException("URL non HTTPS: " + url);
+                }
+                String key = "asset-" + Integer.toHexString(url.hashCode()) + "-"
+                    + url.substring(url.lastIndexOf('/') + 1);
+                byte[] data = getCache(context).get(key, url, ASSET_TTL_MS, new HttpTileFetcher());
+                promise.resolve(new String(data, StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // ✅ Tuile PNG en base64, servie à la WebView depuis le cache si elle est fraîche
+    @ReactMethod
+    public void getTile(int z, int x, int y, Promise promise) {
+        Context context = getReactApplicationContext();
+        tileExecutor.execute(() -> {
+            try {
+                byte[] data = getPrefetcher(context).getTile(z, x, y, getTileTtlMs(context));
+                promise.resolve(Base64.encodeToString(data, Base64.NO_WRAP));
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    // ✅ Préchargement de la zone affichée, uniquement tant que la carte est ouverte
+    // (politique d'usage OSM : pas de téléchargement en masse en arrière-plan)
+    @ReactMethod
+    public void prefetchZone(double latitude, double longitude, Promise promise) {
+        Context context = getReactApplicationContext();
+        int generation = prefetchGeneration.get();
+        prefetchExecutor.execute(() -> {
+            int fetched = getPrefetcher(context).prefetch(latitude, longitude, PREFETCH_RADIUS_KM,
+                getTileTtlMs(context), () -> prefetchGeneration.get() != generation);
+            promise.resolve(fetched);
+        });
+    }
+
+    // ✅ Carte fermée : arrête les préchargements en cours ou en attente
+    @ReactMethod
+    public void cancelPrefetch(Promise promise) {
+        prefetchGeneration.incrementAndGet();
+        promise.resolve(true);
+    }
+
+    // ✅ Durée de conservation des tuiles avant retéléchargement
+    @ReactMethod
+    public void setTileTtlHours(int hours, Promise promise) {
+        try {
+            if (hours <= 0) {
+                throw new IllegalArgumentException("Durée invalide: " + hours);
+            }
+            getReactApplicationContext()
+                .getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putInt(KEY_TILE_TTL_HOURS, hours)
+                .apply();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            MapTileCache.Stats stats = getCache(getReactApplicationContext()).getStats();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("hits", stats.hits);
+            result.putDouble("misses", stats.misses);
+            result.putDouble("staleHits", stats.staleHits);
+            result.putDouble("prefetched", stats.prefetched);
+            result.putDouble("bytesSaved", stats.bytesSaved);
+            result.putDouble("bytesDownloaded", stats.bytesDownloaded);
+            result.putDouble("hitRatio", stats.hitRatio());
+            result.putInt("entries", stats.entries);
+            result.putDouble("sizeBytes", stats.sizeBytes);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clear(Promise promise) {
+        try {
+            getCache(getReactApplicationContext()).clear();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    public static synchronized MapTileCache getCache(Context context) {
+        if (cache == null) {
+            File directory = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME);
+            cache = new MapTileCache(directory, MAX_CACHE_BYTES, System::currentTimeMillis);
+        }
+        return cache;
+    }
+
+    private static synchronized MapTilePrefetcher getPrefetcher(Context context) {
+        if (prefetcher == null) {
+            prefetcher = new MapTilePrefetcher(getCache(context), new HttpTileFetcher(),
+                MapTilePrefetcher.TILE_URL_TEMPLATE);
+        }
+        return prefetcher;
+    }
+
+    private static long getTileTtlMs(Context context) {
+        int hours = context.getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE)
+            .getInt(KEY_TILE_TTL_HOURS, DEFAULT_TILE_TTL_HOURS);
+        return hours * 3600000L;
+    }
+}
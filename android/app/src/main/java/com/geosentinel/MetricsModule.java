@@ -0,0 +1,119 @@
+package com.geosentinel;
+
+import android.content.Context;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MetricsModule extends ReactContextBaseJavaModule {
+    // Export tournant : metrics.jsonl + metrics.jsonl.1, 256 Ko chacun
+    public static final String DUMP_FILE_NAME = "metrics.jsonl";
+    private static final long DUMP_MAX_BYTES = 256 * 1024;
+    private static final long DUMP_INTERVAL_MS = 15 * 60 * 1000;
+
+    private static volatile long lastDumpAt = 0;
+    private static final ExecutorService dumpExecutor = Executors.newSingleThreadExecutor();
+
+    public MetricsModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "MetricsModule";
+    }
+
+    // ✅ Compteurs et histogrammes courants
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        try {
+            WritableMap counters = Arguments.createMap();
+            for (MetricsRegistry.Counter counter : Metrics.REGISTRY.getCounters()) {
+                counters.putDouble(counter.name, counter.get());
+            }
+            WritableMap histograms = Arguments.createMap();
+            for (MetricsRegistry.Histogram histogram : Metrics.REGISTRY.getHistograms()) {
+                MetricsRegistry.Histogram.Snapshot s = histogram.snapshot();
+                WritableMap values = Arguments.createMap();
+                values.putDouble("count", s.count);
+                values.putDouble("mean", s.mean());
+                values.putDouble("p50", s.percentile(0.50));
+                values.putDouble("p95", s.percentile(0.95));
+                values.putDouble("p99", s.percentile(0.99));
+                values.putDouble("max", s.max);
+                histograms.putMap(histogram.name, values);
+            }
+            WritableMap result = Arguments.createMap();
+            result.putMap("counters", counters);
+            result.putMap("histograms", histograms);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Mesures faites côté JS : seuls les noms déclarés dans Metrics sont acceptés
+    @ReactMethod
+    public void recordDuration(String name, double durationMs) {
+        MetricsRegistry.Histogram histogram = Metrics.REGISTRY.findHistogram(name);
+        if (histogram != null) {
+            histogram.record((long) durationMs);
+        }
+    }
+
+    @ReactMethod
+    public void incrementCounter(String name, double delta) {
+        MetricsRegistry.Counter counter = Metrics.REGISTRY.findCounter(name);
+        if (counter != null) {
+            counter.add((long) delta);
+        }
+    }
+
+    @ReactMethod
+    public void dumpMetrics(Promise promise) {
+        Context context = getReactApplicationContext();
+        dumpExecutor.execute(() -> {
+            try {
+                File file = dump(context);
+                promise.resolve(file.getAbsolutePath());
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    @ReactMethod
+    public void resetMetrics(Promise promise) {
+        Metrics.REGISTRY.reset();
+        promise.resolve(true);
+    }
+
+    // Méthode statique pour les services : export au plus une fois par DUMP_INTERVAL_MS
+    public static void dumpFromService(Context context, boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastDumpAt < DUMP_INTERVAL_MS) {
+            return;
+        }
+        lastDumpAt = now;
+        Context appContext = context.getApplicationContext();
+        dumpExecutor.execute(() -> {
+            try {
+                dump(appContext);
+            } catch (Exception e) {
+                android.util.Log.e("Metrics", "❌ Erreur export métriques", e);
+            }
+        });
+    }
+
+    private static File dump(Context context) throws Exception {
+        File file = new File(context.getFilesDir(), DUMP_FILE_NAME);
+        Metrics.appendTo(file, DUMP_MAX_BYTES, System.currentTimeMillis());
+        return file;
+    }
+}
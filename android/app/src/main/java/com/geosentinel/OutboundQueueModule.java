@@ -0,0 +1,203 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.SystemClock;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class OutboundQueueModule extends ReactContextBaseJavaModule {
+    // Journal partagé entre l'app et le pipeline de suivi (voir OutboundJournal)
+    public static final String JOURNAL_FILE_NAME = "outbound_queue.journal";
+    // Borne le temps passé par flush déclenché depuis un tick
+    private static final int MAX_REQUESTS_PER_FLUSH = 20;
+
+    private static OutboundQueue queue;
+    private static ConnectivityManager.NetworkCallback networkCallback;
+    // Les envois réseau ne doivent bloquer ni le thread React ni la boucle de ticks
+    private static final ExecutorService flushExecutor = Executors.newSingleThreadExecutor();
+
+    public OutboundQueueModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "OutboundQueueModule";
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        watchNetwork(getReactApplicationContext());
+    }
+
+    // ✅ URL de l'API résolue par serverConfig côté JS, relue par le transport à chaque envoi
+    @ReactMethod
+    public void setApiBaseUrl(String url, Promise promise) {
+        try {
+            getReactApplicationContext()
+                .getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE)
+                .edit()
+                .putString(PreferencesModule.KEY_API_BASE_URL, url)
+                .apply();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Met une mutation en file ; résolue une fois écrite sur disque.
+    // idempotencyKey : clé déjà envoyée par la tentative directe, réutilisée à chaque rejeu
+    @ReactMethod
+    public void enqueue(String method, String path, String body, String coalesceKey, String idempotencyKey,
+                        Promise promise) {
+        try {
+            OutboundQueue current = getQueue(getReactApplicationContext());
+            long id = current.enqueue(method, path, body, coalesceKey, idempotencyKey);
+            android.util.Log.d("OutboundQueue", "📥 Mutation en file: " + method + " " + path
+                + " (profondeur " + current.depth() + ")");
+            promise.resolve((double) id);
+        } catch (Exception e) {
+            android.util.Log.e("OutboundQueue", "❌ Erreur mise en file", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Envoi immédiat demandé par l'utilisateur (ignore le backoff)
+    @ReactMethod
+    public void flush(Promise promise) {
+        Context context = getReactApplicationContext();
+        flushExecutor.execute(() -> {
+            try {
+                OutboundQueue.FlushReport report = flushNow(context, true);
+                WritableMap result = Arguments.createMap();
+                result.putInt("requests", report.requests);
+                result.putInt("delivered", report.delivered);
+                result.putInt("rejected", report.rejected);
+                result.putInt("remaining", report.remaining);
+                promise.resolve(result);
+            } catch (Exception e) {
+                promise.reject("ERROR", e.getMessage());
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getStats(Promise promise) {
+        try {
+            OutboundQueue.Stats stats = getQueue(getReactApplicationContext()).getStats();
+            WritableMap result = Arguments.createMap();
+            result.putInt("depth", stats.depth);
+            result.putDouble("flushes", stats.flushes);
+            result.putDouble("requestsSent", stats.requestsSent);
+            result.putDouble("requestsPerFlush", stats.requestsPerFlush());
+            result.putDouble("delivered", stats.delivered);
+            result.putDouble("rejected", stats.rejected);
+            result.putDouble("coalesced", stats.coalesced);
+            result.putInt("consecutiveFailures", stats.consecutiveFailures);
+            result.putDouble("backoffRemainingMs", stats.backoffRemainingMs);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Logout : les mutations en attente appartiennent à l'utilisateur déconnecté
+    @ReactMethod
+    public void clear(Promise promise) {
+        try {
+            getQueue(getReactApplicationContext()).clear();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Méthode statique pour le service : flush opportuniste à chaque tick, hors backoff
+    public static void flushFromService(Context context) {
+        flushInBackground(context.getApplicationContext(), false);
+    }
+
+    // Réseau (re)devenu disponible : la file est rejouée sans attendre le prochain tick
+    // du pipeline, ni la fin du backoff armé pendant la coupure. Le rappel est aussi
+    // reçu à l'enregistrement si le réseau est déjà là : flush au démarrage de l'app.
+    private static synchronized void watchNetwork(Context context) {
+        if (networkCallback != null) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        ConnectivityManager connectivity = appContext.getSystemService(ConnectivityManager.class);
+        if (connectivity == null) {
+            return;
+        }
+        networkCallback = new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(Network network) {
+                android.util.Log.d("OutboundQueue", "📶 Réseau disponible : rejeu de la file");
+                flushInBackground(appContext, true);
+            }
+        };
+        connectivity.registerDefaultNetworkCallback(networkCallback);
+    }
+
+    private static void flushInBackground(Context appContext, boolean force) {
+        // Maintien pris avant la mise en file : le CPU reste éveillé jusqu'à la fin de l'envoi
+        WakeLockCoordinator.Hold hold = PipelineWakeLock.get(appContext)
+            .acquire("api", PipelineWakeLock.API_TIMEOUT_MS);
+        flushExecutor.execute(() -> {
+            try {
+                flushNow(appContext, force);
+            } catch (IOException e) {
+                android.util.Log.e("OutboundQueue", "❌ Journal illisible", e);
+            } finally {
+                hold.close();
+            }
+        });
+    }
+
+    public static synchronized OutboundQueue getQueue(Context context) throws IOException {
+        if (queue == null) {
+            File file = new File(context.getFilesDir(), JOURNAL_FILE_NAME);
+            queue = new OutboundQueue(new OutboundJournal(file), SystemClock::elapsedRealtime);
+            android.util.Log.d("OutboundQueue", "📖 Journal rechargé: " + queue.depth() + " mutation(s) en attente");
+        }
+        return queue;
+    }
+
+    private static OutboundQueue.FlushReport flushNow(Context context, boolean force) throws IOException {
+        OutboundQueue current = getQueue(context);
+        if (current.depth() == 0) {
+            return new OutboundQueue.FlushReport(0, 0, 0, 0, false);
+        }
+
+        SharedPreferences prefs = context.getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE);
+        OutboundQueue.Transport transport = new HttpOutboundTransport(
+            () -> prefs.getString(PreferencesModule.KEY_API_BASE_URL, null),
+            () -> {
+                // Token rafraîchi avant expiration par le TokenBroker partagé
+                try {
+                    return TokenBrokerModule.getBroker(context).getAccessToken();
+                } catch (IOException e) {
+                    return PreferencesModule.getAccessTokenForService(context);
+                }
+            }
+        );
+
+        OutboundQueue.FlushReport report = current.flush(transport, MAX_REQUESTS_PER_FLUSH, force);
+        if (report.requests > 0) {
+            android.util.Log.d("OutboundQueue", "📤 Flush: " + report);
+        }
+        return report;
+    }
+}
@@ -0,0 +1,188 @@
+package com.geosentinel;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.os.Build;
+import android.os.SystemClock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Étape "sync" du pipeline (LocationTrackingService) : boucle de ticks à cadence
+ * fixe. À chaque tick : file sortante, export des métriques, token, puis tâche
+ * Headless JS (refresh du cache, alertes JS). La tâche reçoit le dernier fix de
+ * la source en extras : plus de second abonnement GPS côté JS.
+ *
+ * Tant que les geofences couvrent la position, l'alarme de tick devient
+ * inexacte : le système la regroupe et Doze la diffère, les entrées de zone
+ * restant signalées par les geofences.
+ */
+final class PipelineSync {
+    // Planificateur en cours, pour exposer les statistiques de retard à JS
+    private static volatile TickScheduler activeScheduler;
+    // Maintien entre la sonnerie de l'alarme et l'exécution du tick
+    private static volatile WakeLockCoordinator.Hold alarmHold;
+
+    private final Service service;
+    private final boolean nativeAlerts;
+    private ScheduledExecutorService executor;
+    private TickScheduler scheduler;
+    private PendingIntent tickAlarm;
+    private long taskIntervalMs;
+    private long nextTickAt;
+
+    /**
+     * @param nativeAlerts les alertes sont évaluées par le pipeline : la tâche
+     *                     Headless n'est lancée que si le cache doit être rechargé
+     */
+    PipelineSync(Service service, boolean nativeAlerts) {
+        this.service = service;
+        this.nativeAlerts = nativeAlerts;
+    }
+
+    static TickStats.Snapshot getTickStats() {
+        TickScheduler current = activeScheduler;
+        return current != null ? current.getStats().snapshot() : null;
+    }
+
+    // Appelé par TickAlarmReceiver : le CPU est éveillé le temps de lancer le tick
+    static void onTickAlarm(Context context) {
+        TickScheduler current = activeScheduler;
+        if (current == null) {
+            return;
+        }
+        WakeLockCoordinator.Hold previous = alarmHold;
+        alarmHold = PipelineWakeLock.get(context).acquire("alarme", PipelineWakeLock.ALARM_TIMEOUT_MS);
+        if (previous != null) {
+            previous.close();
+        }
+        if (!current.wakeUp()) {
+            // Tick déjà exécuté par l'executor : rien à couvrir
+            releaseAlarmHold();
+        }
+    }
+
+    private static void releaseAlarmHold() {
+        WakeLockCoordinator.Hold hold = alarmHold;
+        alarmHold = null;
+        if (hold != null) {
+            hold.close();
+        }
+    }
+
+    void start(long intervalMs) {
+        if (scheduler != null && scheduler.isRunning()) {
+            return;
+        }
+        taskIntervalMs = intervalMs;
+        // Cadence fixe sur elapsedRealtime : pas de dérive, ticks coalescés si
+        // la tâche Headless précédente n'est pas terminée
+        executor = Executors.newSingleThreadScheduledExecutor();
+        scheduler = new TickScheduler(
+            executor,
+            SystemClock::elapsedRealtime,
+            LocationTaskService::isBusy,
+            this::runTick
+        );
+        scheduler.setWakeupListener(this::onTickScheduled);
+        activeScheduler = scheduler;
+        scheduler.start(intervalMs);
+        android.util.Log.d("PipelineSync", "Boucle de ticks démarrée: " + intervalMs + "ms");
+    }
+
+    void setInterval(long intervalMs) {
+        taskIntervalMs = intervalMs;
+        if (scheduler != null) {
+            scheduler.setInterval(intervalMs);
+            android.util.Log.d("PipelineSync", "Intervalle reconfiguré: " + intervalMs + "ms");
+        }
+    }
+
+    void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+            if (activeScheduler == scheduler) {
+                activeScheduler = null;
+            }
+            scheduler = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (tickAlarm != null) {
+            service.getSystemService(AlarmManager.class).cancel(tickAlarm);
+        }
+        releaseAlarmHold();
+    }
+
+    // Couverture geofence gagnée ou perdue : l'alarme du tick en attente est reprogrammée
+    synchronized void onCoverageChanged() {
+        if (scheduler != null && scheduler.isRunning()) {
+            onTickScheduled(nextTickAt);
+        }
+    }
+
+    // Tick suivant programmé : l'alarme réveillera le CPU à l'échéance
+    private synchronized void onTickScheduled(long expectedAt) {
+        nextTickAt = expectedAt;
+        if (expectedAt <= SystemClock.elapsedRealtime()) {
+            return;
+        }
+        releaseAlarmHold();
+
+        AlarmManager alarmManager = service.getSystemService(AlarmManager.class);
+        if (tickAlarm == null) {
+            tickAlarm = PendingIntent.getBroadcast(service, 0,
+                new Intent(service, TickAlarmReceiver.class), PendingIntent.FLAG_IMMUTABLE);
+        }
+        if (GeofenceMonitor.isCovering()) {
+            // Geofences en place : pas de réveil exact, le tick attend le prochain réveil du système
+            alarmManager.set(AlarmManager.ELAPSED_REALTIME_WAKEUP, expectedAt, tickAlarm);
+            return;
+        }
+        // Alarme exacte si autorisée, sinon inexacte (retardée par Doze)
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, expectedAt, tickAlarm);
+        } else {
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP, expectedAt, tickAlarm);
+        }
+    }
+
+    private void runTick() {
+        try (WakeLockCoordinator.Hold hold = PipelineWakeLock.get(service)
+                .acquire("tick", PipelineWakeLock.TICK_TIMEOUT_MS)) {
+            // Mutations hors ligne : tentative d'envoi à chaque tick (backoff géré par la file)
+            OutboundQueueModule.flushFromService(service);
+            // Export périodique des métriques (au plus toutes les 15 min)
+            MetricsModule.dumpFromService(service, false);
+            // Token valide jusqu'au tick suivant : le Headless JS n'a plus à rafraîchir sur 401
+            TokenBrokerModule.refreshAheadFromService(service, taskIntervalMs + TokenBroker.DEFAULT_REFRESH_MARGIN_MS);
+
+            // En mode alertes natives, le Headless JS ne sert plus qu'au refresh du cache
+            if (nativeAlerts && !LocationTrackingService.needsCacheRefresh(System.currentTimeMillis())) {
+                Metrics.HEADLESS_TASKS_SKIPPED.increment();
+                android.util.Log.d("PipelineSync", "Headless task skipped (native alerts, cache valide)");
+                return;
+            }
+
+            // Exécuter la tâche Headless JS avec le dernier fix de la source
+            LocationTaskService.markStarting(service);
+            Intent taskIntent = new Intent(service.getApplicationContext(), LocationTaskService.class);
+            Location fix = LocationTrackingService.getLastFix();
+            if (fix != null) {
+                LocationTaskService.putFix(taskIntent, fix);
+            }
+            service.getApplicationContext().startService(taskIntent);
+
+            android.util.Log.d("PipelineSync", "Headless task triggered" + (fix != null ? " (dernier fix fourni)" : ""));
+
+        } catch (Exception e) {
+            android.util.Log.e("PipelineSync", "Error in task loop", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+/**
+ * Wake lock unique du pipeline de suivi, partagé par le service, la tâche
+ * Headless et les appels API natifs (voir WakeLockCoordinator).
+ */
+public final class PipelineWakeLock {
+    // Timeouts des travaux : une Hold non refermée ne tient jamais le CPU plus longtemps
+    public static final long TICK_TIMEOUT_MS = 30000;
+    public static final long ALARM_TIMEOUT_MS = 10000;
+    public static final long ALERT_TIMEOUT_MS = 10000;
+    public static final long API_TIMEOUT_MS = 60000;
+
+    private static WakeLockCoordinator coordinator;
+
+    private PipelineWakeLock() {
+    }
+
+    public static synchronized WakeLockCoordinator get(Context context) {
+        if (coordinator == null) {
+            PowerManager powerManager = (PowerManager) context.getApplicationContext()
+                .getSystemService(Context.POWER_SERVICE);
+            PowerManager.WakeLock wakeLock = powerManager.newWakeLock(
+                PowerManager.PARTIAL_WAKE_LOCK, "GestionRisques::PipelineWakeLock");
+            // Non compté : chaque acquire réarme le timeout, un seul release libère
+            wakeLock.setReferenceCounted(false);
+            coordinator = new WakeLockCoordinator(new WakeLockCoordinator.PlatformLock() {
+                @Override
+                public void acquire(long timeoutMs) {
+                    wakeLock.acquire(timeoutMs);
+                }
+
+                @Override
+                public void release() {
+                    if (wakeLock.isHeld()) {
+                        wakeLock.release();
+                    }
+                }
+            }, SystemClock::elapsedRealtime);
+        }
+        return coordinator;
+    }
+}
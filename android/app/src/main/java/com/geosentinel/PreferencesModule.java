@@ -15,6 +15,8 @@ public class PreferencesModule extends ReactContextBaseJavaModule {
     // ✅ Clés pour les tokens JWT (partagés avec le background task)
     public static final String KEY_ACCESS_TOKEN = "accessToken";
     public static final String KEY_REFRESH_TOKEN = "refreshToken";
+    // URL de l'API active (serverConfig côté JS), pour les appels réseau natifs
+    public static final String KEY_API_BASE_URL = "apiBaseUrl";
     
     public PreferencesModule(ReactApplicationContext reactContext) {
         super(reactContext);
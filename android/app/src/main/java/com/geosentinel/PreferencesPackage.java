@@ -14,6 +14,16 @@ public class PreferencesPackage implements ReactPackage {
     public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
         List<NativeModule> modules = new ArrayList<>();
         modules.add(new PreferencesModule(reactContext));
+        modules.add(new RiskCacheModule(reactContext));
+        modules.add(new RiskWireModule(reactContext));
+        modules.add(new RiskImportModule(reactContext));
+        modules.add(new OutboundQueueModule(reactContext));
+        modules.add(new TokenBrokerModule(reactContext));
+        modules.add(new SettingsStoreModule(reactContext));
+        modules.add(new RiskFilterModule(reactContext));
+        modules.add(new MapTileCacheModule(reactContext));
+        modules.add(new CommuneResolverModule(reactContext));
+        modules.add(new MetricsModule(reactContext));
         return modules;
     }
 
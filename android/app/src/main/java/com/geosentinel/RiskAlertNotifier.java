@@ -0,0 +1,74 @@
+package com.geosentinel;
+
+import android.app.NotificationManager;
+import android.content.Context;
+import androidx.core.app.NotificationCompat;
+import java.util.List;
+
+/**
+ * Affichage Android des alertes groupées de RiskAlertDispatcher.
+ *
+ * Une notification par canal (tag = canal) : une nouvelle alerte remplace la
+ * précédente au lieu de s'empiler. Un seul risque garde le texte historique
+ * ("⚠️ Risque : catégorie") ; plusieurs risques donnent une notification
+ * InboxStyle, une ligne par risque dans l'ordre du dispatcher.
+ */
+public final class RiskAlertNotifier implements RiskAlertDispatcher.Notifier {
+    private static final int NOTIFICATION_ID = 12346;
+    // Lignes visibles dans la notification dépliée
+    private static final int MAX_LINES = 6;
+
+    private final Context context;
+
+    public RiskAlertNotifier(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void show(RiskAlertDispatcher.Alert alert) {
+        List<RiskAlertDispatcher.Hit> hits = alert.hits;
+        RiskAlertDispatcher.Hit first = hits.get(0);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, alert.channel)
+            .setSmallIcon(android.R.drawable.ic_dialog_alert)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_ALARM)
+            .setVibrate(new long[] { 0, 300, 500 })
+            .setAutoCancel(true);
+
+        if (hits.size() == 1) {
+            builder.setContentTitle("⚠️ Risque : " + first.category)
+                .setContentText(describeProximity(first) + " - " + first.title);
+        } else {
+            NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+            for (int i = 0; i < Math.min(hits.size(), MAX_LINES); i++) {
+                style.addLine(describeLine(hits.get(i)));
+            }
+            if (hits.size() > MAX_LINES) {
+                style.setSummaryText("+ " + (hits.size() - MAX_LINES) + " autre(s)");
+            }
+            builder.setContentTitle("⚠️ " + hits.size() + " risques à proximité")
+                .setContentText(describeLine(first))
+                .setNumber(hits.size())
+                .setStyle(style);
+        }
+
+        context.getSystemService(NotificationManager.class)
+            .notify(alert.channel, NOTIFICATION_ID, builder.build());
+    }
+
+    private static String describeLine(RiskAlertDispatcher.Hit hit) {
+        String severity = hit.severity != null && !hit.severity.isEmpty() ? "[" + hit.severity + "] " : "";
+        return severity + hit.category + " : " + describeProximity(hit) + " - " + hit.title;
+    }
+
+    // "À 80m" une fois dans le rayon, "Dans ~12s (350m)" quand l'alerte est anticipée
+    static String describeProximity(RiskAlertDispatcher.Hit hit) {
+        if (Double.isNaN(hit.distanceMeters)) {
+            return "À proximité";
+        }
+        if (hit.etaMs > 0) {
+            return "Dans ~" + Math.max(1, Math.round(hit.etaMs / 1000.0)) + "s (" + Math.round(hit.distanceMeters) + "m)";
+        }
+        return "À " + Math.round(hit.distanceMeters) + "m";
+    }
+}
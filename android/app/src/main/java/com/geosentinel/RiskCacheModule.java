@@ -0,0 +1,193 @@
+package com.geosentinel;
+
+import android.content.Context;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RiskCacheModule extends ReactContextBaseJavaModule {
+    // Fichier binaire partagé entre l'app, le Headless JS et les services (voir RiskCacheFile)
+    public static final String CACHE_FILE_NAME = "risk_cache.bin";
+    // ETag et date de chargement des tuiles de la zone (voir RiskTileIndexFile)
+    public static final String TILE_INDEX_FILE_NAME = "risk_tiles.bin";
+
+    // Risques des tuiles chargées, partagés avec RiskWireModule et gardés tant que le processus vit
+    private static final RiskTileStore tileStore = new RiskTileStore();
+
+    public RiskCacheModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "RiskCacheModule";
+    }
+
+    // ✅ Fusionne les tuiles de la zone gardées côté natif (RiskWireModule.fetchRiskTile),
+    // persiste la zone et l'index des tuiles puis met à jour l'index de proximité.
+    // zone / retained : [{ row, col }] ; retained = toutes les tuiles que le JS garde.
+    // Renvoie { count, missing } : missing = tuiles de la zone qui ne sont plus gardées
+    @ReactMethod
+    public void commitRiskTiles(ReadableArray zone, ReadableArray retained, double centerLat, double centerLon,
+                                Promise promise) {
+        try {
+            int[] zoneRows = rows(zone);
+            int[] zoneCols = cols(zone);
+            tileStore.retain(rows(retained), cols(retained));
+
+            RiskCacheFile.Snapshot snapshot = tileStore.merge(
+                zoneRows, zoneCols, centerLat, centerLon, System.currentTimeMillis());
+            Context context = getReactApplicationContext();
+            RiskCacheFile.write(getCacheFile(context), snapshot);
+            RiskTileIndexFile.write(getTileIndexFile(context), tileStore.index(zoneRows, zoneCols));
+            LocationTrackingService.setRiskIndex(snapshot.toIndex(), centerLat, centerLon, snapshot.savedAt);
+
+            WritableArray missing = Arguments.createArray();
+            for (int[] tile : tileStore.missing(zoneRows, zoneCols)) {
+                missing.pushString(tile[0] + ":" + tile[1]);
+            }
+            WritableMap result = Arguments.createMap();
+            result.putInt("count", snapshot.size());
+            result.putArray("missing", missing);
+
+            android.util.Log.d("RiskCacheModule", "✅ Cache risques sauvegardé: " + snapshot.size() + " risques");
+            promise.resolve(result);
+        } catch (Exception e) {
+            android.util.Log.e("RiskCacheModule", "❌ Erreur sauvegarde cache", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Relit le dernier cache et ses tuiles (null si absent ou corrompu).
+    // Les risques restent côté natif : le JS ne reçoit que leur nombre et les métadonnées des tuiles
+    @ReactMethod
+    public void loadRiskCache(Promise promise) {
+        try {
+            Context context = getReactApplicationContext();
+            RiskCacheFile.Snapshot snapshot = loadForService(context);
+            if (snapshot == null) {
+                promise.resolve(null);
+                return;
+            }
+
+            WritableArray tiles = Arguments.createArray();
+            for (RiskTileStore.Tile tile : restoreTiles(context, snapshot)) {
+                WritableMap map = Arguments.createMap();
+                map.putInt("row", tile.row);
+                map.putInt("col", tile.col);
+                map.putString("etag", tile.etag);
+                map.putDouble("fetchedAt", tile.fetchedAt);
+                map.putInt("bytes", tile.bytes);
+                map.putInt("count", tile.risks.size());
+                tiles.pushMap(map);
+            }
+
+            WritableMap result = Arguments.createMap();
+            result.putInt("count", snapshot.size());
+            result.putDouble("centerLat", snapshot.centerLat);
+            result.putDouble("centerLon", snapshot.centerLon);
+            result.putDouble("savedAt", snapshot.savedAt);
+            result.putArray("tiles", tiles);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clearRiskCache(Promise promise) {
+        try {
+            File file = getCacheFile(getReactApplicationContext());
+            File tileIndex = getTileIndexFile(getReactApplicationContext());
+            boolean deleted = (!file.exists() || file.delete()) && (!tileIndex.exists() || tileIndex.delete());
+            tileStore.clear();
+            android.util.Log.d("RiskCacheModule", "🧹 Cache risques supprimé");
+            promise.resolve(deleted);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Méthode statique pour les services : recharge le cache et installe l'index natif
+    public static RiskCacheFile.Snapshot loadForService(Context context) {
+        File file = getCacheFile(context);
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            RiskCacheFile.Snapshot snapshot = RiskCacheFile.read(file);
+            if (LocationTrackingService.getRiskIndex() == null) {
+                LocationTrackingService.setRiskIndex(
+                    snapshot.toIndex(), snapshot.centerLat, snapshot.centerLon, snapshot.savedAt);
+            }
+            android.util.Log.d("RiskCacheModule", "📖 Cache risques relu: " + snapshot.size() + " risques");
+            return snapshot;
+        } catch (Exception e) {
+            android.util.Log.e("RiskCacheModule", "❌ Cache illisible, suppression", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    public static RiskTileStore getTileStore() {
+        return tileStore;
+    }
+
+    // Tuiles de la zone relue, rangées dans le store si le JS les a perdues (nouveau contexte
+    // Headless). Index illisible ou absent : aucune tuile, elles seront simplement retéléchargées
+    private static List<RiskTileStore.Tile> restoreTiles(Context context, RiskCacheFile.Snapshot snapshot) {
+        File file = getTileIndexFile(context);
+        List<RiskTileIndexFile.Tile> index = new ArrayList<>();
+        if (file.exists()) {
+            try {
+                index = RiskTileIndexFile.read(file);
+            } catch (Exception e) {
+                android.util.Log.e("RiskCacheModule", "❌ Index des tuiles illisible, suppression", e);
+                file.delete();
+            }
+        }
+        if (tileStore.size() == 0) {
+            tileStore.restore(snapshot, index);
+        }
+        List<RiskTileStore.Tile> tiles = new ArrayList<>();
+        for (RiskTileIndexFile.Tile entry : index) {
+            RiskTileStore.Tile tile = tileStore.get(entry.row, entry.col);
+            if (tile != null) {
+                tiles.add(tile);
+            }
+        }
+        return tiles;
+    }
+
+    private static int[] rows(ReadableArray tiles) {
+        int[] rows = new int[tiles.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = tiles.getMap(i).getInt("row");
+        }
+        return rows;
+    }
+
+    private static int[] cols(ReadableArray tiles) {
+        int[] cols = new int[tiles.size()];
+        for (int i = 0; i < cols.length; i++) {
+            cols[i] = tiles.getMap(i).getInt("col");
+        }
+        return cols;
+    }
+
+    public static File getCacheFile(Context context) {
+        return new File(context.getFilesDir(), CACHE_FILE_NAME);
+    }
+
+    public static File getTileIndexFile(Context context) {
+        return new File(context.getFilesDir(), TILE_INDEX_FILE_NAME);
+    }
+}
@@ -0,0 +1,73 @@
+package com.geosentinel;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+
+public class RiskFilterModule extends ReactContextBaseJavaModule {
+    // Index des lignes de ListRisksScreen, dans l'ordre de chargement des pages
+    private final RiskFilterIndex index = new RiskFilterIndex();
+
+    public RiskFilterModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "RiskFilterModule";
+    }
+
+    @ReactMethod
+    public void resetIndex(Promise promise) {
+        index.clear();
+        promise.resolve(0);
+    }
+
+    // ✅ Ajoute une page de risques ({ categoryId, severity, creatorId }), retourne le nombre de lignes
+    @ReactMethod
+    public void appendRisks(ReadableArray risks, Promise promise) {
+        try {
+            int count = risks.size();
+            for (int i = 0; i < count; i++) {
+                ReadableMap risk = risks.getMap(i);
+                index.append(
+                    optString(risk, "categoryId"),
+                    optString(risk, "severity"),
+                    optString(risk, "creatorId")
+                );
+            }
+            promise.resolve(index.size());
+        } catch (Exception e) {
+            android.util.Log.e("RiskFilterModule", "❌ Erreur indexation risques", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Numéros de lignes satisfaisant tous les filtres fournis (clé absente ou null = pas de filtre)
+    @ReactMethod
+    public void query(ReadableMap filters, Promise promise) {
+        try {
+            int[] rows = index.query(
+                optString(filters, "categoryId"),
+                optString(filters, "severity"),
+                optString(filters, "creatorId")
+            );
+            WritableArray result = Arguments.createArray();
+            for (int row : rows) {
+                result.pushInt(row);
+            }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    private static String optString(ReadableMap map, String key) {
+        return map.hasKey(key) && !map.isNull(key) ? map.getString(key) : null;
+    }
+}
@@ -0,0 +1,171 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.SystemClock;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RiskImportModule extends ReactContextBaseJavaModule {
+    public static final String PROGRESS_EVENT = "onRiskImportProgress";
+    // Au plus une mise à jour de progression toutes les PROGRESS_INTERVAL_MS vers le JS
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    // Un seul import à la fois ; la validation a son propre pool dans RiskImport
+    private static final ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+    private static volatile RiskImport current;
+
+    public RiskImportModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "RiskImportModule";
+    }
+
+    // ✅ Importe un fichier GeoJSON ou CSV (uri content:// ou file://).
+    // categories : [{ id, name, label }] du tenant, pour résoudre la colonne catégorie.
+    @ReactMethod
+    public void startImport(String uri, String format, ReadableArray categories, double dedupeRadiusMeters,
+                            Promise promise) {
+        Context context = getReactApplicationContext();
+        RiskImport.Config config = toConfig(categories, dedupeRadiusMeters);
+        RiskImport importer = new RiskImport(config);
+        current = importer;
+        importExecutor.execute(() -> {
+            try (RiskImport.Source source = openSource(context, uri, format)) {
+                SharedPreferences prefs = context.getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE);
+                HttpRiskImportUploader uploader = new HttpRiskImportUploader(
+                    () -> prefs.getString(PreferencesModule.KEY_API_BASE_URL, null),
+                    TokenBrokerModule.getBroker(context));
+
+                long[] lastEmit = { 0 };
+                RiskImport.Report report = importer.run(source, uploader, progress -> {
+                    long now = SystemClock.elapsedRealtime();
+                    if (now - lastEmit[0] >= PROGRESS_INTERVAL_MS) {
+                        lastEmit[0] = now;
+                        emitProgress(progress, false);
+                    }
+                });
+                emitProgress(report.totals, true);
+                if (uploader.isBulkUnsupported()) {
+                    android.util.Log.w("RiskImport", "⚠️ /risks/bulk-create absent, import fait risque par risque");
+                }
+                Metrics.RISK_IMPORT_UPLOADED.add(report.totals.uploaded);
+                Metrics.RISK_IMPORT_REJECTED.add(report.totals.invalid + report.totals.failed);
+                android.util.Log.d("RiskImport", "📥 Import terminé: " + report);
+                promise.resolve(toMap(report));
+            } catch (IOException e) {
+                android.util.Log.e("RiskImport", "❌ Import en échec", e);
+                promise.reject("IMPORT", e.getMessage());
+            } catch (Exception e) {
+                android.util.Log.e("RiskImport", "❌ Import en échec", e);
+                promise.reject("ERROR", e.getMessage());
+            } finally {
+                if (current == importer) {
+                    current = null;
+                }
+            }
+        });
+    }
+
+    // ✅ Arrête l'import en cours ; startImport résout avec cancelled = true
+    @ReactMethod
+    public void cancelImport(Promise promise) {
+        RiskImport importer = current;
+        if (importer != null) {
+            importer.cancel();
+        }
+        promise.resolve(importer != null);
+    }
+
+    // Requis par NativeEventEmitter
+    @ReactMethod
+    public void addListener(String eventName) {
+    }
+
+    @ReactMethod
+    public void removeListeners(double count) {
+    }
+
+    private static RiskImport.Source openSource(Context context, String uri, String format) throws IOException {
+        InputStream in = context.getContentResolver().openInputStream(Uri.parse(uri));
+        if (in == null) {
+            throw new IOException("Fichier illisible: " + uri);
+        }
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        try {
+            return "csv".equalsIgnoreCase(format) ? new CsvRiskReader(reader) : new GeoJsonRiskReader(reader);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private static RiskImport.Config toConfig(ReadableArray categories, double dedupeRadiusMeters) {
+        int count = categories != null ? categories.size() : 0;
+        String[] ids = new String[count];
+        String[] names = new String[count];
+        String[] labels = new String[count];
+        for (int i = 0; i < count; i++) {
+            ReadableMap category = categories.getMap(i);
+            ids[i] = category.getString("id");
+            names[i] = category.hasKey("name") ? category.getString("name") : null;
+            labels[i] = category.hasKey("label") ? category.getString("label") : null;
+        }
+        // Les risques déjà en cache ne sont pas recréés
+        return new RiskImport.Config(ids, names, labels, LocationTrackingService.getRiskIndex(),
+            dedupeRadiusMeters > 0 ? dedupeRadiusMeters : RiskImport.DEFAULT_DEDUPE_RADIUS_METERS,
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    private void emitProgress(RiskImport.Progress progress, boolean done) {
+        ReactApplicationContext reactContext = getReactApplicationContext();
+        if (!reactContext.hasActiveCatalystInstance()) {
+            return;
+        }
+        WritableMap event = toMap(progress);
+        event.putBoolean("done", done);
+        reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+            .emit(PROGRESS_EVENT, event);
+    }
+
+    private static WritableMap toMap(RiskImport.Progress progress) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("read", progress.read);
+        map.putDouble("invalid", progress.invalid);
+        map.putDouble("duplicates", progress.duplicates);
+        map.putDouble("uploaded", progress.uploaded);
+        map.putDouble("failed", progress.failed);
+        return map;
+    }
+
+    private static WritableMap toMap(RiskImport.Report report) {
+        WritableMap map = toMap(report.totals);
+        map.putBoolean("cancelled", report.cancelled);
+        map.putDouble("durationMs", report.durationMs);
+        WritableArray errors = Arguments.createArray();
+        for (String error : report.errors) {
+            errors.pushString(error);
+        }
+        map.putArray("errors", errors);
+        return map;
+    }
+}
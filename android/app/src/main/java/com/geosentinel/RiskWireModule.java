@@ -0,0 +1,73 @@
+package com.geosentinel;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class RiskWireModule extends ReactContextBaseJavaModule {
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    // Décodage hors du thread JS ; autant de threads que de tuiles chargées en parallèle
+    // (MAX_CONCURRENT_FETCHES de riskTileCache.ts)
+    private static final int FETCH_THREADS = 4;
+    private static final ExecutorService fetchExecutor = Executors.newFixedThreadPool(FETCH_THREADS);
+    private static final RiskWireClient client = new RiskWireClient(CONNECT_TIMEOUT_MS, READ_TIMEOUT_MS);
+
+    public RiskWireModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "RiskWireModule";
+    }
+
+    // ✅ Charge la tuile (row, col) : /risks/nearby sur son cercle circonscrit, en format compact
+    // si le serveur le propose, JSON projeté sinon. Les risques restent dans le store de
+    // RiskCacheModule, qui porte aussi l'ETag : le JS ne reçoit que des compteurs.
+    // { notModified, etag, bytes, downloaded, kept, format } ; kept = -1 si un 304 arrive
+    // pour une tuile qui n'est plus gardée
+    @ReactMethod
+    public void fetchRiskTile(String baseUrl, String accessToken, int row, int col, double radiusKm,
+                              Promise promise) {
+        fetchExecutor.execute(() -> {
+            try {
+                RiskTileStore store = RiskCacheModule.getTileStore();
+                long now = System.currentTimeMillis();
+                RiskWireClient.Response response = client.fetchNearby(
+                    baseUrl, accessToken, RiskTileStore.tileCenterLat(row), RiskTileStore.tileCenterLon(col),
+                    radiusKm, store.etag(row, col), now);
+                Metrics.RISK_WIRE_BYTES.add(response.bytes);
+                if (!response.notModified && !response.binary) {
+                    Metrics.RISK_WIRE_JSON_FALLBACKS.increment();
+                }
+
+                WritableMap result = Arguments.createMap();
+                result.putBoolean("notModified", response.notModified);
+                if (response.notModified) {
+                    result.putInt("downloaded", 0);
+                    result.putInt("kept", store.revalidate(row, col, now));
+                } else {
+                    result.putInt("downloaded", response.risks.size());
+                    result.putInt("kept", store.put(row, col, response.risks, response.etag, now, response.bytes));
+                }
+                result.putString("etag", response.etag);
+                result.putInt("bytes", response.bytes);
+                result.putString("format", response.binary ? "binary" : "json");
+                promise.resolve(result);
+            } catch (RiskWireClient.UnauthorizedException e) {
+                // Le JS rafraîchit le token puis relance la synchronisation
+                promise.reject("UNAUTHORIZED", e.getMessage());
+            } catch (Exception e) {
+                android.util.Log.w("RiskWireModule", "⚠️ /risks/nearby en échec: " + e.getMessage());
+                promise.reject("NETWORK", e.getMessage());
+            }
+        });
+    }
+}
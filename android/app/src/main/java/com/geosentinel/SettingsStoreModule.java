@@ -0,0 +1,145 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import java.util.concurrent.Executors;
+
+public class SettingsStoreModule extends ReactContextBaseJavaModule {
+    // Clés SharedPreferences de la session (même fichier que PreferencesModule)
+    private static final String KEY_API_CALL_DELAY = "apiCallDelayMinutes";
+    private static final String KEY_POSITION_TEST_DELAY = "positionTestDelaySeconds";
+    private static final String KEY_RISK_LOAD_ZONE = "riskLoadZoneKm";
+    private static final String KEY_ALERT_RADIUS = "alertRadiusMeters";
+    private static final String KEY_NOTIFY_COMMUNE = "notifyCommuneChange";
+    private static final String KEY_NATIVE_ALERTS = "nativeAlerts";
+
+    private static SettingsStore store;
+
+    public SettingsStoreModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "SettingsStoreModule";
+    }
+
+    // ✅ Tous les paramètres de la session en un appel, une seule écriture disque
+    @ReactMethod
+    public void setLocationSettings(ReadableMap settings, Promise promise) {
+        try {
+            LocationSettings next = new LocationSettings(
+                settings.getString("tourneeType"),
+                settings.getInt("apiCallDelayMinutes"),
+                settings.getInt("positionTestDelaySeconds"),
+                settings.getDouble("riskLoadZoneKm"),
+                settings.getDouble("alertRadiusMeters"),
+                settings.hasKey("notifyCommuneChange") && settings.getBoolean("notifyCommuneChange"),
+                settings.hasKey("nativeAlerts") && settings.getBoolean("nativeAlerts")
+            );
+            getStore(getReactApplicationContext()).set(next);
+            android.util.Log.d("SettingsStore", "✅ Paramètres session: " + next);
+            promise.resolve(true);
+        } catch (Exception e) {
+            android.util.Log.e("SettingsStore", "❌ Erreur paramètres session", e);
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // ✅ Snapshot en mémoire (null si aucune session), sans lecture disque
+    @ReactMethod
+    public void getLocationSettings(Promise promise) {
+        try {
+            LocationSettings settings = getStore(getReactApplicationContext()).get();
+            if (settings == null) {
+                promise.resolve(null);
+                return;
+            }
+            WritableMap result = Arguments.createMap();
+            result.putString("tourneeType", settings.tourneeType);
+            result.putInt("apiCallDelayMinutes", settings.apiCallDelayMinutes);
+            result.putInt("positionTestDelaySeconds", settings.positionTestDelaySeconds);
+            result.putDouble("riskLoadZoneKm", settings.riskLoadZoneKm);
+            result.putDouble("alertRadiusMeters", settings.alertRadiusMeters);
+            result.putBoolean("notifyCommuneChange", settings.notifyCommuneChange);
+            result.putBoolean("nativeAlerts", settings.nativeAlerts);
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clearLocationSettings(Promise promise) {
+        try {
+            getStore(getReactApplicationContext()).clear();
+            promise.resolve(true);
+        } catch (Exception e) {
+            promise.reject("ERROR", e.getMessage());
+        }
+    }
+
+    // Méthode statique pour les services : chargé une fois depuis SharedPreferences
+    public static synchronized SettingsStore getStore(Context context) {
+        if (store == null) {
+            SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE);
+            store = new SettingsStore(read(prefs), settings -> write(prefs, settings),
+                Executors.newSingleThreadExecutor());
+        }
+        return store;
+    }
+
+    private static LocationSettings read(SharedPreferences prefs) {
+        String tourneeType = prefs.getString(PreferencesModule.KEY_TOURNEE_TYPE, null);
+        if (tourneeType == null || !prefs.contains(KEY_API_CALL_DELAY)) {
+            return null;
+        }
+        try {
+            return new LocationSettings(
+                tourneeType,
+                prefs.getInt(KEY_API_CALL_DELAY, 0),
+                prefs.getInt(KEY_POSITION_TEST_DELAY, 0),
+                prefs.getFloat(KEY_RISK_LOAD_ZONE, 0),
+                prefs.getFloat(KEY_ALERT_RADIUS, 0),
+                prefs.getBoolean(KEY_NOTIFY_COMMUNE, false),
+                prefs.getBoolean(KEY_NATIVE_ALERTS, false)
+            );
+        } catch (IllegalArgumentException e) {
+            android.util.Log.w("SettingsStore", "⚠️ Paramètres persistés invalides, ignorés");
+            return null;
+        }
+    }
+
+    // Un seul edit() par écriture ; taskInterval et tourneeType restent lisibles
+    // par PreferencesModule.getTaskIntervalForService
+    private static void write(SharedPreferences prefs, LocationSettings settings) {
+        SharedPreferences.Editor editor = prefs.edit();
+        if (settings == null) {
+            editor.remove(PreferencesModule.KEY_TOURNEE_TYPE)
+                .remove(KEY_API_CALL_DELAY)
+                .remove(KEY_POSITION_TEST_DELAY)
+                .remove(KEY_RISK_LOAD_ZONE)
+                .remove(KEY_ALERT_RADIUS)
+                .remove(KEY_NOTIFY_COMMUNE)
+                .remove(KEY_NATIVE_ALERTS);
+        } else {
+            editor.putString(PreferencesModule.KEY_TOURNEE_TYPE, settings.tourneeType)
+                .putInt(PreferencesModule.KEY_TASK_INTERVAL, (int) settings.taskIntervalMs())
+                .putInt(KEY_API_CALL_DELAY, settings.apiCallDelayMinutes)
+                .putInt(KEY_POSITION_TEST_DELAY, settings.positionTestDelaySeconds)
+                .putFloat(KEY_RISK_LOAD_ZONE, (float) settings.riskLoadZoneKm)
+                .putFloat(KEY_ALERT_RADIUS, (float) settings.alertRadiusMeters)
+                .putBoolean(KEY_NOTIFY_COMMUNE, settings.notifyCommuneChange)
+                .putBoolean(KEY_NATIVE_ALERTS, settings.nativeAlerts);
+        }
+        editor.apply();
+    }
+}
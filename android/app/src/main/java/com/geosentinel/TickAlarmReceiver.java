@@ -0,0 +1,13 @@
+package com.geosentinel;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+// Alarme de réveil du prochain tick : le CPU peut dormir entre deux ticks
+public class TickAlarmReceiver extends BroadcastReceiver {
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PipelineSync.onTickAlarm(context);
+    }
+}
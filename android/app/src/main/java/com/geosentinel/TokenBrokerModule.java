@@ -0,0 +1,127 @@
+package com.geosentinel;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReactMethod;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TokenBrokerModule extends ReactContextBaseJavaModule {
+    private static TokenBroker broker;
+    // Le refresh réseau ne doit pas bloquer le thread des modules natifs
+    private static final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+    public TokenBrokerModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    @Override
+    public String getName() {
+        return "TokenBrokerModule";
+    }
+
+    // ✅ Token valide (rafraîchi si proche de l'expiration) ; null si la session a expiré
+    @ReactMethod
+    public void getAccessToken(String apiUrl, Promise promise) {
+        Context context = getReactApplicationContext();
+        rememberApiUrl(context, apiUrl);
+        // Cas courant : token en cache encore valide, servi sans passer derrière un refresh en cours
+        String valid = getBroker(context).peekValidToken();
+        if (valid != null) {
+            promise.resolve(valid);
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                promise.resolve(getBroker(context).getAccessToken());
+            } catch (TokenBroker.SessionExpiredException e) {
+                android.util.Log.w("TokenBroker", "⚠️ Session expirée: " + e.getMessage());
+                promise.resolve(null);
+            } catch (Exception e) {
+                promise.reject("NETWORK", e.getMessage());
+            }
+        });
+    }
+
+    // ✅ Après un 401 : un seul refresh même si plusieurs requêtes échouent en même temps
+    @ReactMethod
+    public void refreshAfterUnauthorized(String apiUrl, String staleToken, Promise promise) {
+        Context context = getReactApplicationContext();
+        rememberApiUrl(context, apiUrl);
+        refreshExecutor.execute(() -> {
+            try {
+                promise.resolve(getBroker(context).refreshAfterUnauthorized(staleToken));
+            } catch (TokenBroker.SessionExpiredException e) {
+                android.util.Log.w("TokenBroker", "⚠️ Session expirée: " + e.getMessage());
+                promise.resolve(null);
+            } catch (Exception e) {
+                promise.reject("NETWORK", e.getMessage());
+            }
+        });
+    }
+
+    // Méthode statique pour le service : renouvelle le token avant le prochain tick
+    public static void refreshAheadFromService(Context context, long horizonMs) {
+        Context appContext = context.getApplicationContext();
+        WakeLockCoordinator.Hold hold = PipelineWakeLock.get(appContext)
+            .acquire("api", PipelineWakeLock.API_TIMEOUT_MS);
+        refreshExecutor.execute(() -> {
+            try {
+                if (getBroker(appContext).refreshIfExpiringWithin(horizonMs)) {
+                    android.util.Log.d("TokenBroker", "🔄 Token renouvelé avant expiration");
+                }
+            } catch (IOException e) {
+                android.util.Log.w("TokenBroker", "⚠️ Refresh anticipé impossible: " + e.getMessage());
+            } finally {
+                hold.close();
+            }
+        });
+    }
+
+    public static synchronized TokenBroker getBroker(Context context) {
+        if (broker == null) {
+            Context appContext = context.getApplicationContext();
+            SharedPreferences prefs = appContext.getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE);
+            TokenBroker.Store store = new TokenBroker.Store() {
+                @Override
+                public String getAccessToken() {
+                    return prefs.getString(PreferencesModule.KEY_ACCESS_TOKEN, null);
+                }
+
+                @Override
+                public String getRefreshToken() {
+                    return prefs.getString(PreferencesModule.KEY_REFRESH_TOKEN, null);
+                }
+
+                @Override
+                public void saveTokens(String accessToken, String refreshToken) {
+                    prefs.edit()
+                        .putString(PreferencesModule.KEY_ACCESS_TOKEN, accessToken)
+                        .putString(PreferencesModule.KEY_REFRESH_TOKEN, refreshToken)
+                        .apply();
+                }
+            };
+            broker = new TokenBroker(
+                store,
+                new HttpTokenRefresher(() -> prefs.getString(PreferencesModule.KEY_API_BASE_URL, null)),
+                System::currentTimeMillis,
+                TokenBroker.DEFAULT_REFRESH_MARGIN_MS
+            );
+        }
+        return broker;
+    }
+
+    private static void rememberApiUrl(Context context, String apiUrl) {
+        if (apiUrl == null || apiUrl.isEmpty()) {
+            return;
+        }
+        SharedPreferences prefs = context.getSharedPreferences(PreferencesModule.PREFS_NAME, Context.MODE_PRIVATE);
+        if (!apiUrl.equals(prefs.getString(PreferencesModule.KEY_API_BASE_URL, null))) {
+            prefs.edit().putString(PreferencesModule.KEY_API_BASE_URL, apiUrl).apply();
+        }
+    }
+}
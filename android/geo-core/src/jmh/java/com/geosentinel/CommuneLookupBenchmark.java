@@ -0,0 +1,66 @@
+package com.geosentinel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Commune courante depuis les contours en cache (100 communes, contours à 200 sommets). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommuneLookupBenchmark {
+    private static final int GRID = 10;
+    private static final double SIZE_DEG = 0.03;
+    private static final double LAT0 = 45.6;
+    private static final double LON0 = 4.7;
+
+    private CommuneIndex index;
+    private final double[] lats = new double[1024];
+    private final double[] lons = new double[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = new CommuneIndex();
+        for (int r = 0; r < GRID; r++) {
+            for (int c = 0; c < GRID; c++) {
+                index.put(new CommuneBoundary("c" + r + "_" + c, "Commune",
+                    new double[][] { square(LON0 + c * SIZE_DEG, LAT0 + r * SIZE_DEG, SIZE_DEG, 50) },
+                    "[]", 0));
+            }
+        }
+        Random random = new Random(1);
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = LAT0 + random.nextDouble() * GRID * SIZE_DEG;
+            lons[i] = LON0 + random.nextDouble() * GRID * SIZE_DEG;
+        }
+    }
+
+    @Benchmark
+    public CommuneBoundary find() {
+        next = (next + 1) & (lats.length - 1);
+        return index.find(lats[next], lons[next]);
+    }
+
+    // Carré dont chaque côté compte `perSide` sommets, comme un contour réel simplifié
+    private static double[] square(double lon0, double lat0, double size, int perSide) {
+        double[] ring = new double[perSide * 4 * 2];
+        int k = 0;
+        for (int side = 0; side < 4; side++) {
+            for (int i = 0; i < perSide; i++) {
+                double t = (double) i / perSide * size;
+                double x = side == 0 ? t : side == 1 ? size : side == 2 ? size - t : 0;
+                double y = side == 0 ? 0 : side == 1 ? t : side == 2 ? size : size - t;
+                ring[k++] = lon0 + x;
+                ring[k++] = lat0 + y;
+            }
+        }
+        return ring;
+    }
+}
@@ -0,0 +1,85 @@
+package com.geosentinel;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Rotation des geofences : sélection des 99 risques les plus proches et de la
+ * frontière par GeofencePlanner, comparée au tri complet des distances.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeofencePlannerBenchmark {
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+    private static final int FENCES = GeofencePlanner.MAX_GEOFENCES - 1;
+
+    @Param({ "1000", "10000", "100000" })
+    public int riskCount;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private RiskProximityIndex index;
+    private GeofencePlanner planner;
+    private long[] sortKeys;
+    // Positions de rotation précalculées
+    private final double[] queryLats = new double[1024];
+    private final double[] queryLons = new double[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random data = new Random(42);
+        String[] ids = new String[riskCount];
+        latitudes = new double[riskCount];
+        longitudes = new double[riskCount];
+        for (int i = 0; i < riskCount; i++) {
+            ids[i] = "risk-" + i;
+            latitudes[i] = CENTER_LAT + (data.nextDouble() * 2 - 1) * 0.5;
+            longitudes[i] = CENTER_LON + (data.nextDouble() * 2 - 1) * 0.7;
+        }
+        index = new RiskProximityIndex(ids, latitudes, longitudes);
+        planner = new GeofencePlanner(FENCES, 100, 2500);
+        sortKeys = new long[riskCount];
+
+        Random random = new Random(1);
+        for (int i = 0; i < queryLats.length; i++) {
+            queryLats[i] = CENTER_LAT + (random.nextDouble() * 2 - 1) * 0.4;
+            queryLons[i] = CENTER_LON + (random.nextDouble() * 2 - 1) * 0.6;
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (queryLats.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public GeofencePlanner.Plan planner() {
+        int q = nextQuery();
+        return planner.plan(index, queryLats[q], queryLons[q]);
+    }
+
+    // Référence : distance à tous les risques puis tri (distance en cm, indice en poids faible)
+    @Benchmark
+    public long fullSort() {
+        int q = nextQuery();
+        for (int i = 0; i < riskCount; i++) {
+            long centimeters = (long) (GeoMath.haversineMeters(queryLats[q], queryLons[q],
+                latitudes[i], longitudes[i]) * 100);
+            sortKeys[i] = (centimeters << 20) | i;
+        }
+        Arrays.sort(sortKeys);
+        return sortKeys[Math.min(FENCES, riskCount - 1)];
+    }
+}
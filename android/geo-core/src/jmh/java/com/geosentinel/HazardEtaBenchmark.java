@@ -0,0 +1,103 @@
+package com.geosentinel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Alerte au temps d'arrivée (HazardEta) comparée au seul test de distance, sur
+ * une tournée en voiture (25 m/s, un fix toutes les 10 s, rayon 100 m).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HazardEtaBenchmark {
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+    private static final double RADIUS_METERS = 100;
+    private static final double SPEED_MPS = 25;
+    private static final long FIX_INTERVAL_MS = 10000;
+
+    @Param({ "1000", "10000", "100000" })
+    public int riskCount;
+
+    private RiskProximityIndex index;
+    private HazardEta distanceOnly;
+    private HazardEta eta;
+    private HazardEta etaInterpolated;
+    private final int[] out = new int[256];
+    private final long[] etas = new long[256];
+    private final double[] distances = new double[256];
+    // Fixes précalculés sur une boucle de ~40 km de rayon : 250 m entre deux fixes
+    private final double[] fixLats = new double[1024];
+    private final double[] fixLons = new double[1024];
+    private final double[] fixBearings = new double[1024];
+    private int next;
+    private long timeMs;
+
+    @Setup
+    public void setUp() {
+        Random data = new Random(42);
+        String[] ids = new String[riskCount];
+        double[] latitudes = new double[riskCount];
+        double[] longitudes = new double[riskCount];
+        for (int i = 0; i < riskCount; i++) {
+            ids[i] = "risk-" + i;
+            latitudes[i] = CENTER_LAT + (data.nextDouble() * 2 - 1) * 0.5;
+            longitudes[i] = CENTER_LON + (data.nextDouble() * 2 - 1) * 0.7;
+        }
+        index = new RiskProximityIndex(ids, latitudes, longitudes);
+        distanceOnly = new HazardEta(RADIUS_METERS, 0, false);
+        eta = new HazardEta(RADIUS_METERS, 20000, false);
+        etaInterpolated = new HazardEta(RADIUS_METERS, 20000, true);
+
+        double loopRadius = fixLats.length * SPEED_MPS * FIX_INTERVAL_MS / 1000.0 / (2 * Math.PI);
+        double cosLat = Math.cos(Math.toRadians(CENTER_LAT));
+        for (int i = 0; i < fixLats.length; i++) {
+            double angle = 2 * Math.PI * i / fixLats.length;
+            fixLats[i] = CENTER_LAT + loopRadius * Math.cos(angle) / GeoMath.METERS_PER_DEGREE_LAT;
+            fixLons[i] = CENTER_LON + loopRadius * Math.sin(angle) / (GeoMath.METERS_PER_DEGREE_LAT * cosLat);
+            // Sens horaire vu du nord : cap tangent à la boucle
+            fixBearings[i] = (Math.toDegrees(angle) + 90) % 360;
+        }
+    }
+
+    private int nextFix() {
+        next = (next + 1) & (fixLats.length - 1);
+        timeMs += FIX_INTERVAL_MS;
+        return next;
+    }
+
+    @Benchmark
+    public int distanceOnly() {
+        int f = nextFix();
+        return distanceOnly.update(index, fixLats[f], fixLons[f], timeMs, SPEED_MPS, fixBearings[f],
+            out, etas, distances);
+    }
+
+    @Benchmark
+    public int etaFromProviderHeading() {
+        int f = nextFix();
+        return eta.update(index, fixLats[f], fixLons[f], timeMs, SPEED_MPS, fixBearings[f], out, etas, distances);
+    }
+
+    @Benchmark
+    public int etaFromConsecutiveFixes() {
+        int f = nextFix();
+        return eta.update(index, fixLats[f], fixLons[f], timeMs, Double.NaN, Double.NaN, out, etas, distances);
+    }
+
+    @Benchmark
+    public int etaInterpolated() {
+        int f = nextFix();
+        return etaInterpolated.update(index, fixLats[f], fixLons[f], timeMs, SPEED_MPS, fixBearings[f],
+            out, etas, distances);
+    }
+}
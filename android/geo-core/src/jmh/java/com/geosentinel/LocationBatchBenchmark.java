@@ -0,0 +1,93 @@
+package com.geosentinel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Charge utile envoyée à JS pour fixCount positions : un événement
+ * onLocationUpdate (une map) par fix, ou un seul onLocationBatch en tableaux
+ * parallèles via LocationBatchBuffer. La sérialisation JSON tient lieu du
+ * passage par le bridge ; le score est par lot de fixCount positions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LocationBatchBenchmark {
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+
+    @Param({ "1", "20" })
+    public int fixCount;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private float[] accuracies;
+    private LocationBatchBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        latitudes = new double[fixCount];
+        longitudes = new double[fixCount];
+        accuracies = new float[fixCount];
+        for (int i = 0; i < fixCount; i++) {
+            latitudes[i] = CENTER_LAT + random.nextDouble() * 0.01;
+            longitudes[i] = CENTER_LON + random.nextDouble() * 0.01;
+            accuracies[i] = 3 + random.nextFloat() * 20;
+        }
+        buffer = new LocationBatchBuffer(256, fixCount, 60000);
+    }
+
+    @Benchmark
+    public int perFixEvents() {
+        int bytes = 0;
+        for (int i = 0; i < fixCount; i++) {
+            JSONObject params = new JSONObject();
+            params.put("latitude", latitudes[i]);
+            params.put("longitude", longitudes[i]);
+            params.put("accuracy", accuracies[i]);
+            params.put("timestamp", 1700000000000L + i * 1000L);
+            params.put("nearbyRiskCount", i & 3);
+            bytes += params.toString().length();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int batchedEvent() {
+        for (int i = 0; i < fixCount; i++) {
+            buffer.add(latitudes[i], longitudes[i], accuracies[i], 1700000000000L + i * 1000L, i & 3, i);
+        }
+        JSONArray lats = new JSONArray();
+        JSONArray lons = new JSONArray();
+        JSONArray accs = new JSONArray();
+        JSONArray times = new JSONArray();
+        JSONArray counts = new JSONArray();
+        int count = buffer.drainTo((latitude, longitude, accuracy, timestamp, nearbyRiskCount) -> {
+            lats.put(latitude);
+            lons.put(longitude);
+            accs.put(accuracy);
+            times.put(timestamp);
+            counts.put(nearbyRiskCount);
+        });
+        JSONObject params = new JSONObject();
+        params.put("count", count);
+        params.put("latitudes", lats);
+        params.put("longitudes", lons);
+        params.put("accuracies", accs);
+        params.put("timestamps", times);
+        params.put("nearbyRiskCounts", counts);
+        params.put("dropped", buffer.getDropped());
+        return params.toString().length();
+    }
+}
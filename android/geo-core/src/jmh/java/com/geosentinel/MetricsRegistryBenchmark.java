@@ -0,0 +1,57 @@
+package com.geosentinel;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Surcoût de l'enregistrement des métriques sur les chemins chauds (callback GPS,
+ * ticks) : incrément de compteur et enregistrement d'histogramme, comparés à un
+ * appel vide. L'export (toJsonLine) est mesuré à part, il reste hors de ces chemins.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsRegistryBenchmark {
+    private MetricsRegistry registry;
+    private MetricsRegistry.Counter counter;
+    private MetricsRegistry.Histogram histogram;
+    private long value;
+
+    @Setup
+    public void setUp() {
+        registry = new MetricsRegistry();
+        counter = registry.counter("gps_fixes");
+        histogram = registry.histogram("gps_fix_latency_ms");
+        for (int i = 0; i < 12; i++) {
+            registry.counter("counter_" + i).add(i);
+            registry.histogram("histogram_" + i).record(i * 100);
+        }
+    }
+
+    @Benchmark
+    public long baseline() {
+        return value++;
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        counter.increment();
+    }
+
+    // Valeurs de 0 à 4 s : parcours des bornes jusqu'au bucket de la seconde
+    @Benchmark
+    public void recordHistogram() {
+        histogram.record(value++ & 4095);
+    }
+
+    @Benchmark
+    public String exportJsonLine() {
+        return registry.toJsonLine(value++);
+    }
+}
@@ -0,0 +1,88 @@
+package com.geosentinel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Chemin d'alerte : "risques à moins de 500 m" sur le cache, par l'index et par
+ * le parcours linéaire de référence (équivalent de checkRisksFromCache côté JS).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProximityBenchmark {
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+    private static final double RADIUS_METERS = 500;
+
+    @Param({ "1000", "10000", "100000" })
+    public int riskCount;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private RiskProximityIndex index;
+    private final int[] out = new int[256];
+    private final double[] distances = new double[256];
+    // Positions précalculées : un @Setup par invocation fausserait des mesures en µs
+    private final double[] queryLats = new double[1024];
+    private final double[] queryLons = new double[1024];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random data = new Random(42);
+        String[] ids = new String[riskCount];
+        latitudes = new double[riskCount];
+        longitudes = new double[riskCount];
+        // ~100 km autour de Lyon : densité comparable à un cache départemental
+        for (int i = 0; i < riskCount; i++) {
+            ids[i] = "risk-" + i;
+            latitudes[i] = CENTER_LAT + (data.nextDouble() * 2 - 1) * 0.5;
+            longitudes[i] = CENTER_LON + (data.nextDouble() * 2 - 1) * 0.7;
+        }
+        index = new RiskProximityIndex(ids, latitudes, longitudes);
+
+        Random random = new Random(1);
+        for (int i = 0; i < queryLats.length; i++) {
+            queryLats[i] = CENTER_LAT + (random.nextDouble() * 2 - 1) * 0.4;
+            queryLons[i] = CENTER_LON + (random.nextDouble() * 2 - 1) * 0.6;
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (queryLats.length - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int indexQuery() {
+        int q = nextQuery();
+        return index.queryWithin(queryLats[q], queryLons[q], RADIUS_METERS, out, distances);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int q = nextQuery();
+        return RiskProximityIndex.linearScan(latitudes, longitudes, queryLats[q], queryLons[q], RADIUS_METERS, out);
+    }
+
+    @Benchmark
+    public double nearestDistance() {
+        int q = nextQuery();
+        return index.nearestDistance(queryLats[q], queryLons[q], 2000);
+    }
+
+    @Benchmark
+    public double haversine() {
+        int q = nextQuery();
+        return GeoMath.haversineMeters(CENTER_LAT, CENTER_LON, queryLats[q], queryLons[q]);
+    }
+}
@@ -0,0 +1,99 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Sérialisation du cache de risques et reconstruction de l'index au redémarrage
+ * du service, comparées au parsing JSON du même contenu (ancien cache AsyncStorage :
+ * tableau de risques projetés).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RiskCacheFileBenchmark {
+    private static final String[] CATEGORIES = { "naturel", "technologique", "sanitaire" };
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+
+    @Param({ "1000", "10000" })
+    public int riskCount;
+
+    private RiskCacheFile.Snapshot snapshot;
+    private ByteBuffer encoded;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] ids = new String[riskCount];
+        String[] titles = new String[riskCount];
+        String[] categories = new String[riskCount];
+        String[] severities = new String[riskCount];
+        double[] latitudes = new double[riskCount];
+        double[] longitudes = new double[riskCount];
+        for (int i = 0; i < riskCount; i++) {
+            ids[i] = "6f1c2d3e-0000-4000-8000-" + String.format("%012d", i);
+            titles[i] = "Risque signalé n°" + i;
+            categories[i] = CATEGORIES[i % CATEGORIES.length];
+            severities[i] = SEVERITIES[i % SEVERITIES.length];
+            latitudes[i] = 45.764 + (random.nextDouble() * 2 - 1) * 0.5;
+            longitudes[i] = 4.8357 + (random.nextDouble() * 2 - 1) * 0.7;
+        }
+        snapshot = new RiskCacheFile.Snapshot(ids, titles, categories, severities,
+            latitudes, longitudes, 45.764, 4.8357, 0);
+        encoded = ByteBuffer.wrap(RiskCacheFile.encode(snapshot));
+
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < riskCount; i++) {
+            array.put(new JSONObject()
+                .put("id", ids[i])
+                .put("title", titles[i])
+                .put("category", categories[i])
+                .put("severity", severities[i])
+                .put("latitude", latitudes[i])
+                .put("longitude", longitudes[i]));
+        }
+        json = array.toString();
+        System.out.printf("%nBinaire %d octets, JSON %d octets%n",
+            encoded.capacity(), json.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return RiskCacheFile.encode(snapshot);
+    }
+
+    @Benchmark
+    public RiskCacheFile.Snapshot decode() throws IOException {
+        return RiskCacheFile.decode(encoded);
+    }
+
+    @Benchmark
+    public RiskProximityIndex decodeAndIndex() throws IOException {
+        return RiskCacheFile.decode(encoded).toIndex();
+    }
+
+    // Référence : même contenu relu depuis du JSON
+    @Benchmark
+    public RiskCacheFile.Snapshot decodeJson() throws IOException {
+        return RiskWireFormat.decodeJson(json, 45.764, 4.8357, 0);
+    }
+
+    @Benchmark
+    public RiskProximityIndex decodeJsonAndIndex() throws IOException {
+        return RiskWireFormat.decodeJson(json, 45.764, 4.8357, 0).toIndex();
+    }
+}
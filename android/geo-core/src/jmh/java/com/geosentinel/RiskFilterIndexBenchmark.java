@@ -0,0 +1,67 @@
+package com.geosentinel;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Filtres de la liste des risques (catégorie, sévérité, créateur) à 10k et 100k lignes. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RiskFilterIndexBenchmark {
+    private static final String[] CATEGORIES = {
+        "naturel", "technologique", "sanitaire", "routier", "social", "autre"
+    };
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+
+    @Param({ "10000", "100000" })
+    public int rowCount;
+
+    private RiskFilterIndex index;
+    private String[] categories;
+    private String[] severities;
+    private String[] creators;
+
+    @Setup
+    public void setUp() {
+        index = new RiskFilterIndex();
+        categories = new String[rowCount];
+        severities = new String[rowCount];
+        creators = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            categories[i] = CATEGORIES[i % CATEGORIES.length];
+            severities[i] = SEVERITIES[(i / 3) % SEVERITIES.length];
+            creators[i] = "user-" + (i % 50);
+            index.append(categories[i], severities[i], creators[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] singleFilter() {
+        return index.query("technologique", null, null);
+    }
+
+    @Benchmark
+    public int[] threeFilters() {
+        return index.query("naturel", "critique", "user-12");
+    }
+
+    // Référence : filtre JS équivalent (parcours de toutes les lignes)
+    @Benchmark
+    public int linearThreeFilters() {
+        int count = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if ("naturel".equals(categories[i]) && "critique".equals(severities[i])
+                    && "user-12".equals(creators[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,109 @@
+package com.geosentinel;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Import d'un fichier de 100 000 risques : lecture en flux, validation sur
+ * `threads` threads, dédoublonnage contre un cache de 10 000 risques.
+ * L'envoi est instantané : on mesure le pipeline local, pas le réseau.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RiskImportBenchmark {
+    private static final String[] CATEGORIES = { "naturel", "technologique", "sanitaire" };
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+    private static final int FEATURES = 100_000;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private File geoJson;
+    private File csv;
+    private RiskProximityIndex existing;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        geoJson = File.createTempFile("risks", ".geojson");
+        csv = File.createTempFile("risks", ".csv");
+        try (Writer json = Files.newBufferedWriter(geoJson.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter table = Files.newBufferedWriter(csv.toPath(), StandardCharsets.UTF_8)) {
+            json.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+            table.write("titre;description;categorie;severite;latitude;longitude\n");
+            for (int i = 0; i < FEATURES; i++) {
+                double lat = 45.764 + (random.nextDouble() * 2 - 1) * 0.5;
+                double lon = 4.8357 + (random.nextDouble() * 2 - 1) * 0.7;
+                String category = CATEGORIES[i % CATEGORIES.length];
+                String severity = SEVERITIES[i % SEVERITIES.length];
+                json.write(String.format(Locale.ROOT,
+                    "%s{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[%.6f,%.6f]},"
+                        + "\"properties\":{\"title\":\"Risque importé n°%d\",\"description\":\"Relevé terrain\","
+                        + "\"category\":\"%s\",\"severity\":\"%s\"}}\n",
+                    i == 0 ? "" : ",", lon, lat, i, category, severity));
+                table.write(String.format(Locale.ROOT, "Risque importé n°%d;Relevé terrain;%s;%s;%s;%s\n",
+                    i, category, severity,
+                    String.format(Locale.ROOT, "%.6f", lat).replace('.', ','),
+                    String.format(Locale.ROOT, "%.6f", lon).replace('.', ',')));
+            }
+            json.write("]}\n");
+        }
+
+        int cached = 10_000;
+        String[] ids = new String[cached];
+        String[] categories = new String[cached];
+        double[] latitudes = new double[cached];
+        double[] longitudes = new double[cached];
+        for (int i = 0; i < cached; i++) {
+            ids[i] = "cache-" + i;
+            categories[i] = CATEGORIES[i % CATEGORIES.length];
+            latitudes[i] = 45.764 + (random.nextDouble() * 2 - 1) * 0.5;
+            longitudes[i] = 4.8357 + (random.nextDouble() * 2 - 1) * 0.7;
+        }
+        existing = new RiskProximityIndex(ids, null, categories, latitudes, longitudes);
+        System.out.printf("%nGeoJSON %d Ko, CSV %d Ko%n", geoJson.length() / 1024, csv.length() / 1024);
+    }
+
+    @TearDown
+    public void tearDown() {
+        geoJson.delete();
+        csv.delete();
+    }
+
+    @Benchmark
+    public RiskImport.Report importGeoJson() throws IOException, InterruptedException {
+        return run(new GeoJsonRiskReader(new InputStreamReader(Files.newInputStream(geoJson.toPath()),
+            StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public RiskImport.Report importCsv() throws IOException, InterruptedException {
+        return run(new CsvRiskReader(new InputStreamReader(Files.newInputStream(csv.toPath()),
+            StandardCharsets.UTF_8)));
+    }
+
+    private RiskImport.Report run(RiskImport.Source source) throws IOException, InterruptedException {
+        RiskImport.Config config = new RiskImport.Config(CATEGORIES, CATEGORIES, CATEGORIES, existing,
+            RiskImport.DEFAULT_DEDUPE_RADIUS_METERS, threads);
+        return new RiskImport(config).run(source, List::size, progress -> { });
+    }
+}
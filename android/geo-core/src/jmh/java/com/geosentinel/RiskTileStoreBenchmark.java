@@ -0,0 +1,100 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Chaîne native d'une synchronisation de zone, réseau exclu : décodage de la
+ * réponse de chaque tuile, rangement dans RiskTileStore, puis fusion de la zone,
+ * encodage de RiskCacheFile et construction de l'index de proximité
+ * (RiskWireModule.fetchRiskTile puis RiskCacheModule.commitRiskTiles).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RiskTileStoreBenchmark {
+    private static final String[] CATEGORIES = { "naturel", "technologique", "sanitaire" };
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+    // Zone riskLoadZoneKm de 3 km : 3 x 3 tuiles de 0,05°
+    private static final int SIDE = 3;
+
+    @Param({ "100", "1000" })
+    public int risksPerTile;
+
+    private int[] rows;
+    private int[] cols;
+    private ByteBuffer[] responses;
+    private RiskTileStore loaded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int row0 = RiskTileStore.tileRow(CENTER_LAT) - SIDE / 2;
+        int col0 = RiskTileStore.tileCol(CENTER_LON) - SIDE / 2;
+        rows = new int[SIDE * SIDE];
+        cols = new int[SIDE * SIDE];
+        responses = new ByteBuffer[SIDE * SIDE];
+        loaded = new RiskTileStore();
+        for (int t = 0; t < rows.length; t++) {
+            rows[t] = row0 + t / SIDE;
+            cols[t] = col0 + t % SIDE;
+            // Le cercle circonscrit d'une tuile couvre environ deux fois sa surface
+            int count = risksPerTile * 2;
+            String[] ids = new String[count];
+            String[] titles = new String[count];
+            String[] categories = new String[count];
+            String[] severities = new String[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            double centerLat = RiskTileStore.tileCenterLat(rows[t]);
+            double centerLon = RiskTileStore.tileCenterLon(cols[t]);
+            for (int i = 0; i < count; i++) {
+                ids[i] = "6f1c2d3e-0000-4000-8000-" + String.format("%06d%06d", t, i);
+                titles[i] = "Risque signalé n°" + i;
+                categories[i] = CATEGORIES[i % CATEGORIES.length];
+                severities[i] = SEVERITIES[i % SEVERITIES.length];
+                latitudes[i] = centerLat + (random.nextDouble() * 2 - 1) * RiskTileStore.TILE_SIZE_DEG * 0.7;
+                longitudes[i] = centerLon + (random.nextDouble() * 2 - 1) * RiskTileStore.TILE_SIZE_DEG * 0.7;
+            }
+            RiskCacheFile.Snapshot snapshot = new RiskCacheFile.Snapshot(ids, titles, categories, severities,
+                latitudes, longitudes, centerLat, centerLon, 0);
+            responses[t] = ByteBuffer.wrap(RiskWireFormat.encode(snapshot));
+            loaded.put(rows[t], cols[t], snapshot, "\"" + t + "\"", 0, responses[t].capacity());
+        }
+    }
+
+    // Zone entière : toutes les tuiles téléchargées (synchronisation à froid)
+    @Benchmark
+    public RiskProximityIndex loadAndCommitZone() throws IOException {
+        RiskTileStore store = new RiskTileStore();
+        for (int t = 0; t < rows.length; t++) {
+            RiskCacheFile.Snapshot received = RiskWireFormat.decode(responses[t], 0L);
+            store.put(rows[t], cols[t], received, "\"" + t + "\"", 0, responses[t].capacity());
+        }
+        return commit(store);
+    }
+
+    // Tuiles déjà gardées (hits et 304) : fusion, fichier et index seulement
+    @Benchmark
+    public RiskProximityIndex commitZone() {
+        return commit(loaded);
+    }
+
+    private RiskProximityIndex commit(RiskTileStore store) {
+        RiskCacheFile.Snapshot zone = store.merge(rows, cols, CENTER_LAT, CENTER_LON, 0);
+        RiskCacheFile.encode(zone);
+        return zone.toIndex();
+    }
+}
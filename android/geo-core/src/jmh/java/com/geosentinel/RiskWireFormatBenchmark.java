@@ -0,0 +1,140 @@
+package com.geosentinel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * /risks/nearby : format binaire projeté contre les Risk JSON complets.
+ * Décodage seul, puis requête complète sur un serveur bouchon local (loopback).
+ * Les tailles des deux réponses sont affichées au démarrage de chaque essai.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RiskWireFormatBenchmark {
+    private static final String[] CATEGORIES = { "naturel", "technologique", "sanitaire" };
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+    private static final double CENTER_LAT = 45.764;
+    private static final double CENTER_LON = 4.8357;
+
+    @Param({ "1000", "10000" })
+    public int riskCount;
+
+    private ByteBuffer binary;
+    private String json;
+    private HttpServer server;
+    private String binaryUrl;
+    private String jsonUrl;
+    private final RiskWireClient client = new RiskWireClient(5000, 5000);
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        String[] ids = new String[riskCount];
+        String[] titles = new String[riskCount];
+        String[] categories = new String[riskCount];
+        String[] severities = new String[riskCount];
+        double[] latitudes = new double[riskCount];
+        double[] longitudes = new double[riskCount];
+        JSONArray full = new JSONArray();
+        for (int i = 0; i < riskCount; i++) {
+            ids[i] = "6f1c2d3e-0000-4000-8000-" + String.format("%012d", i);
+            titles[i] = "Risque signalé n°" + i;
+            categories[i] = CATEGORIES[i % CATEGORIES.length];
+            severities[i] = SEVERITIES[i % SEVERITIES.length];
+            // Zone riskLoadZoneKm de ~20 km autour de Lyon
+            latitudes[i] = CENTER_LAT + (random.nextDouble() * 2 - 1) * 0.18;
+            longitudes[i] = CENTER_LON + (random.nextDouble() * 2 - 1) * 0.26;
+            full.put(new JSONObject()
+                .put("id", ids[i])
+                .put("title", titles[i])
+                .put("description", "Signalé par une équipe terrain, à vérifier lors du prochain passage.")
+                .put("categoryId", "cat-" + categories[i])
+                .put("category", new JSONObject()
+                    .put("id", "cat-" + categories[i])
+                    .put("name", categories[i])
+                    .put("label", "Catégorie " + categories[i])
+                    .put("color", "#10B981")
+                    .put("icon", "🌪️"))
+                .put("severity", severities[i])
+                .put("latitude", latitudes[i])
+                .put("longitude", longitudes[i])
+                .put("tenantId", "0b6f8a52-1d3c-4e4f-9a7b-2c5d6e7f8a9b")
+                .put("creatorId", "7c1d2e3f-4a5b-4c6d-8e9f-0a1b2c3d4e5f")
+                .put("createdAt", "2024-05-01T08:00:00.000Z")
+                .put("updatedAt", "2024-05-01T08:00:00.000Z"));
+        }
+        RiskCacheFile.Snapshot snapshot = new RiskCacheFile.Snapshot(ids, titles, categories, severities,
+            latitudes, longitudes, CENTER_LAT, CENTER_LON, 0);
+        byte[] binaryBody = RiskWireFormat.encode(snapshot);
+        byte[] jsonBody = full.toString().getBytes(StandardCharsets.UTF_8);
+        binary = ByteBuffer.wrap(binaryBody);
+        json = full.toString();
+        System.out.printf("%n%d risques : binaire %d o, JSON complet %d o (%.1f %%)%n",
+            riskCount, binaryBody.length, jsonBody.length, 100.0 * binaryBody.length / jsonBody.length);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bin/risks/nearby", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", RiskWireFormat.CONTENT_TYPE);
+            reply(exchange, binaryBody);
+        });
+        server.createContext("/json/risks/nearby", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            reply(exchange, jsonBody);
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        binaryUrl = base + "/bin";
+        jsonUrl = base + "/json";
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Benchmark
+    public RiskCacheFile.Snapshot decodeBinary() throws IOException {
+        return RiskWireFormat.decode(binary, 0L);
+    }
+
+    @Benchmark
+    public RiskCacheFile.Snapshot decodeJson() throws IOException {
+        return RiskWireFormat.decodeJson(json, CENTER_LAT, CENTER_LON, 0L);
+    }
+
+    @Benchmark
+    public RiskCacheFile.Snapshot fetchBinary() throws IOException {
+        return client.fetchNearby(binaryUrl, "jwt", CENTER_LAT, CENTER_LON, 20, null, 0L).risks;
+    }
+
+    @Benchmark
+    public RiskCacheFile.Snapshot fetchJson() throws IOException {
+        return client.fetchNearby(jsonUrl, "jwt", CENTER_LAT, CENTER_LON, 20, null, 0L).risks;
+    }
+
+    private static void reply(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
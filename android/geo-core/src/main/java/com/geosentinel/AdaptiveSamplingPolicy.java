@@ -0,0 +1,87 @@
+package com.geosentinel;
+
+/**
+ * Échantillonnage adaptatif selon la vitesse et la distance au risque le plus proche.
+ *
+ * - Près d'un risque (moins de nearZoneRadii rayons d'alerte) : intervalle de
+ *   base du type de tournée, haute précision.
+ * - Loin de tout risque : l'intervalle est choisi pour ne parcourir au plus que
+ *   la moitié de la distance restante avant la zone d'alerte entre deux fixes,
+ *   borné par maxIntervalMs, en précision équilibrée (moins de réveils GPS).
+ */
+public final class AdaptiveSamplingPolicy implements SamplingPolicy {
+    public static final long DEFAULT_MAX_INTERVAL_MS = 120000;
+    public static final double DEFAULT_NEAR_ZONE_RADII = 5;
+
+    private final SamplingPolicy.Decision base;
+    private final long maxIntervalMs;
+    private final double nearZoneRadii;
+    // Vitesse plancher : à l'arrêt (0 m/s) l'utilisateur peut repartir à la vitesse
+    // typique de sa tournée avant le fix suivant
+    private final double minSpeedMps;
+
+    public AdaptiveSamplingPolicy(SamplingPolicy.Decision base, double minSpeedMps) {
+        this(base, DEFAULT_MAX_INTERVAL_MS, DEFAULT_NEAR_ZONE_RADII, minSpeedMps);
+    }
+
+    public AdaptiveSamplingPolicy(SamplingPolicy.Decision base, long maxIntervalMs,
+                                  double nearZoneRadii, double minSpeedMps) {
+        if (maxIntervalMs < base.intervalMs) {
+            throw new IllegalArgumentException("maxIntervalMs inférieur à l'intervalle de base");
+        }
+        if (!(minSpeedMps > 0)) {
+            throw new IllegalArgumentException("Vitesse plancher invalide: " + minSpeedMps);
+        }
+        this.base = base;
+        this.maxIntervalMs = maxIntervalMs;
+        this.nearZoneRadii = nearZoneRadii;
+        this.minSpeedMps = minSpeedMps;
+    }
+
+    public static AdaptiveSamplingPolicy forTourneeType(String tourneeType) {
+        return forTourneeType(tourneeType, SamplingPolicy.Fixed.forTourneeType(tourneeType).decide(0, 0, 0));
+    }
+
+    /** Vitesse plancher du type de tournée, autour d'un intervalle de base donné (simulations). */
+    public static AdaptiveSamplingPolicy forTourneeType(String tourneeType, SamplingPolicy.Decision base) {
+        if ("pieds".equals(tourneeType)) {
+            return new AdaptiveSamplingPolicy(base, 1.5);   // ~5 km/h
+        }
+        if ("voiture".equals(tourneeType)) {
+            return new AdaptiveSamplingPolicy(base, 14.0);  // ~50 km/h
+        }
+        return new AdaptiveSamplingPolicy(base, 5.0);       // ~18 km/h
+    }
+
+    @Override
+    public SamplingPolicy.Decision decide(double speedMps, double nearestRiskMeters, double alertRadiusMeters) {
+        if (nearestRiskMeters <= alertRadiusMeters * nearZoneRadii) {
+            return base;
+        }
+
+        // Distance restante avant d'entrer dans le rayon d'alerte du risque le plus proche.
+        // Aucun risque dans searchRadiusMeters : même à l'intervalle max on reste hors zone.
+        double speed = Math.max(speedMps, minSpeedMps);
+        double gapMeters = Double.isInfinite(nearestRiskMeters)
+            ? searchRadiusMeters(speedMps, alertRadiusMeters) - alertRadiusMeters
+            : nearestRiskMeters - alertRadiusMeters;
+        long intervalMs = (long) (gapMeters / speed * 0.5 * 1000);
+
+        intervalMs = Math.max(base.intervalMs, Math.min(maxIntervalMs, intervalMs));
+        if (intervalMs == base.intervalMs) {
+            return base;
+        }
+        // La distance minimale suit l'intervalle pour ne pas bloquer les mises à jour
+        float minDistance = (float) Math.min(base.minDistanceMeters * (double) intervalMs / base.intervalMs,
+            gapMeters / 2);
+        return new SamplingPolicy.Decision(intervalMs, Math.max(base.minDistanceMeters, minDistance), false);
+    }
+
+    @Override
+    public double searchRadiusMeters(double speedMps, double alertRadiusMeters) {
+        // Distance parcourue en deux intervalles max, marge du facteur 0,5 de decide()
+        double speed = Math.max(speedMps, minSpeedMps);
+        return Math.max(alertRadiusMeters * nearZoneRadii,
+            alertRadiusMeters + speed * maxIntervalMs / 1000.0 * 2);
+    }
+}
@@ -0,0 +1,81 @@
+package com.geosentinel;
+
+/**
+ * Contour d'une commune et ses risques Géorisques (Java pur).
+ *
+ * Les anneaux (extérieurs et trous, tous polygones confondus) sont stockés en
+ * coordonnées entrelacées lon, lat. Le test d'appartenance applique la règle
+ * pair-impair sur l'ensemble des anneaux, après un filtre par rectangle englobant.
+ */
+public final class CommuneBoundary {
+    public final String code;
+    public final String name;
+    public final double[][] rings;
+    /** Tableau risques_detail de Géorisques, JSON brut relu côté JS. */
+    public final String risksJson;
+    public final long fetchedAt;
+    public final double minLat;
+    public final double minLon;
+    public final double maxLat;
+    public final double maxLon;
+
+    public CommuneBoundary(String code, String name, double[][] rings, String risksJson, long fetchedAt) {
+        if (rings.length == 0) {
+            throw new IllegalArgumentException("Contour vide pour " + code);
+        }
+        this.code = code;
+        this.name = name;
+        this.rings = rings;
+        this.risksJson = risksJson;
+        this.fetchedAt = fetchedAt;
+
+        double south = Double.POSITIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY;
+        double north = Double.NEGATIVE_INFINITY;
+        double east = Double.NEGATIVE_INFINITY;
+        for (double[] ring : rings) {
+            if (ring.length < 6 || ring.length % 2 != 0) {
+                throw new IllegalArgumentException("Anneau invalide pour " + code);
+            }
+            for (int i = 0; i < ring.length; i += 2) {
+                west = Math.min(west, ring[i]);
+                east = Math.max(east, ring[i]);
+                south = Math.min(south, ring[i + 1]);
+                north = Math.max(north, ring[i + 1]);
+            }
+        }
+        this.minLat = south;
+        this.minLon = west;
+        this.maxLat = north;
+        this.maxLon = east;
+    }
+
+    public boolean boundsContain(double lat, double lon) {
+        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+    }
+
+    public boolean contains(double lat, double lon) {
+        if (!boundsContain(lat, lon)) {
+            return false;
+        }
+        boolean inside = false;
+        for (double[] ring : rings) {
+            int n = ring.length;
+            for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+                double xi = ring[i];
+                double yi = ring[i + 1];
+                double xj = ring[j];
+                double yj = ring[j + 1];
+                if ((yi > lat) != (yj > lat) && lon < (xj - xi) * (lat - yi) / (yj - yi) + xi) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /** Même contour, risques Géorisques rafraîchis. */
+    public CommuneBoundary withRisks(String risks, long at) {
+        return new CommuneBoundary(code, name, rings, risks, at);
+    }
+}
@@ -0,0 +1,91 @@
+package com.geosentinel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persistance des contours de communes du CommuneResolver (Java pur).
+ *
+ * Disposition : magic | version | nombre de communes, puis pour chaque commune
+ * code | nom | fetchedAt | anneaux (nombre de coordonnées + doubles lon, lat)
+ * | risques (longueur + JSON UTF-8). Écriture via fichier temporaire renommé.
+ */
+public final class CommuneCacheFile {
+    public static final int MAGIC = 0x4753434d; // "GSCM"
+    public static final int VERSION = 1;
+
+    private CommuneCacheFile() {
+    }
+
+    public static void write(File file, List<CommuneBoundary> communes) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(communes.size());
+            for (CommuneBoundary commune : communes) {
+                out.writeUTF(commune.code);
+                out.writeUTF(commune.name);
+                out.writeLong(commune.fetchedAt);
+                out.writeInt(commune.rings.length);
+                for (double[] ring : commune.rings) {
+                    out.writeInt(ring.length);
+                    for (double value : ring) {
+                        out.writeDouble(value);
+                    }
+                }
+                byte[] risks = commune.risksJson.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(risks.length);
+                out.write(risks);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Impossible de remplacer " + file);
+        }
+    }
+
+    public static List<CommuneBoundary> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier communes invalide (magic)");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Version de fichier communes non supportée: " + version);
+            }
+            int count = in.readInt();
+            List<CommuneBoundary> communes = new ArrayList<>(Math.max(0, Math.min(count, 1024)));
+            for (int c = 0; c < count; c++) {
+                String code = in.readUTF();
+                String name = in.readUTF();
+                long fetchedAt = in.readLong();
+                double[][] rings = new double[in.readInt()][];
+                for (int r = 0; r < rings.length; r++) {
+                    double[] ring = new double[in.readInt()];
+                    for (int i = 0; i < ring.length; i++) {
+                        ring[i] = in.readDouble();
+                    }
+                    rings[r] = ring;
+                }
+                byte[] risks = new byte[in.readInt()];
+                in.readFully(risks);
+                communes.add(new CommuneBoundary(code, name, rings,
+                    new String(risks, StandardCharsets.UTF_8), fetchedAt));
+            }
+            return communes;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index des contours de communes par cellules geohash (Java pur).
+ *
+ * Chaque commune est rangée dans toutes les cellules de précision 5 (~4,9 km)
+ * que recouvre son rectangle englobant. Une recherche ne teste donc que les
+ * quelques communes de la cellule du point : rectangle d'abord, polygone ensuite.
+ */
+public final class CommuneIndex {
+    public static final int GEOHASH_PRECISION = 5;
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    // Taille d'une cellule de précision 5 : 13 bits de longitude, 12 de latitude
+    private static final double CELL_LON_DEG = 360.0 / (1 << 13);
+    private static final double CELL_LAT_DEG = 180.0 / (1 << 12);
+
+    private final Map<String, CommuneBoundary> byCode = new LinkedHashMap<>();
+    private final Map<String, List<CommuneBoundary>> cells = new HashMap<>();
+
+    public synchronized void put(CommuneBoundary commune) {
+        remove(commune.code);
+        byCode.put(commune.code, commune);
+        for (String cell : cellsCovering(commune)) {
+            List<CommuneBoundary> bucket = cells.get(cell);
+            if (bucket == null) {
+                bucket = new ArrayList<>(2);
+                cells.put(cell, bucket);
+            }
+            bucket.add(commune);
+        }
+    }
+
+    public synchronized void remove(String code) {
+        CommuneBoundary previous = byCode.remove(code);
+        if (previous == null) {
+            return;
+        }
+        for (String cell : cellsCovering(previous)) {
+            List<CommuneBoundary> bucket = cells.get(cell);
+            if (bucket != null) {
+                bucket.remove(previous);
+                if (bucket.isEmpty()) {
+                    cells.remove(cell);
+                }
+            }
+        }
+    }
+
+    /** Commune dont le contour contient le point, null si aucune commune en cache ne le couvre. */
+    public synchronized CommuneBoundary find(double lat, double lon) {
+        List<CommuneBoundary> bucket = cells.get(geohash(lat, lon, GEOHASH_PRECISION));
+        if (bucket == null) {
+            return null;
+        }
+        for (int i = 0; i < bucket.size(); i++) {
+            CommuneBoundary commune = bucket.get(i);
+            if (commune.contains(lat, lon)) {
+                return commune;
+            }
+        }
+        return null;
+    }
+
+    public synchronized CommuneBoundary get(String code) {
+        return byCode.get(code);
+    }
+
+    public synchronized List<CommuneBoundary> all() {
+        return new ArrayList<>(byCode.values());
+    }
+
+    public synchronized int size() {
+        return byCode.size();
+    }
+
+    public synchronized void clear() {
+        byCode.clear();
+        cells.clear();
+    }
+
+    public static String geohash(double lat, double lon, int precision) {
+        double latMin = -90;
+        double latMax = 90;
+        double lonMin = -180;
+        double lonMax = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (lonMin + lonMax) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    lonMin = mid;
+                } else {
+                    ch <<= 1;
+                    lonMax = mid;
+                }
+            } else {
+                double mid = (latMin + latMax) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    latMin = mid;
+                } else {
+                    ch <<= 1;
+                    latMax = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Cellules de précision GEOHASH_PRECISION recouvrant le rectangle englobant
+    private static Collection<String> cellsCovering(CommuneBoundary commune) {
+        Map<String, Boolean> covered = new LinkedHashMap<>();
+        double latStart = Math.floor(commune.minLat / CELL_LAT_DEG) * CELL_LAT_DEG + CELL_LAT_DEG / 2;
+        double lonStart = Math.floor(commune.minLon / CELL_LON_DEG) * CELL_LON_DEG + CELL_LON_DEG / 2;
+        for (double lat = latStart; lat < commune.maxLat + CELL_LAT_DEG; lat += CELL_LAT_DEG) {
+            for (double lon = lonStart; lon < commune.maxLon + CELL_LON_DEG; lon += CELL_LON_DEG) {
+                covered.put(geohash(Math.min(lat, 90), Math.min(lon, 180), GEOHASH_PRECISION), Boolean.TRUE);
+            }
+        }
+        return covered.keySet();
+    }
+}
@@ -0,0 +1,227 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture en flux d'un fichier CSV de risques pour RiskImport (Java pur).
+ *
+ * La première ligne est l'en-tête ; les colonnes sont reconnues par leur nom,
+ * en français ou en anglais (titre/title, categorie/category, severite/severity,
+ * latitude/lat, longitude/lon/lng...). Le séparateur, virgule ou point-virgule,
+ * est déduit de l'en-tête. Les champs entre guillemets peuvent contenir le
+ * séparateur, des guillemets doublés et des retours à la ligne.
+ */
+public final class CsvRiskReader implements RiskImport.Source {
+    private static final String[][] COLUMNS = {
+        { "title", "titre", "name", "nom" },
+        { "description" },
+        { "category", "categorie", "categoryid", "category_id" },
+        { "severity", "severite", "gravite" },
+        { "latitude", "lat" },
+        { "longitude", "lon", "lng", "long" },
+    };
+    private static final int TITLE = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int CATEGORY = 2;
+    private static final int SEVERITY = 3;
+    private static final int LATITUDE = 4;
+    private static final int LONGITUDE = 5;
+
+    private final Reader reader;
+    private final char[] buffer = new char[16384];
+    private int bufferPos;
+    private int bufferEnd;
+    private boolean eof;
+
+    private final char separator;
+    // Index de colonne pour chaque champ, -1 si absent
+    private final int[] fieldColumns = new int[COLUMNS.length];
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+
+    public CsvRiskReader(Reader reader) throws IOException {
+        this.reader = reader;
+        String header = readHeaderLine();
+        if (header == null) {
+            throw new IOException("Fichier CSV vide");
+        }
+        separator = countOutsideQuotes(header, ';') > countOutsideQuotes(header, ',') ? ';' : ',';
+        List<String> names = split(header);
+        for (int f = 0; f < COLUMNS.length; f++) {
+            fieldColumns[f] = -1;
+            for (int c = 0; c < names.size() && fieldColumns[f] < 0; c++) {
+                String name = RiskImport.normalize(names.get(c));
+                for (String alias : COLUMNS[f]) {
+                    if (alias.equals(name)) {
+                        fieldColumns[f] = c;
+                        break;
+                    }
+                }
+            }
+        }
+        if (fieldColumns[LATITUDE] < 0 || fieldColumns[LONGITUDE] < 0) {
+            throw new IOException("Colonnes latitude et longitude introuvables dans l'en-tête: " + header);
+        }
+    }
+
+    @Override
+    public RiskImport.Row next() throws IOException {
+        while (true) {
+            long start = line;
+            if (!readRecord()) {
+                return null;
+            }
+            // Ligne vide : ignorée
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            return new RiskImport.Row(start, field(TITLE), field(DESCRIPTION), field(CATEGORY), field(SEVERITY),
+                field(LATITUDE), field(LONGITUDE), null);
+        }
+    }
+
+    @Override
+    public String positionLabel() {
+        return "ligne";
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(int f) {
+        int column = fieldColumns[f];
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    // Lit un enregistrement dans fields ; false en fin de fichier
+    private boolean readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        int c = read();
+        if (c < 0) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Guillemet non fermé à partir de la ligne " + line);
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c < 0) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private String readHeaderLine() throws IOException {
+        StringBuilder header = new StringBuilder();
+        int c = read();
+        // Marque d'ordre des octets ajoutée par les tableurs
+        if (c == '\uFEFF') {
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != '\n') {
+            if (c != '\r') {
+                header.append((char) c);
+            }
+            c = read();
+        }
+        line++;
+        return header.toString();
+    }
+
+    private List<String> split(String header) {
+        List<String> names = new ArrayList<>();
+        StringBuilder name = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                names.add(name.toString());
+                name.setLength(0);
+            } else {
+                name.append(c);
+            }
+        }
+        names.add(name.toString());
+        return names;
+    }
+
+    private static int countOutsideQuotes(String text, char target) {
+        int count = 0;
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == target && !quoted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int read() throws IOException {
+        if (bufferPos == bufferEnd && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPos++];
+    }
+
+    private int peek() throws IOException {
+        if (bufferPos == bufferEnd && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPos];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        bufferPos = 0;
+        bufferEnd = read;
+        return true;
+    }
+}
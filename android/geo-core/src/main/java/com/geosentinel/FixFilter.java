@@ -0,0 +1,118 @@
+package com.geosentinel;
+
+/**
+ * Étape "filtre" du pipeline : écarte les fixes qui déclencheraient de fausses
+ * alertes ou fausseraient l'échantillonnage (Java pur, sans allocation).
+ *
+ * - fix imprécis : précision annoncée au-delà de maxAccuracyMeters ;
+ * - doublon ou désordre : horodatage pas plus récent que le dernier fix accepté
+ *   (lots du fournisseur, fixes rejoués) ;
+ * - saut : vitesse impliquée depuis le dernier fix accepté au-delà de maxSpeedMps,
+ *   imprécision des deux fixes déduite. Après MAX_CONSECUTIVE_JUMPS sauts de
+ *   suite, c'est le fix de référence qui était aberrant : le suivant est accepté.
+ *
+ * Un fix refusé pour sa précision reste utile à l'échantillonnage
+ * (lastRejectedInaccurate) : sa position suffit à savoir si un risque approche.
+ *
+ * Une instance par flux de positions, non thread-safe.
+ */
+public final class FixFilter {
+    public static final double DEFAULT_MAX_ACCURACY_METERS = 100;
+    // ~250 km/h : au-delà, aucun type de tournée
+    public static final double DEFAULT_MAX_SPEED_MPS = 70;
+    public static final int MAX_CONSECUTIVE_JUMPS = 3;
+
+    private final double maxAccuracyMeters;
+    private final double maxSpeedMps;
+
+    private boolean hasPrevious;
+    private double previousLat;
+    private double previousLon;
+    private double previousAccuracy;
+    private long previousTimeMs;
+    private int consecutiveJumps;
+    private boolean lastRejectedInaccurate;
+
+    private long accepted;
+    private long rejectedInaccurate;
+    private long rejectedStale;
+    private long rejectedJumps;
+
+    public FixFilter() {
+        this(DEFAULT_MAX_ACCURACY_METERS, DEFAULT_MAX_SPEED_MPS);
+    }
+
+    public FixFilter(double maxAccuracyMeters, double maxSpeedMps) {
+        if (maxAccuracyMeters <= 0 || maxSpeedMps <= 0) {
+            throw new IllegalArgumentException("Paramètres invalides: précision=" + maxAccuracyMeters
+                + " vitesse=" + maxSpeedMps);
+        }
+        this.maxAccuracyMeters = maxAccuracyMeters;
+        this.maxSpeedMps = maxSpeedMps;
+    }
+
+    /** Seuil du pipeline : un fix moins précis que deux rayons d'alerte ne situe pas le risque. */
+    public static FixFilter forAlertRadius(double alertRadiusMeters) {
+        return new FixFilter(Math.max(DEFAULT_MAX_ACCURACY_METERS, 2 * alertRadiusMeters), DEFAULT_MAX_SPEED_MPS);
+    }
+
+    /**
+     * @param accuracyMeters précision annoncée, 0 ou négative si inconnue
+     * @param timeMs         horloge monotone du fix
+     * @return vrai si le fix passe aux étapes suivantes
+     */
+    public boolean accept(double latitude, double longitude, double accuracyMeters, long timeMs) {
+        lastRejectedInaccurate = accuracyMeters > maxAccuracyMeters;
+        if (lastRejectedInaccurate) {
+            rejectedInaccurate++;
+            return false;
+        }
+        double accuracy = Math.max(0, accuracyMeters);
+        if (hasPrevious) {
+            if (timeMs <= previousTimeMs) {
+                rejectedStale++;
+                return false;
+            }
+            double distance = GeoMath.haversineMeters(previousLat, previousLon, latitude, longitude);
+            double moved = Math.max(0, distance - accuracy - previousAccuracy);
+            if (moved * 1000.0 / (timeMs - previousTimeMs) > maxSpeedMps
+                    && consecutiveJumps < MAX_CONSECUTIVE_JUMPS) {
+                consecutiveJumps++;
+                rejectedJumps++;
+                return false;
+            }
+        }
+        hasPrevious = true;
+        previousLat = latitude;
+        previousLon = longitude;
+        previousAccuracy = accuracy;
+        previousTimeMs = timeMs;
+        consecutiveJumps = 0;
+        accepted++;
+        return true;
+    }
+
+    /** Vrai si le dernier fix soumis a été refusé pour sa seule précision. */
+    public boolean lastRejectedInaccurate() {
+        return lastRejectedInaccurate;
+    }
+
+    public void reset() {
+        hasPrevious = false;
+        consecutiveJumps = 0;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejectedInaccurate + rejectedStale + rejectedJumps;
+    }
+
+    @Override
+    public String toString() {
+        return "acceptés=" + accepted + " imprécis=" + rejectedInaccurate + " doublons=" + rejectedStale
+            + " sauts=" + rejectedJumps;
+    }
+}
@@ -0,0 +1,373 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture en flux d'une FeatureCollection GeoJSON pour RiskImport (Java pur).
+ *
+ * Seule la feature courante est construite en mémoire : le tableau "features"
+ * est parcouru élément par élément, le reste du document est sauté sans être
+ * conservé. Chaque feature doit avoir une géométrie Point [longitude, latitude] ;
+ * titre, description, catégorie et sévérité sont lus dans ses properties, avec
+ * les mêmes noms que les colonnes de CsvRiskReader. Un tableau de features nu
+ * est aussi accepté.
+ */
+public final class GeoJsonRiskReader implements RiskImport.Source {
+    private static final String[] TITLE = { "title", "titre", "name", "nom" };
+    private static final String[] DESCRIPTION = { "description" };
+    private static final String[] CATEGORY = { "category", "categorie", "categoryId", "category_id" };
+    private static final String[] SEVERITY = { "severity", "severite", "sévérité", "gravite", "gravité" };
+
+    // Nombre gardé sous forme de texte : analysé par la validation, sur les threads du pool
+    private static final class RawNumber {
+        final String text;
+
+        RawNumber(String text) {
+            this.text = text;
+        }
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[16384];
+    private int bufferPos;
+    private int bufferEnd;
+    private boolean eof;
+    private final StringBuilder token = new StringBuilder();
+
+    // Le constructeur se place juste après le '[' du tableau features
+    private boolean finished;
+    private long featureCount;
+
+    public GeoJsonRiskReader(Reader reader) throws IOException {
+        this.reader = reader;
+        int c = skipWhitespace();
+        if (c == '\uFEFF') {
+            read();
+            c = skipWhitespace();
+        }
+        if (c == '[') {
+            read();
+        } else if (c == '{') {
+            read();
+            seekFeatures();
+        } else {
+            throw syntaxError("objet GeoJSON attendu");
+        }
+    }
+
+    @Override
+    public RiskImport.Row next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int c = skipWhitespace();
+        if (featureCount > 0) {
+            if (c == ',') {
+                read();
+                c = skipWhitespace();
+            } else if (c != ']') {
+                throw syntaxError("',' ou ']' attendu entre deux features");
+            }
+        }
+        if (c == ']') {
+            read();
+            finished = true;
+            return null;
+        }
+        featureCount++;
+        Object value = readValue();
+        if (!(value instanceof Map)) {
+            return error("feature qui n'est pas un objet");
+        }
+        return toRow((Map<?, ?>) value);
+    }
+
+    @Override
+    public String positionLabel() {
+        return "feature";
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private RiskImport.Row toRow(Map<?, ?> feature) {
+        Object geometry = feature.get("geometry");
+        if (!(geometry instanceof Map) || !"Point".equals(((Map<?, ?>) geometry).get("type"))) {
+            return error("géométrie absente ou non ponctuelle");
+        }
+        Object coordinates = ((Map<?, ?>) geometry).get("coordinates");
+        if (!(coordinates instanceof List) || ((List<?>) coordinates).size() < 2) {
+            return error("coordonnées du point absentes");
+        }
+        List<?> point = (List<?>) coordinates;
+        Object properties = feature.get("properties");
+        Map<?, ?> props = properties instanceof Map ? (Map<?, ?>) properties : new HashMap<>();
+        return new RiskImport.Row(featureCount, property(props, TITLE), property(props, DESCRIPTION),
+            property(props, CATEGORY), property(props, SEVERITY), text(point.get(1)), text(point.get(0)), null);
+    }
+
+    private RiskImport.Row error(String reason) {
+        return new RiskImport.Row(featureCount, null, null, null, null, null, null, reason);
+    }
+
+    private static String property(Map<?, ?> properties, String[] names) {
+        for (String name : names) {
+            Object value = properties.get(name);
+            if (value != null) {
+                return text(value);
+            }
+        }
+        return null;
+    }
+
+    private static String text(Object value) {
+        if (value instanceof RawNumber) {
+            return ((RawNumber) value).text;
+        }
+        // Catégorie imbriquée : { "name": "naturel", ... }
+        if (value instanceof Map) {
+            Object name = ((Map<?, ?>) value).get("name");
+            return name != null ? text(name) : null;
+        }
+        return value != null && !(value instanceof List) ? value.toString() : null;
+    }
+
+    // Parcourt les clés de l'objet racine jusqu'à "features", en sautant les autres valeurs
+    private void seekFeatures() throws IOException {
+        int c = skipWhitespace();
+        while (c != '}') {
+            if (c != '"') {
+                throw syntaxError("clé attendue");
+            }
+            read();
+            String key = readString();
+            expect(':');
+            if ("features".equals(key)) {
+                if (skipWhitespace() != '[') {
+                    throw syntaxError("tableau features attendu");
+                }
+                read();
+                return;
+            }
+            skipValue();
+            c = skipWhitespace();
+            if (c == ',') {
+                read();
+                c = skipWhitespace();
+            } else if (c != '}') {
+                throw syntaxError("',' ou '}' attendu");
+            }
+        }
+        // Pas de tableau features : collection vide
+        finished = true;
+    }
+
+    private Object readValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{': {
+                read();
+                Map<String, Object> object = new HashMap<>();
+                c = skipWhitespace();
+                while (c != '}') {
+                    if (c != '"') {
+                        throw syntaxError("clé attendue");
+                    }
+                    read();
+                    String key = readString();
+                    expect(':');
+                    object.put(key, readValue());
+                    c = skipWhitespace();
+                    if (c == ',') {
+                        read();
+                        c = skipWhitespace();
+                    } else if (c != '}') {
+                        throw syntaxError("',' ou '}' attendu");
+                    }
+                }
+                read();
+                return object;
+            }
+            case '[': {
+                read();
+                List<Object> array = new ArrayList<>();
+                c = skipWhitespace();
+                while (c != ']') {
+                    array.add(readValue());
+                    c = skipWhitespace();
+                    if (c == ',') {
+                        read();
+                        c = skipWhitespace();
+                    } else if (c != ']') {
+                        throw syntaxError("',' ou ']' attendu");
+                    }
+                }
+                read();
+                return array;
+            }
+            case '"':
+                read();
+                return readString();
+            default:
+                return readLiteral();
+        }
+    }
+
+    // Comme readValue, sans rien construire (propriétés racine hors features)
+    private void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            int c = skipWhitespace();
+            if (c == '"') {
+                read();
+                skipString();
+            } else if (c == '{' || c == '[') {
+                read();
+                depth++;
+            } else if (c == '}' || c == ']') {
+                read();
+                depth--;
+            } else if (c == ',' || c == ':') {
+                read();
+            } else if (c < 0) {
+                throw syntaxError("fin de fichier inattendue");
+            } else {
+                readLiteral();
+            }
+        } while (depth > 0);
+    }
+
+    private Object readLiteral() throws IOException {
+        token.setLength(0);
+        int c = peek();
+        while (c >= 0 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+            token.append((char) read());
+            c = peek();
+        }
+        String literal = token.toString();
+        switch (literal) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            case "":
+                throw syntaxError(c < 0 ? "fin de fichier inattendue" : "caractère inattendu '" + (char) c + "'");
+            default:
+                return new RawNumber(literal);
+        }
+    }
+
+    private String readString() throws IOException {
+        token.setLength(0);
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw syntaxError("chaîne non terminée");
+            }
+            if (c == '"') {
+                return token.toString();
+            }
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n': token.append('\n'); break;
+                    case 't': token.append('\t'); break;
+                    case 'r': token.append('\r'); break;
+                    case 'b': token.append('\b'); break;
+                    case 'f': token.append('\f'); break;
+                    case 'u': {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw syntaxError("échappement \\u invalide");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        token.append((char) code);
+                        break;
+                    }
+                    default:
+                        if (c < 0) {
+                            throw syntaxError("chaîne non terminée");
+                        }
+                        token.append((char) c);
+                }
+            } else {
+                token.append((char) c);
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                throw syntaxError("chaîne non terminée");
+            }
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                read();
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (skipWhitespace() != expected) {
+            throw syntaxError("'" + expected + "' attendu");
+        }
+        read();
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            read();
+            c = peek();
+        }
+        return c;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("GeoJSON invalide (feature " + Math.max(featureCount, 1) + ") : " + message);
+    }
+
+    private int read() throws IOException {
+        if (bufferPos == bufferEnd && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPos++];
+    }
+
+    private int peek() throws IOException {
+        if (bufferPos == bufferEnd && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPos];
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            eof = true;
+            return false;
+        }
+        bufferPos = 0;
+        bufferEnd = read;
+        return true;
+    }
+}
@@ -0,0 +1,52 @@
+package com.geosentinel;
+
+/**
+ * Noyaux de calcul géographique partagés (Java pur, sans allocation).
+ *
+ * - haversineMeters : même formule que calculateDistance dans locationBackgroundTask.ts ;
+ * - bearingDegrees : cap initial d'un point vers un autre, comme Location.getBearing() ;
+ * - latitudeDelta / longitudeDelta : demi-côtés en degrés du rectangle englobant
+ *   un cercle, utilisés comme préfiltre avant le haversine.
+ */
+public final class GeoMath {
+    public static final double EARTH_RADIUS_METERS = 6371000.0;
+    public static final double METERS_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    private GeoMath() {
+    }
+
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /** Cap initial de (lat1, lon1) vers (lat2, lon2), en degrés dans [0, 360), 0 = nord. */
+    public static double bearingDegrees(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        double bearing = Math.toDegrees(Math.atan2(y, x));
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    /** Demi-hauteur en degrés de latitude d'un rectangle englobant un cercle de radiusMeters. */
+    public static double latitudeDelta(double radiusMeters) {
+        return radiusMeters / METERS_PER_DEGREE_LAT;
+    }
+
+    /**
+     * Demi-largeur en degrés de longitude à cette latitude.
+     * Près des pôles la largeur d'un degré tend vers 0 : on couvre alors toutes les longitudes.
+     */
+    public static double longitudeDelta(double latitude, double latitudeDelta) {
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        return cosLat > 1e-6 ? latitudeDelta / cosLat : 180.0;
+    }
+}
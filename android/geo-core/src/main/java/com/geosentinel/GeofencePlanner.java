@@ -0,0 +1,224 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Choix des geofences à confier au système (Java pur).
+ *
+ * Le système ne surveille qu'un nombre limité de geofences (100 par application
+ * avec Play Services) : on enregistre les maxRiskFences risques les plus proches,
+ * chacun avec le rayon d'alerte, plus une geofence "frontière" centrée sur la
+ * position. Tant que l'utilisateur reste dans la frontière, aucun risque non
+ * enregistré ne peut être à moins de alertRadiusMeters + SAFETY_MARGIN_METERS :
+ * le rayon de la frontière est la distance au premier risque non enregistré,
+ * moins cette marge. La sortie de la frontière déclenche une rotation (nouveau
+ * plan depuis la position de sortie) ; entre deux transitions, le CPU peut dormir.
+ *
+ * Dans une zone trop dense, la frontière serait plus petite que ce que le système
+ * sait détecter : elle est portée à MIN_BOUNDARY_METERS et le plan n'est plus
+ * "complet", l'appelant garde alors son suivi par fixes GPS.
+ *
+ * Une instance par flux de positions, non thread-safe (tampons réutilisés).
+ */
+public final class GeofencePlanner {
+    // Limite Play Services par application, frontière comprise
+    public static final int MAX_GEOFENCES = 100;
+    public static final String BOUNDARY_ID = "geosentinel-frontiere";
+    // En dessous, le système ne détecte pas la sortie de façon fiable
+    public static final double MIN_BOUNDARY_METERS = 150;
+    // Imprécision de la position vue par le système au moment de la transition
+    public static final double SAFETY_MARGIN_METERS = 50;
+
+    public static final class Plan {
+        public final double centerLat;
+        public final double centerLon;
+        public final double boundaryRadiusMeters;
+        public final double alertRadiusMeters;
+        /** Indices dans l'index des risques enregistrés, du plus proche au plus lointain. */
+        public final int[] riskIndices;
+        /** Faux si la frontière a été agrandie : des risques non enregistrés peuvent être atteints. */
+        public final boolean complete;
+
+        Plan(double centerLat, double centerLon, double boundaryRadiusMeters, double alertRadiusMeters,
+             int[] riskIndices, boolean complete) {
+            this.centerLat = centerLat;
+            this.centerLon = centerLon;
+            this.boundaryRadiusMeters = boundaryRadiusMeters;
+            this.alertRadiusMeters = alertRadiusMeters;
+            this.riskIndices = riskIndices;
+            this.complete = complete;
+        }
+
+        public boolean contains(double latitude, double longitude) {
+            return GeoMath.haversineMeters(centerLat, centerLon, latitude, longitude) <= boundaryRadiusMeters;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d risques, frontière %.0fm%s",
+                riskIndices.length, boundaryRadiusMeters, complete ? "" : " (incomplète)");
+        }
+    }
+
+    /** Différence entre les geofences de risque enregistrées et un nouveau plan. */
+    public static final class Changes {
+        public final List<String> removedIds;
+        /** Indices dans l'index des risques à ajouter. */
+        public final int[] addedIndices;
+
+        Changes(List<String> removedIds, int[] addedIndices) {
+            this.removedIds = removedIds;
+            this.addedIndices = addedIndices;
+        }
+
+        public boolean isEmpty() {
+            return removedIds.isEmpty() && addedIndices.length == 0;
+        }
+    }
+
+    private final int maxRiskFences;
+    private final double alertRadiusMeters;
+    private final double maxBoundaryMeters;
+
+    private int[] candidates = new int[0];
+    private double[] candidateDistances = new double[0];
+
+    /**
+     * @param maxRiskFences     geofences de risque, au plus MAX_GEOFENCES - 1
+     * @param maxBoundaryMeters frontière maximale : la zone de risques en cache
+     *                          doit couvrir maxBoundaryMeters + alertRadiusMeters
+     */
+    public GeofencePlanner(int maxRiskFences, double alertRadiusMeters, double maxBoundaryMeters) {
+        if (maxRiskFences <= 0 || maxRiskFences >= MAX_GEOFENCES || alertRadiusMeters <= 0
+                || maxBoundaryMeters < MIN_BOUNDARY_METERS) {
+            throw new IllegalArgumentException("Paramètres invalides: geofences=" + maxRiskFences
+                + " rayon=" + alertRadiusMeters + " frontière=" + maxBoundaryMeters);
+        }
+        this.maxRiskFences = maxRiskFences;
+        this.alertRadiusMeters = alertRadiusMeters;
+        this.maxBoundaryMeters = maxBoundaryMeters;
+    }
+
+    public double getAlertRadiusMeters() {
+        return alertRadiusMeters;
+    }
+
+    public double getMaxBoundaryMeters() {
+        return maxBoundaryMeters;
+    }
+
+    /** Plan centré sur la position : les maxRiskFences plus proches et la frontière. */
+    public Plan plan(RiskProximityIndex index, double latitude, double longitude) {
+        // Au-delà, un risque non enregistré reste hors d'atteinte depuis la frontière maximale
+        double searchLimit = maxBoundaryMeters + alertRadiusMeters + SAFETY_MARGIN_METERS;
+        if (candidates.length < index.size()) {
+            candidates = new int[index.size()];
+            candidateDistances = new double[index.size()];
+        }
+
+        // Rayon croissant : en zone dense, inutile de calculer les distances de toute la zone
+        double radius = Math.min(searchLimit, Math.max(1000, 4 * alertRadiusMeters));
+        int found;
+        while (true) {
+            found = index.queryWithin(latitude, longitude, radius, candidates, candidateDistances);
+            if (found > maxRiskFences || radius >= searchLimit) {
+                break;
+            }
+            radius = Math.min(searchLimit, radius * 2);
+        }
+
+        int selected = Math.min(found, maxRiskFences);
+        double boundary = maxBoundaryMeters;
+        if (found > maxRiskFences) {
+            // Le (maxRiskFences + 1)-ième plus proche est le premier non enregistré
+            select(candidates, candidateDistances, found, maxRiskFences);
+            double firstLeftOut = candidateDistances[maxRiskFences];
+            boundary = Math.min(boundary, firstLeftOut - alertRadiusMeters - SAFETY_MARGIN_METERS);
+        }
+        sortByDistance(candidates, candidateDistances, selected);
+
+        boolean complete = boundary >= MIN_BOUNDARY_METERS;
+        int[] riskIndices = new int[selected];
+        System.arraycopy(candidates, 0, riskIndices, 0, selected);
+        return new Plan(latitude, longitude, Math.max(boundary, MIN_BOUNDARY_METERS), alertRadiusMeters,
+            riskIndices, complete);
+    }
+
+    /** Geofences de risque à retirer et à ajouter pour passer de registeredIds au plan. */
+    public static Changes diff(Collection<String> registeredIds, Plan plan, RiskProximityIndex index) {
+        Set<String> planned = new HashSet<>();
+        int[] added = new int[plan.riskIndices.length];
+        int addedCount = 0;
+        Set<String> registered = registeredIds instanceof Set
+            ? (Set<String>) registeredIds : new HashSet<>(registeredIds);
+        for (int risk : plan.riskIndices) {
+            String id = index.getId(risk);
+            planned.add(id);
+            if (!registered.contains(id)) {
+                added[addedCount++] = risk;
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (String id : registered) {
+            if (!planned.contains(id)) {
+                removed.add(id);
+            }
+        }
+        int[] addedIndices = new int[addedCount];
+        System.arraycopy(added, 0, addedIndices, 0, addedCount);
+        return new Changes(Collections.unmodifiableList(removed), addedIndices);
+    }
+
+    // Sélection rapide : les k plus petites distances dans [0, k), la k-ième en position k
+    private static void select(int[] indices, double[] distances, int count, int k) {
+        int left = 0;
+        int right = count - 1;
+        while (left < right) {
+            double pivot = distances[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (distances[i] < pivot) {
+                    i++;
+                }
+                while (distances[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(indices, distances, i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Tri par insertion : au plus MAX_GEOFENCES éléments
+    private static void sortByDistance(int[] indices, double[] distances, int count) {
+        for (int i = 1; i < count; i++) {
+            for (int j = i; j > 0 && distances[j - 1] > distances[j]; j--) {
+                swap(indices, distances, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(int[] indices, double[] distances, int a, int b) {
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+        double distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+    }
+}
@@ -0,0 +1,233 @@
+package com.geosentinel;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Trace GPS enregistrée sur le terrain (Java pur), rejouée par TraceSimulator.
+ *
+ * La trace dense (typiquement 1 Hz) sert de vérité terrain ; positionAt interpole
+ * les positions que le GPS aurait renvoyées à n'importe quel instant de la tournée.
+ */
+public final class GpsTrace {
+    private static final Pattern ISO_TIME = Pattern.compile(
+        "(\\d{4})-(\\d{2})-(\\d{2})T(\\d{2}):(\\d{2}):(\\d{2})(\\.\\d+)?(Z|[+-]\\d{2}:?\\d{2})?");
+
+    /** Un point de trace. speedMps < 0 si la vitesse n'a pas été enregistrée. */
+    public static final class TracePoint {
+        public final long timeMs;
+        public final double latitude;
+        public final double longitude;
+        public final double speedMps;
+
+        public TracePoint(long timeMs, double latitude, double longitude, double speedMps) {
+            this.timeMs = timeMs;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.speedMps = speedMps;
+        }
+    }
+
+    /** Position interpolée ; réutilisée par l'appelant pour ne pas allouer à chaque fix. */
+    public static final class Position {
+        public double latitude;
+        public double longitude;
+        public double speedMps;
+        // Cap du segment en degrés (0 = nord), NaN à l'arrêt
+        public double bearingDegrees;
+    }
+
+    private final List<TracePoint> points;
+
+    public GpsTrace(List<TracePoint> points) {
+        if (points.size() < 2) {
+            throw new IllegalArgumentException("Trace trop courte");
+        }
+        for (int i = 1; i < points.size(); i++) {
+            if (points.get(i).timeMs < points.get(i - 1).timeMs) {
+                throw new IllegalArgumentException("Trace non ordonnée dans le temps (point " + i + ")");
+            }
+        }
+        this.points = Collections.unmodifiableList(new ArrayList<>(points));
+    }
+
+    public List<TracePoint> getPoints() {
+        return points;
+    }
+
+    public long getStartMs() {
+        return points.get(0).timeMs;
+    }
+
+    public long getEndMs() {
+        return points.get(points.size() - 1).timeMs;
+    }
+
+    /**
+     * Position à l'instant t, interpolée entre les deux points qui l'encadrent.
+     *
+     * @param segmentHint segment où chercher en premier (appels à t croissant : O(1) amorti)
+     * @return le segment utilisé, à repasser en segmentHint à l'appel suivant
+     */
+    public int positionAt(long t, int segmentHint, Position out) {
+        int segment = Math.max(0, Math.min(segmentHint, points.size() - 2));
+        while (segment > 0 && points.get(segment).timeMs > t) {
+            segment--;
+        }
+        while (segment < points.size() - 2 && points.get(segment + 1).timeMs < t) {
+            segment++;
+        }
+        TracePoint a = points.get(segment);
+        TracePoint b = points.get(segment + 1);
+        double ratio = b.timeMs > a.timeMs ? (double) (t - a.timeMs) / (b.timeMs - a.timeMs) : 0;
+        ratio = Math.max(0, Math.min(1, ratio));
+        out.latitude = a.latitude + (b.latitude - a.latitude) * ratio;
+        out.longitude = a.longitude + (b.longitude - a.longitude) * ratio;
+        out.speedMps = segmentSpeed(a, b, ratio);
+        out.bearingDegrees = a.latitude == b.latitude && a.longitude == b.longitude
+            ? Double.NaN
+            : GeoMath.bearingDegrees(a.latitude, a.longitude, b.latitude, b.longitude);
+        return segment;
+    }
+
+    /**
+     * Lit une trace CSV "timeMs,latitude,longitude[,speedMps]".
+     * Les lignes vides et celles commençant par # ou par un en-tête texte sont ignorées.
+     */
+    public static GpsTrace readCsv(Reader reader) throws IOException {
+        List<TracePoint> points = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || !Character.isDigit(line.charAt(0))) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length < 3) {
+                throw new IOException("Ligne de trace invalide: " + line);
+            }
+            try {
+                points.add(new TracePoint(
+                    Long.parseLong(fields[0].trim()),
+                    Double.parseDouble(fields[1].trim()),
+                    Double.parseDouble(fields[2].trim()),
+                    fields.length > 3 ? Double.parseDouble(fields[3].trim()) : -1
+                ));
+            } catch (NumberFormatException e) {
+                throw new IOException("Ligne de trace invalide: " + line, e);
+            }
+        }
+        return new GpsTrace(points);
+    }
+
+    /**
+     * Lit les points de trace (trkpt) d'un fichier GPX 1.1, avec leur balise time.
+     * La vitesse n'est pas standard en GPX : elle est recalculée entre les points.
+     */
+    public static GpsTrace readGpx(InputStream input) throws IOException {
+        List<TracePoint> points = new ArrayList<>();
+        DefaultHandler handler = new DefaultHandler() {
+            private double latitude;
+            private double longitude;
+            private boolean inPoint;
+            private StringBuilder text;
+
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                String name = localName(localName, qName);
+                if ("trkpt".equals(name)) {
+                    latitude = Double.parseDouble(attributes.getValue("lat"));
+                    longitude = Double.parseDouble(attributes.getValue("lon"));
+                    inPoint = true;
+                } else if (inPoint && "time".equals(name)) {
+                    text = new StringBuilder();
+                }
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (text != null) {
+                    text.append(ch, start, length);
+                }
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String qName) throws SAXException {
+                String name = localName(localName, qName);
+                if (inPoint && "time".equals(name) && text != null) {
+                    long time = parseIsoTime(text.toString().trim());
+                    if (time < 0) {
+                        throw new SAXException("Date GPX invalide: " + text);
+                    }
+                    points.add(new TracePoint(time, latitude, longitude, -1));
+                    text = null;
+                } else if ("trkpt".equals(name)) {
+                    inPoint = false;
+                }
+            }
+        };
+
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.newSAXParser().parse(input, handler);
+        } catch (ParserConfigurationException | SAXException | NumberFormatException e) {
+            throw new IOException("Fichier GPX invalide: " + e.getMessage(), e);
+        }
+        return new GpsTrace(points);
+    }
+
+    /** Date ISO 8601 (2024-05-02T08:15:30Z, fractions et décalage acceptés) en ms, -1 si invalide. */
+    static long parseIsoTime(String value) {
+        Matcher m = ISO_TIME.matcher(value);
+        if (!m.matches()) {
+            return -1;
+        }
+        Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)) - 1, Integer.parseInt(m.group(3)),
+            Integer.parseInt(m.group(4)), Integer.parseInt(m.group(5)), Integer.parseInt(m.group(6)));
+        long time = calendar.getTimeInMillis();
+        if (m.group(7) != null) {
+            time += Math.round(Double.parseDouble("0" + m.group(7)) * 1000);
+        }
+        String zone = m.group(8);
+        if (zone != null && !"Z".equals(zone)) {
+            String digits = zone.replace(":", "");
+            int offsetMinutes = Integer.parseInt(digits.substring(1, 3)) * 60 + Integer.parseInt(digits.substring(3, 5));
+            time -= (zone.charAt(0) == '-' ? -1 : 1) * offsetMinutes * 60000L;
+        }
+        return time;
+    }
+
+    private static String localName(String localName, String qName) {
+        return localName != null && !localName.isEmpty() ? localName : qName;
+    }
+
+    private static double segmentSpeed(TracePoint a, TracePoint b, double ratio) {
+        if (a.speedMps >= 0 && b.speedMps >= 0) {
+            return a.speedMps + (b.speedMps - a.speedMps) * ratio;
+        }
+        long dt = b.timeMs - a.timeMs;
+        if (dt <= 0) {
+            return 0;
+        }
+        return GeoMath.haversineMeters(a.latitude, a.longitude, b.latitude, b.longitude) / (dt / 1000.0);
+    }
+}
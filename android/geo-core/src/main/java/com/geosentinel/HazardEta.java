@@ -0,0 +1,203 @@
+package com.geosentinel;
+
+/**
+ * Alerte au temps d'arrivée sur un risque (Java pur, sans allocation par fix).
+ *
+ * Le test de distance (risque à moins de alertRadiusMeters) ne voit un risque
+ * qu'une fois dedans : en voiture, à 25 m/s et un fix toutes les 10 s, on peut
+ * traverser un rayon de 100 m entre deux fixes. Ici la trajectoire est prolongée
+ * en ligne droite à partir du vecteur vitesse (vitesse et cap du fournisseur, ou
+ * déplacement entre les deux derniers fixes) et un risque est signalé dès que
+ * l'entrée dans son rayon est prévue dans moins de horizonMs.
+ *
+ * Avec l'interpolation, le segment parcouru depuis le fix précédent est aussi
+ * testé : un rayon traversé entre deux fixes est signalé (ETA 0) au lieu d'être
+ * manqué. Avec horizonMs = 0 et sans interpolation, le résultat est celui du
+ * test de distance seul.
+ *
+ * Calculs dans le plan tangent à la position courante (quelques km au plus).
+ * Une instance par flux de positions, non thread-safe.
+ */
+public final class HazardEta {
+    // En dessous, le vecteur vitesse est dominé par le bruit du GPS
+    public static final double MIN_SPEED_MPS = 1.0;
+    // Au-delà, le fix précédent est trop ancien pour dériver une vitesse ou interpoler
+    public static final long MAX_FIX_GAP_MS = 60000;
+    public static final long NO_ETA = -1;
+
+    private final double alertRadiusMeters;
+    private final long horizonMs;
+    private final boolean interpolate;
+
+    private boolean hasPrevious;
+    private double previousLat;
+    private double previousLon;
+    private long previousTimeMs;
+    private double velocityEast;
+    private double velocityNorth;
+
+    private int[] candidates = new int[0];
+    private double[] candidateDistances = new double[0];
+
+    public HazardEta(double alertRadiusMeters, long horizonMs, boolean interpolate) {
+        if (alertRadiusMeters <= 0 || horizonMs < 0) {
+            throw new IllegalArgumentException("Paramètres invalides: rayon=" + alertRadiusMeters
+                + " horizon=" + horizonMs);
+        }
+        this.alertRadiusMeters = alertRadiusMeters;
+        this.horizonMs = horizonMs;
+        this.interpolate = interpolate;
+    }
+
+    public double getAlertRadiusMeters() {
+        return alertRadiusMeters;
+    }
+
+    public long getHorizonMs() {
+        return horizonMs;
+    }
+
+    public boolean isInterpolating() {
+        return interpolate;
+    }
+
+    /** Vitesse du dernier update en m/s (0 si inconnue). */
+    public double getSpeedMps() {
+        return Math.hypot(velocityEast, velocityNorth);
+    }
+
+    /** Oublie le fix précédent (nouvelle session, saut de position). */
+    public void reset() {
+        hasPrevious = false;
+        velocityEast = 0;
+        velocityNorth = 0;
+    }
+
+    /**
+     * Nouveau fix : met à jour le vecteur vitesse et renvoie les risques à signaler.
+     *
+     * @param timeMs         horloge monotone du fix
+     * @param speedMps       vitesse du fournisseur, négative ou NaN si absente
+     * @param bearingDegrees cap du fournisseur (0 = nord), NaN si absent
+     * @param outEtaMs       temps avant l'entrée dans le rayon ; 0 si on y est ou si on l'a traversé
+     * @param outDistances   distance actuelle en mètres, peut être null
+     * @return le nombre de risques trouvés, borné par outIndices.length
+     */
+    public int update(RiskProximityIndex index, double latitude, double longitude, long timeMs,
+                      double speedMps, double bearingDegrees,
+                      int[] outIndices, long[] outEtaMs, double[] outDistances) {
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        long gapMs = timeMs - previousTimeMs;
+        boolean recentPrevious = hasPrevious && gapMs > 0 && gapMs <= MAX_FIX_GAP_MS;
+        // Segment parcouru depuis le fix précédent, dans le plan tangent à la position courante
+        double fromEast = 0;
+        double fromNorth = 0;
+        if (recentPrevious) {
+            fromEast = (previousLon - longitude) * cosLat * GeoMath.METERS_PER_DEGREE_LAT;
+            fromNorth = (previousLat - latitude) * GeoMath.METERS_PER_DEGREE_LAT;
+        }
+
+        if (speedMps >= 0 && !Double.isNaN(bearingDegrees)) {
+            double bearing = Math.toRadians(bearingDegrees);
+            velocityEast = speedMps * Math.sin(bearing);
+            velocityNorth = speedMps * Math.cos(bearing);
+        } else if (recentPrevious) {
+            velocityEast = -fromEast * 1000.0 / gapMs;
+            velocityNorth = -fromNorth * 1000.0 / gapMs;
+        } else {
+            velocityEast = 0;
+            velocityNorth = 0;
+        }
+        hasPrevious = true;
+        previousLat = latitude;
+        previousLon = longitude;
+        previousTimeMs = timeMs;
+
+        double speed = getSpeedMps();
+        boolean projecting = horizonMs > 0 && speed >= MIN_SPEED_MPS;
+        boolean crossing = interpolate && recentPrevious;
+        double searchRadius = alertRadiusMeters;
+        if (projecting) {
+            searchRadius += speed * horizonMs / 1000.0;
+        }
+        if (crossing) {
+            searchRadius = Math.max(searchRadius, Math.hypot(fromEast, fromNorth) + alertRadiusMeters);
+        }
+
+        if (candidates.length < index.size()) {
+            candidates = new int[index.size()];
+            candidateDistances = new double[index.size()];
+        }
+        int found = index.queryWithin(latitude, longitude, searchRadius, candidates, candidateDistances);
+
+        int count = 0;
+        for (int i = 0; i < found && count < outIndices.length; i++) {
+            int risk = candidates[i];
+            double distance = candidateDistances[i];
+            long eta;
+            if (distance <= alertRadiusMeters) {
+                eta = 0;
+            } else {
+                double east = (index.getLongitude(risk) - longitude) * cosLat * GeoMath.METERS_PER_DEGREE_LAT;
+                double north = (index.getLatitude(risk) - latitude) * GeoMath.METERS_PER_DEGREE_LAT;
+                if (crossing && distanceToSegment(east, north, fromEast, fromNorth) <= alertRadiusMeters) {
+                    eta = 0;
+                } else if (projecting) {
+                    eta = etaMs(east, north, velocityEast, velocityNorth, alertRadiusMeters);
+                    if (eta > horizonMs) {
+                        eta = NO_ETA;
+                    }
+                } else {
+                    eta = NO_ETA;
+                }
+            }
+            if (eta == NO_ETA) {
+                continue;
+            }
+            outIndices[count] = risk;
+            outEtaMs[count] = eta;
+            if (outDistances != null) {
+                outDistances[count] = distance;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Temps avant d'entrer dans le cercle de rayon radius centré en (east, north),
+     * en partant de l'origine à vitesse constante (velocityEast, velocityNorth).
+     *
+     * @return l'ETA en ms, 0 si l'origine est dans le cercle, NO_ETA si la trajectoire le manque
+     */
+    public static long etaMs(double east, double north, double velocityEast, double velocityNorth, double radius) {
+        double distanceSq = east * east + north * north;
+        double radiusSq = radius * radius;
+        if (distanceSq <= radiusSq) {
+            return 0;
+        }
+        double speedSq = velocityEast * velocityEast + velocityNorth * velocityNorth;
+        if (speedSq == 0) {
+            return NO_ETA;
+        }
+        // Instant de plus courte distance ; négatif = le risque est derrière
+        double closest = (east * velocityEast + north * velocityNorth) / speedSq;
+        if (closest <= 0) {
+            return NO_ETA;
+        }
+        double missSq = distanceSq - closest * closest * speedSq;
+        if (missSq > radiusSq) {
+            return NO_ETA;
+        }
+        double entry = closest - Math.sqrt((radiusSq - missSq) / speedSq);
+        return Math.round(entry * 1000);
+    }
+
+    // Distance du point (east, north) au segment origine → (toEast, toNorth)
+    private static double distanceToSegment(double east, double north, double toEast, double toNorth) {
+        double lengthSq = toEast * toEast + toNorth * toNorth;
+        double t = lengthSq > 0 ? (east * toEast + north * toNorth) / lengthSq : 0;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(east - t * toEast, north - t * toNorth);
+    }
+}
@@ -0,0 +1,78 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Transport HTTP de l'OutboundQueue sur HttpURLConnection (Java pur).
+ *
+ * L'URL de l'API et le token sont relus à chaque envoi : ils peuvent changer
+ * entre deux flushs (bascule de serveur, refresh du token).
+ */
+public final class HttpOutboundTransport implements OutboundQueue.Transport {
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 15000;
+
+    private final Supplier<String> baseUrl;
+    private final Supplier<String> accessToken;
+
+    public HttpOutboundTransport(Supplier<String> baseUrl, Supplier<String> accessToken) {
+        this.baseUrl = baseUrl;
+        this.accessToken = accessToken;
+    }
+
+    @Override
+    public int send(String method, String path, String body, String idempotencyKey) throws IOException {
+        String base = baseUrl.get();
+        if (base == null || base.isEmpty()) {
+            throw new IOException("URL API inconnue");
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod(method);
+            connection.setRequestProperty("Content-Type", "application/json");
+            String token = accessToken.get();
+            if (token != null && !token.isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            // Même clé à chaque rejeu : le serveur reconnaît une requête déjà traitée
+            if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+                connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+            }
+
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(bytes.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(bytes);
+            }
+
+            int status = connection.getResponseCode();
+            drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            return status;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    // Lire la réponse jusqu'au bout permet de réutiliser la connexion keep-alive
+    private static void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream stream = in) {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // réponse ignorée
+            }
+        }
+    }
+}
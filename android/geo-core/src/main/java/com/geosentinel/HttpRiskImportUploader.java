@@ -0,0 +1,227 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Envoi des lots de RiskImport sur HttpURLConnection (Java pur, org.json fourni par Android).
+ *
+ * Un lot part en une requête POST /risks/bulk-create, dont la réponse suit
+ * celle de /risks/bulk-delete ({ success: [...], failed: [...] }). Si le
+ * serveur ne connaît pas la route (404/405), on s'en souvient et chaque
+ * risque du lot est créé par POST /risks. Un 401 déclenche un seul refresh
+ * du token ; les erreurs réseau et 5xx sont réessayées avec backoff.
+ *
+ * Une erreur après l'envoi du corps (timeout de lecture, 5xx) ne dit pas si le
+ * serveur a créé les risques : chaque lot, et chaque risque en repli, porte
+ * donc une clé Idempotency-Key identique à toutes ses tentatives, et le
+ * renvoi ne crée pas de doublons.
+ */
+public final class HttpRiskImportUploader implements RiskImport.Uploader {
+    private static final int CONNECT_TIMEOUT_MS = 10000;
+    private static final int READ_TIMEOUT_MS = 60000;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BACKOFF_MS = 1000;
+
+    private final Supplier<String> baseUrl;
+    private final TokenBroker broker;
+    private volatile boolean bulkUnsupported;
+
+    public HttpRiskImportUploader(Supplier<String> baseUrl, TokenBroker broker) {
+        this.baseUrl = baseUrl;
+        this.broker = broker;
+    }
+
+    @Override
+    public int upload(List<RiskImport.Candidate> chunk) throws IOException {
+        String chunkKey = UUID.randomUUID().toString();
+        if (!bulkUnsupported) {
+            JSONArray risks = new JSONArray();
+            for (RiskImport.Candidate candidate : chunk) {
+                risks.put(toJson(candidate));
+            }
+            Result result = post("/risks/bulk-create", wrap("risks", risks), chunkKey);
+            if (result.status == 404 || result.status == 405) {
+                // Route absente : création risque par risque pour le reste de l'import
+                bulkUnsupported = true;
+            } else {
+                checkStatus(result);
+                return countSuccess(result.body, chunk.size());
+            }
+        }
+
+        int created = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Result result = post("/risks", toJson(chunk.get(i)), chunkKey + "-" + i);
+            if (result.status < 300) {
+                created++;
+            } else if (result.status >= 500 || result.status == 401) {
+                checkStatus(result);
+            }
+            // 4xx : risque refusé par le serveur, compté en échec par RiskImport
+        }
+        return created;
+    }
+
+    /** Vrai si le serveur n'a pas /risks/bulk-create (création risque par risque). */
+    public boolean isBulkUnsupported() {
+        return bulkUnsupported;
+    }
+
+    private Result post(String path, JSONObject body, String idempotencyKey) throws IOException {
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        String token = currentToken();
+        boolean refreshed = false;
+        IOException lastError = null;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                sleepBeforeRetry(attempt);
+            }
+            Result result;
+            try {
+                result = send(path, bytes, token, idempotencyKey);
+            } catch (IOException e) {
+                lastError = e;
+                continue;
+            }
+            if (result.status == 401 && !refreshed) {
+                token = broker.refreshAfterUnauthorized(token);
+                refreshed = true;
+                attempt--;
+                continue;
+            }
+            if (result.status >= 500) {
+                lastError = new IOException("HTTP " + result.status + " sur " + path);
+                continue;
+            }
+            return result;
+        }
+        throw lastError;
+    }
+
+    private Result send(String path, byte[] body, String token, String idempotencyKey) throws IOException {
+        String base = baseUrl.get();
+        if (base == null || base.isEmpty()) {
+            throw new IOException("URL API inconnue");
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            if (token != null && !token.isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            connection.setRequestProperty("Idempotency-Key", idempotencyKey);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+
+            int status = connection.getResponseCode();
+            return new Result(status, readFully(status < 400 ? connection.getInputStream() : connection.getErrorStream()));
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private String currentToken() {
+        try {
+            return broker.getAccessToken();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void checkStatus(Result result) throws IOException {
+        if (result.status == 401) {
+            throw new IOException("Session expirée pendant l'import");
+        }
+        if (result.status >= 300) {
+            throw new IOException("Import refusé par le serveur (HTTP " + result.status + ")");
+        }
+    }
+
+    private static int countSuccess(String body, int sent) throws IOException {
+        try {
+            JSONArray success = new JSONObject(body).optJSONArray("success");
+            // Réponse sans détail : le lot entier est considéré comme créé
+            return success != null ? success.length() : sent;
+        } catch (JSONException e) {
+            throw new IOException("Réponse /risks/bulk-create illisible", e);
+        }
+    }
+
+    private static JSONObject toJson(RiskImport.Candidate candidate) throws IOException {
+        try {
+            JSONObject risk = new JSONObject();
+            risk.put("title", candidate.title);
+            if (candidate.description != null && !candidate.description.isEmpty()) {
+                risk.put("description", candidate.description);
+            }
+            risk.put("categoryId", candidate.categoryId);
+            risk.put("severity", candidate.severity);
+            risk.put("latitude", candidate.latitude);
+            risk.put("longitude", candidate.longitude);
+            return risk;
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static JSONObject wrap(String key, JSONArray value) throws IOException {
+        try {
+            return new JSONObject().put(key, value);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void sleepBeforeRetry(int attempt) throws IOException {
+        try {
+            Thread.sleep(BACKOFF_MS << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrompu");
+        }
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        if (in == null) {
+            return "";
+        }
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Result {
+        final int status;
+        final String body;
+
+        Result(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
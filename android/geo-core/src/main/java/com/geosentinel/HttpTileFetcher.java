@@ -0,0 +1,62 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Téléchargement des tuiles et fichiers Leaflet pour le MapTileCache (Java pur).
+ */
+public final class HttpTileFetcher implements MapTileCache.Fetcher {
+    private static final int CONNECT_TIMEOUT_MS = 8000;
+    private static final int READ_TIMEOUT_MS = 15000;
+    // Les serveurs de tuiles OSM exigent un User-Agent identifiant l'application
+    private static final String USER_AGENT = "GeoSentinel/0.0.1 (Android)";
+    // 2 connexions au plus vers les serveurs de tuiles (politique d'usage OSM),
+    // tuiles affichées et préchargement confondus
+    private static final Semaphore CONNECTIONS = new Semaphore(2);
+
+    @Override
+    public byte[] fetch(String url) throws IOException {
+        try {
+            CONNECTIONS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Téléchargement interrompu: " + url);
+        }
+        try {
+            return download(url);
+        } finally {
+            CONNECTIONS.release();
+        }
+    }
+
+    private static byte[] download(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestProperty("User-Agent", USER_AGENT);
+
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " pour " + url);
+            }
+            try (InputStream in = connection.getInputStream()) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(16384);
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                return out.toByteArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.geosentinel;
+
+/**
+ * Tampon circulaire de positions en tableaux primitifs (Java pur).
+ *
+ * LocationTrackingService y accumule les fixes au lieu d'émettre un événement
+ * bridge par position ; un flush est dû quand maxBatchSize fixes sont en
+ * attente ou que le plus ancien a attendu maxLatencyMs. Si le tampon est
+ * plein, le fix le plus ancien est écrasé. Aucune allocation par fix.
+ *
+ * Non thread-safe : utilisé depuis le Looper du callback GPS uniquement.
+ */
+public final class LocationBatchBuffer {
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final float[] accuracies;
+    private final long[] timestamps;
+    private final int[] nearbyRiskCounts;
+    private final long[] receivedAt;
+    private final int maxBatchSize;
+    private final long maxLatencyMs;
+
+    private int head;   // prochain index d'écriture
+    private int size;
+    private long dropped;
+
+    public LocationBatchBuffer(int capacity, int maxBatchSize, long maxLatencyMs) {
+        if (capacity < 1 || maxBatchSize < 1 || maxBatchSize > capacity || maxLatencyMs < 0) {
+            throw new IllegalArgumentException("Paramètres de batch invalides");
+        }
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+        this.accuracies = new float[capacity];
+        this.timestamps = new long[capacity];
+        this.nearbyRiskCounts = new int[capacity];
+        this.receivedAt = new long[capacity];
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    /**
+     * @param now horloge locale de réception (ms), sert au calcul de latence
+     */
+    public void add(double latitude, double longitude, float accuracy, long timestamp,
+                    int nearbyRiskCount, long now) {
+        latitudes[head] = latitude;
+        longitudes[head] = longitude;
+        accuracies[head] = accuracy;
+        timestamps[head] = timestamp;
+        nearbyRiskCounts[head] = nearbyRiskCount;
+        receivedAt[head] = now;
+        head = (head + 1) % latitudes.length;
+        if (size < latitudes.length) {
+            size++;
+        } else {
+            dropped++;
+        }
+    }
+
+    public boolean shouldFlush(long now) {
+        return size >= maxBatchSize || (size > 0 && now - receivedAt[oldestIndex()] >= maxLatencyMs);
+    }
+
+    /** Délai avant que le plus ancien fix n'atteigne maxLatencyMs (-1 si vide). */
+    public long millisUntilDue(long now) {
+        if (size == 0) {
+            return -1;
+        }
+        return Math.max(0, receivedAt[oldestIndex()] + maxLatencyMs - now);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Vide le tampon dans un consommateur, du plus ancien au plus récent.
+     *
+     * @return le nombre de fixes transmis
+     */
+    public int drainTo(Consumer consumer) {
+        int count = size;
+        int index = oldestIndex();
+        for (int i = 0; i < count; i++) {
+            consumer.accept(latitudes[index], longitudes[index], accuracies[index], timestamps[index],
+                nearbyRiskCounts[index]);
+            index = (index + 1) % latitudes.length;
+        }
+        size = 0;
+        return count;
+    }
+
+    private int oldestIndex() {
+        return (head - size + latitudes.length) % latitudes.length;
+    }
+
+    /** Reçoit les fixes sans boxing ni objet intermédiaire. */
+    public interface Consumer {
+        void accept(double latitude, double longitude, float accuracy, long timestamp, int nearbyRiskCount);
+    }
+}
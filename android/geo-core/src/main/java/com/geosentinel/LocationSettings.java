@@ -0,0 +1,83 @@
+package com.geosentinel;
+
+/**
+ * Paramètres de géolocalisation de la session de tracking, figés (Java pur).
+ *
+ * Paramètres tenant (GET /tenant-location-settings/me) pour le type de tournée
+ * choisi, plus les options de la session. Un changement produit un nouvel objet :
+ * les lecteurs (services, Headless JS) n'ont jamais de valeurs à moitié mises à jour.
+ */
+public final class LocationSettings {
+    public final String tourneeType;
+    public final int apiCallDelayMinutes;
+    public final int positionTestDelaySeconds;
+    public final double riskLoadZoneKm;
+    public final double alertRadiusMeters;
+    public final boolean notifyCommuneChange;
+    public final boolean nativeAlerts;
+
+    public LocationSettings(String tourneeType, int apiCallDelayMinutes, int positionTestDelaySeconds,
+                            double riskLoadZoneKm, double alertRadiusMeters,
+                            boolean notifyCommuneChange, boolean nativeAlerts) {
+        if (tourneeType == null || tourneeType.isEmpty()) {
+            throw new IllegalArgumentException("tourneeType manquant");
+        }
+        if (apiCallDelayMinutes <= 0 || positionTestDelaySeconds <= 0
+                || !(riskLoadZoneKm > 0) || !(alertRadiusMeters > 0)) {
+            throw new IllegalArgumentException("Paramètres de localisation invalides");
+        }
+        this.tourneeType = tourneeType;
+        this.apiCallDelayMinutes = apiCallDelayMinutes;
+        this.positionTestDelaySeconds = positionTestDelaySeconds;
+        this.riskLoadZoneKm = riskLoadZoneKm;
+        this.alertRadiusMeters = alertRadiusMeters;
+        this.notifyCommuneChange = notifyCommuneChange;
+        this.nativeAlerts = nativeAlerts;
+    }
+
+    /** Intervalle des ticks du pipeline (PipelineSync). */
+    public long taskIntervalMs() {
+        return positionTestDelaySeconds * 1000L;
+    }
+
+    /** Âge maximal du cache de risques avant rechargement. */
+    public long cacheMaxAgeMs() {
+        return apiCallDelayMinutes * 60000L;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LocationSettings)) {
+            return false;
+        }
+        LocationSettings that = (LocationSettings) other;
+        return tourneeType.equals(that.tourneeType)
+            && apiCallDelayMinutes == that.apiCallDelayMinutes
+            && positionTestDelaySeconds == that.positionTestDelaySeconds
+            && Double.compare(riskLoadZoneKm, that.riskLoadZoneKm) == 0
+            && Double.compare(alertRadiusMeters, that.alertRadiusMeters) == 0
+            && notifyCommuneChange == that.notifyCommuneChange
+            && nativeAlerts == that.nativeAlerts;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = tourneeType.hashCode();
+        result = 31 * result + apiCallDelayMinutes;
+        result = 31 * result + positionTestDelaySeconds;
+        result = 31 * result + Double.hashCode(riskLoadZoneKm);
+        result = 31 * result + Double.hashCode(alertRadiusMeters);
+        result = 31 * result + (notifyCommuneChange ? 1 : 0);
+        result = 31 * result + (nativeAlerts ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return tourneeType + " test=" + positionTestDelaySeconds + "s api=" + apiCallDelayMinutes
+            + "min zone=" + riskLoadZoneKm + "km alerte=" + alertRadiusMeters + "m";
+    }
+}
@@ -0,0 +1,257 @@
+package com.geosentinel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache disque LRU des tuiles de carte et des fichiers Leaflet (Java pur).
+ *
+ * - Un fichier par entrée dans le répertoire du cache ; l'ordre LRU est gardé en
+ *   mémoire et reconstruit au démarrage à partir des dates de modification.
+ * - Taille bornée : les entrées les moins récemment lues sont supprimées au-delà de maxBytes.
+ * - Une entrée plus vieille que son TTL est retéléchargée ; si le réseau échoue,
+ *   la version périmée est servie (mode hors ligne) plutôt qu'une carte vide.
+ * - Les téléchargements anticipés (prefetch) sont comptés à part : hits et misses
+ *   ne mesurent que les lectures de la carte.
+ */
+public final class MapTileCache {
+
+    /** Téléchargement d'une URL (HttpTileFetcher en production, serveur stub en test). */
+    public interface Fetcher {
+        byte[] fetch(String url) throws IOException;
+    }
+
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long staleHits;
+        public final long prefetched;
+        public final long bytesSaved;
+        public final long bytesDownloaded;
+        public final int entries;
+        public final long sizeBytes;
+
+        Stats(long hits, long misses, long staleHits, long prefetched, long bytesSaved, long bytesDownloaded,
+              int entries, long sizeBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.staleHits = staleHits;
+            this.prefetched = prefetched;
+            this.bytesSaved = bytesSaved;
+            this.bytesDownloaded = bytesDownloaded;
+            this.entries = entries;
+            this.sizeBytes = sizeBytes;
+        }
+
+        /** Part des lectures servies sans téléchargement (périmées hors ligne comprises). */
+        public double hitRatio() {
+            long lookups = hits + staleHits + misses;
+            return lookups > 0 ? (double) (hits + staleHits) / lookups : 0;
+        }
+    }
+
+    private static final class Entry {
+        final File file;
+        final long size;
+        final long storedAt;
+
+        Entry(File file, long size, long storedAt) {
+            this.file = file;
+            this.size = size;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final LongSupplier clock;
+    // accessOrder = true : l'itération commence par l'entrée la moins récemment lue
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long sizeBytes;
+    private long hits;
+    private long misses;
+    private long staleHits;
+    private long prefetched;
+    private long bytesSaved;
+    private long bytesDownloaded;
+
+    public MapTileCache(File directory, long maxBytes, LongSupplier clock) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+        load();
+    }
+
+    /**
+     * Contenu de `key`, depuis le disque s'il a moins de ttlMs, sinon téléchargé depuis `url`.
+     */
+    public byte[] get(String key, String url, long ttlMs, Fetcher fetcher) throws IOException {
+        String name = fileName(key);
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(name);
+        }
+
+        if (cached != null && clock.getAsLong() - cached.storedAt <= ttlMs) {
+            byte[] data = read(cached);
+            if (data != null) {
+                synchronized (this) {
+                    hits++;
+                    bytesSaved += data.length;
+                }
+                return data;
+            }
+        }
+
+        byte[] data;
+        try {
+            data = fetcher.fetch(url);
+        } catch (IOException e) {
+            byte[] stale = cached != null ? read(cached) : null;
+            if (stale == null) {
+                synchronized (this) {
+                    misses++;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                staleHits++;
+                bytesSaved += stale.length;
+            }
+            return stale;
+        }
+
+        synchronized (this) {
+            misses++;
+            bytesDownloaded += data.length;
+        }
+        put(name, data);
+        return data;
+    }
+
+    /**
+     * Téléchargement anticipé de `key` s'il est absent ou périmé, sans compter de
+     * lecture : une tuile préchargée puis affichée compte comme un hit.
+     *
+     * @return vrai si l'entrée a été téléchargée, faux si elle était déjà fraîche
+     */
+    public boolean prefetch(String key, String url, long ttlMs, Fetcher fetcher) throws IOException {
+        if (isFresh(key, ttlMs)) {
+            return false;
+        }
+        byte[] data = fetcher.fetch(url);
+        synchronized (this) {
+            prefetched++;
+            bytesDownloaded += data.length;
+        }
+        put(fileName(key), data);
+        return true;
+    }
+
+    /** Vrai si `key` est en cache et a moins de ttlMs (sans compter de lecture). */
+    public synchronized boolean isFresh(String key, long ttlMs) {
+        Entry entry = entries.get(fileName(key));
+        return entry != null && clock.getAsLong() - entry.storedAt <= ttlMs;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, staleHits, prefetched, bytesSaved, bytesDownloaded, entries.size(), sizeBytes);
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : entries.values()) {
+            entry.file.delete();
+        }
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    private void put(String name, byte[] data) throws IOException {
+        File file = new File(directory, name);
+        File tmp = new File(directory, name + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Écriture impossible: " + name);
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(name, new Entry(file, data.length, clock.getAsLong()));
+            if (previous != null) {
+                sizeBytes -= previous.size;
+            }
+            sizeBytes += data.length;
+            evict();
+        }
+    }
+
+    // Appelé sous le verrou
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            sizeBytes -= entry.size;
+            entry.file.delete();
+        }
+    }
+
+    private byte[] read(Entry entry) {
+        try (RandomAccessFile file = new RandomAccessFile(entry.file, "r")) {
+            byte[] data = new byte[(int) file.length()];
+            file.readFully(data);
+            return data;
+        } catch (IOException e) {
+            // Fichier supprimé ou illisible : l'entrée sera réécrite au prochain téléchargement
+            synchronized (this) {
+                if (entries.get(entry.file.getName()) == entry) {
+                    entries.remove(entry.file.getName());
+                    sizeBytes -= entry.size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private void load() {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            return;
+        }
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        List<File> kept = new ArrayList<>(files.length);
+        for (File file : files) {
+            if (file.getName().endsWith(".tmp")) {
+                file.delete();
+            } else if (file.isFile()) {
+                kept.add(file);
+            }
+        }
+        // Plus anciennes d'abord : elles seront les premières évincées
+        File[] sorted = kept.toArray(new File[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : sorted) {
+            entries.put(file.getName(), new Entry(file, file.length(), file.lastModified()));
+            sizeBytes += file.length();
+        }
+        evict();
+    }
+
+    // Les clés ("tile-16-33215-23119", "asset-leaflet.min.js") servent de nom de fichier
+    private static String fileName(String key) {
+        return key.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
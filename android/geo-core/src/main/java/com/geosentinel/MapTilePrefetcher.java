@@ -0,0 +1,112 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tuiles OSM autour d'une position et préchargement dans le MapTileCache (Java pur).
+ *
+ * Couvre la zone affichée par RiskMapScreen (maxBounds ~1 km) aux zooms 14 à 17.
+ * La politique d'usage des serveurs OSM interdit le téléchargement en masse :
+ * le préchargement n'est lancé que lorsque la carte est ouverte (zone que
+ * l'utilisateur est en train de consulter), jamais en tâche de fond, et le
+ * nombre de tuiles par préchargement est plafonné.
+ */
+public final class MapTilePrefetcher {
+    public static final String TILE_URL_TEMPLATE = "https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png";
+    public static final int MIN_ZOOM = 14;
+    public static final int MAX_ZOOM = 17;
+    public static final int MAX_TILES = 200;
+    private static final String[] SUBDOMAINS = { "a", "b", "c" };
+    private static final double KM_PER_DEG_LAT = 111.32;
+
+    private final MapTileCache cache;
+    private final MapTileCache.Fetcher fetcher;
+    private final String urlTemplate;
+
+    public MapTilePrefetcher(MapTileCache cache, MapTileCache.Fetcher fetcher, String urlTemplate) {
+        this.cache = cache;
+        this.fetcher = fetcher;
+        this.urlTemplate = urlTemplate;
+    }
+
+    public static String tileKey(int z, int x, int y) {
+        return "tile-" + z + "-" + x + "-" + y;
+    }
+
+    public static String tileUrl(String template, int z, int x, int y) {
+        return template
+            .replace("{s}", SUBDOMAINS[Math.abs(x + y) % SUBDOMAINS.length])
+            .replace("{z}", Integer.toString(z))
+            .replace("{x}", Integer.toString(x))
+            .replace("{y}", Integer.toString(y));
+    }
+
+    /** Tuile (sans cache) demandée par la WebView. */
+    public byte[] getTile(int z, int x, int y, long ttlMs) throws IOException {
+        return cache.get(tileKey(z, x, y), tileUrl(urlTemplate, z, x, y), ttlMs, fetcher);
+    }
+
+    /**
+     * Tuiles {z, x, y} recouvrant le carré de demi-côté radiusKm autour de (lat, lon),
+     * zoom par zoom, dans la limite de MAX_TILES.
+     */
+    public static List<int[]> tilesAround(double lat, double lon, double radiusKm, int minZoom, int maxZoom) {
+        double deltaLat = radiusKm / KM_PER_DEG_LAT;
+        double deltaLon = deltaLat / Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        List<int[]> tiles = new ArrayList<>();
+        for (int z = minZoom; z <= maxZoom; z++) {
+            int xMin = tileX(lon - deltaLon, z);
+            int xMax = tileX(lon + deltaLon, z);
+            int yMin = tileY(lat + deltaLat, z);
+            int yMax = tileY(lat - deltaLat, z);
+            for (int x = xMin; x <= xMax; x++) {
+                for (int y = yMin; y <= yMax; y++) {
+                    if (tiles.size() >= MAX_TILES) {
+                        return tiles;
+                    }
+                    tiles.add(new int[] { z, x, y });
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Télécharge les tuiles absentes ou périmées autour de la position ; retourne
+     * le nombre de tuiles téléchargées. S'arrête à la première erreur réseau, ou
+     * dès que cancelled est vrai (carte fermée).
+     */
+    public int prefetch(double lat, double lon, double radiusKm, long ttlMs, BooleanSupplier cancelled) {
+        int fetched = 0;
+        for (int[] tile : tilesAround(lat, lon, radiusKm, MIN_ZOOM, MAX_ZOOM)) {
+            if (cancelled.getAsBoolean()) {
+                break;
+            }
+            try {
+                if (cache.prefetch(tileKey(tile[0], tile[1], tile[2]),
+                        tileUrl(urlTemplate, tile[0], tile[1], tile[2]), ttlMs, fetcher)) {
+                    fetched++;
+                }
+            } catch (IOException e) {
+                break;
+            }
+        }
+        return fetched;
+    }
+
+    static int tileX(double lon, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor((lon + 180) / 360 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    static int tileY(double lat, int zoom) {
+        int n = 1 << zoom;
+        double rad = Math.toRadians(lat);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+}
@@ -0,0 +1,72 @@
+package com.geosentinel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Métriques déclarées du pipeline de suivi et export vers un fichier tournant (Java pur).
+ *
+ * Les noms sont ceux vus par JS (MetricsModule) et dans le fichier d'export.
+ */
+public final class Metrics {
+    public static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    // Âge du fix GPS à sa réception (retard du fournisseur + regroupement)
+    public static final MetricsRegistry.Histogram GPS_FIX_LATENCY_MS = REGISTRY.histogram("gps_fix_latency_ms");
+    public static final MetricsRegistry.Histogram TICK_LATENESS_MS = REGISTRY.histogram("tick_lateness_ms");
+    public static final MetricsRegistry.Histogram HEADLESS_TASK_MS = REGISTRY.histogram("headless_task_ms");
+    // Mesuré côté JS (api.getRisksInTile) et remonté par MetricsModule
+    public static final MetricsRegistry.Histogram RISKS_NEARBY_MS = REGISTRY.histogram("risks_nearby_ms");
+    public static final MetricsRegistry.Histogram FIX_TO_NOTIFICATION_MS = REGISTRY.histogram("fix_to_notification_ms");
+    // Temps de maintien cumulé par session de suivi (PipelineWakeLock)
+    public static final MetricsRegistry.Histogram WAKE_LOCK_HOLD_MS = REGISTRY.histogram("wake_lock_hold_ms");
+
+    public static final MetricsRegistry.Counter GPS_FIXES = REGISTRY.counter("gps_fixes");
+    // Fixes écartés par l'étape filtre (imprécis, doublons, sauts)
+    public static final MetricsRegistry.Counter GPS_FIXES_REJECTED = REGISTRY.counter("gps_fixes_rejected");
+    public static final MetricsRegistry.Counter NATIVE_ALERTS = REGISTRY.counter("native_alerts");
+    // Notifications groupées affichées par RiskAlertDispatcher / contrôles retenus par la limite par canal
+    public static final MetricsRegistry.Counter ALERT_NOTIFICATIONS = REGISTRY.counter("alert_notifications");
+    public static final MetricsRegistry.Counter ALERTS_RATE_LIMITED = REGISTRY.counter("alerts_rate_limited");
+    public static final MetricsRegistry.Counter HEADLESS_TASKS_SKIPPED = REGISTRY.counter("headless_tasks_skipped");
+    // Maintiens libérés par leur timeout plutôt que par le travail (oubli ou travail trop long)
+    public static final MetricsRegistry.Counter WAKE_LOCK_TIMEOUTS = REGISTRY.counter("wake_lock_timeouts");
+    // Tuiles du RiskTileCache JS servies sans requête / téléchargées
+    public static final MetricsRegistry.Counter RISK_CACHE_HITS = REGISTRY.counter("risk_cache_hits");
+    public static final MetricsRegistry.Counter RISK_CACHE_MISSES = REGISTRY.counter("risk_cache_misses");
+    // Rechargements de la zone JS : avant le contrôle des risques / anticipés (PrefetchCorridor)
+    public static final MetricsRegistry.Counter RISK_BLOCKING_REFRESHES = REGISTRY.counter("risk_blocking_refreshes");
+    public static final MetricsRegistry.Counter RISK_PREFETCHES = REGISTRY.counter("risk_prefetches");
+    // Réponses /risks/nearby reçues par RiskWireModule : octets, et réponses JSON faute de format binaire
+    public static final MetricsRegistry.Counter RISK_WIRE_BYTES = REGISTRY.counter("risk_wire_bytes");
+    public static final MetricsRegistry.Counter RISK_WIRE_JSON_FALLBACKS = REGISTRY.counter("risk_wire_json_fallbacks");
+    // Import de fichiers (RiskImportModule) : risques créés / rejetés (invalides ou refusés par le serveur)
+    public static final MetricsRegistry.Counter RISK_IMPORT_UPLOADED = REGISTRY.counter("risk_import_uploaded");
+    public static final MetricsRegistry.Counter RISK_IMPORT_REJECTED = REGISTRY.counter("risk_import_rejected");
+    // Mode geofencing : jeux de geofences recalculés / alertes levées par une entrée système
+    public static final MetricsRegistry.Counter GEOFENCE_ROTATIONS = REGISTRY.counter("geofence_rotations");
+    public static final MetricsRegistry.Counter GEOFENCE_ALERTS = REGISTRY.counter("geofence_alerts");
+
+    private Metrics() {
+    }
+
+    /**
+     * Ajoute une ligne JSON au fichier ; au-delà de maxBytes, le fichier devient
+     * `<nom>.1` (l'ancien est écrasé) et un nouveau fichier est commencé.
+     */
+    public static synchronized void appendTo(File file, long maxBytes, long timestamp) throws IOException {
+        byte[] line = (REGISTRY.toJsonLine(timestamp) + "\n").getBytes(StandardCharsets.UTF_8);
+        if (file.exists() && file.length() + line.length > maxBytes) {
+            File previous = new File(file.getPath() + ".1");
+            previous.delete();
+            if (!file.renameTo(previous)) {
+                throw new IOException("Rotation impossible: " + file);
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(line);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Registre de métriques du pipeline de suivi (Java pur, thread-safe).
+ *
+ * Les métriques sont déclarées une fois (voir Metrics) ; l'enregistrement ne fait
+ * que des incréments atomiques sur des tableaux préalloués : aucune allocation
+ * ni verrou sur les chemins chauds (callback GPS, ticks). Les lectures (snapshot,
+ * export JS, fichier) allouent, mais restent hors de ces chemins.
+ */
+public final class MetricsRegistry {
+    // Bornes supérieures des buckets, en ms : de la milliseconde (index) à 4 h (wake lock)
+    static final long[] LATENCY_BOUNDS_MS = {
+        1, 2, 5, 10, 25, 50, 100, 250, 500,
+        1000, 2500, 5000, 10000, 30000, 60000,
+        300000, 900000, 3600000, 14400000
+    };
+
+    private final Map<String, Counter> counters = new LinkedHashMap<>();
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+
+    public synchronized Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name);
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    public synchronized Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new Histogram(name, LATENCY_BOUNDS_MS);
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /** Compteur déjà déclaré, null sinon (les noms venant de JS ne créent rien). */
+    public synchronized Counter findCounter(String name) {
+        return counters.get(name);
+    }
+
+    public synchronized Histogram findHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    public synchronized List<Counter> getCounters() {
+        return Collections.unmodifiableList(new ArrayList<>(counters.values()));
+    }
+
+    public synchronized List<Histogram> getHistograms() {
+        return Collections.unmodifiableList(new ArrayList<>(histograms.values()));
+    }
+
+    public synchronized void reset() {
+        for (Counter counter : counters.values()) {
+            counter.value.set(0);
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /** Une ligne JSON : horodatage, compteurs, puis count/mean/p50/p95/p99/max des histogrammes. */
+    public String toJsonLine(long timestamp) {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("{\"ts\":").append(timestamp).append(",\"counters\":{");
+        boolean first = true;
+        for (Counter counter : getCounters()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append('"').append(counter.name).append("\":").append(counter.get());
+        }
+        out.append("},\"histograms\":{");
+        first = true;
+        for (Histogram histogram : getHistograms()) {
+            Histogram.Snapshot s = histogram.snapshot();
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append('"').append(histogram.name).append("\":{")
+                .append("\"count\":").append(s.count)
+                .append(",\"mean\":").append(s.mean())
+                .append(",\"p50\":").append(s.percentile(0.50))
+                .append(",\"p95\":").append(s.percentile(0.95))
+                .append(",\"p99\":").append(s.percentile(0.99))
+                .append(",\"max\":").append(s.max)
+                .append('}');
+        }
+        return out.append("}}").toString();
+    }
+
+    public static final class Counter {
+        public final String name;
+        private final AtomicLong value = new AtomicLong();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    public static final class Histogram {
+        public final String name;
+        private final long[] bounds;
+        // bounds.length buckets + 1 bucket de débordement
+        private final AtomicLongArray buckets;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(String name, long[] bounds) {
+            this.name = name;
+            this.bounds = bounds;
+            this.buckets = new AtomicLongArray(bounds.length + 1);
+        }
+
+        public void record(long valueMs) {
+            long value = Math.max(0, valueMs);
+            int bucket = 0;
+            while (bucket < bounds.length && value > bounds[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        public Snapshot snapshot() {
+            long[] counts = new long[buckets.length()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return new Snapshot(bounds, counts, count.get(), sum.get(), max.get());
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+
+        public static final class Snapshot {
+            public final long count;
+            public final long sum;
+            public final long max;
+            private final long[] bounds;
+            private final long[] counts;
+
+            Snapshot(long[] bounds, long[] counts, long count, long sum, long max) {
+                this.bounds = bounds;
+                this.counts = counts;
+                this.count = count;
+                this.sum = sum;
+                this.max = max;
+            }
+
+            public long mean() {
+                return count > 0 ? sum / count : 0;
+            }
+
+            /** Borne supérieure du bucket contenant le quantile (max pour le débordement). */
+            public long percentile(double quantile) {
+                long total = 0;
+                for (long c : counts) {
+                    total += c;
+                }
+                if (total == 0) {
+                    return 0;
+                }
+                long rank = (long) Math.ceil(quantile * total);
+                long seen = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen >= rank) {
+                        return i < bounds.length ? Math.min(bounds[i], max) : max;
+                    }
+                }
+                return max;
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.geosentinel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only de la file d'envoi hors ligne (Java pur).
+ *
+ * Chaque enregistrement : int longueur, int CRC32, puis la charge utile
+ * (ENQUEUE avec la requête complète et sa clé d'idempotence, ou ACK avec l'id
+ * acquitté). Au chargement on rejoue le journal ; un enregistrement final
+ * tronqué ou corrompu (écriture interrompue) est ignoré et le fichier est
+ * coupé à cet endroit. Quand les ACK dominent, le journal est réécrit avec les
+ * seules requêtes en attente (tmp + rename, comme RiskCacheFile).
+ */
+public final class OutboundJournal {
+    private static final byte TYPE_ENQUEUE = 1;
+    private static final byte TYPE_ACK = 2;
+    private static final int MAX_RECORD_BYTES = 4 * 1024 * 1024;
+    private static final int COMPACT_MIN_ACKS = 64;
+
+    private final File file;
+    private FileOutputStream out;
+    private int ackedSinceCompaction;
+
+    public OutboundJournal(File file) {
+        this.file = file;
+    }
+
+    /** Rejoue le journal et retourne les requêtes non acquittées, dans l'ordre d'arrivée. */
+    public synchronized List<OutboundQueue.Mutation> open() throws IOException {
+        Map<Long, OutboundQueue.Mutation> pending = new LinkedHashMap<>();
+        long validLength = 0;
+        int acks = 0;
+
+        if (file.exists()) {
+            try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+                while (true) {
+                    byte[] payload;
+                    try {
+                        int length = in.readInt();
+                        int crc = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_BYTES) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        if (crc != checksum(payload)) {
+                            break;
+                        }
+                        validLength += 8 + length;
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                    byte type = record.readByte();
+                    long id = record.readLong();
+                    if (type == TYPE_ENQUEUE) {
+                        long createdAt = record.readLong();
+                        String method = record.readUTF();
+                        String path = record.readUTF();
+                        String key = record.readUTF();
+                        String idempotencyKey = record.readUTF();
+                        byte[] body = new byte[record.readInt()];
+                        record.readFully(body);
+                        pending.put(id, new OutboundQueue.Mutation(id, method, path,
+                            new String(body, StandardCharsets.UTF_8), key.isEmpty() ? null : key,
+                            idempotencyKey, createdAt));
+                    } else if (type == TYPE_ACK) {
+                        pending.remove(id);
+                        acks++;
+                    }
+                }
+            }
+
+            if (validLength < file.length()) {
+                // Fin de fichier tronquée (écriture interrompue) : on repart du dernier enregistrement valide
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                    raf.setLength(validLength);
+                }
+            }
+        }
+
+        out = new FileOutputStream(file, true);
+        ackedSinceCompaction = acks;
+        List<OutboundQueue.Mutation> result = new ArrayList<>(pending.values());
+        if (acks >= COMPACT_MIN_ACKS) {
+            compact(result);
+        }
+        return result;
+    }
+
+    public synchronized void appendEnqueue(OutboundQueue.Mutation mutation) throws IOException {
+        appendRecord(encodeEnqueue(mutation));
+    }
+
+    public synchronized void appendAck(long id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(TYPE_ACK);
+        data.writeLong(id);
+        appendRecord(bytes.toByteArray());
+        ackedSinceCompaction++;
+    }
+
+    /** Réécrit le journal si les ACK dominent ; pending = requêtes encore en attente. */
+    public synchronized void maybeCompact(List<OutboundQueue.Mutation> pending) throws IOException {
+        if (ackedSinceCompaction >= COMPACT_MIN_ACKS && ackedSinceCompaction > pending.size()) {
+            compact(pending);
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    public synchronized void clear() throws IOException {
+        close();
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Suppression du journal impossible: " + file);
+        }
+        out = new FileOutputStream(file, true);
+        ackedSinceCompaction = 0;
+    }
+
+    public synchronized long length() {
+        return file.length();
+    }
+
+    private void compact(List<OutboundQueue.Mutation> pending) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream compacted = new FileOutputStream(tmp)) {
+            for (OutboundQueue.Mutation mutation : pending) {
+                compacted.write(frame(encodeEnqueue(mutation)));
+            }
+            compacted.getFD().sync();
+        }
+        close();
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            out = new FileOutputStream(file, true);
+            throw new IOException("Compaction du journal impossible: " + file);
+        }
+        out = new FileOutputStream(file, true);
+        ackedSinceCompaction = 0;
+    }
+
+    private void appendRecord(byte[] payload) throws IOException {
+        if (out == null) {
+            throw new IOException("Journal non ouvert");
+        }
+        // Un seul write par enregistrement + fsync : une requête acceptée survit au kill
+        out.write(frame(payload));
+        out.getFD().sync();
+    }
+
+    private static byte[] encodeEnqueue(OutboundQueue.Mutation mutation) throws IOException {
+        byte[] body = mutation.body.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + body.length);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeByte(TYPE_ENQUEUE);
+        data.writeLong(mutation.id);
+        data.writeLong(mutation.createdAt);
+        data.writeUTF(mutation.method);
+        data.writeUTF(mutation.path);
+        data.writeUTF(mutation.coalesceKey != null ? mutation.coalesceKey : "");
+        data.writeUTF(mutation.idempotencyKey);
+        data.writeInt(body.length);
+        data.write(body);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] frame(byte[] payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + payload.length);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(payload.length);
+        data.writeInt(checksum(payload));
+        data.write(payload);
+        return bytes.toByteArray();
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,283 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * File d'envoi hors ligne des mutations (POST /risks, PUT /risks/:id) (Java pur).
+ *
+ * - Durable : chaque requête acceptée est écrite dans l'OutboundJournal avant
+ *   d'être acquittée à JS, et n'en sort qu'après une réponse définitive du serveur.
+ * - Regroupement : une nouvelle mutation portant la même clé (ex. "PUT /risks/42")
+ *   remplace celle encore en attente, on n'envoie que le dernier état.
+ * - Backoff exponentiel global : en zone blanche toutes les requêtes échoueraient
+ *   de la même façon, un échec réseau suspend donc toute la file.
+ * - Idempotence : chaque mutation porte une clé (Idempotency-Key) fixée par
+ *   l'appelant et renvoyée à l'identique à chaque rejeu ; une requête reçue par
+ *   le serveur mais dont la réponse s'est perdue n'est pas créée deux fois.
+ *
+ * flush() est appelé au retour du réseau, au démarrage de l'app et de façon
+ * opportuniste par les ticks du pipeline (PipelineSync).
+ */
+public final class OutboundQueue {
+    public static final long BASE_BACKOFF_MS = 5000;
+    public static final long MAX_BACKOFF_MS = 10 * 60 * 1000;
+
+    /**
+     * Envoi HTTP d'une mutation ; retourne le code HTTP, IOException si le réseau est absent.
+     * idempotencyKey est la même à chaque renvoi d'une mutation donnée.
+     */
+    public interface Transport {
+        int send(String method, String path, String body, String idempotencyKey) throws IOException;
+    }
+
+    public static final class Mutation {
+        public final long id;
+        public final String method;
+        public final String path;
+        public final String body;
+        public final String coalesceKey;   // null : jamais regroupée (ex. création)
+        public final String idempotencyKey;
+        public final long createdAt;
+
+        public Mutation(long id, String method, String path, String body, String coalesceKey,
+                        String idempotencyKey, long createdAt) {
+            this.id = id;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.coalesceKey = coalesceKey;
+            this.idempotencyKey = idempotencyKey;
+            this.createdAt = createdAt;
+        }
+    }
+
+    public static final class FlushReport {
+        public final int requests;      // requêtes HTTP émises pendant ce flush
+        public final int delivered;
+        public final int rejected;      // refusées définitivement (4xx), retirées de la file
+        public final int remaining;     // profondeur de file après le flush
+        public final boolean deferred;  // flush non tenté (backoff en cours ou flush déjà actif)
+
+        FlushReport(int requests, int delivered, int rejected, int remaining, boolean deferred) {
+            this.requests = requests;
+            this.delivered = delivered;
+            this.rejected = rejected;
+            this.remaining = remaining;
+            this.deferred = deferred;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "requêtes=%d livrées=%d rejetées=%d restantes=%d%s",
+                requests, delivered, rejected, remaining, deferred ? " (différé)" : "");
+        }
+    }
+
+    public static final class Stats {
+        public final int depth;
+        public final long flushes;            // flushs ayant émis au moins une requête
+        public final long requestsSent;
+        public final long delivered;
+        public final long rejected;
+        public final long coalesced;
+        public final int consecutiveFailures;
+        public final long backoffRemainingMs;
+
+        Stats(int depth, long flushes, long requestsSent, long delivered, long rejected,
+              long coalesced, int consecutiveFailures, long backoffRemainingMs) {
+            this.depth = depth;
+            this.flushes = flushes;
+            this.requestsSent = requestsSent;
+            this.delivered = delivered;
+            this.rejected = rejected;
+            this.coalesced = coalesced;
+            this.consecutiveFailures = consecutiveFailures;
+            this.backoffRemainingMs = backoffRemainingMs;
+        }
+
+        public double requestsPerFlush() {
+            return flushes > 0 ? (double) requestsSent / flushes : 0;
+        }
+    }
+
+    private final OutboundJournal journal;
+    private final LongSupplier clock;
+    private final List<Mutation> pending;
+    private long nextId;
+
+    private boolean flushing;
+    private long inFlightId = -1;
+    private int consecutiveFailures;
+    private long nextAttemptAt;
+
+    private long flushes;
+    private long requestsSent;
+    private long delivered;
+    private long rejected;
+    private long coalesced;
+
+    public OutboundQueue(OutboundJournal journal, LongSupplier clock) throws IOException {
+        this.journal = journal;
+        this.clock = clock;
+        this.pending = journal.open();
+        long maxId = 0;
+        for (Mutation mutation : pending) {
+            maxId = Math.max(maxId, mutation.id);
+        }
+        this.nextId = Math.max(maxId + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * Ajoute une mutation à la file (écrite dans le journal avant de rendre la main).
+     *
+     * @param idempotencyKey clé déjà envoyée lors de la tentative directe ; null pour en générer une
+     * @return l'id de la mutation
+     */
+    public synchronized long enqueue(String method, String path, String body, String coalesceKey,
+                                     String idempotencyKey) throws IOException {
+        String key = idempotencyKey != null && !idempotencyKey.isEmpty() ? idempotencyKey : UUID.randomUUID().toString();
+        Mutation mutation = new Mutation(nextId++, method, path, body != null ? body : "",
+            coalesceKey, key, System.currentTimeMillis());
+        journal.appendEnqueue(mutation);
+
+        if (coalesceKey != null) {
+            Iterator<Mutation> it = pending.iterator();
+            while (it.hasNext()) {
+                Mutation previous = it.next();
+                // La mutation en cours d'envoi ne peut plus être remplacée
+                if (coalesceKey.equals(previous.coalesceKey) && previous.id != inFlightId) {
+                    journal.appendAck(previous.id);
+                    it.remove();
+                    coalesced++;
+                }
+            }
+        }
+        pending.add(mutation);
+        return mutation.id;
+    }
+
+    /**
+     * Envoie les mutations en attente dans l'ordre, au plus maxRequests requêtes.
+     * S'arrête au premier échec réseau ou serveur et arme le backoff.
+     *
+     * @param force ignore le backoff en cours (envoi demandé explicitement par l'utilisateur)
+     */
+    public FlushReport flush(Transport transport, int maxRequests, boolean force) {
+        synchronized (this) {
+            if (flushing || pending.isEmpty() || (!force && clock.getAsLong() < nextAttemptAt)) {
+                return new FlushReport(0, 0, 0, pending.size(), !pending.isEmpty());
+            }
+            flushing = true;
+        }
+
+        int requests = 0;
+        int ok = 0;
+        int refused = 0;
+        try {
+            while (requests < maxRequests) {
+                Mutation next;
+                synchronized (this) {
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    next = pending.get(0);
+                    inFlightId = next.id;
+                }
+
+                int status;
+                try {
+                    requests++;
+                    status = transport.send(next.method, next.path, next.body, next.idempotencyKey);
+                } catch (IOException e) {
+                    status = -1;
+                }
+
+                synchronized (this) {
+                    inFlightId = -1;
+                    if (isRetryable(status)) {
+                        consecutiveFailures++;
+                        nextAttemptAt = clock.getAsLong() + backoffMs(consecutiveFailures);
+                        break;
+                    }
+                    consecutiveFailures = 0;
+                    nextAttemptAt = 0;
+                    pending.remove(next);
+                    acknowledge(next.id);
+                    if (status >= 200 && status < 300) {
+                        ok++;
+                    } else {
+                        refused++;
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                flushing = false;
+                inFlightId = -1;
+                if (requests > 0) {
+                    flushes++;
+                    requestsSent += requests;
+                    delivered += ok;
+                    rejected += refused;
+                }
+                compactQuietly();
+            }
+        }
+
+        synchronized (this) {
+            return new FlushReport(requests, ok, refused, pending.size(), false);
+        }
+    }
+
+    public synchronized int depth() {
+        return pending.size();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(pending.size(), flushes, requestsSent, delivered, rejected, coalesced,
+            consecutiveFailures, Math.max(0, nextAttemptAt - clock.getAsLong()));
+    }
+
+    public synchronized void clear() throws IOException {
+        pending.clear();
+        journal.clear();
+        consecutiveFailures = 0;
+        nextAttemptAt = 0;
+    }
+
+    public static long backoffMs(int consecutiveFailures) {
+        if (consecutiveFailures <= 0) {
+            return 0;
+        }
+        int shift = Math.min(consecutiveFailures - 1, 20);
+        return Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << shift);
+    }
+
+    // Réseau absent, timeout, auth expirée, surcharge ou erreur serveur : on réessaiera.
+    // Les autres 4xx (validation, risque supprimé) ne passeront jamais : on abandonne.
+    static boolean isRetryable(int status) {
+        return status < 200 || status == 401 || status == 408 || status == 429 || status >= 500;
+    }
+
+    private void acknowledge(long id) {
+        try {
+            journal.appendAck(id);
+        } catch (IOException e) {
+            // Au pire la mutation sera renvoyée après un redémarrage
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            journal.maybeCompact(pending);
+        } catch (IOException e) {
+            // Journal laissé tel quel, nouvelle tentative au prochain flush
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Étapes actives du pipeline de suivi natif (Java pur).
+ *
+ * Un seul service (LocationTrackingService) enchaîne, dans le même processus :
+ * source (abonnement unique au fournisseur de position) → filtre (fixes
+ * imprécis ou aberrants) → proximité (index des risques, ETA, geofences) →
+ * notification (alertes natives) ; la synchro (boucle de ticks : file sortante,
+ * token, métriques, tâche Headless JS) tourne à côté. JS choisit les étapes au
+ * démarrage : sans proximité ni notification, les alertes restent côté JS et la
+ * tâche Headless reçoit le dernier fix de la source au lieu de redemander le GPS.
+ */
+public final class PipelineStages {
+
+    public enum Stage {
+        SOURCE("source"),
+        FILTER("filtre"),
+        PROXIMITY("proximite"),
+        NOTIFIER("notification"),
+        SYNC("sync");
+
+        public final String id;
+
+        Stage(String id) {
+            this.id = id;
+        }
+
+        public static Stage fromId(String id) {
+            for (Stage stage : values()) {
+                if (stage.id.equals(id)) {
+                    return stage;
+                }
+            }
+            throw new IllegalArgumentException("Étape inconnue: " + id);
+        }
+    }
+
+    /** Alertes évaluées par le Headless JS : position et ticks seulement. */
+    public static final PipelineStages JS_ALERTS = of(Stage.SOURCE, Stage.FILTER, Stage.SYNC);
+    /** Alertes natives à chaque fix ; le Headless JS ne sert plus qu'au refresh du cache. */
+    public static final PipelineStages NATIVE_ALERTS =
+        of(Stage.SOURCE, Stage.FILTER, Stage.PROXIMITY, Stage.NOTIFIER, Stage.SYNC);
+
+    private final Set<Stage> stages;
+
+    private PipelineStages(EnumSet<Stage> stages) {
+        // Chaque étape consomme la sortie de la précédente
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("Aucune étape");
+        }
+        if ((stages.contains(Stage.FILTER) || stages.contains(Stage.PROXIMITY)) && !stages.contains(Stage.SOURCE)) {
+            throw new IllegalArgumentException("Étapes " + stages + " sans source de position");
+        }
+        if (stages.contains(Stage.NOTIFIER) && !stages.contains(Stage.PROXIMITY)) {
+            throw new IllegalArgumentException("Notification sans étape de proximité");
+        }
+        this.stages = Collections.unmodifiableSet(stages);
+    }
+
+    public static PipelineStages of(Stage first, Stage... rest) {
+        return new PipelineStages(EnumSet.of(first, rest));
+    }
+
+    /** Identifiants envoyés par JS (LocationServiceModule.startService). */
+    public static PipelineStages parse(Collection<String> ids) {
+        EnumSet<Stage> stages = EnumSet.noneOf(Stage.class);
+        for (String id : ids) {
+            stages.add(Stage.fromId(id.trim()));
+        }
+        return new PipelineStages(stages);
+    }
+
+    public boolean has(Stage stage) {
+        return stages.contains(stage);
+    }
+
+    public List<String> ids() {
+        List<String> ids = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            ids.add(stage.id);
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PipelineStages && stages.equals(((PipelineStages) other).stages);
+    }
+
+    @Override
+    public int hashCode() {
+        return stages.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" → ", ids());
+    }
+}
@@ -0,0 +1,150 @@
+package com.geosentinel;
+
+import java.util.Locale;
+
+/**
+ * Zone de risques chargée en cache (Java pur) : une "capsule", ensemble des points
+ * à moins de halfWidthMeters du segment start → end. Un cercle est une capsule
+ * dont le segment est réduit à son centre.
+ *
+ * Sans cap connu (arrêt, marche lente), la zone reste le cercle riskLoadZoneKm
+ * historique. En mouvement, plan() la remplace par un couloir orienté vers l'avant :
+ * moins large que le cercle, il ne télécharge presque rien derrière l'utilisateur
+ * et s'étend aussi loin qu'il peut aller avant l'expiration du cache.
+ *
+ * prefetchDue() compare la position prévue dans leadMs à la zone : le rechargement
+ * est lancé au tick précédent, après le contrôle des risques, au lieu de bloquer
+ * le tick où l'utilisateur atteint le bord de la zone.
+ *
+ * Même logique que prefetchCorridor.ts, rejouée par TraceSimulator.
+ */
+public final class PrefetchCorridor {
+    // En dessous, le cap du fournisseur de position n'est pas fiable
+    public static final double MIN_SPEED_MPS = 2.5;
+    // Demi-largeur du couloir rapportée au rayon riskLoadZoneKm
+    public static final double WIDTH_RATIO = 0.6;
+    // Zone trop petite pour un couloir : la marge de 1 km la rendrait vide
+    public static final double MIN_CORRIDOR_ZONE_KM = 2;
+    // Marge de shouldRefreshCache : rechargement à 1 km du bord de la zone
+    public static final double REFRESH_MARGIN_METERS = 1000;
+    public static final long MIN_LEAD_MS = 60000;
+
+    public final double startLat;
+    public final double startLon;
+    public final double endLat;
+    public final double endLon;
+    public final double halfWidthMeters;
+
+    public PrefetchCorridor(double startLat, double startLon, double endLat, double endLon,
+                            double halfWidthMeters) {
+        this.startLat = startLat;
+        this.startLon = startLon;
+        this.endLat = endLat;
+        this.endLon = endLon;
+        this.halfWidthMeters = halfWidthMeters;
+    }
+
+    /** Zone historique : cercle de radiusMeters autour du centre. */
+    public static PrefetchCorridor circle(double latitude, double longitude, double radiusMeters) {
+        return new PrefetchCorridor(latitude, longitude, latitude, longitude, radiusMeters);
+    }
+
+    /**
+     * Zone à charger depuis cette position.
+     *
+     * @param bearingDegrees cap en degrés (0 = nord), NaN si inconnu
+     * @param maxAgeMs durée de vie du cache : inutile de charger plus loin que ce qu'on parcourt avant
+     */
+    public static PrefetchCorridor plan(double latitude, double longitude, double speedMps,
+                                        double bearingDegrees, double riskLoadZoneKm, long maxAgeMs) {
+        double radiusMeters = riskLoadZoneKm * 1000;
+        if (!hasHeading(speedMps, bearingDegrees) || riskLoadZoneKm < MIN_CORRIDOR_ZONE_KM) {
+            return circle(latitude, longitude, radiusMeters);
+        }
+        double halfWidth = WIDTH_RATIO * radiusMeters;
+        double length = Math.min(2 * radiusMeters, Math.max(halfWidth, speedMps * maxAgeMs / 1000.0));
+        double bearing = Math.toRadians(bearingDegrees);
+        double endLat = latitude + GeoMath.latitudeDelta(length * Math.cos(bearing));
+        double endLon = longitude
+            + GeoMath.longitudeDelta(latitude, GeoMath.latitudeDelta(length * Math.sin(bearing)));
+        return new PrefetchCorridor(latitude, longitude, endLat, endLon, halfWidth);
+    }
+
+    /** Délai d'anticipation : deux ticks, au moins une minute. */
+    public static long leadMs(long taskIntervalMs) {
+        return Math.max(MIN_LEAD_MS, 2 * taskIntervalMs);
+    }
+
+    public boolean isCircle() {
+        return startLat == endLat && startLon == endLon;
+    }
+
+    public double lengthMeters() {
+        return isCircle() ? 0 : GeoMath.haversineMeters(startLat, startLon, endLat, endLon);
+    }
+
+    /**
+     * Distance au segment de la zone. Cercle : haversine au centre ; couloir :
+     * projection plane autour du départ (quelques km, écart négligeable).
+     */
+    public double distanceToAxisMeters(double latitude, double longitude) {
+        if (isCircle()) {
+            return GeoMath.haversineMeters(startLat, startLon, latitude, longitude);
+        }
+        double cosLat = Math.cos(Math.toRadians(startLat));
+        double ex = (endLon - startLon) * cosLat * GeoMath.METERS_PER_DEGREE_LAT;
+        double ey = (endLat - startLat) * GeoMath.METERS_PER_DEGREE_LAT;
+        double px = (longitude - startLon) * cosLat * GeoMath.METERS_PER_DEGREE_LAT;
+        double py = (latitude - startLat) * GeoMath.METERS_PER_DEGREE_LAT;
+        double t = (px * ex + py * ey) / (ex * ex + ey * ey);
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - t * ex, py - t * ey);
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return distanceToAxisMeters(latitude, longitude) <= halfWidthMeters;
+    }
+
+    /** Position sortie de la zone à REFRESH_MARGIN_METERS près (règle de shouldRefreshCache). */
+    public boolean needsRefresh(double latitude, double longitude) {
+        return distanceToAxisMeters(latitude, longitude) > halfWidthMeters - REFRESH_MARGIN_METERS;
+    }
+
+    /** Vrai si, à ce cap et cette vitesse, needsRefresh deviendra vrai dans les leadMs à venir. */
+    public boolean prefetchDue(double latitude, double longitude, double speedMps, double bearingDegrees,
+                               long leadMs) {
+        if (!hasHeading(speedMps, bearingDegrees)) {
+            return false;
+        }
+        double ahead = speedMps * leadMs / 1000.0;
+        double bearing = Math.toRadians(bearingDegrees);
+        double aheadLat = latitude + GeoMath.latitudeDelta(ahead * Math.cos(bearing));
+        double aheadLon = longitude
+            + GeoMath.longitudeDelta(latitude, GeoMath.latitudeDelta(ahead * Math.sin(bearing)));
+        return needsRefresh(aheadLat, aheadLon);
+    }
+
+    /** Cercle englobant la zone, pour une requête /risks/nearby (centre au milieu du segment). */
+    public double boundingRadiusMeters() {
+        return lengthMeters() / 2 + halfWidthMeters;
+    }
+
+    public double centerLat() {
+        return (startLat + endLat) / 2;
+    }
+
+    public double centerLon() {
+        return (startLon + endLon) / 2;
+    }
+
+    private static boolean hasHeading(double speedMps, double bearingDegrees) {
+        return speedMps >= MIN_SPEED_MPS && !Double.isNaN(bearingDegrees);
+    }
+
+    @Override
+    public String toString() {
+        return isCircle()
+            ? String.format(Locale.ROOT, "cercle %.0fm", halfWidthMeters)
+            : String.format(Locale.ROOT, "couloir %.0fm x %.0fm", lengthMeters(), 2 * halfWidthMeters);
+    }
+}
@@ -0,0 +1,122 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Anti-doublon des alertes risques (Java pur, testable sans Android).
+ *
+ * Reprend la logique notifiedRisks / notificationTimestamps de
+ * locationBackgroundTask.ts : un risque n'est notifié qu'une fois par
+ * période de cooldown tant qu'on reste à proximité, et il est oublié dès
+ * qu'il sort du rayon d'alerte (une nouvelle approche le re-notifie).
+ *
+ * L'horloge est passée en paramètre pour rester déterministe en test.
+ */
+public final class RiskAlertCooldown {
+    public static final long DEFAULT_COOLDOWN_MS = 5 * 60 * 1000; // 5 minutes, comme NOTIFICATION_COOLDOWN
+
+    private final long cooldownMs;
+    private final Map<String, Long> lastNotified = new HashMap<>();
+
+    public RiskAlertCooldown() {
+        this(DEFAULT_COOLDOWN_MS);
+    }
+
+    public RiskAlertCooldown(long cooldownMs) {
+        if (cooldownMs < 0) {
+            throw new IllegalArgumentException("Cooldown négatif: " + cooldownMs);
+        }
+        this.cooldownMs = cooldownMs;
+    }
+
+    /**
+     * Détermine les risques à notifier pour une position.
+     *
+     * @param nearbyIds risques actuellement dans le rayon d'alerte
+     * @param now       horodatage courant en ms
+     * @return les ids à notifier maintenant (dans l'ordre de nearbyIds, sans doublon)
+     */
+    public synchronized List<String> evaluate(Collection<String> nearbyIds, long now) {
+        List<String> toNotify = due(nearbyIds, now);
+        markNotified(toNotify, now);
+        return toNotify;
+    }
+
+    /**
+     * Variante pour des entrées signalées une à une (geofences) : sans la liste
+     * complète des risques proches, aucun autre risque n'est oublié.
+     *
+     * @return les ids à notifier maintenant (dans l'ordre de enteredIds, sans doublon)
+     */
+    public synchronized List<String> evaluateEntries(Collection<String> enteredIds, long now) {
+        List<String> toNotify = dueEntries(enteredIds, now);
+        markNotified(toNotify, now);
+        return toNotify;
+    }
+
+    /**
+     * Comme evaluate, sans marquer les risques notifiés : l'appelant appelle
+     * markNotified une fois la notification réellement affichée (RiskAlertDispatcher).
+     */
+    public synchronized List<String> due(Collection<String> nearbyIds, long now) {
+        // Nettoyage des risques qui ne sont plus à proximité
+        lastNotified.keySet().retainAll(new HashSet<>(nearbyIds));
+        return dueEntries(nearbyIds, now);
+    }
+
+    /** Comme evaluateEntries, sans marquer les risques notifiés. */
+    public synchronized List<String> dueEntries(Collection<String> enteredIds, long now) {
+        List<String> toNotify = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String id : enteredIds) {
+            Long last = lastNotified.get(id);
+            if ((last == null || now - last > cooldownMs) && seen.add(id)) {
+                toNotify.add(id);
+            }
+        }
+        return toNotify;
+    }
+
+    public synchronized void markNotified(Collection<String> ids, long now) {
+        for (String id : ids) {
+            lastNotified.put(id, now);
+        }
+    }
+
+    /**
+     * Risques encore en cooldown à l'instant now, pour la persistance : les
+     * entrées expirées n'ont plus d'effet et ne sont pas exportées.
+     */
+    public synchronized Map<String, Long> activeEntries(long now) {
+        Map<String, Long> active = new HashMap<>();
+        for (Map.Entry<String, Long> entry : lastNotified.entrySet()) {
+            if (now - entry.getValue() <= cooldownMs) {
+                active.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return active;
+    }
+
+    /** Recharge des entrées exportées par activeEntries (redémarrage du service). */
+    public synchronized void restore(Map<String, Long> entries) {
+        lastNotified.putAll(entries);
+    }
+
+    public synchronized void reset() {
+        lastNotified.clear();
+    }
+
+    public synchronized int trackedCount() {
+        return lastNotified.size();
+    }
+
+    public long getCooldownMs() {
+        return cooldownMs;
+    }
+}
@@ -0,0 +1,242 @@
+package com.geosentinel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regroupement et limitation des alertes risques (Java pur, testable sans Android).
+ *
+ * Les risques à notifier lors d'un même contrôle (fix GPS, tick JS, entrées
+ * geofence) partent dans une seule notification, triés par sévérité puis par
+ * distance : un appareil qui traverse une zone dense vibre une fois, pas une
+ * fois par risque. Chaque canal a un seau à jetons ; quand il est vide, les
+ * risques restent dus et sont regroupés dans la notification suivante. Une
+ * entrée geofence n'est signalée qu'une fois : retenue, elle est gardée en
+ * attente (en mémoire) jusqu'à ce que le seau le permette, au prochain
+ * contrôle ou par flushPending quand pendingDelayMs est écoulé. Le
+ * cooldown par risque (RiskAlertCooldown) n'est engagé qu'une fois la
+ * notification affichée.
+ *
+ * L'état (cooldowns, seaux) est persisté dans un RiskAlertStateFile par
+ * save(), que l'appelant déclenche hors du thread GPS quand dispatch signale
+ * un changement.
+ */
+public final class RiskAlertDispatcher {
+    // 3 notifications d'affilée, puis une toutes les 20 s par canal
+    public static final int DEFAULT_BURST = 3;
+    public static final long DEFAULT_REFILL_MS = 20000;
+
+    /** Un risque à signaler, tel que trouvé par la recherche de proximité. */
+    public static final class Hit {
+        public final String id;
+        public final String title;
+        public final String category;
+        public final String severity;
+        public final double distanceMeters;   // NaN si inconnue (geofence sans position)
+        public final long etaMs;              // 0 hors alerte anticipée
+
+        public Hit(String id, String title, String category, String severity, double distanceMeters, long etaMs) {
+            this.id = id;
+            this.title = title;
+            this.category = category;
+            this.severity = severity;
+            this.distanceMeters = distanceMeters;
+            this.etaMs = etaMs;
+        }
+    }
+
+    /** Notification groupée : hits triés, le plus grave et le plus proche en premier. */
+    public static final class Alert {
+        public final String channel;
+        public final List<Hit> hits;
+
+        Alert(String channel, List<Hit> hits) {
+            this.channel = channel;
+            this.hits = hits;
+        }
+    }
+
+    /** Affichage d'une notification groupée (NotificationManager sur Android, faux en test). */
+    public interface Notifier {
+        void show(Alert alert);
+    }
+
+    public static final class Result {
+        public static final Result NONE = new Result(0, 0, false);
+
+        public final int notified;        // risques inclus dans la notification affichée
+        public final int held;            // risques dus retenus par le seau à jetons
+        public final boolean stateChanged;
+
+        Result(int notified, int held, boolean stateChanged) {
+            this.notified = notified;
+            this.held = held;
+            this.stateChanged = stateChanged;
+        }
+    }
+
+    // Plus grave d'abord (sévérité inconnue en dernier), puis plus proche (distance inconnue en dernier)
+    static final Comparator<Hit> PRIORITY = Comparator
+        .comparingInt((Hit hit) -> -RiskCacheFile.severityCode(hit.severity))
+        .thenComparingDouble(hit -> Double.isNaN(hit.distanceMeters) ? Double.MAX_VALUE : hit.distanceMeters)
+        .thenComparing(hit -> hit.id);
+
+    private final Notifier notifier;
+    private final RiskAlertCooldown cooldown;
+    private final int burst;
+    private final long refillMs;
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+    // Entrées geofence retenues par le seau, par canal
+    private final Map<String, Map<String, Hit>> pendingEntries = new HashMap<>();
+
+    public RiskAlertDispatcher(Notifier notifier) {
+        this(notifier, RiskAlertCooldown.DEFAULT_COOLDOWN_MS, DEFAULT_BURST, DEFAULT_REFILL_MS);
+    }
+
+    public RiskAlertDispatcher(Notifier notifier, long cooldownMs, int burst, long refillMs) {
+        if (burst < 1 || refillMs <= 0) {
+            throw new IllegalArgumentException("Limite invalide: " + burst + " notifications / " + refillMs + " ms");
+        }
+        this.notifier = notifier;
+        this.cooldown = new RiskAlertCooldown(cooldownMs);
+        this.burst = burst;
+        this.refillMs = refillMs;
+    }
+
+    /**
+     * Contrôle d'une position : nearby est la liste complète des risques dans le
+     * rayon d'alerte, ceux qui en sont sortis sont oubliés (une nouvelle approche
+     * les renotifie).
+     */
+    public synchronized Result dispatch(String channel, Collection<Hit> nearby, long now) {
+        int tracked = cooldown.trackedCount();
+        List<String> due = cooldown.due(ids(nearby), now);
+        return send(channel, nearby, due, now, cooldown.trackedCount() != tracked, false);
+    }
+
+    /**
+     * Entrées signalées une à une (geofences) : aucun autre risque n'est oublié,
+     * et les entrées retenues par le seau restent en attente.
+     */
+    public synchronized Result dispatchEntries(String channel, Collection<Hit> entered, long now) {
+        return send(channel, entered, cooldown.dueEntries(ids(entered), now), now, false, true);
+    }
+
+    /** Notifie les entrées en attente du canal si le seau s'est rechargé. */
+    public synchronized Result flushPending(String channel, long now) {
+        return send(channel, new ArrayList<>(), new ArrayList<>(), now, false, false);
+    }
+
+    /** Délai avant de pouvoir notifier les entrées en attente, -1 s'il n'y en a aucune. */
+    public synchronized long pendingDelayMs(String channel, long now) {
+        Map<String, Hit> pending = pendingEntries.get(channel);
+        if (pending == null || pending.isEmpty()) {
+            return -1;
+        }
+        return bucket(channel, now).millisUntilAvailable(now);
+    }
+
+    public synchronized void reset() {
+        cooldown.reset();
+        buckets.clear();
+        pendingEntries.clear();
+    }
+
+    public synchronized int trackedCount() {
+        return cooldown.trackedCount();
+    }
+
+    /** Recharge l'état écrit par save() ; l'appelant ignore un fichier absent. */
+    public void load(File file) throws IOException {
+        RiskAlertStateFile.State state = RiskAlertStateFile.read(file);
+        synchronized (this) {
+            cooldown.restore(state.notifiedAt);
+            for (Map.Entry<String, RiskAlertStateFile.Bucket> entry : state.buckets.entrySet()) {
+                bucket(entry.getKey(), state.savedAt).restore(entry.getValue().tokens, entry.getValue().updatedAt);
+            }
+        }
+    }
+
+    public void save(File file, long now) throws IOException {
+        RiskAlertStateFile.State state;
+        synchronized (this) {
+            Map<String, RiskAlertStateFile.Bucket> saved = new HashMap<>();
+            for (Map.Entry<String, TokenBucket> entry : buckets.entrySet()) {
+                TokenBucket bucket = entry.getValue();
+                // Seau plein : équivalent à un seau absent, inutile de l'écrire
+                if (bucket.available(now) < burst) {
+                    saved.put(entry.getKey(), new RiskAlertStateFile.Bucket(bucket.available(now), now));
+                }
+            }
+            state = new RiskAlertStateFile.State(cooldown.activeEntries(now), saved, now);
+        }
+        RiskAlertStateFile.write(file, state);
+    }
+
+    private Result send(String channel, Collection<Hit> hits, List<String> due, long now, boolean forgot,
+                        boolean keepHeld) {
+        Map<String, Hit> byId = new HashMap<>();
+        for (Hit hit : hits) {
+            byId.putIfAbsent(hit.id, hit);
+        }
+        Map<String, Hit> pending = pendingEntries.get(channel);
+        if (pending != null) {
+            // Entrées notifiées entre-temps par un contrôle de position : plus dues
+            pending.keySet().retainAll(cooldown.dueEntries(pending.keySet(), now));
+            for (Hit hit : pending.values()) {
+                if (byId.putIfAbsent(hit.id, hit) == null) {
+                    due.add(hit.id);
+                }
+            }
+        }
+        if (due.isEmpty()) {
+            return forgot ? new Result(0, 0, true) : Result.NONE;
+        }
+        if (!bucket(channel, now).tryAcquire(now)) {
+            if (keepHeld) {
+                if (pending == null) {
+                    pending = new HashMap<>();
+                    pendingEntries.put(channel, pending);
+                }
+                for (String id : due) {
+                    pending.putIfAbsent(id, byId.get(id));
+                }
+            }
+            return new Result(0, due.size(), forgot);
+        }
+
+        List<Hit> sorted = new ArrayList<>(due.size());
+        for (String id : due) {
+            sorted.add(byId.get(id));
+        }
+        sorted.sort(PRIORITY);
+
+        notifier.show(new Alert(channel, sorted));
+        cooldown.markNotified(due, now);
+        pendingEntries.remove(channel);
+        return new Result(sorted.size(), 0, true);
+    }
+
+    private TokenBucket bucket(String channel, long now) {
+        TokenBucket bucket = buckets.get(channel);
+        if (bucket == null) {
+            bucket = new TokenBucket(burst, refillMs, now);
+            buckets.put(channel, bucket);
+        }
+        return bucket;
+    }
+
+    private static List<String> ids(Collection<Hit> hits) {
+        List<String> ids = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            ids.add(hit.id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,110 @@
+package com.geosentinel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * État persistant de RiskAlertDispatcher (Java pur) : risques encore en
+ * cooldown et seaux à jetons par canal, pour qu'un redémarrage du service
+ * ne renotifie pas les risques déjà signalés.
+ *
+ * Les horodatages sont écrits en âge (ms, int) relatif à savedAt ; seules
+ * les entrées encore actives sont écrites, le fichier reste de quelques Ko.
+ */
+public final class RiskAlertStateFile {
+    public static final int MAGIC = 0x4753414c; // "GSAL"
+    public static final int VERSION = 1;
+
+    private RiskAlertStateFile() {
+    }
+
+    /** Seau à jetons d'un canal : jetons restants à updatedAt. */
+    public static final class Bucket {
+        public final double tokens;
+        public final long updatedAt;
+
+        public Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+
+    public static final class State {
+        public final Map<String, Long> notifiedAt;
+        public final Map<String, Bucket> buckets;
+        public final long savedAt;
+
+        public State(Map<String, Long> notifiedAt, Map<String, Bucket> buckets, long savedAt) {
+            this.notifiedAt = notifiedAt;
+            this.buckets = buckets;
+            this.savedAt = savedAt;
+        }
+    }
+
+    public static void write(File file, State state) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(state.savedAt);
+            out.writeShort(state.notifiedAt.size());
+            for (Map.Entry<String, Long> entry : state.notifiedAt.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(age(state.savedAt, entry.getValue()));
+            }
+            out.writeByte(state.buckets.size());
+            for (Map.Entry<String, Bucket> entry : state.buckets.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeFloat((float) entry.getValue().tokens);
+                out.writeInt(age(state.savedAt, entry.getValue().updatedAt));
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Impossible de remplacer " + file);
+        }
+    }
+
+    public static State read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier d'état des alertes invalide (magic)");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Version de fichier d'état des alertes non supportée: " + version);
+            }
+            long savedAt = in.readLong();
+            int count = in.readUnsignedShort();
+            Map<String, Long> notifiedAt = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                notifiedAt.put(id, savedAt - in.readInt());
+            }
+            int bucketCount = in.readUnsignedByte();
+            Map<String, Bucket> buckets = new HashMap<>();
+            for (int i = 0; i < bucketCount; i++) {
+                String channel = in.readUTF();
+                double tokens = in.readFloat();
+                buckets.put(channel, new Bucket(tokens, savedAt - in.readInt()));
+            }
+            return new State(notifiedAt, buckets, savedAt);
+        }
+    }
+
+    // Âge borné à [0, Integer.MAX_VALUE] ms (~24 jours, bien au-delà de tout cooldown)
+    private static int age(long savedAt, long timestamp) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, savedAt - timestamp));
+    }
+}
@@ -0,0 +1,337 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Format binaire du cache de risques persistant (Java pur, sans dépendance Android).
+ *
+ * Disposition du fichier (little-endian) :
+ * <pre>
+ *   [en-tête 64 octets]
+ *   [recordCount enregistrements de 32 octets]
+ *     lat (double) | lon (double) | offset id (int) | offset titre (int)
+ *     | code catégorie (short) | sévérité (byte) | 5 octets de bourrage
+ *   [categoryCount offsets (int) vers les libellés de catégorie]
+ *   [table de chaînes : longueur (ushort) + UTF-8]
+ * </pre>
+ *
+ * La lecture passe par un MappedByteBuffer : aucun parsing JSON au redémarrage,
+ * seulement des lectures à offset fixe. Un CRC32 couvre l'en-tête (hors champ
+ * CRC) et tout ce qui suit, pour détecter un fichier tronqué ou corrompu,
+ * y compris un centre de zone ou un horodatage altéré.
+ */
+public final class RiskCacheFile {
+    public static final int MAGIC = 0x47535243; // "GSRC"
+    // 2 : le CRC couvre aussi l'en-tête
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 32;
+    // Position du CRC dans l'en-tête : les octets [0, CRC_OFFSET) sont couverts
+    private static final int CRC_OFFSET = 48;
+
+    // Codes sévérité, dans l'ordre de RiskSeverity côté TS
+    private static final String[] SEVERITIES = { "faible", "modéré", "élevé", "critique" };
+    private static final byte SEVERITY_UNKNOWN = (byte) 0xff;
+    private static final short CATEGORY_NONE = -1;
+
+    private RiskCacheFile() {
+    }
+
+    /** Contenu d'un cache : tableaux parallèles, une entrée par risque. */
+    public static final class Snapshot {
+        public final String[] ids;
+        public final String[] titles;
+        public final String[] categories;
+        public final String[] severities;
+        public final double[] latitudes;
+        public final double[] longitudes;
+        public final double centerLat;
+        public final double centerLon;
+        public final long savedAt;
+
+        public Snapshot(String[] ids, String[] titles, String[] categories, String[] severities,
+                        double[] latitudes, double[] longitudes,
+                        double centerLat, double centerLon, long savedAt) {
+            int count = ids.length;
+            if (titles.length != count || categories.length != count || severities.length != count
+                    || latitudes.length != count || longitudes.length != count) {
+                throw new IllegalArgumentException("Tableaux du snapshot de tailles différentes");
+            }
+            this.ids = ids;
+            this.titles = titles;
+            this.categories = categories;
+            this.severities = severities;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.centerLat = centerLat;
+            this.centerLon = centerLon;
+            this.savedAt = savedAt;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public RiskProximityIndex toIndex() {
+            return new RiskProximityIndex(ids, titles, categories, severities, latitudes, longitudes);
+        }
+    }
+
+    /**
+     * Écrit le snapshot dans un fichier temporaire puis le renomme :
+     * un crash pendant l'écriture laisse l'ancien cache intact.
+     */
+    public static void write(File file, Snapshot snapshot) throws IOException {
+        byte[] bytes = encode(snapshot);
+        File tmp = new File(file.getPath() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Impossible de remplacer " + file);
+        }
+    }
+
+    public static Snapshot read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException("Taille de cache invalide: " + length);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return decode(buffer);
+        }
+    }
+
+    static byte[] encode(Snapshot snapshot) {
+        int count = snapshot.size();
+
+        // Dictionnaire des catégories : chaque libellé n'est stocké qu'une fois
+        Map<String, Short> categoryCodes = new HashMap<>();
+        String[] categoryList = new String[Math.min(count, Short.MAX_VALUE)];
+        short[] codes = new short[count];
+        for (int i = 0; i < count; i++) {
+            String category = snapshot.categories[i];
+            if (category == null) {
+                codes[i] = CATEGORY_NONE;
+                continue;
+            }
+            Short code = categoryCodes.get(category);
+            if (code == null) {
+                if (categoryCodes.size() == categoryList.length) {
+                    throw new IllegalArgumentException("Trop de catégories distinctes");
+                }
+                code = (short) categoryCodes.size();
+                categoryCodes.put(category, code);
+                categoryList[code] = category;
+            }
+            codes[i] = code;
+        }
+        int categoryCount = categoryCodes.size();
+
+        StringTable strings = new StringTable();
+        int[] idOffsets = new int[count];
+        int[] titleOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            idOffsets[i] = strings.add(snapshot.ids[i]);
+            titleOffsets[i] = strings.add(snapshot.titles[i]);
+        }
+        int[] categoryOffsets = new int[categoryCount];
+        for (int c = 0; c < categoryCount; c++) {
+            categoryOffsets[c] = strings.add(categoryList[c]);
+        }
+
+        int stringTableOffset = HEADER_SIZE + count * RECORD_SIZE + categoryCount * 4;
+        byte[] table = strings.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(stringTableOffset + table.length).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.position(HEADER_SIZE);
+        for (int i = 0; i < count; i++) {
+            buffer.putDouble(snapshot.latitudes[i]);
+            buffer.putDouble(snapshot.longitudes[i]);
+            buffer.putInt(idOffsets[i]);
+            buffer.putInt(titleOffsets[i]);
+            buffer.putShort(codes[i]);
+            buffer.put(severityCode(snapshot.severities[i]));
+            buffer.position(buffer.position() + 5);
+        }
+        for (int c = 0; c < categoryCount; c++) {
+            buffer.putInt(categoryOffsets[c]);
+        }
+        buffer.put(table);
+
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(count);
+        buffer.putInt(categoryCount);
+        buffer.putLong(snapshot.savedAt);
+        buffer.putDouble(snapshot.centerLat);
+        buffer.putDouble(snapshot.centerLon);
+        buffer.putInt(stringTableOffset);
+        buffer.putInt(table.length);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, CRC_OFFSET);
+        crc.update(buffer.array(), HEADER_SIZE, buffer.capacity() - HEADER_SIZE);
+        buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+
+        return buffer.array();
+    }
+
+    static Snapshot decode(ByteBuffer source) throws IOException {
+        ByteBuffer buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int length = buffer.limit();
+
+        if (length < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Fichier de cache invalide (magic)");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Version de cache non supportée: " + version);
+        }
+        int count = buffer.getInt(8);
+        int categoryCount = buffer.getInt(12);
+        long savedAt = buffer.getLong(16);
+        double centerLat = buffer.getDouble(24);
+        double centerLon = buffer.getDouble(32);
+        int stringTableOffset = buffer.getInt(40);
+        int stringTableLength = buffer.getInt(44);
+        int expectedCrc = buffer.getInt(CRC_OFFSET);
+
+        if (count < 0 || categoryCount < 0 || stringTableLength < 0
+                || (long) HEADER_SIZE + (long) count * RECORD_SIZE + categoryCount * 4L != stringTableOffset
+                || (long) stringTableOffset + stringTableLength != length) {
+            throw new IOException("En-tête de cache incohérent");
+        }
+
+        CRC32 crc = new CRC32();
+        checksum(crc, buffer, 0, CRC_OFFSET);
+        checksum(crc, buffer, HEADER_SIZE, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Cache corrompu (CRC)");
+        }
+
+        String[] categoryList = new String[categoryCount];
+        int categoryBase = HEADER_SIZE + count * RECORD_SIZE;
+        for (int c = 0; c < categoryCount; c++) {
+            categoryList[c] = readString(buffer, stringTableOffset, stringTableLength, buffer.getInt(categoryBase + c * 4));
+        }
+
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] categories = new String[count];
+        String[] severities = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            int base = HEADER_SIZE + i * RECORD_SIZE;
+            latitudes[i] = buffer.getDouble(base);
+            longitudes[i] = buffer.getDouble(base + 8);
+            ids[i] = readString(buffer, stringTableOffset, stringTableLength, buffer.getInt(base + 16));
+            titles[i] = readString(buffer, stringTableOffset, stringTableLength, buffer.getInt(base + 20));
+            short code = buffer.getShort(base + 24);
+            if (code != CATEGORY_NONE && (code < 0 || code >= categoryCount)) {
+                throw new IOException("Code catégorie invalide: " + code);
+            }
+            categories[i] = code == CATEGORY_NONE ? null : categoryList[code];
+            severities[i] = severityName(buffer.get(base + 26));
+        }
+
+        return new Snapshot(ids, titles, categories, severities, latitudes, longitudes,
+            centerLat, centerLon, savedAt);
+    }
+
+    // CRC32.update(ByteBuffer) n'existe qu'à partir de l'API 26 : lecture par blocs
+    private static void checksum(CRC32 crc, ByteBuffer buffer, int from, int to) {
+        byte[] chunk = new byte[8192];
+        ByteBuffer view = buffer.duplicate();
+        view.position(from);
+        view.limit(to);
+        while (view.hasRemaining()) {
+            int size = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, size);
+            crc.update(chunk, 0, size);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer, int tableOffset, int tableLength, int offset)
+            throws IOException {
+        if (offset == -1) {
+            return null;
+        }
+        if (offset < 0 || offset + 2 > tableLength) {
+            throw new IOException("Offset de chaîne invalide: " + offset);
+        }
+        int size = buffer.getShort(tableOffset + offset) & 0xffff;
+        if (offset + 2 + size > tableLength) {
+            throw new IOException("Chaîne hors de la table: " + offset);
+        }
+        byte[] bytes = new byte[size];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(tableOffset + offset + 2);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Partagé avec RiskWireFormat : mêmes codes sur le réseau et dans le fichier
+    static byte severityCode(String severity) {
+        for (int i = 0; i < SEVERITIES.length; i++) {
+            if (SEVERITIES[i].equals(severity)) {
+                return (byte) i;
+            }
+        }
+        return SEVERITY_UNKNOWN;
+    }
+
+    static String severityName(byte code) {
+        return code >= 0 && code < SEVERITIES.length ? SEVERITIES[code] : null;
+    }
+
+    // Table de chaînes avec déduplication ; -1 représente une chaîne null
+    private static final class StringTable {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        int add(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer existing = offsets.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > 0xffff) {
+                throw new IllegalArgumentException("Chaîne trop longue pour le cache: " + utf8.length + " octets");
+            }
+            int offset = bytes.size();
+            bytes.write(utf8.length & 0xff);
+            bytes.write((utf8.length >>> 8) & 0xff);
+            bytes.write(utf8, 0, utf8.length);
+            offsets.put(value, offset);
+            return offset;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.geosentinel;
+
+/**
+ * Règle de rechargement du cache de risques (Java pur), partagée par
+ * LocationTrackingService et TraceSimulator.
+ */
+public final class RiskCacheRefresh {
+
+    private RiskCacheRefresh() {
+    }
+
+    /**
+     * Même règle que shouldRefreshCache dans locationBackgroundTask.ts : cache vide,
+     * trop vieux, ou position sortie de la zone chargée à 1 km près.
+     *
+     * @param movedMeters distance entre le centre de la zone chargée et la dernière position (0 si inconnue)
+     */
+    public static boolean isNeeded(int cachedRisks, long ageMs, long maxAgeMs,
+                                   double movedMeters, double riskLoadZoneKm) {
+        if (cachedRisks == 0 || ageMs > maxAgeMs) {
+            return true;
+        }
+        return movedMeters > (riskLoadZoneKm - 1) * 1000;
+    }
+
+    /** Même règle pour une zone quelconque (cercle ou couloir de PrefetchCorridor). */
+    public static boolean isNeeded(int cachedRisks, long ageMs, long maxAgeMs,
+                                   PrefetchCorridor zone, double latitude, double longitude) {
+        if (cachedRisks == 0 || ageMs > maxAgeMs) {
+            return true;
+        }
+        return zone.needsRefresh(latitude, longitude);
+    }
+}
@@ -0,0 +1,137 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index de filtrage de la liste des risques par bitmaps (Java pur).
+ *
+ * Chaque risque chargé reçoit un numéro de ligne (ordre d'ajout). Pour chaque
+ * valeur de catégorie, de sévérité et de créateur, un bitmap marque les lignes
+ * concernées : un filtre devient un ET mot à mot des bitmaps sélectionnés,
+ * sans reparcourir les risques.
+ */
+public final class RiskFilterIndex {
+    private final Dimension categories = new Dimension();
+    private final Dimension severities = new Dimension();
+    private final Dimension creators = new Dimension();
+    private int size;
+
+    /** Ajoute une ligne ; une valeur null n'est indexée dans aucun bitmap. */
+    public synchronized int append(String category, String severity, String creator) {
+        int row = size++;
+        categories.mark(category, row);
+        severities.mark(severity, row);
+        creators.mark(creator, row);
+        return row;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        categories.clear();
+        severities.clear();
+        creators.clear();
+        size = 0;
+    }
+
+    /**
+     * Lignes correspondant à tous les filtres non null, par ordre croissant.
+     * Un filtre sur une valeur jamais vue donne un résultat vide.
+     */
+    public synchronized int[] query(String category, String severity, String creator) {
+        List<long[]> selected = new ArrayList<>(3);
+        if (!select(categories, category, selected)
+                || !select(severities, severity, selected)
+                || !select(creators, creator, selected)) {
+            return new int[0];
+        }
+
+        int words = wordCount(size);
+        if (selected.isEmpty()) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        long[] result = new long[words];
+        long[] first = selected.get(0);
+        System.arraycopy(first, 0, result, 0, Math.min(words, first.length));
+        for (int s = 1; s < selected.size(); s++) {
+            long[] bits = selected.get(s);
+            for (int w = 0; w < words; w++) {
+                result[w] &= w < bits.length ? bits[w] : 0L;
+            }
+        }
+        return toRows(result);
+    }
+
+    public synchronized int count(String category, String severity, String creator) {
+        return query(category, severity, creator).length;
+    }
+
+    private static boolean select(Dimension dimension, String value, List<long[]> selected) {
+        if (value == null) {
+            return true;
+        }
+        long[] bits = dimension.bitmaps.get(value);
+        if (bits == null) {
+            return false;
+        }
+        selected.add(bits);
+        return true;
+    }
+
+    private static int[] toRows(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        int[] rows = new int[count];
+        int index = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                rows[index++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return rows;
+    }
+
+    private static int wordCount(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    // Bitmaps d'une dimension, un par valeur distincte
+    private static final class Dimension {
+        final Map<String, long[]> bitmaps = new HashMap<>();
+
+        void mark(String value, int row) {
+            if (value == null) {
+                return;
+            }
+            int word = row >>> 6;
+            long[] bits = bitmaps.get(value);
+            if (bits == null) {
+                bits = new long[Math.max(4, word + 1)];
+            } else if (word >= bits.length) {
+                long[] grown = new long[Math.max(bits.length * 2, word + 1)];
+                System.arraycopy(bits, 0, grown, 0, bits.length);
+                bits = grown;
+            }
+            bits[word] |= 1L << (row & 63);
+            bitmaps.put(value, bits);
+        }
+
+        void clear() {
+            bitmaps.clear();
+        }
+    }
+}
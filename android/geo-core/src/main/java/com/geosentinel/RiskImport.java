@@ -0,0 +1,513 @@
+package com.geosentinel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Import en masse de risques depuis un fichier (Java pur, sans dépendance Android).
+ *
+ * Trois étages reliés par des files bornées :
+ * <pre>
+ *   lecture (1 thread, CsvRiskReader / GeoJsonRiskReader, en flux)
+ *     → validation par lots (threads du pool) : coordonnées, catégorie, sévérité,
+ *       doublon d'un risque du cache (index immuable, partagé sans verrou)
+ *     → thread appelant : doublons internes au fichier, envoi par paquets (Uploader)
+ * </pre>
+ * Les lots sont consommés dans l'ordre du fichier. Quand l'envoi ralentit, la file
+ * des lots en cours se remplit et la lecture s'arrête : la mémoire reste bornée à
+ * maxPendingBatches lots, quelle que soit la taille du fichier.
+ */
+public final class RiskImport {
+    public static final double DEFAULT_DEDUPE_RADIUS_METERS = 15;
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    public static final int DEFAULT_CHUNK_SIZE = 200;
+    public static final int MAX_TITLE_LENGTH = 255;
+    // Erreurs détaillées gardées pour le rapport ; les suivantes sont seulement comptées
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    // Sévérités acceptées (sans accents, minuscules) → valeur attendue par l'API
+    private static final Map<String, String> SEVERITIES = new HashMap<>();
+
+    static {
+        SEVERITIES.put("faible", "faible");
+        SEVERITIES.put("modere", "modéré");
+        SEVERITIES.put("eleve", "élevé");
+        SEVERITIES.put("critique", "critique");
+    }
+
+    /** Enregistrement lu dans le fichier, avant validation. Coordonnées en texte : analysées par la validation. */
+    public static final class Row {
+        // Ligne CSV ou rang de la feature GeoJSON (à partir de 1)
+        public final long position;
+        public final String title;
+        public final String description;
+        public final String category;
+        public final String severity;
+        public final String latitude;
+        public final String longitude;
+        // Erreur de lecture (géométrie non ponctuelle...), null sinon
+        public final String readError;
+
+        public Row(long position, String title, String description, String category, String severity,
+                   String latitude, String longitude, String readError) {
+            this.position = position;
+            this.title = title;
+            this.description = description;
+            this.category = category;
+            this.severity = severity;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.readError = readError;
+        }
+    }
+
+    /** Lecture en flux : next() renvoie null en fin de fichier. */
+    public interface Source extends Closeable {
+        Row next() throws IOException;
+
+        /** Désignation d'une position dans les messages d'erreur ("ligne", "feature"). */
+        String positionLabel();
+    }
+
+    /** Risque validé : corps d'un POST /risks. */
+    public static final class Candidate {
+        public final long position;
+        public final String title;
+        public final String description;
+        public final String categoryId;
+        public final String severity;
+        public final double latitude;
+        public final double longitude;
+
+        public Candidate(long position, String title, String description, String categoryId, String severity,
+                         double latitude, double longitude) {
+            this.position = position;
+            this.title = title;
+            this.description = description;
+            this.categoryId = categoryId;
+            this.severity = severity;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    public interface Uploader {
+        /**
+         * Envoie un paquet ; bloque jusqu'à la réponse (c'est ce qui freine la lecture).
+         *
+         * @return nombre de risques créés, les autres sont comptés en échec
+         * @throws IOException l'import s'arrête (réseau perdu, session expirée)
+         */
+        int upload(List<Candidate> chunk) throws IOException;
+    }
+
+    public interface Listener {
+        void onProgress(Progress progress);
+    }
+
+    /** Compteurs cumulés ; read = valid + invalid, valid = duplicates + envoyés + en attente d'envoi. */
+    public static final class Progress {
+        public final long read;
+        public final long invalid;
+        public final long duplicates;
+        public final long uploaded;
+        public final long failed;
+
+        Progress(long read, long invalid, long duplicates, long uploaded, long failed) {
+            this.read = read;
+            this.invalid = invalid;
+            this.duplicates = duplicates;
+            this.uploaded = uploaded;
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "lus=%d invalides=%d doublons=%d créés=%d échecs=%d",
+                read, invalid, duplicates, uploaded, failed);
+        }
+    }
+
+    public static final class Report {
+        public final Progress totals;
+        public final boolean cancelled;
+        // "ligne 12 : sévérité inconnue: moyen", au plus MAX_REPORTED_ERRORS
+        public final List<String> errors;
+        public final long durationMs;
+
+        Report(Progress totals, boolean cancelled, List<String> errors, long durationMs) {
+            this.totals = totals;
+            this.cancelled = cancelled;
+            this.errors = Collections.unmodifiableList(errors);
+            this.durationMs = durationMs;
+        }
+
+        @Override
+        public String toString() {
+            return totals + (cancelled ? " (annulé)" : "") + " en " + durationMs + " ms";
+        }
+    }
+
+    public static final class Config {
+        // Catégories du tenant : clé normalisée (id, name ou label) → id
+        final Map<String, String> categoryIds;
+        // Risques déjà connus (cache spatial), null si aucun
+        public final RiskProximityIndex existing;
+        public final double dedupeRadiusMeters;
+        public final int threads;
+        public final int batchSize;
+        public final int chunkSize;
+        public final int maxPendingBatches;
+
+        public Config(String[] categoryIds, String[] categoryNames, String[] categoryLabels,
+                      RiskProximityIndex existing, double dedupeRadiusMeters, int threads) {
+            this(categoryIds, categoryNames, categoryLabels, existing, dedupeRadiusMeters, threads,
+                DEFAULT_BATCH_SIZE, DEFAULT_CHUNK_SIZE, threads * 2);
+        }
+
+        public Config(String[] categoryIds, String[] categoryNames, String[] categoryLabels,
+                      RiskProximityIndex existing, double dedupeRadiusMeters, int threads,
+                      int batchSize, int chunkSize, int maxPendingBatches) {
+            if (categoryNames.length != categoryIds.length || categoryLabels.length != categoryIds.length) {
+                throw new IllegalArgumentException("Tableaux de catégories de tailles différentes");
+            }
+            if (threads < 1 || batchSize < 1 || chunkSize < 1 || maxPendingBatches < 1) {
+                throw new IllegalArgumentException("Paramètres d'import invalides");
+            }
+            this.categoryIds = new HashMap<>();
+            for (int i = 0; i < categoryIds.length; i++) {
+                for (String key : new String[] { categoryIds[i], categoryNames[i], categoryLabels[i] }) {
+                    if (key != null) {
+                        this.categoryIds.putIfAbsent(normalize(key), categoryIds[i]);
+                    }
+                }
+            }
+            this.existing = existing;
+            this.dedupeRadiusMeters = dedupeRadiusMeters;
+            this.threads = threads;
+            this.batchSize = batchSize;
+            this.chunkSize = chunkSize;
+            this.maxPendingBatches = maxPendingBatches;
+        }
+    }
+
+    private final Config config;
+    private volatile boolean cancelled;
+    private volatile boolean stopped;
+
+    public RiskImport(Config config) {
+        this.config = config;
+    }
+
+    /** Arrête l'import au prochain lot ; les paquets déjà envoyés restent créés. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Lit, valide, dédoublonne et envoie tout le fichier. Bloque jusqu'à la fin.
+     * La source est fermée dans tous les cas.
+     */
+    public Report run(Source source, Uploader uploader, Listener listener) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ExecutorService validators = Executors.newFixedThreadPool(config.threads);
+        // Lots dans l'ordre du fichier ; un futur vide marque la fin de la lecture
+        BlockingQueue<Future<Object[]>> pending = new ArrayBlockingQueue<>(config.maxPendingBatches);
+        Future<Object[]> end = CompletableFuture.completedFuture(null);
+        Thread reader = new Thread(() -> readBatches(source, validators, pending, end), "risk-import-reader");
+
+        List<String> errors = new ArrayList<>();
+        long[] counts = new long[5]; // lus, invalides, doublons, créés, échecs
+        DedupeGrid accepted = new DedupeGrid(config.dedupeRadiusMeters);
+        List<Candidate> chunk = new ArrayList<>(config.chunkSize);
+        String label = source.positionLabel();
+
+        reader.start();
+        try {
+            while (true) {
+                Future<Object[]> next = pending.take();
+                if (next == end || cancelled) {
+                    break;
+                }
+                Object[] batch;
+                try {
+                    batch = next.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    throw cause instanceof IOException
+                        ? (IOException) cause
+                        : new IOException("Lecture du fichier en échec: " + cause.getMessage(), cause);
+                }
+
+                for (Object result : batch) {
+                    counts[0]++;
+                    if (result instanceof Candidate) {
+                        Candidate candidate = (Candidate) result;
+                        if (accepted.containsNear(candidate)) {
+                            counts[2]++;
+                            continue;
+                        }
+                        accepted.add(candidate);
+                        chunk.add(candidate);
+                        if (chunk.size() == config.chunkSize) {
+                            send(uploader, chunk, counts);
+                        }
+                    } else if (result == DUPLICATE) {
+                        counts[2]++;
+                    } else {
+                        counts[1]++;
+                        if (errors.size() < MAX_REPORTED_ERRORS) {
+                            Invalid invalid = (Invalid) result;
+                            errors.add(label + " " + invalid.position + " : " + invalid.reason);
+                        }
+                    }
+                }
+                listener.onProgress(progress(counts));
+            }
+            if (!cancelled && !chunk.isEmpty()) {
+                send(uploader, chunk, counts);
+            }
+        } finally {
+            // Fin normale, annulation ou échec d'envoi : le thread de lecture s'arrête aussi
+            stopped = true;
+            reader.interrupt();
+            validators.shutdownNow();
+            reader.join();
+        }
+
+        Progress totals = progress(counts);
+        listener.onProgress(totals);
+        return new Report(totals, cancelled, errors, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void readBatches(Source source, ExecutorService validators, BlockingQueue<Future<Object[]>> pending,
+                             Future<Object[]> end) {
+        try (Source input = source) {
+            List<Row> batch = new ArrayList<>(config.batchSize);
+            Row row;
+            while (!stopped && !cancelled && (row = input.next()) != null) {
+                batch.add(row);
+                if (batch.size() == config.batchSize) {
+                    List<Row> rows = batch;
+                    pending.put(validators.submit(() -> validateBatch(rows)));
+                    batch = new ArrayList<>(config.batchSize);
+                }
+            }
+            if (!batch.isEmpty() && !cancelled) {
+                List<Row> rows = batch;
+                pending.put(validators.submit(() -> validateBatch(rows)));
+            }
+            pending.put(end);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            CompletableFuture<Object[]> failure = new CompletableFuture<>();
+            failure.completeExceptionally(e);
+            try {
+                pending.put(failure);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void send(Uploader uploader, List<Candidate> chunk, long[] counts) throws IOException {
+        int created = Math.max(0, Math.min(chunk.size(), uploader.upload(chunk)));
+        counts[3] += created;
+        counts[4] += chunk.size() - created;
+        chunk.clear();
+    }
+
+    private static Progress progress(long[] counts) {
+        return new Progress(counts[0], counts[1], counts[2], counts[3], counts[4]);
+    }
+
+    // Résultats de validation d'une ligne (avec Candidate)
+    private static final class Invalid {
+        final long position;
+        final String reason;
+
+        Invalid(long position, String reason) {
+            this.position = position;
+            this.reason = reason;
+        }
+    }
+
+    private static final Object DUPLICATE = new Object();
+
+    private Object[] validateBatch(List<Row> rows) {
+        Object[] results = new Object[rows.size()];
+        int[] hits = new int[16];
+        for (int i = 0; i < results.length; i++) {
+            Row row = rows.get(i);
+            String error = row.readError;
+            Candidate candidate = null;
+            if (error == null) {
+                Object result = validate(row);
+                if (result instanceof String) {
+                    error = (String) result;
+                } else {
+                    candidate = (Candidate) result;
+                }
+            }
+            if (error != null) {
+                results[i] = new Invalid(row.position, error);
+            } else if (existsNear(candidate, hits)) {
+                results[i] = DUPLICATE;
+            } else {
+                results[i] = candidate;
+            }
+        }
+        return results;
+    }
+
+    // Risque du cache de même catégorie (ou sans catégorie) à moins du rayon de dédoublonnage
+    private boolean existsNear(Candidate candidate, int[] hits) {
+        RiskProximityIndex existing = config.existing;
+        if (existing == null || !(config.dedupeRadiusMeters > 0)) {
+            return false;
+        }
+        int found = existing.queryWithin(candidate.latitude, candidate.longitude, config.dedupeRadiusMeters,
+            hits, null);
+        for (int h = 0; h < found; h++) {
+            String category = existing.getCategory(hits[h]);
+            if (category.isEmpty() || candidate.categoryId.equals(config.categoryIds.get(normalize(category)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return un Candidate, ou le message d'erreur */
+    Object validate(Row row) {
+        double latitude = parseCoordinate(row.latitude);
+        double longitude = parseCoordinate(row.longitude);
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return "coordonnées manquantes ou illisibles";
+        }
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            return "coordonnées hors limites: " + row.latitude + ", " + row.longitude;
+        }
+        if (latitude == 0 && longitude == 0) {
+            return "coordonnées nulles (0, 0)";
+        }
+
+        String title = row.title != null ? row.title.trim() : "";
+        if (title.isEmpty()) {
+            return "titre manquant";
+        }
+        if (title.length() > MAX_TITLE_LENGTH) {
+            return "titre trop long (" + title.length() + " caractères)";
+        }
+
+        String categoryId = row.category != null ? config.categoryIds.get(normalize(row.category)) : null;
+        if (categoryId == null) {
+            return "catégorie inconnue: " + row.category;
+        }
+        String severity = row.severity != null ? SEVERITIES.get(normalize(row.severity)) : null;
+        if (severity == null) {
+            return "sévérité inconnue: " + row.severity;
+        }
+
+        String description = row.description != null && !row.description.trim().isEmpty()
+            ? row.description.trim()
+            : null;
+        return new Candidate(row.position, title, description, categoryId, severity, latitude, longitude);
+    }
+
+    // "45,764" (tableur français) comme "45.764"
+    private static double parseCoordinate(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text.trim().replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /** Minuscules sans accents ni espaces de bord : "Élevé " → "eleve". */
+    static String normalize(String value) {
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < trimmed.length(); i++) {
+            if (trimmed.charAt(i) > 0x7f) {
+                return DIACRITICS.matcher(Normalizer.normalize(trimmed, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return trimmed;
+    }
+
+    /**
+     * Risques déjà acceptés dans ce fichier, en grille de cellules d'environ le rayon
+     * de dédoublonnage. Utilisée par le seul thread appelant.
+     */
+    private static final class DedupeGrid {
+        private final double radiusMeters;
+        private final double cellDegrees;
+        private final Map<Long, List<Candidate>> cells = new HashMap<>();
+
+        DedupeGrid(double radiusMeters) {
+            this.radiusMeters = radiusMeters;
+            this.cellDegrees = Math.max(GeoMath.latitudeDelta(radiusMeters), 1e-6);
+        }
+
+        boolean containsNear(Candidate candidate) {
+            if (!(radiusMeters > 0)) {
+                return false;
+            }
+            double deltaLat = GeoMath.latitudeDelta(radiusMeters);
+            // Près des pôles la demi-largeur explose : borne à quelques cellules, sans risque en pratique
+            double deltaLon = Math.min(GeoMath.longitudeDelta(candidate.latitude, deltaLat), cellDegrees * 8);
+            long minRow = cell(candidate.latitude - deltaLat);
+            long maxRow = cell(candidate.latitude + deltaLat);
+            long minCol = cell(candidate.longitude - deltaLon);
+            long maxCol = cell(candidate.longitude + deltaLon);
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    List<Candidate> others = cells.get(key(row, col));
+                    if (others == null) {
+                        continue;
+                    }
+                    for (Candidate other : others) {
+                        if (other.categoryId.equals(candidate.categoryId)
+                                && GeoMath.haversineMeters(candidate.latitude, candidate.longitude,
+                                    other.latitude, other.longitude) <= radiusMeters) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        void add(Candidate candidate) {
+            long key = key(cell(candidate.latitude), cell(candidate.longitude));
+            cells.computeIfAbsent(key, k -> new ArrayList<>(2)).add(candidate);
+        }
+
+        private long cell(double degrees) {
+            return (long) Math.floor(degrees / cellDegrees);
+        }
+
+        private static long key(long row, long col) {
+            return (row << 32) ^ (col & 0xffffffffL);
+        }
+    }
+}
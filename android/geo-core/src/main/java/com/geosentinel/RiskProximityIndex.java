@@ -0,0 +1,270 @@
+package com.geosentinel;
+
+import java.util.Arrays;
+
+/**
+ * Index spatial en mémoire des risques du cache (Java pur, sans dépendance Android).
+ *
+ * Les risques sont rangés dans une grille régulière lat/lon. Toutes les données
+ * sont stockées dans des tableaux primitifs triés par cellule (format CSR) :
+ * une requête "risques à moins de X mètres" ne parcourt que les cellules qui
+ * recoupent le cercle au lieu de faire un haversine sur tout le cache.
+ *
+ * L'index est immuable une fois construit : on en reconstruit un à chaque
+ * rafraîchissement du cache, ce qui permet de le partager sans verrou entre
+ * le bridge React et le callback GPS.
+ */
+public final class RiskProximityIndex {
+    // Taille de cellule par défaut (~500 m en latitude)
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.0045;
+
+    private final String[] ids;
+    // Libellés utilisés par les notifications natives (peuvent être null)
+    private final String[] titles;
+    private final String[] categories;
+    private final String[] severities;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double cellSizeDegrees;
+
+    // Clés de cellules triées, et pour chaque cellule la plage [cellStart[i], cellStart[i + 1])
+    // dans entries (indices des risques de la cellule).
+    private final long[] cellKeys;
+    private final int[] cellStart;
+    private final int[] entries;
+
+    public RiskProximityIndex(String[] ids, double[] latitudes, double[] longitudes) {
+        this(ids, null, null, latitudes, longitudes, DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    public RiskProximityIndex(String[] ids, String[] titles, String[] categories,
+                              double[] latitudes, double[] longitudes) {
+        this(ids, titles, categories, null, latitudes, longitudes, DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    public RiskProximityIndex(String[] ids, String[] titles, String[] categories, String[] severities,
+                              double[] latitudes, double[] longitudes) {
+        this(ids, titles, categories, severities, latitudes, longitudes, DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    public RiskProximityIndex(String[] ids, String[] titles, String[] categories,
+                              double[] latitudes, double[] longitudes, double cellSizeDegrees) {
+        this(ids, titles, categories, null, latitudes, longitudes, cellSizeDegrees);
+    }
+
+    public RiskProximityIndex(String[] ids, String[] titles, String[] categories, String[] severities,
+                              double[] latitudes, double[] longitudes, double cellSizeDegrees) {
+        if (ids.length != latitudes.length || ids.length != longitudes.length) {
+            throw new IllegalArgumentException("Tableaux ids/latitudes/longitudes de tailles différentes");
+        }
+        if ((titles != null && titles.length != ids.length)
+                || (categories != null && categories.length != ids.length)
+                || (severities != null && severities.length != ids.length)) {
+            throw new IllegalArgumentException("Tableaux titles/categories/severities de tailles différentes");
+        }
+        if (!(cellSizeDegrees > 0)) {
+            throw new IllegalArgumentException("Taille de cellule invalide: " + cellSizeDegrees);
+        }
+
+        this.ids = ids;
+        this.titles = titles;
+        this.categories = categories;
+        this.severities = severities;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.cellSizeDegrees = cellSizeDegrees;
+
+        int count = ids.length;
+
+        // Tri des risques par clé de cellule (coût payé une fois par refresh du cache)
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = cellKey(cellRow(latitudes[i]), cellColumn(longitudes[i]));
+        }
+        int[] sorted = sortByKey(keys);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || keys[sorted[i]] != keys[sorted[i - 1]]) {
+                distinct++;
+            }
+        }
+
+        cellKeys = new long[distinct];
+        cellStart = new int[distinct + 1];
+        entries = new int[count];
+
+        int cell = -1;
+        for (int i = 0; i < count; i++) {
+            int riskIndex = sorted[i];
+            if (i == 0 || keys[riskIndex] != keys[sorted[i - 1]]) {
+                cell++;
+                cellKeys[cell] = keys[riskIndex];
+                cellStart[cell] = i;
+            }
+            entries[i] = riskIndex;
+        }
+        cellStart[distinct] = count;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public String getTitle(int index) {
+        return titles != null && titles[index] != null ? titles[index] : "";
+    }
+
+    public String getCategory(int index) {
+        return categories != null && categories[index] != null ? categories[index] : "";
+    }
+
+    public String getSeverity(int index) {
+        return severities != null && severities[index] != null ? severities[index] : "";
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * Recherche les risques situés à moins de radiusMeters de la position.
+     *
+     * @param outIndices   reçoit les indices des risques trouvés (non triés)
+     * @param outDistances reçoit les distances en mètres (même ordre), peut être null
+     * @return le nombre de risques trouvés, borné par outIndices.length
+     */
+    public int queryWithin(double latitude, double longitude, double radiusMeters,
+                           int[] outIndices, double[] outDistances) {
+        if (ids.length == 0 || outIndices.length == 0) {
+            return 0;
+        }
+
+        double deltaLat = GeoMath.latitudeDelta(radiusMeters);
+        double deltaLon = GeoMath.longitudeDelta(latitude, deltaLat);
+
+        int minRow = cellRow(latitude - deltaLat);
+        int maxRow = cellRow(latitude + deltaLat);
+        int minCol = cellColumn(longitude - deltaLon);
+        int maxCol = cellColumn(longitude + deltaLon);
+
+        int found = 0;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = Arrays.binarySearch(cellKeys, cellKey(row, col));
+                if (cell < 0) {
+                    continue;
+                }
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    int riskIndex = entries[e];
+                    // Préfiltre rectangle avant le haversine
+                    if (Math.abs(latitudes[riskIndex] - latitude) > deltaLat) {
+                        continue;
+                    }
+                    double distance = GeoMath.haversineMeters(latitude, longitude,
+                        latitudes[riskIndex], longitudes[riskIndex]);
+                    if (distance <= radiusMeters) {
+                        outIndices[found] = riskIndex;
+                        if (outDistances != null) {
+                            outDistances[found] = distance;
+                        }
+                        found++;
+                        if (found == outIndices.length) {
+                            return found;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Distance en mètres du risque le plus proche, limitée à maxRadiusMeters.
+     *
+     * @return Double.POSITIVE_INFINITY si aucun risque dans ce rayon
+     */
+    public double nearestDistance(double latitude, double longitude, double maxRadiusMeters) {
+        double best = Double.POSITIVE_INFINITY;
+        if (ids.length == 0) {
+            return best;
+        }
+
+        double deltaLat = GeoMath.latitudeDelta(maxRadiusMeters);
+        double deltaLon = GeoMath.longitudeDelta(latitude, deltaLat);
+
+        int minRow = cellRow(latitude - deltaLat);
+        int maxRow = cellRow(latitude + deltaLat);
+        int minCol = cellColumn(longitude - deltaLon);
+        int maxCol = cellColumn(longitude + deltaLon);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                int cell = Arrays.binarySearch(cellKeys, cellKey(row, col));
+                if (cell < 0) {
+                    continue;
+                }
+                for (int e = cellStart[cell]; e < cellStart[cell + 1]; e++) {
+                    int riskIndex = entries[e];
+                    double distance = GeoMath.haversineMeters(latitude, longitude,
+                        latitudes[riskIndex], longitudes[riskIndex]);
+                    if (distance < best) {
+                        best = distance;
+                    }
+                }
+            }
+        }
+        return best <= maxRadiusMeters ? best : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Parcours linéaire équivalent à checkRisksFromCache côté JS.
+     * Sert de référence pour comparer les résultats et les performances de l'index.
+     */
+    public static int linearScan(double[] latitudes, double[] longitudes,
+                                 double latitude, double longitude, double radiusMeters,
+                                 int[] outIndices) {
+        int found = 0;
+        for (int i = 0; i < latitudes.length && found < outIndices.length; i++) {
+            if (GeoMath.haversineMeters(latitude, longitude, latitudes[i], longitudes[i]) <= radiusMeters) {
+                outIndices[found++] = i;
+            }
+        }
+        return found;
+    }
+
+    private int cellRow(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellSizeDegrees);
+    }
+
+    private int cellColumn(double longitude) {
+        return (int) Math.floor((longitude + 180.0) / cellSizeDegrees);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    // Tri indirect des indices par clé, via un tri de paires (clé, index)
+    private static int[] sortByKey(long[] keys) {
+        int count = keys.length;
+        long[][] pairs = new long[count][];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = new long[] { keys[i], i };
+        }
+        Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) pairs[i][1];
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,98 @@
+package com.geosentinel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Métadonnées des tuiles de risques (Java pur), écrites à côté de RiskCacheFile :
+ * ETag, date de chargement et taille de réponse de chaque tuile de la zone.
+ * Après un redémarrage, le cache de tuiles repart de ces métadonnées : les
+ * tuiles encore fraîches ne sont pas redemandées, les autres le sont en
+ * requête conditionnelle (304) au lieu d'un téléchargement complet.
+ *
+ * Les risques eux-mêmes restent dans RiskCacheFile ; chaque risque est
+ * rattaché à sa tuile par sa position.
+ */
+public final class RiskTileIndexFile {
+    public static final int MAGIC = 0x4753544c; // "GSTL"
+    public static final int VERSION = 1;
+
+    private RiskTileIndexFile() {
+    }
+
+    /** Tuile (row, col) de la grille TILE_SIZE_DEG de riskTileCache.ts. */
+    public static final class Tile {
+        public final int row;
+        public final int col;
+        public final String etag;
+        public final long fetchedAt;
+        public final int bytes;
+
+        public Tile(int row, int col, String etag, long fetchedAt, int bytes) {
+            this.row = row;
+            this.col = col;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+            this.bytes = bytes;
+        }
+    }
+
+    public static void write(File file, List<Tile> tiles) throws IOException {
+        if (tiles.size() > 0xffff) {
+            throw new IllegalArgumentException("Trop de tuiles: " + tiles.size());
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(tiles.size());
+            for (Tile tile : tiles) {
+                out.writeInt(tile.row);
+                out.writeInt(tile.col);
+                out.writeBoolean(tile.etag != null);
+                if (tile.etag != null) {
+                    out.writeUTF(tile.etag);
+                }
+                out.writeLong(tile.fetchedAt);
+                out.writeInt(tile.bytes);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Impossible de remplacer " + file);
+        }
+    }
+
+    public static List<Tile> read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Fichier d'index des tuiles invalide (magic)");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Version de fichier d'index des tuiles non supportée: " + version);
+            }
+            int count = in.readUnsignedShort();
+            List<Tile> tiles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int row = in.readInt();
+                int col = in.readInt();
+                String etag = in.readBoolean() ? in.readUTF() : null;
+                long fetchedAt = in.readLong();
+                tiles.add(new Tile(row, col, etag, fetchedAt, in.readInt()));
+            }
+            return tiles;
+        }
+    }
+}
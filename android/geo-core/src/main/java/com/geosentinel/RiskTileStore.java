@@ -0,0 +1,250 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tuiles de risques gardées côté natif (Java pur), indexées par (row, col) sur
+ * la grille TILE_SIZE_DEG de riskTileCache.ts.
+ *
+ * RiskWireModule y range chaque réponse /risks/nearby décodée, avec son ETag :
+ * le JS ne reçoit que des compteurs et des ETags. La zone fusionnée part ensuite
+ * directement dans RiskCacheFile et l'index de proximité, sans repasser les
+ * risques par le pont React Native.
+ *
+ * Thread-safe : plusieurs tuiles sont chargées en parallèle.
+ */
+public final class RiskTileStore {
+    public static final double TILE_SIZE_DEG = 0.05;
+
+    /** Risques d'une tuile (ceux dont la position tombe dedans) et métadonnées HTTP. */
+    public static final class Tile {
+        public final int row;
+        public final int col;
+        public final RiskCacheFile.Snapshot risks;
+        public final String etag;
+        public final long fetchedAt;
+        public final int bytes;
+
+        Tile(int row, int col, RiskCacheFile.Snapshot risks, String etag, long fetchedAt, int bytes) {
+            this.row = row;
+            this.col = col;
+            this.risks = risks;
+            this.etag = etag;
+            this.fetchedAt = fetchedAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Map<Long, Tile> tiles = new HashMap<>();
+
+    public static int tileRow(double latitude) {
+        return (int) Math.floor((latitude + 90) / TILE_SIZE_DEG);
+    }
+
+    public static int tileCol(double longitude) {
+        return (int) Math.floor((longitude + 180) / TILE_SIZE_DEG);
+    }
+
+    public static double tileCenterLat(int row) {
+        return (row + 0.5) * TILE_SIZE_DEG - 90;
+    }
+
+    public static double tileCenterLon(int col) {
+        return (col + 0.5) * TILE_SIZE_DEG - 180;
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    public synchronized Tile get(int row, int col) {
+        return tiles.get(key(row, col));
+    }
+
+    /** ETag à renvoyer en If-None-Match ; null si la tuile n'est pas gardée. */
+    public synchronized String etag(int row, int col) {
+        Tile tile = tiles.get(key(row, col));
+        return tile != null ? tile.etag : null;
+    }
+
+    /**
+     * Range une réponse complète (200) : seuls les risques dont la position
+     * tombe dans la tuile sont gardés, le cercle demandé débordant sur les
+     * voisines. Renvoie le nombre de risques gardés.
+     */
+    public int put(int row, int col, RiskCacheFile.Snapshot received, String etag, long fetchedAt, int bytes) {
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < received.size(); i++) {
+            if (tileRow(received.latitudes[i]) == row && tileCol(received.longitudes[i]) == col) {
+                kept.add(i);
+            }
+        }
+        RiskCacheFile.Snapshot risks = select(received, kept, tileCenterLat(row), tileCenterLon(col), fetchedAt);
+        synchronized (this) {
+            tiles.put(key(row, col), new Tile(row, col, risks, etag, fetchedAt, bytes));
+        }
+        return risks.size();
+    }
+
+    /**
+     * Réponse 304 : la tuile gardée est de nouveau fraîche. Renvoie son nombre
+     * de risques, -1 si elle n'est plus gardée.
+     */
+    public synchronized int revalidate(int row, int col, long fetchedAt) {
+        Tile tile = tiles.get(key(row, col));
+        if (tile == null) {
+            return -1;
+        }
+        tiles.put(key(row, col), new Tile(row, col, tile.risks, tile.etag, fetchedAt, tile.bytes));
+        return tile.risks.size();
+    }
+
+    /** Ne garde que les tuiles listées (éviction décidée par riskTileCache.ts). */
+    public synchronized void retain(int[] rows, int[] cols) {
+        Set<Long> keep = new HashSet<>();
+        for (int i = 0; i < rows.length; i++) {
+            keep.add(key(rows[i], cols[i]));
+        }
+        tiles.keySet().retainAll(keep);
+    }
+
+    /** Tuiles listées qui ne sont pas gardées : le JS doit les oublier pour les recharger. */
+    public synchronized List<int[]> missing(int[] rows, int[] cols) {
+        List<int[]> missing = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (!tiles.containsKey(key(rows[i], cols[i]))) {
+                missing.add(new int[] { rows[i], cols[i] });
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Union dédoublonnée (par id) des risques des tuiles listées, prête pour
+     * RiskCacheFile et l'index de proximité. Les tuiles absentes sont ignorées.
+     */
+    public synchronized RiskCacheFile.Snapshot merge(int[] rows, int[] cols,
+                                                     double centerLat, double centerLon, long savedAt) {
+        int capacity = 0;
+        List<RiskCacheFile.Snapshot> parts = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            Tile tile = tiles.get(key(rows[i], cols[i]));
+            if (tile != null) {
+                parts.add(tile.risks);
+                capacity += tile.risks.size();
+            }
+        }
+
+        String[] ids = new String[capacity];
+        String[] titles = new String[capacity];
+        String[] categories = new String[capacity];
+        String[] severities = new String[capacity];
+        double[] latitudes = new double[capacity];
+        double[] longitudes = new double[capacity];
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+        for (RiskCacheFile.Snapshot part : parts) {
+            for (int i = 0; i < part.size(); i++) {
+                if (!seen.add(part.ids[i])) {
+                    continue;
+                }
+                ids[count] = part.ids[i];
+                titles[count] = part.titles[i];
+                categories[count] = part.categories[i];
+                severities[count] = part.severities[i];
+                latitudes[count] = part.latitudes[i];
+                longitudes[count] = part.longitudes[i];
+                count++;
+            }
+        }
+        if (count < capacity) {
+            ids = Arrays.copyOf(ids, count);
+            titles = Arrays.copyOf(titles, count);
+            categories = Arrays.copyOf(categories, count);
+            severities = Arrays.copyOf(severities, count);
+            latitudes = Arrays.copyOf(latitudes, count);
+            longitudes = Arrays.copyOf(longitudes, count);
+        }
+        return new RiskCacheFile.Snapshot(ids, titles, categories, severities, latitudes, longitudes,
+            centerLat, centerLon, savedAt);
+    }
+
+    /** Métadonnées des tuiles listées et gardées, pour RiskTileIndexFile. */
+    public synchronized List<RiskTileIndexFile.Tile> index(int[] rows, int[] cols) {
+        List<RiskTileIndexFile.Tile> index = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            Tile tile = tiles.get(key(rows[i], cols[i]));
+            if (tile != null) {
+                index.add(new RiskTileIndexFile.Tile(tile.row, tile.col, tile.etag, tile.fetchedAt, tile.bytes));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reconstruit les tuiles persistées : chaque risque de la zone retourne dans
+     * la tuile de sa position. Seules les tuiles de l'index sont recréées, une
+     * tuile vide mais chargée reste donc valide.
+     */
+    public void restore(RiskCacheFile.Snapshot zone, List<RiskTileIndexFile.Tile> index) {
+        Map<Long, List<Integer>> byTile = new HashMap<>();
+        for (int i = 0; i < zone.size(); i++) {
+            long key = key(tileRow(zone.latitudes[i]), tileCol(zone.longitudes[i]));
+            List<Integer> members = byTile.get(key);
+            if (members == null) {
+                members = new ArrayList<>();
+                byTile.put(key, members);
+            }
+            members.add(i);
+        }
+
+        Map<Long, Tile> restored = new HashMap<>();
+        for (RiskTileIndexFile.Tile entry : index) {
+            long key = key(entry.row, entry.col);
+            List<Integer> members = byTile.get(key);
+            RiskCacheFile.Snapshot risks = select(zone, members != null ? members : new ArrayList<Integer>(),
+                tileCenterLat(entry.row), tileCenterLon(entry.col), entry.fetchedAt);
+            restored.put(key, new Tile(entry.row, entry.col, risks, entry.etag, entry.fetchedAt, entry.bytes));
+        }
+        synchronized (this) {
+            tiles.clear();
+            tiles.putAll(restored);
+        }
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+    }
+
+    private static RiskCacheFile.Snapshot select(RiskCacheFile.Snapshot source, List<Integer> indices,
+                                                 double centerLat, double centerLon, long savedAt) {
+        int count = indices.size();
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] categories = new String[count];
+        String[] severities = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int k = 0; k < count; k++) {
+            int i = indices.get(k);
+            ids[k] = source.ids[i];
+            titles[k] = source.titles[i];
+            categories[k] = source.categories[i];
+            severities[k] = source.severities[i];
+            latitudes[k] = source.latitudes[i];
+            longitudes[k] = source.longitudes[i];
+        }
+        return new RiskCacheFile.Snapshot(ids, titles, categories, severities, latitudes, longitudes,
+            centerLat, centerLon, savedAt);
+    }
+}
@@ -0,0 +1,117 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Client GET /risks/nearby qui négocie le format compact (Java pur, HttpURLConnection).
+ *
+ * Accept annonce RiskWireFormat.CONTENT_TYPE avant JSON : un serveur qui le connaît
+ * répond en binaire, les autres répondent en JSON, décodé avec la même projection.
+ * Aucun aller-retour supplémentaire dans les deux cas. Les réponses arrivent
+ * directement sous forme de snapshot, le format du cache de risques.
+ */
+public final class RiskWireClient {
+    static final String ACCEPT = RiskWireFormat.CONTENT_TYPE + ", application/json;q=0.5";
+    private static final String NEARBY_PATH = "/risks/nearby?lat=%s&lng=%s&radius_km=%s&fields=%s";
+
+    /** 401 : le token doit être rafraîchi par l'appelant avant de rejouer la requête. */
+    public static final class UnauthorizedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public UnauthorizedException() {
+            super("HTTP 401 sur /risks/nearby");
+        }
+    }
+
+    public static final class Response {
+        public final boolean notModified;
+        /** null si notModified. */
+        public final RiskCacheFile.Snapshot risks;
+        public final String etag;
+        /** Octets reçus (corps de la réponse). */
+        public final int bytes;
+        public final boolean binary;
+
+        Response(boolean notModified, RiskCacheFile.Snapshot risks, String etag, int bytes, boolean binary) {
+            this.notModified = notModified;
+            this.risks = risks;
+            this.etag = etag;
+            this.bytes = bytes;
+            this.binary = binary;
+        }
+    }
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+
+    public RiskWireClient(int connectTimeoutMs, int readTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Risques du cercle (lat, lon, radiusKm). Avec etag, un 304 renvoie notModified sans corps.
+     */
+    public Response fetchNearby(String baseUrl, String accessToken, double lat, double lon, double radiusKm,
+                                String etag, long now) throws IOException {
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            throw new IOException("URL API inconnue");
+        }
+        String path = String.format(Locale.US, NEARBY_PATH, lat, lon, radiusKm, RiskWireFormat.FIELDS);
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeoutMs);
+            connection.setReadTimeout(readTimeoutMs);
+            connection.setRequestProperty("Accept", ACCEPT);
+            if (accessToken != null && !accessToken.isEmpty()) {
+                connection.setRequestProperty("Authorization", "Bearer " + accessToken);
+            }
+            if (etag != null && !etag.isEmpty()) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return new Response(true, null, etag, 0, false);
+            }
+            if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                throw new UnauthorizedException();
+            }
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status + " sur /risks/nearby");
+            }
+
+            byte[] body = readAll(connection.getInputStream());
+            String contentType = connection.getContentType();
+            String responseEtag = connection.getHeaderField("ETag");
+            if (contentType != null && contentType.startsWith(RiskWireFormat.CONTENT_TYPE)) {
+                return new Response(false, RiskWireFormat.decode(ByteBuffer.wrap(body), now),
+                    responseEtag, body.length, true);
+            }
+            String json = new String(body, StandardCharsets.UTF_8);
+            return new Response(false, RiskWireFormat.decodeJson(json, lat, lon, now),
+                responseEtag, body.length, false);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
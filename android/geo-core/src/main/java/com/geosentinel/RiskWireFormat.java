@@ -0,0 +1,275 @@
+package com.geosentinel;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Format binaire compact des réponses /risks/nearby (Java pur, sans dépendance Android).
+ *
+ * Négocié par Content-Type (voir RiskWireClient). Seuls les champs utilisés par le
+ * pipeline sont transmis : id, titre, catégorie, sévérité, latitude, longitude.
+ * <pre>
+ *   magic (int LE) | version (byte)
+ *   count (varint)
+ *   origine lat, lon en micro-degrés (zigzag varint)
+ *   categoryCount (varint) | categoryCount chaînes
+ *   count enregistrements :
+ *     dLat, dLon en micro-degrés depuis l'enregistrement précédent (zigzag varint)
+ *     | catégorie (varint, 0 = aucune, n = entrée n - 1 du dictionnaire)
+ *     | sévérité (byte, codes de RiskCacheFile) | id (chaîne) | titre (chaîne)
+ *   chaîne = longueur + 1 (varint, 0 = null) + UTF-8
+ * </pre>
+ *
+ * Le micro-degré vaut ~0,11 m, bien en dessous de la précision GPS. Les
+ * enregistrements sont triés par latitude à l'encodage : les deltas restent
+ * petits et tiennent le plus souvent sur deux octets.
+ */
+public final class RiskWireFormat {
+    public static final String CONTENT_TYPE = "application/vnd.geosentinel.risks+bin";
+    // Projection demandée au serveur, aussi appliquée au repli JSON
+    public static final String FIELDS = "id,title,category,severity,latitude,longitude";
+    public static final int MAGIC = 0x57525347; // "GSRW"
+    public static final int VERSION = 1;
+
+    private static final double E6 = 1e6;
+
+    private RiskWireFormat() {
+    }
+
+    /** Encode le snapshot ; son centre sert d'origine aux deltas. Utilisé par les tests et le serveur bouchon. */
+    public static byte[] encode(RiskCacheFile.Snapshot snapshot) {
+        int count = snapshot.size();
+        Integer[] order = new Integer[count];
+        int[] latE6 = new int[count];
+        int[] lonE6 = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            latE6[i] = toE6(snapshot.latitudes[i]);
+            lonE6[i] = toE6(snapshot.longitudes[i]);
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> latE6[i]));
+
+        Map<String, Integer> categoryCodes = new HashMap<>();
+        ByteArrayOutputStream categories = new ByteArrayOutputStream();
+        ByteArrayOutputStream records = new ByteArrayOutputStream(count * 24);
+        int previousLat = toE6(snapshot.centerLat);
+        int previousLon = toE6(snapshot.centerLon);
+
+        for (int i : order) {
+            writeVarint(records, zigzag(latE6[i] - previousLat));
+            writeVarint(records, zigzag(lonE6[i] - previousLon));
+            previousLat = latE6[i];
+            previousLon = lonE6[i];
+
+            String category = snapshot.categories[i];
+            int code = 0;
+            if (category != null) {
+                Integer existing = categoryCodes.get(category);
+                if (existing == null) {
+                    existing = categoryCodes.size() + 1;
+                    categoryCodes.put(category, existing);
+                    writeString(categories, category);
+                }
+                code = existing;
+            }
+            writeVarint(records, code);
+            records.write(RiskCacheFile.severityCode(snapshot.severities[i]));
+            writeString(records, snapshot.ids[i]);
+            writeString(records, snapshot.titles[i]);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(5 + 20 + categories.size() + records.size());
+        byte[] header = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).array();
+        out.write(header, 0, header.length);
+        out.write(VERSION);
+        writeVarint(out, count);
+        writeVarint(out, zigzag(toE6(snapshot.centerLat)));
+        writeVarint(out, zigzag(toE6(snapshot.centerLon)));
+        writeVarint(out, categoryCodes.size());
+        byte[] dictionary = categories.toByteArray();
+        out.write(dictionary, 0, dictionary.length);
+        byte[] body = records.toByteArray();
+        out.write(body, 0, body.length);
+        return out.toByteArray();
+    }
+
+    /**
+     * Décode une réponse binaire en snapshot prêt pour RiskCacheFile : centre =
+     * origine de la réponse, savedAt = receivedAt.
+     */
+    public static RiskCacheFile.Snapshot decode(ByteBuffer source, long receivedAt) throws IOException {
+        ByteBuffer buffer = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < 5 || buffer.getInt() != MAGIC) {
+            throw new IOException("Réponse binaire invalide (magic)");
+        }
+        int version = buffer.get() & 0xff;
+        if (version != VERSION) {
+            throw new IOException("Version de format non supportée: " + version);
+        }
+
+        int count = readVarint(buffer);
+        // Chaque enregistrement fait au moins 6 octets : rejette un compte aberrant avant d'allouer
+        if (count < 0 || count > buffer.remaining() / 6) {
+            throw new IOException("Nombre de risques incohérent: " + count);
+        }
+        int lat = unzigzag(readVarint(buffer));
+        int lon = unzigzag(readVarint(buffer));
+        double centerLat = lat / E6;
+        double centerLon = lon / E6;
+
+        int categoryCount = readVarint(buffer);
+        if (categoryCount < 0 || categoryCount > buffer.remaining()) {
+            throw new IOException("Dictionnaire de catégories incohérent: " + categoryCount);
+        }
+        String[] categoryList = new String[categoryCount];
+        for (int c = 0; c < categoryCount; c++) {
+            categoryList[c] = readString(buffer);
+        }
+
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] categories = new String[count];
+        String[] severities = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(buffer));
+            lon += unzigzag(readVarint(buffer));
+            latitudes[i] = lat / E6;
+            longitudes[i] = lon / E6;
+            int code = readVarint(buffer);
+            if (code < 0 || code > categoryCount) {
+                throw new IOException("Code catégorie invalide: " + code);
+            }
+            categories[i] = code == 0 ? null : categoryList[code - 1];
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Réponse binaire tronquée");
+            }
+            severities[i] = RiskCacheFile.severityName(buffer.get());
+            ids[i] = readString(buffer);
+            if (ids[i] == null) {
+                throw new IOException("Risque sans id");
+            }
+            titles[i] = readString(buffer);
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Octets en trop après " + count + " risques");
+        }
+
+        return new RiskCacheFile.Snapshot(ids, titles, categories, severities, latitudes, longitudes,
+            centerLat, centerLon, receivedAt);
+    }
+
+    /**
+     * Repli JSON (serveur sans format binaire) : tableau de Risk complets ou projetés.
+     * La catégorie est le nom technique dénormalisé, ou le champ name d'une catégorie imbriquée.
+     * org.json est fourni par Android ; sur la JVM, les tests l'ajoutent au classpath.
+     */
+    public static RiskCacheFile.Snapshot decodeJson(String json, double centerLat, double centerLon, long receivedAt)
+            throws IOException {
+        try {
+            JSONArray array = new JSONArray(json);
+            int count = array.length();
+            String[] ids = new String[count];
+            String[] titles = new String[count];
+            String[] categories = new String[count];
+            String[] severities = new String[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+
+            for (int i = 0; i < count; i++) {
+                JSONObject risk = array.getJSONObject(i);
+                ids[i] = risk.getString("id");
+                titles[i] = optString(risk, "title");
+                JSONObject nested = risk.optJSONObject("category");
+                categories[i] = nested != null ? optString(nested, "name") : optString(risk, "category");
+                severities[i] = optString(risk, "severity");
+                latitudes[i] = risk.getDouble("latitude");
+                longitudes[i] = risk.getDouble("longitude");
+            }
+            return new RiskCacheFile.Snapshot(ids, titles, categories, severities, latitudes, longitudes,
+                centerLat, centerLon, receivedAt);
+        } catch (JSONException e) {
+            throw new IOException("Réponse JSON /risks/nearby invalide", e);
+        }
+    }
+
+    private static String optString(JSONObject object, String key) {
+        return object.isNull(key) ? null : object.optString(key, null);
+    }
+
+    private static int toE6(double degrees) {
+        return (int) Math.round(degrees * E6);
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Réponse binaire tronquée");
+            }
+            int b = buffer.get() & 0xff;
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint trop long");
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length + 1);
+        out.write(utf8, 0, utf8.length);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int size = readVarint(buffer) - 1;
+        if (size == -1) {
+            return null;
+        }
+        if (size < 0 || size > buffer.remaining()) {
+            throw new IOException("Chaîne hors de la réponse: " + size + " octets");
+        }
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), size,
+                StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + size);
+            return value;
+        }
+        byte[] bytes = new byte[size];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
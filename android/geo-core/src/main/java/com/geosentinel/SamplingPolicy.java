@@ -0,0 +1,110 @@
+package com.geosentinel;
+
+/**
+ * Politique d'échantillonnage GPS (Java pur, sans dépendance Android).
+ *
+ * Appelée après chaque fix par LocationTrackingService pour décider de
+ * l'intervalle et de la précision de la prochaine demande de position.
+ */
+public interface SamplingPolicy {
+
+    /**
+     * @param speedMps           vitesse observée en m/s (0 si inconnue)
+     * @param nearestRiskMeters  distance au risque en cache le plus proche, Double.POSITIVE_INFINITY
+     *                           si aucun risque dans searchRadiusMeters
+     * @param alertRadiusMeters  rayon d'alerte du tenant
+     */
+    Decision decide(double speedMps, double nearestRiskMeters, double alertRadiusMeters);
+
+    /**
+     * Rayon dans lequel chercher le risque le plus proche avant d'appeler decide :
+     * au-delà, la politique n'a pas besoin de la distance exacte (0 = pas de recherche).
+     */
+    double searchRadiusMeters(double speedMps, double alertRadiusMeters);
+
+    /** Paramètres d'une LocationRequest, indépendants de l'API Play Services. */
+    final class Decision {
+        public final long intervalMs;
+        public final float minDistanceMeters;
+        public final boolean highAccuracy;
+
+        public Decision(long intervalMs, float minDistanceMeters, boolean highAccuracy) {
+            this.intervalMs = intervalMs;
+            this.minDistanceMeters = minDistanceMeters;
+            this.highAccuracy = highAccuracy;
+        }
+
+        /**
+         * Évite de reconfigurer le client GPS pour des variations mineures :
+         * changement de précision ou écart d'intervalle d'au moins 20 %.
+         */
+        public boolean differsSignificantlyFrom(Decision other) {
+            if (other == null || highAccuracy != other.highAccuracy) {
+                return true;
+            }
+            long delta = Math.abs(intervalMs - other.intervalMs);
+            return delta * 5 >= Math.max(intervalMs, other.intervalMs);
+        }
+
+        @Override
+        public String toString() {
+            return intervalMs + "ms/" + minDistanceMeters + "m/" + (highAccuracy ? "high" : "balanced");
+        }
+    }
+
+    /** Intervalles fixes historiques par type de tournée (pieds / velo / voiture). */
+    final class Fixed implements SamplingPolicy {
+        private final Decision decision;
+
+        public Fixed(long intervalMs, float minDistanceMeters) {
+            this.decision = new Decision(intervalMs, minDistanceMeters, true);
+        }
+
+        public static Fixed forTourneeType(String tourneeType) {
+            if ("pieds".equals(tourneeType)) {
+                return new Fixed(30000, 30);
+            }
+            if ("voiture".equals(tourneeType)) {
+                return new Fixed(10000, 10);
+            }
+            return new Fixed(15000, 10);
+        }
+
+        @Override
+        public Decision decide(double speedMps, double nearestRiskMeters, double alertRadiusMeters) {
+            return decision;
+        }
+
+        @Override
+        public double searchRadiusMeters(double speedMps, double alertRadiusMeters) {
+            return 0;
+        }
+    }
+
+    /**
+     * Preset alertes JS : seule la tâche Headless lit la position, une fois par tick
+     * (dernier fix du pipeline). Un fix par intervalle de tâche en précision
+     * équilibrée suffit, sans distance minimale pour qu'un utilisateur arrêté ait
+     * quand même un fix frais à chaque tick.
+     */
+    final class PerTick implements SamplingPolicy {
+        private final Decision decision;
+
+        public PerTick(long taskIntervalMs) {
+            if (taskIntervalMs <= 0) {
+                throw new IllegalArgumentException("Intervalle de tâche invalide: " + taskIntervalMs);
+            }
+            this.decision = new Decision(taskIntervalMs, 0, false);
+        }
+
+        @Override
+        public Decision decide(double speedMps, double nearestRiskMeters, double alertRadiusMeters) {
+            return decision;
+        }
+
+        @Override
+        public double searchRadiusMeters(double speedMps, double alertRadiusMeters) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.geosentinel;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Magasin en mémoire des LocationSettings partagé par JS et les services (Java pur).
+ *
+ * - Lecture : get() retourne le snapshot courant, sans I/O (chemin des ticks).
+ * - Écriture : le snapshot est remplacé immédiatement, la persistance part sur
+ *   l'executor (séquentiel) ; plusieurs écritures rapprochées ne donnent qu'une
+ *   écriture disque, et l'écrivain relit toujours le snapshot courant : deux set()
+ *   concurrents ne peuvent pas laisser l'ancien état sur le disque.
+ * - Écouteurs : notifiés à chaque changement effectif, dans le thread de l'écrivain.
+ */
+public final class SettingsStore {
+
+    /** Écriture durable d'un snapshot (null = paramètres effacés). */
+    public interface Persister {
+        void persist(LocationSettings settings);
+    }
+
+    public interface Listener {
+        void onSettingsChanged(LocationSettings settings);
+    }
+
+    private final Persister persister;
+    private final Executor writeExecutor;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean writePending = new AtomicBoolean();
+
+    private volatile LocationSettings current;
+    private long writes;
+
+    public SettingsStore(LocationSettings initial, Persister persister, Executor writeExecutor) {
+        this.current = initial;
+        this.persister = persister;
+        this.writeExecutor = writeExecutor;
+    }
+
+    /** Snapshot courant, null si aucune session n'est configurée. */
+    public LocationSettings get() {
+        return current;
+    }
+
+    public void set(LocationSettings settings) {
+        LocationSettings previous;
+        synchronized (this) {
+            previous = current;
+            if (settings == null ? previous == null : settings.equals(previous)) {
+                return;
+            }
+            current = settings;
+        }
+        schedulePersist();
+        for (Listener listener : listeners) {
+            listener.onSettingsChanged(settings);
+        }
+    }
+
+    public void clear() {
+        set(null);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Nombre d'écritures disque effectuées (les écritures regroupées comptent pour une). */
+    public synchronized long getWriteCount() {
+        return writes;
+    }
+
+    private void schedulePersist() {
+        // Une écriture déjà en attente prendra simplement le dernier snapshot
+        if (writePending.getAndSet(true)) {
+            return;
+        }
+        writeExecutor.execute(() -> {
+            // Drapeau baissé avant la lecture : un set() ultérieur replanifie une écriture
+            writePending.set(false);
+            persister.persist(current);
+            synchronized (this) {
+                writes++;
+            }
+        });
+    }
+}
@@ -0,0 +1,174 @@
+package com.geosentinel;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Planificateur à cadence fixe de la boucle de ticks du pipeline (Java pur).
+ *
+ * - Sans dérive : chaque tick est calé sur une grille start + n * interval, la
+ *   durée d'exécution du tick ne décale pas les suivants.
+ * - Reconfigurable à chaud : setInterval() recale la grille sans redémarrer le service.
+ * - Coalescence : si la tâche précédente tourne encore (busy), le tick est
+ *   sauté ; après une mise en veille, les créneaux manqués ne sont pas rejoués
+ *   en rafale, un seul tick est exécuté.
+ *
+ * L'horloge et l'executor sont injectés pour pouvoir être testés sans Android.
+ * Les délais de l'executor ne courent pas pendant la veille profonde : le
+ * service arme une alarme à chaque échéance (setWakeupListener) et appelle
+ * wakeUp() quand elle sonne.
+ */
+public final class TickScheduler {
+    private final ScheduledExecutorService executor;
+    private final LongSupplier clock;
+    private final BooleanSupplier busy;
+    private final Runnable task;
+    private final TickStats stats = new TickStats();
+
+    private long intervalMs;
+    private long nextExpectedAt;
+    private ScheduledFuture<?> pending;
+    private boolean running;
+    // Incrémenté à chaque replanification : un tick en cours d'exécution pendant
+    // un setInterval() ne doit pas reprogrammer l'ancienne grille
+    private long generation;
+    private LongConsumer wakeupListener;
+
+    /**
+     * @param clock horloge en ms, doit avancer pendant la veille (elapsedRealtime)
+     * @param busy  vrai tant que la tâche précédente n'est pas terminée
+     */
+    public TickScheduler(ScheduledExecutorService executor, LongSupplier clock,
+                         BooleanSupplier busy, Runnable task) {
+        this.executor = executor;
+        this.clock = clock;
+        this.busy = busy;
+        this.task = task;
+    }
+
+    public synchronized void start(long intervalMs) {
+        checkInterval(intervalMs);
+        if (running) {
+            return;
+        }
+        running = true;
+        this.intervalMs = intervalMs;
+        // Premier tick immédiat, comme l'ancienne boucle
+        nextExpectedAt = clock.getAsLong();
+        scheduleNext();
+    }
+
+    public synchronized void setInterval(long intervalMs) {
+        checkInterval(intervalMs);
+        long previousIntervalMs = this.intervalMs;
+        if (intervalMs == previousIntervalMs) {
+            return;
+        }
+        this.intervalMs = intervalMs;
+        if (!running) {
+            return;
+        }
+        // Nouvelle grille à partir du dernier tick prévu
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        long lastExpectedAt = nextExpectedAt - previousIntervalMs;
+        nextExpectedAt = Math.max(clock.getAsLong(), lastExpectedAt + intervalMs);
+        scheduleNext();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /** Reçoit l'échéance (horloge du planificateur) de chaque tick programmé. */
+    public synchronized void setWakeupListener(LongConsumer listener) {
+        this.wakeupListener = listener;
+    }
+
+    /** Réveil externe (alarme) : exécute tout de suite le tick s'il est dû ; faux sinon. */
+    public synchronized boolean wakeUp() {
+        if (!running || nextExpectedAt > clock.getAsLong()) {
+            return false;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        scheduleNext();
+        return true;
+    }
+
+    public synchronized long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public TickStats getStats() {
+        return stats;
+    }
+
+    private void scheduleNext() {
+        long delay = Math.max(0, nextExpectedAt - clock.getAsLong());
+        long scheduledGeneration = ++generation;
+        pending = executor.schedule(() -> onTick(scheduledGeneration), delay, TimeUnit.MILLISECONDS);
+        if (wakeupListener != null) {
+            wakeupListener.accept(nextExpectedAt);
+        }
+    }
+
+    private void onTick(long tickGeneration) {
+        long expectedAt;
+        synchronized (this) {
+            if (!running || tickGeneration != generation) {
+                return;
+            }
+            expectedAt = nextExpectedAt;
+        }
+
+        long now = clock.getAsLong();
+        if (busy.getAsBoolean()) {
+            stats.recordCoalesced();
+        } else {
+            stats.recordTick(now - expectedAt);
+            Metrics.TICK_LATENESS_MS.record(now - expectedAt);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                stats.recordFailure();
+            }
+        }
+
+        synchronized (this) {
+            if (!running || tickGeneration != generation) {
+                return;
+            }
+            // Créneaux manqués (veille, tâche lente) : on saute à la prochaine échéance future
+            long next = expectedAt + intervalMs;
+            long after = clock.getAsLong();
+            if (next <= after) {
+                long missed = (after - next) / intervalMs + 1;
+                stats.recordSkipped(missed);
+                next += missed * intervalMs;
+            }
+            nextExpectedAt = next;
+            scheduleNext();
+        }
+    }
+
+    private static void checkInterval(long intervalMs) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("Intervalle invalide: " + intervalMs);
+        }
+    }
+}
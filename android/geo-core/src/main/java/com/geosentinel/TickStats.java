@@ -0,0 +1,76 @@
+package com.geosentinel;
+
+/**
+ * Statistiques de retard des ticks de TickScheduler (Java pur, thread-safe).
+ *
+ * Remplace l'heuristique checkTaskSlowdown du Headless JS (écart entre deux
+ * exécutions lu dans AsyncStorage) par une mesure directe : retard de chaque
+ * tick par rapport à son échéance théorique.
+ */
+public final class TickStats {
+    private long ticks;
+    private long coalesced;
+    private long skipped;
+    private long failures;
+    private long lastLatenessMs;
+    private long maxLatenessMs;
+    private long totalLatenessMs;
+
+    synchronized void recordTick(long latenessMs) {
+        long lateness = Math.max(0, latenessMs);
+        ticks++;
+        lastLatenessMs = lateness;
+        totalLatenessMs += lateness;
+        if (lateness > maxLatenessMs) {
+            maxLatenessMs = lateness;
+        }
+    }
+
+    synchronized void recordCoalesced() {
+        coalesced++;
+    }
+
+    synchronized void recordSkipped(long count) {
+        skipped += count;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(ticks, coalesced, skipped, failures, lastLatenessMs, maxLatenessMs,
+            ticks > 0 ? totalLatenessMs / ticks : 0);
+    }
+
+    public synchronized void reset() {
+        ticks = 0;
+        coalesced = 0;
+        skipped = 0;
+        failures = 0;
+        lastLatenessMs = 0;
+        maxLatenessMs = 0;
+        totalLatenessMs = 0;
+    }
+
+    public static final class Snapshot {
+        public final long ticks;
+        public final long coalesced;       // ticks sautés car la tâche précédente tournait encore
+        public final long skipped;         // créneaux manqués (veille, retard > intervalle)
+        public final long failures;
+        public final long lastLatenessMs;
+        public final long maxLatenessMs;
+        public final long meanLatenessMs;
+
+        Snapshot(long ticks, long coalesced, long skipped, long failures,
+                 long lastLatenessMs, long maxLatenessMs, long meanLatenessMs) {
+            this.ticks = ticks;
+            this.coalesced = coalesced;
+            this.skipped = skipped;
+            this.failures = failures;
+            this.lastLatenessMs = lastLatenessMs;
+            this.maxLatenessMs = maxLatenessMs;
+            this.meanLatenessMs = meanLatenessMs;
+        }
+    }
+}
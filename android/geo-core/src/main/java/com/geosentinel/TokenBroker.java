@@ -0,0 +1,263 @@
+package com.geosentinel;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Courtier unique des tokens JWT, partagé par l'UI, le Headless JS et les services (Java pur).
+ *
+ * - Cache mémoire du token d'accès avec son expiration (claim exp), sans relire
+ *   ni décoder le JWT à chaque requête.
+ * - Refresh proactif : un token qui expire dans moins de refreshMarginMs est
+ *   renouvelé avant d'être servi.
+ * - Single-flight : les appelants concurrents attendent le refresh en cours au
+ *   lieu d'en lancer un second ; après un 401, on ne rafraîchit que si personne
+ *   ne l'a fait depuis l'émission du token refusé.
+ *
+ * Le stockage (SharedPreferences KEY_ACCESS_TOKEN / KEY_REFRESH_TOKEN) et l'appel
+ * /auth/refresh sont injectés.
+ */
+public final class TokenBroker {
+    public static final long DEFAULT_REFRESH_MARGIN_MS = 60000;
+
+    private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+
+    public interface Store {
+        String getAccessToken();
+
+        String getRefreshToken();
+
+        void saveTokens(String accessToken, String refreshToken);
+    }
+
+    public interface Refresher {
+        /**
+         * Échange le refresh token contre une nouvelle paire.
+         *
+         * @throws SessionExpiredException si le serveur refuse le refresh token
+         * @throws IOException             si le serveur est injoignable (à réessayer)
+         */
+        Tokens refresh(String refreshToken) throws IOException;
+    }
+
+    public static final class Tokens {
+        public final String accessToken;
+        public final String refreshToken;   // null si le serveur ne fait pas de rotation
+
+        public Tokens(String accessToken, String refreshToken) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+        }
+    }
+
+    /** Le refresh token est invalide ou absent : reconnexion nécessaire. */
+    public static final class SessionExpiredException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public SessionExpiredException(String message) {
+            super(message);
+        }
+    }
+
+    private final Store store;
+    private final Refresher refresher;
+    private final LongSupplier clock;
+    private final long refreshMarginMs;
+    private final Object refreshLock = new Object();
+
+    // Dernier token vu et son expiration décodée, remplacés ensemble
+    private volatile CachedToken cached;
+    private long refreshCount;
+
+    public TokenBroker(Store store, Refresher refresher, LongSupplier clock, long refreshMarginMs) {
+        this.store = store;
+        this.refresher = refresher;
+        this.clock = clock;
+        this.refreshMarginMs = refreshMarginMs;
+    }
+
+    /**
+     * Token d'accès valide pour au moins refreshMarginMs, rafraîchi si nécessaire.
+     *
+     * @throws SessionExpiredException si aucun refresh n'est possible
+     */
+    public String getAccessToken() throws IOException {
+        String valid = peekValidToken();
+        if (valid != null) {
+            return valid;
+        }
+        synchronized (refreshLock) {
+            // Un autre appelant a peut-être rafraîchi pendant qu'on attendait le verrou
+            CachedToken current = currentToken();
+            if (current != null && !expiresWithin(current, refreshMarginMs)) {
+                return current.token;
+            }
+            return refreshLocked();
+        }
+    }
+
+    /**
+     * Token en cache s'il est valide pour au moins refreshMarginMs, null sinon.
+     * Ne prend pas le verrou de refresh et ne fait aucun appel réseau : ne
+     * bloque jamais derrière un refresh en cours.
+     */
+    public String peekValidToken() {
+        CachedToken current = currentToken();
+        return current != null && !expiresWithin(current, refreshMarginMs) ? current.token : null;
+    }
+
+    /**
+     * Le serveur a refusé staleToken (401) : rafraîchit, sauf si le token a déjà
+     * changé entre-temps, auquel cas le nouveau token est retourné tel quel.
+     */
+    public String refreshAfterUnauthorized(String staleToken) throws IOException {
+        synchronized (refreshLock) {
+            CachedToken current = currentToken();
+            if (current != null && !current.token.equals(staleToken)
+                    && !expiresWithin(current, refreshMarginMs)) {
+                return current.token;
+            }
+            return refreshLocked();
+        }
+    }
+
+    /**
+     * Refresh anticipé depuis un service : renouvelle le token s'il expire dans
+     * moins de horizonMs (typiquement l'intervalle jusqu'au prochain tick).
+     *
+     * @return true si un refresh a eu lieu
+     */
+    public boolean refreshIfExpiringWithin(long horizonMs) throws IOException {
+        CachedToken current = currentToken();
+        if (current == null || !expiresWithin(current, horizonMs)) {
+            return false;
+        }
+        synchronized (refreshLock) {
+            current = currentToken();
+            if (current == null || !expiresWithin(current, horizonMs)) {
+                return false;
+            }
+            refreshLocked();
+            return true;
+        }
+    }
+
+    /** Millisecondes avant expiration du token courant (négatif si expiré, MAX_VALUE si inconnu). */
+    public long millisUntilExpiry() {
+        CachedToken current = currentToken();
+        if (current == null) {
+            return -1;
+        }
+        return current.expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : current.expiresAt - clock.getAsLong();
+    }
+
+    public long getRefreshCount() {
+        synchronized (refreshLock) {
+            return refreshCount;
+        }
+    }
+
+    private String refreshLocked() throws IOException {
+        String refreshToken = store.getRefreshToken();
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            throw new SessionExpiredException("Pas de refresh token");
+        }
+        Tokens tokens = refresher.refresh(refreshToken);
+        if (tokens == null || tokens.accessToken == null || tokens.accessToken.isEmpty()) {
+            throw new IOException("Réponse de refresh sans accessToken");
+        }
+        store.saveTokens(tokens.accessToken, tokens.refreshToken != null ? tokens.refreshToken : refreshToken);
+        cached = new CachedToken(tokens.accessToken);
+        refreshCount++;
+        return tokens.accessToken;
+    }
+
+    // Le stockage fait foi : un login ou un setTokens depuis JS remplace le token en cache
+    private CachedToken currentToken() {
+        String token = store.getAccessToken();
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        CachedToken current = cached;
+        if (current == null || !token.equals(current.token)) {
+            current = new CachedToken(token);
+            cached = current;
+        }
+        return current;
+    }
+
+    private boolean expiresWithin(CachedToken current, long marginMs) {
+        return current.expiresAt != Long.MAX_VALUE && current.expiresAt - clock.getAsLong() <= marginMs;
+    }
+
+    private static final class CachedToken {
+        final String token;
+        final long expiresAt;   // Long.MAX_VALUE si pas de claim exp
+
+        CachedToken(String token) {
+            this.token = token;
+            this.expiresAt = expiryMillis(token);
+        }
+    }
+
+    /** Claim exp du JWT en ms epoch, Long.MAX_VALUE si absent ou illisible. */
+    static long expiryMillis(String jwt) {
+        int first = jwt.indexOf('.');
+        int second = first >= 0 ? jwt.indexOf('.', first + 1) : -1;
+        if (second < 0) {
+            return Long.MAX_VALUE;
+        }
+        byte[] payload = decodeBase64Url(jwt.substring(first + 1, second));
+        if (payload == null) {
+            return Long.MAX_VALUE;
+        }
+        Matcher matcher = EXP_CLAIM.matcher(new String(payload, StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(matcher.group(1)) * 1000;
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // java.util.Base64 n'existe qu'à partir de l'API 26 (minSdk 24)
+    private static byte[] decodeBase64Url(String text) {
+        int length = text.length();
+        while (length > 0 && text.charAt(length - 1) == '=') {
+            length--;
+        }
+        byte[] out = new byte[length * 3 / 4];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            int value = base64Value(text.charAt(i));
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                if (index < out.length) {
+                    out[index++] = (byte) (buffer >> bits);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static int base64Value(char c) {
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        if (c >= 'a' && c <= 'z') return c - 'a' + 26;
+        if (c >= '0' && c <= '9') return c - '0' + 52;
+        if (c == '-' || c == '+') return 62;
+        if (c == '_' || c == '/') return 63;
+        return -1;
+    }
+}
@@ -0,0 +1,73 @@
+package com.geosentinel;
+
+/**
+ * Seau à jetons (Java pur) : au plus capacity actions d'affilée, puis une
+ * action par refillIntervalMs. Utilisé par RiskAlertDispatcher pour limiter
+ * le nombre de notifications par canal.
+ *
+ * L'horloge est passée en paramètre ; un retour en arrière de l'horloge
+ * (changement d'heure manuel) ne crédite aucun jeton.
+ */
+public final class TokenBucket {
+    private final int capacity;
+    private final long refillIntervalMs;
+    private double tokens;
+    private long updatedAt;
+
+    public TokenBucket(int capacity, long refillIntervalMs, long now) {
+        if (capacity < 1 || refillIntervalMs <= 0) {
+            throw new IllegalArgumentException("Seau invalide: " + capacity + " jetons / " + refillIntervalMs + " ms");
+        }
+        this.capacity = capacity;
+        this.refillIntervalMs = refillIntervalMs;
+        this.tokens = capacity;
+        this.updatedAt = now;
+    }
+
+    /** Consomme un jeton s'il y en a un ; false si l'action doit attendre. */
+    public synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public synchronized double available(long now) {
+        refill(now);
+        return tokens;
+    }
+
+    /** Délai avant le prochain jeton, 0 s'il y en a déjà un. */
+    public synchronized long millisUntilAvailable(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * refillIntervalMs);
+    }
+
+    /** Recharge un état persisté (RiskAlertStateFile). */
+    public synchronized void restore(double tokens, long updatedAt) {
+        this.tokens = Math.max(0, Math.min(capacity, tokens));
+        this.updatedAt = updatedAt;
+    }
+
+    public synchronized long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getRefillIntervalMs() {
+        return refillIntervalMs;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - updatedAt;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + (double) elapsed / refillIntervalMs);
+        }
+        updatedAt = now;
+    }
+}
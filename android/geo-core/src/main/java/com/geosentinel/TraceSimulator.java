@@ -0,0 +1,465 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Simulateur de tournée hors appareil (Java pur) : rejoue une trace GPS et un jeu
+ * de risques à travers la logique de décision de l'application.
+ *
+ * Deux horloges virtuelles, comme sur le téléphone :
+ * - les fixes GPS, espacés selon la SamplingPolicy (fixe ou adaptative) ;
+ * - les ticks du pipeline (PipelineSync) toutes les positionTestDelaySeconds,
+ *   le premier immédiat : rechargement du cache (RiskCacheRefresh, un appel API
+ *   /risks/nearby autour de la dernière position) puis, hors alertes natives,
+ *   contrôle des risques en cache à la dernière position.
+ * En mode alertes natives, le contrôle a lieu à chaque fix. Le cooldown par
+ * risque est celui de RiskAlertCooldown.
+ *
+ * Avec le préchargement (PrefetchCorridor), la zone chargée est un couloir
+ * orienté selon le cap du dernier fix, rechargé en fin de tick dès que la
+ * position prévue en sort ; le rapport distingue ces appels des rechargements
+ * bloquants et compte les risques téléchargés.
+ *
+ * Les fixes passent par le FixFilter du pipeline. En précision équilibrée, ils
+ * annoncent balancedAccuracyMeters : au-delà du seuil du filtre, ils ne servent
+ * plus aux alertes mais règlent encore l'échantillonnage, comme dans
+ * LocationTrackingService.
+ *
+ * Avec un horizon d'ETA (HazardEta), un risque est signalé dès que la trajectoire
+ * prolongée y entre dans l'horizon ; le rapport mesure l'avance prise sur l'entrée
+ * réelle et les alertes pour des risques que la trace n'atteint jamais.
+ *
+ * La vérité terrain est la trace dense : un risque est attendu si un point de la
+ * trace passe dans son rayon d'alerte ; le délai d'alerte se mesure depuis ce
+ * premier passage. Une configuration ne partage aucun état mutable avec une
+ * autre : sweep les répartit sur tous les cœurs.
+ */
+public final class TraceSimulator {
+
+    /** Une configuration à évaluer : paramètres tenant, politique GPS et cooldown. */
+    public static final class Config {
+        public final String label;
+        public final LocationSettings settings;
+        public final SamplingPolicy policy;
+        public final long cooldownMs;
+        public final boolean prefetch;
+        // 0 = alerte à la distance seule
+        public final long etaHorizonMs;
+        public final boolean interpolate;
+        // Précision annoncée des fixes en précision équilibrée, 0 = exacte (haute précision : toujours exacte)
+        public final double balancedAccuracyMeters;
+
+        public Config(String label, LocationSettings settings, SamplingPolicy policy, long cooldownMs) {
+            this(label, settings, policy, cooldownMs, false);
+        }
+
+        public Config(String label, LocationSettings settings, SamplingPolicy policy, long cooldownMs,
+                      boolean prefetch) {
+            this(label, settings, policy, cooldownMs, prefetch, 0, false);
+        }
+
+        public Config(String label, LocationSettings settings, SamplingPolicy policy, long cooldownMs,
+                      boolean prefetch, long etaHorizonMs, boolean interpolate) {
+            this(label, settings, policy, cooldownMs, prefetch, etaHorizonMs, interpolate, 0);
+        }
+
+        public Config(String label, LocationSettings settings, SamplingPolicy policy, long cooldownMs,
+                      boolean prefetch, long etaHorizonMs, boolean interpolate, double balancedAccuracyMeters) {
+            this.label = label;
+            this.settings = settings;
+            this.policy = policy;
+            this.cooldownMs = cooldownMs;
+            this.prefetch = prefetch;
+            this.etaHorizonMs = etaHorizonMs;
+            this.interpolate = interpolate;
+            this.balancedAccuracyMeters = balancedAccuracyMeters;
+        }
+
+        boolean usesEta() {
+            return etaHorizonMs > 0 || interpolate;
+        }
+
+        /** Politique de l'application pour ces paramètres (Fixed ou Adaptive selon le type de tournée). */
+        public static Config forSettings(LocationSettings settings, boolean adaptiveSampling) {
+            SamplingPolicy policy = adaptiveSampling
+                ? AdaptiveSamplingPolicy.forTourneeType(settings.tourneeType)
+                : SamplingPolicy.Fixed.forTourneeType(settings.tourneeType);
+            return new Config(settings + (adaptiveSampling ? " adaptatif" : " fixe"),
+                settings, policy, RiskAlertCooldown.DEFAULT_COOLDOWN_MS);
+        }
+    }
+
+    public static final class Report {
+        public final Config config;
+        public final long durationMs;
+        public final int fixesRequested;
+        // Fixes écartés par le FixFilter (trop imprécis), donc inutilisables pour les alertes
+        public final int fixesRejected;
+        public final int ticks;
+        public final int apiCalls;
+        // Rechargements faits avant le contrôle des risques (zone quittée) / anticipés en fin de tick
+        public final int blockingRefreshes;
+        public final int prefetches;
+        // Risques renvoyés par l'API, somme sur tous les appels (proxy des octets téléchargés)
+        public final long risksDownloaded;
+        public final int alertsFired;
+        public final int alertsExpected;
+        public final int alertsMissed;
+        // Délai entre l'entrée dans le rayon d'alerte et la première alerte, risques alertés seulement
+        public final long timeToAlertMeanMs;
+        public final long timeToAlertP50Ms;
+        public final long timeToAlertP95Ms;
+        public final long timeToAlertMaxMs;
+        // Risques attendus alertés avant d'entrer dans leur rayon, et avance moyenne
+        // (entrée - première alerte, négative si l'alerte arrive en moyenne après l'entrée)
+        public final int earlyAlerts;
+        public final long meanAdvanceMs;
+        // Risques alertés que la trace n'atteint jamais (trajectoire prolongée à tort)
+        public final int unexpectedAlerts;
+
+        Report(Config config, long durationMs, int fixesRequested, int fixesRejected, int ticks,
+               int blockingRefreshes,
+               int prefetches, long risksDownloaded, int alertsFired, int alertsExpected, int alertsMissed,
+               long[] timesToAlert, int earlyAlerts, long meanAdvanceMs, int unexpectedAlerts) {
+            this.config = config;
+            this.durationMs = durationMs;
+            this.fixesRequested = fixesRequested;
+            this.fixesRejected = fixesRejected;
+            this.ticks = ticks;
+            this.apiCalls = blockingRefreshes + prefetches;
+            this.blockingRefreshes = blockingRefreshes;
+            this.prefetches = prefetches;
+            this.risksDownloaded = risksDownloaded;
+            this.alertsFired = alertsFired;
+            this.alertsExpected = alertsExpected;
+            this.alertsMissed = alertsMissed;
+            Arrays.sort(timesToAlert);
+            long sum = 0;
+            for (long t : timesToAlert) {
+                sum += t;
+            }
+            int n = timesToAlert.length;
+            this.timeToAlertMeanMs = n > 0 ? sum / n : 0;
+            this.timeToAlertP50Ms = percentile(timesToAlert, 0.50);
+            this.timeToAlertP95Ms = percentile(timesToAlert, 0.95);
+            this.timeToAlertMaxMs = n > 0 ? timesToAlert[n - 1] : 0;
+            this.earlyAlerts = earlyAlerts;
+            this.meanAdvanceMs = meanAdvanceMs;
+            this.unexpectedAlerts = unexpectedAlerts;
+        }
+
+        public static String csvHeader() {
+            return "config,duree_s,fixes,ticks,appels_api,alertes,attendues,manquees,"
+                + "delai_moyen_ms,delai_p50_ms,delai_p95_ms,delai_max_ms,"
+                + "rechargements_bloquants,prechargements,risques_telecharges,"
+                + "alertes_anticipees,avance_moyenne_ms,alertes_hors_trajet,fixes_rejetes";
+        }
+
+        public String toCsvRow() {
+            return String.format(Locale.ROOT, "\"%s\",%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d",
+                config.label.replace("\"", "'"), durationMs / 1000, fixesRequested, ticks, apiCalls,
+                alertsFired, alertsExpected, alertsMissed,
+                timeToAlertMeanMs, timeToAlertP50Ms, timeToAlertP95Ms, timeToAlertMaxMs,
+                blockingRefreshes, prefetches, risksDownloaded, earlyAlerts, meanAdvanceMs, unexpectedAlerts,
+                fixesRejected);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                "%s : fixes=%d appels API=%d (bloquants=%d) risques=%d alertes=%d attendues=%d manquées=%d "
+                    + "délai p50=%dms p95=%dms",
+                config.label, fixesRequested, apiCalls, blockingRefreshes, risksDownloaded, alertsFired,
+                alertsExpected, alertsMissed, timeToAlertP50Ms, timeToAlertP95Ms);
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+
+    private final GpsTrace trace;
+    // Jeu complet, immuable : l'"API" en extrait la zone chargée à chaque appel
+    private final RiskProximityIndex dataset;
+
+    public TraceSimulator(GpsTrace trace, RiskProximityIndex dataset) {
+        this.trace = trace;
+        this.dataset = dataset;
+    }
+
+    /** Évalue toutes les configurations sur `threads` threads ; rapports dans l'ordre des configurations. */
+    public List<Report> sweep(List<Config> configs, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Callable<Report>> runs = new ArrayList<>(configs.size());
+            for (Config config : configs) {
+                runs.add(() -> run(config));
+            }
+            List<Report> reports = new ArrayList<>(configs.size());
+            for (Future<Report> future : executor.invokeAll(runs)) {
+                try {
+                    reports.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Simulation en échec: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return reports;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public Report run(Config config) {
+        LocationSettings settings = config.settings;
+        double alertRadius = settings.alertRadiusMeters;
+        long start = trace.getStartMs();
+        long end = trace.getEndMs();
+
+        long[] entryTimes = groundTruth(alertRadius);
+        int expected = 0;
+        for (long entry : entryTimes) {
+            if (entry >= 0) {
+                expected++;
+            }
+        }
+
+        long[] firstAlerts = new long[dataset.size()];
+        Arrays.fill(firstAlerts, -1);
+        RiskAlertCooldown cooldown = new RiskAlertCooldown(config.cooldownMs);
+        HazardEta eta = config.usesEta()
+            ? new HazardEta(alertRadius, config.etaHorizonMs, config.interpolate)
+            : null;
+        FixFilter filter = FixFilter.forAlertRadius(alertRadius);
+        int[] hits = new int[Math.max(1, dataset.size())];
+        long[] etas = new long[hits.length];
+        GpsTrace.Position position = new GpsTrace.Position();
+        int segment = 0;
+
+        // Cache chargé au dernier appel API : index de la zone et correspondance vers le jeu complet
+        RiskProximityIndex cache = null;
+        int[] cacheToDataset = new int[0];
+        long cacheUpdatedAt = 0;
+        PrefetchCorridor zone = null;
+        long leadMs = PrefetchCorridor.leadMs(settings.taskIntervalMs());
+
+        boolean hasFix = false;
+        double fixLat = 0;
+        double fixLon = 0;
+        double fixSpeed = 0;
+        double fixBearing = Double.NaN;
+        long fixTime = start;
+        // Premier fix : réglages "proche d'un risque", comme startLocationUpdates
+        SamplingPolicy.Decision sampling = config.policy.decide(0, 0, alertRadius);
+        long nextFix = start;
+        long nextTick = start;
+        int fixes = 0;
+        int fixesRejected = 0;
+        int ticks = 0;
+        int blockingRefreshes = 0;
+        int prefetches = 0;
+        long risksDownloaded = 0;
+        int alerts = 0;
+
+        while (Math.min(nextFix, nextTick) <= end) {
+            if (nextFix <= nextTick) {
+                long t = nextFix;
+                segment = trace.positionAt(t, segment, position);
+                fixes++;
+                double accuracy = sampling.highAccuracy ? 0 : config.balancedAccuracyMeters;
+                boolean accepted = filter.accept(position.latitude, position.longitude, accuracy, t);
+                if (accepted) {
+                    hasFix = true;
+                    fixLat = position.latitude;
+                    fixLon = position.longitude;
+                    fixSpeed = position.speedMps;
+                    fixBearing = position.bearingDegrees;
+                    fixTime = t;
+                    if (settings.nativeAlerts && cache != null) {
+                        int found = nearby(cache, eta, fixLat, fixLon, fixSpeed, fixBearing, alertRadius, t,
+                            hits, etas);
+                        alerts += notify(cache, cacheToDataset, found, t, cooldown, hits, firstAlerts);
+                    }
+                } else {
+                    fixesRejected++;
+                }
+
+                // Même réglage que updateSampling, fix imprécis compris : le risque peut être jusqu'à
+                // la précision du fix plus près ; sans cache, distance inconnue = proche d'un risque
+                if (accepted || filter.lastRejectedInaccurate()) {
+                    double searchRadius = config.policy.searchRadiusMeters(position.speedMps, alertRadius);
+                    double nearest;
+                    if (searchRadius <= 0) {
+                        nearest = Double.POSITIVE_INFINITY;
+                    } else if (cache == null) {
+                        nearest = 0;
+                    } else {
+                        nearest = Math.max(0, cache.nearestDistance(position.latitude, position.longitude,
+                            searchRadius + accuracy) - accuracy);
+                    }
+                    sampling = config.policy.decide(position.speedMps, nearest, alertRadius);
+                }
+                nextFix = t + Math.max(1, sampling.intervalMs);
+            } else {
+                long t = nextTick;
+                ticks++;
+                nextTick = t + settings.taskIntervalMs();
+                if (!hasFix) {
+                    continue;
+                }
+                boolean refreshed = false;
+                if (cache == null || RiskCacheRefresh.isNeeded(cache.size(), t - cacheUpdatedAt,
+                        settings.cacheMaxAgeMs(), zone, fixLat, fixLon)) {
+                    blockingRefreshes++;
+                    refreshed = true;
+                    zone = planZone(config, fixLat, fixLon, fixSpeed, fixBearing);
+                    cacheToDataset = load(zone, hits);
+                    risksDownloaded += cacheToDataset.length;
+                    cache = subset(cacheToDataset);
+                    cacheUpdatedAt = t;
+                }
+                if (!settings.nativeAlerts) {
+                    // La tâche JS n'a que le dernier fix : l'ETA se calcule à son instant
+                    int found = nearby(cache, eta, fixLat, fixLon, fixSpeed, fixBearing, alertRadius, fixTime,
+                        hits, etas);
+                    alerts += notify(cache, cacheToDataset, found, t, cooldown, hits, firstAlerts);
+                }
+                // Préchargement après le contrôle : hors du chemin critique de l'alerte
+                if (config.prefetch && !refreshed
+                        && zone.prefetchDue(fixLat, fixLon, fixSpeed, fixBearing, leadMs)) {
+                    prefetches++;
+                    zone = planZone(config, fixLat, fixLon, fixSpeed, fixBearing);
+                    cacheToDataset = load(zone, hits);
+                    risksDownloaded += cacheToDataset.length;
+                    cache = subset(cacheToDataset);
+                    cacheUpdatedAt = t;
+                }
+            }
+        }
+
+        int missed = 0;
+        long[] timesToAlert = new long[expected];
+        int alerted = 0;
+        int early = 0;
+        long advanceSum = 0;
+        int unexpected = 0;
+        for (int i = 0; i < entryTimes.length; i++) {
+            if (entryTimes[i] < 0) {
+                if (firstAlerts[i] >= 0) {
+                    unexpected++;
+                }
+                continue;
+            }
+            if (firstAlerts[i] < 0) {
+                missed++;
+            } else {
+                // Un fix interpolé peut entrer dans le rayon entre deux points de la trace dense
+                timesToAlert[alerted++] = Math.max(0, firstAlerts[i] - entryTimes[i]);
+                advanceSum += entryTimes[i] - firstAlerts[i];
+                if (firstAlerts[i] < entryTimes[i]) {
+                    early++;
+                }
+            }
+        }
+        return new Report(config, end - start, fixes, fixesRejected, ticks, blockingRefreshes, prefetches,
+            risksDownloaded, alerts, expected, missed, Arrays.copyOf(timesToAlert, alerted),
+            early, alerted > 0 ? advanceSum / alerted : 0, unexpected);
+    }
+
+    // Cercle historique, ou couloir orienté si le préchargement est actif
+    private static PrefetchCorridor planZone(Config config, double lat, double lon, double speedMps,
+                                             double bearingDegrees) {
+        LocationSettings settings = config.settings;
+        return config.prefetch
+            ? PrefetchCorridor.plan(lat, lon, speedMps, bearingDegrees, settings.riskLoadZoneKm,
+                settings.cacheMaxAgeMs())
+            : PrefetchCorridor.circle(lat, lon, settings.riskLoadZoneKm * 1000);
+    }
+
+    // Appel API simulé : cercle englobant la zone, filtré sur le couloir
+    private int[] load(PrefetchCorridor zone, int[] hits) {
+        int found = dataset.queryWithin(zone.centerLat(), zone.centerLon(), zone.boundingRadiusMeters(), hits, null);
+        if (zone.isCircle()) {
+            return Arrays.copyOf(hits, found);
+        }
+        int kept = 0;
+        for (int i = 0; i < found; i++) {
+            if (zone.contains(dataset.getLatitude(hits[i]), dataset.getLongitude(hits[i]))) {
+                hits[kept++] = hits[i];
+            }
+        }
+        return Arrays.copyOf(hits, kept);
+    }
+
+    // Premier instant où la trace dense passe dans le rayon de chaque risque, -1 si jamais
+    private long[] groundTruth(double alertRadius) {
+        long[] entryTimes = new long[dataset.size()];
+        Arrays.fill(entryTimes, -1);
+        int[] hits = new int[Math.max(1, dataset.size())];
+        for (GpsTrace.TracePoint point : trace.getPoints()) {
+            int found = dataset.queryWithin(point.latitude, point.longitude, alertRadius, hits, null);
+            for (int i = 0; i < found; i++) {
+                if (entryTimes[hits[i]] < 0) {
+                    entryTimes[hits[i]] = point.timeMs;
+                }
+            }
+        }
+        return entryTimes;
+    }
+
+    // Même enchaînement que findNearbyRisks dans LocationTrackingService : distance seule ou ETA
+    private static int nearby(RiskProximityIndex cache, HazardEta eta, double lat, double lon, double speedMps,
+                              double bearingDegrees, double alertRadius, long fixTime, int[] hits, long[] etas) {
+        if (eta == null) {
+            return cache.queryWithin(lat, lon, alertRadius, hits, null);
+        }
+        return eta.update(cache, lat, lon, fixTime, speedMps, bearingDegrees, hits, etas, null);
+    }
+
+    // Même enchaînement que notifyNearbyRisks dans LocationTrackingService
+    private int notify(RiskProximityIndex cache, int[] cacheToDataset, int found, long now,
+                       RiskAlertCooldown cooldown, int[] hits, long[] firstAlerts) {
+        List<String> nearbyIds = new ArrayList<>(found);
+        Map<String, Integer> datasetIndices = new HashMap<>();
+        for (int i = 0; i < found; i++) {
+            String id = cache.getId(hits[i]);
+            nearbyIds.add(id);
+            datasetIndices.put(id, cacheToDataset[hits[i]]);
+        }
+        List<String> toNotify = cooldown.evaluate(nearbyIds, now);
+        for (String id : toNotify) {
+            int riskIndex = datasetIndices.get(id);
+            if (firstAlerts[riskIndex] < 0) {
+                firstAlerts[riskIndex] = now;
+            }
+        }
+        return toNotify.size();
+    }
+
+    private RiskProximityIndex subset(int[] datasetIndices) {
+        int count = datasetIndices.length;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            int index = datasetIndices[i];
+            ids[i] = dataset.getId(index);
+            latitudes[i] = dataset.getLatitude(index);
+            longitudes[i] = dataset.getLongitude(index);
+        }
+        return new RiskProximityIndex(ids, latitudes, longitudes);
+    }
+}
@@ -0,0 +1,198 @@
+package com.geosentinel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Partage d'un unique wake lock entre les travaux courts du pipeline (Java pur).
+ *
+ * Chaque travail (tick, tâche Headless, évaluation d'alertes, appel API) prend
+ * une Hold bornée dans le temps et la referme dès qu'il a fini. Le verrou
+ * plateforme est tenu tant qu'au moins une Hold est active, avec pour timeout
+ * l'échéance la plus lointaine : une Hold oubliée ne garde pas le CPU éveillé
+ * au-delà de son timeout. Entre deux travaux, le CPU peut dormir ; ce sont les
+ * alarmes et les fixes du fournisseur de position qui le réveillent.
+ *
+ * Le temps de maintien est compté par session de suivi (union des Holds) et
+ * par motif (somme des durées, chevauchements compris).
+ */
+public final class WakeLockCoordinator {
+
+    /** Verrou de la plateforme, non compté (PowerManager.WakeLock en production). */
+    public interface PlatformLock {
+        /** Prend ou réarme le verrou ; un nouvel appel remplace le timeout précédent. */
+        void acquire(long timeoutMs);
+
+        void release();
+    }
+
+    public static final class Stats {
+        public final long heldMs;
+        public final int holds;
+        public final int timeouts;
+        public final Map<String, Long> heldMsByReason;
+
+        Stats(long heldMs, int holds, int timeouts, Map<String, Long> heldMsByReason) {
+            this.heldMs = heldMs;
+            this.holds = holds;
+            this.timeouts = timeouts;
+            this.heldMsByReason = heldMsByReason;
+        }
+
+        @Override
+        public String toString() {
+            return "maintien=" + heldMs + "ms holds=" + holds + " timeouts=" + timeouts + " " + heldMsByReason;
+        }
+    }
+
+    /** Maintien pour un travail ; close() est idempotent et ne lève pas d'exception. */
+    public final class Hold implements AutoCloseable {
+        final String reason;
+        final long startedAt;
+        final long deadline;
+        boolean done;
+
+        Hold(String reason, long startedAt, long deadline) {
+            this.reason = reason;
+            this.startedAt = startedAt;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    private final PlatformLock lock;
+    private final LongSupplier clock;
+    private final List<Hold> active = new ArrayList<>();
+    // Début du maintien en cours et échéance armée sur le verrou plateforme (-1 si libre)
+    private long heldSince = -1;
+    private long lockDeadline;
+
+    private long sessionHeldMs;
+    private int sessionHolds;
+    private int sessionTimeouts;
+    private final Map<String, Long> sessionByReason = new LinkedHashMap<>();
+
+    /**
+     * @param clock horloge en ms, doit avancer pendant la veille (elapsedRealtime)
+     */
+    public WakeLockCoordinator(PlatformLock lock, LongSupplier clock) {
+        this.lock = lock;
+        this.clock = clock;
+    }
+
+    public synchronized Hold acquire(String reason, long timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("Timeout invalide: " + timeoutMs);
+        }
+        long now = clock.getAsLong();
+        expire(now);
+        Hold hold = new Hold(reason, now, now + timeoutMs);
+        active.add(hold);
+        sessionHolds++;
+        if (heldSince < 0) {
+            heldSince = now;
+        }
+        rearm(now);
+        return hold;
+    }
+
+    public synchronized boolean isHeld() {
+        expire(clock.getAsLong());
+        return heldSince >= 0;
+    }
+
+    public synchronized int activeCount() {
+        expire(clock.getAsLong());
+        return active.size();
+    }
+
+    /** Statistiques de la session en cours, maintien actuel compris. */
+    public synchronized Stats getStats() {
+        long now = clock.getAsLong();
+        expire(now);
+        long held = sessionHeldMs + (heldSince >= 0 ? now - heldSince : 0);
+        return new Stats(held, sessionHolds, sessionTimeouts,
+            Collections.unmodifiableMap(new LinkedHashMap<>(sessionByReason)));
+    }
+
+    /**
+     * Clôt la session : renvoie ses statistiques et remet les compteurs à zéro.
+     * Les Holds encore actives restent valides et comptent pour la session suivante.
+     */
+    public synchronized Stats endSession() {
+        long now = clock.getAsLong();
+        Stats stats = getStats();
+        sessionHeldMs = 0;
+        sessionHolds = 0;
+        sessionTimeouts = 0;
+        sessionByReason.clear();
+        if (heldSince >= 0) {
+            heldSince = now;
+        }
+        return stats;
+    }
+
+    private synchronized void release(Hold hold) {
+        if (hold.done) {
+            return;
+        }
+        long now = clock.getAsLong();
+        expire(now);
+        if (hold.done) {
+            return;
+        }
+        finish(hold, now);
+        active.remove(hold);
+        if (active.isEmpty()) {
+            sessionHeldMs += now - heldSince;
+            heldSince = -1;
+            lock.release();
+        } else {
+            rearm(now);
+        }
+    }
+
+    // Holds dont le timeout est passé : le verrou plateforme s'est libéré seul à lockDeadline
+    private void expire(long now) {
+        boolean expired = false;
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Hold hold = active.get(i);
+            if (hold.deadline <= now) {
+                finish(hold, hold.deadline);
+                sessionTimeouts++;
+                active.remove(i);
+                expired = true;
+            }
+        }
+        if (expired && active.isEmpty() && heldSince >= 0) {
+            sessionHeldMs += Math.max(0, lockDeadline - heldSince);
+            heldSince = -1;
+        }
+    }
+
+    // Timeout du verrou plateforme = échéance la plus lointaine des Holds actives
+    private void rearm(long now) {
+        long deadline = 0;
+        for (Hold hold : active) {
+            deadline = Math.max(deadline, hold.deadline);
+        }
+        if (deadline != lockDeadline || active.size() == 1) {
+            lock.acquire(deadline - now);
+            lockDeadline = deadline;
+        }
+    }
+
+    private void finish(Hold hold, long at) {
+        hold.done = true;
+        Long previous = sessionByReason.get(hold.reason);
+        sessionByReason.put(hold.reason, (previous != null ? previous : 0) + (at - hold.startedAt));
+    }
+}
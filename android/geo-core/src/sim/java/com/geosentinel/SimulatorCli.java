@@ -0,0 +1,194 @@
+package com.geosentinel;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Balayage de configurations en ligne de commande (./gradlew :geo-core:simulate).
+ *
+ * <pre>
+ *   --trace tournee.gpx|tournee.csv   trace GPS (CSV : timeMs,latitude,longitude[,speedMps])
+ *   --risks risques.csv|cache.bin     jeu de risques (CSV : id,latitude,longitude ; ou fichier RiskCacheFile)
+ *   --tournee pieds,velo,voiture      types de tournée (intervalles GPS historiques)
+ *   --interval 10,15,30               intervalle GPS de base en s (défaut : celui du type de tournée)
+ *   --test-delay 10,20,30             positionTestDelaySeconds
+ *   --api-delay 3                     apiCallDelayMinutes
+ *   --zone 3                          riskLoadZoneKm
+ *   --radius 100                      alertRadiusMeters
+ *   --sampling fixe,adaptatif
+ *   --alerts js,natif
+ *   --cooldown 300                    cooldown par risque en s
+ *   --prefetch non,oui                couloir de préchargement orienté (PrefetchCorridor)
+ *   --eta 0,20                        horizon d'alerte au temps d'arrivée en s (HazardEta), 0 = distance seule
+ *   --interpolate non,oui             rayons traversés entre deux fixes (HazardEta)
+ *   --balanced-accuracy 0,300         précision annoncée des fixes en précision équilibrée en m, 0 = exacte
+ *   --threads 8                       défaut : nombre de cœurs
+ * </pre>
+ * Chaque option accepte une liste : toutes les combinaisons sont simulées, une
+ * ligne CSV par configuration sur la sortie standard.
+ */
+public final class SimulatorCli {
+
+    private SimulatorCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        if (!options.containsKey("trace") || !options.containsKey("risks")) {
+            System.err.println("Usage : --trace <gpx|csv> --risks <csv|bin> [options], voir SimulatorCli");
+            System.exit(2);
+        }
+
+        GpsTrace trace = readTrace(new File(options.get("trace")));
+        RiskProximityIndex risks = readRisks(new File(options.get("risks")));
+        List<TraceSimulator.Config> configs = configs(options);
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        System.err.printf(Locale.ROOT, "Trace : %d points, %d s, %d risques, %d configurations sur %d threads%n",
+            trace.getPoints().size(), (trace.getEndMs() - trace.getStartMs()) / 1000, risks.size(),
+            configs.size(), threads);
+
+        long startedAt = System.nanoTime();
+        List<TraceSimulator.Report> reports = new TraceSimulator(trace, risks).sweep(configs, threads);
+        System.out.println(TraceSimulator.Report.csvHeader());
+        for (TraceSimulator.Report report : reports) {
+            System.out.println(report.toCsvRow());
+        }
+        System.err.printf(Locale.ROOT, "Terminé en %d ms%n", (System.nanoTime() - startedAt) / 1000000);
+    }
+
+    static List<TraceSimulator.Config> configs(Map<String, String> options) {
+        List<TraceSimulator.Config> configs = new ArrayList<>();
+        for (String tournee : list(options, "tournee", "velo")) {
+            for (String interval : list(options, "interval", "")) {
+                for (String testDelay : list(options, "test-delay", "30")) {
+                    for (String apiDelay : list(options, "api-delay", "3")) {
+                        for (String zone : list(options, "zone", "3")) {
+                            for (String radius : list(options, "radius", "100")) {
+                                for (String sampling : list(options, "sampling", "fixe")) {
+                                    for (String alerts : list(options, "alerts", "js")) {
+                                        for (String cooldown : list(options, "cooldown", "300")) {
+                                            for (String prefetch : list(options, "prefetch", "non")) {
+                                                for (String eta : list(options, "eta", "0")) {
+                                                    for (String interpolate : list(options, "interpolate", "non")) {
+                                                        for (String accuracy : list(options, "balanced-accuracy", "0")) {
+                                                            configs.add(config(tournee, interval, testDelay, apiDelay,
+                                                                zone, radius, sampling, alerts, cooldown, prefetch,
+                                                                eta, interpolate, accuracy));
+                                                        }
+                                                    }
+                                                }
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return configs;
+    }
+
+    private static TraceSimulator.Config config(String tournee, String interval, String testDelay,
+                                                String apiDelay, String zone, String radius,
+                                                String sampling, String alerts, String cooldown,
+                                                String prefetch, String eta, String interpolate,
+                                                String balancedAccuracy) {
+        boolean nativeAlerts = "natif".equals(alerts);
+        boolean adaptive = "adaptatif".equals(sampling);
+        LocationSettings settings = new LocationSettings(tournee, Integer.parseInt(apiDelay),
+            Integer.parseInt(testDelay), Double.parseDouble(zone), Double.parseDouble(radius),
+            false, nativeAlerts);
+
+        SamplingPolicy.Decision base = SamplingPolicy.Fixed.forTourneeType(tournee).decide(0, 0, 0);
+        if (!interval.isEmpty()) {
+            base = new SamplingPolicy.Decision(Long.parseLong(interval) * 1000, base.minDistanceMeters, true);
+        }
+        SamplingPolicy policy = adaptive
+            ? AdaptiveSamplingPolicy.forTourneeType(tournee, base)
+            : new SamplingPolicy.Fixed(base.intervalMs, base.minDistanceMeters);
+
+        String label = String.format(Locale.ROOT,
+            "%s gps=%ds %s test=%ss api=%smin zone=%skm rayon=%sm alertes=%s cooldown=%ss prefetch=%s eta=%ss interp=%s"
+                + " precision=%sm",
+            tournee, base.intervalMs / 1000, sampling, testDelay, apiDelay, zone, radius, alerts, cooldown, prefetch,
+            eta, interpolate, balancedAccuracy);
+        return new TraceSimulator.Config(label, settings, policy, Long.parseLong(cooldown) * 1000,
+            "oui".equals(prefetch), Long.parseLong(eta) * 1000, "oui".equals(interpolate),
+            Double.parseDouble(balancedAccuracy));
+    }
+
+    static GpsTrace readTrace(File file) throws IOException {
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(".gpx")) {
+            try (InputStream input = new FileInputStream(file)) {
+                return GpsTrace.readGpx(input);
+            }
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return GpsTrace.readCsv(reader);
+        }
+    }
+
+    static RiskProximityIndex readRisks(File file) throws IOException {
+        if (file.getName().toLowerCase(Locale.ROOT).endsWith(".bin")) {
+            return RiskCacheFile.read(file).toIndex();
+        }
+        List<String> ids = new ArrayList<>();
+        List<double[]> coordinates = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                String[] fields = line.trim().split(",");
+                if (fields.length < 3 || line.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    double latitude = Double.parseDouble(fields[1].trim());
+                    double longitude = Double.parseDouble(fields[2].trim());
+                    ids.add(fields[0].trim());
+                    coordinates.add(new double[] { latitude, longitude });
+                } catch (NumberFormatException e) {
+                    // En-tête
+                }
+            }
+        }
+        double[] latitudes = new double[ids.size()];
+        double[] longitudes = new double[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            latitudes[i] = coordinates.get(i)[0];
+            longitudes[i] = coordinates.get(i)[1];
+        }
+        return new RiskProximityIndex(ids.toArray(new String[0]), latitudes, longitudes);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Option attendue : " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static List<String> list(Map<String, String> options, String name, String defaultValue) {
+        return Arrays.asList(options.getOrDefault(name, defaultValue).split(","));
+    }
+}
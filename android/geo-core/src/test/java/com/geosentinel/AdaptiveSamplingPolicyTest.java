@@ -0,0 +1,138 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class AdaptiveSamplingPolicyTest {
+    private static final double ALERT_RADIUS = 100;
+    private static final SamplingPolicy.Decision BASE = new SamplingPolicy.Decision(10000, 10, true);
+
+    @Test
+    public void returnsTheBaseDecisionNearARisk() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(BASE, 5.0);
+
+        assertSame(BASE, policy.decide(0, 0, ALERT_RADIUS));
+        assertSame(BASE, policy.decide(12, ALERT_RADIUS * AdaptiveSamplingPolicy.DEFAULT_NEAR_ZONE_RADII,
+            ALERT_RADIUS));
+    }
+
+    @Test
+    public void capsTheIntervalWhenNoRiskIsInRange() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(BASE, 5.0);
+
+        for (double speed : new double[] { 0, 5, 14, 40 }) {
+            SamplingPolicy.Decision decision = policy.decide(speed, Double.POSITIVE_INFINITY, ALERT_RADIUS);
+            assertEquals(AdaptiveSamplingPolicy.DEFAULT_MAX_INTERVAL_MS, decision.intervalMs);
+            assertFalse(decision.highAccuracy);
+        }
+    }
+
+    @Test
+    public void coversAtMostHalfTheGapBetweenTwoFixes() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(BASE, 5.0);
+
+        // 700 m avant la zone d'alerte à 10 m/s : 35 s
+        SamplingPolicy.Decision decision = policy.decide(10, 800, ALERT_RADIUS);
+
+        assertEquals(35000, decision.intervalMs);
+        assertFalse(decision.highAccuracy);
+        assertTrue(decision.intervalMs / 1000.0 * 10 <= 700 / 2.0);
+    }
+
+    @Test
+    public void keepsTheMinimumDistanceBelowHalfTheGap() {
+        SamplingPolicy.Decision base = new SamplingPolicy.Decision(10000, 50, true);
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(base, 120000, 5, 1.0);
+
+        // Intervalle plafonné à 120 s : 50 m x 12 = 600 m, ramenés à la moitié des 900 m restants
+        SamplingPolicy.Decision decision = policy.decide(0, 1000, ALERT_RADIUS);
+
+        assertEquals(120000, decision.intervalMs);
+        assertEquals(450, decision.minDistanceMeters, 0.001);
+        for (double nearest : new double[] { 600, 800, 1500, 5000 }) {
+            double gap = nearest - ALERT_RADIUS;
+            assertTrue(policy.decide(0, nearest, ALERT_RADIUS).minDistanceMeters <= gap / 2);
+        }
+    }
+
+    @Test
+    public void appliesTheMinimumSpeedWhenStopped() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(BASE, 5.0);
+
+        SamplingPolicy.Decision stopped = policy.decide(0, 1000, ALERT_RADIUS);
+
+        // À l'arrêt, l'utilisateur peut repartir à 5 m/s : 900 m / 5 m/s x 0,5
+        assertEquals(90000, stopped.intervalMs);
+        assertEquals(stopped.intervalMs, policy.decide(2, 1000, ALERT_RADIUS).intervalMs);
+        assertEquals(45000, policy.decide(10, 1000, ALERT_RADIUS).intervalMs);
+    }
+
+    @Test
+    public void neverGoesBelowTheBaseInterval() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy(BASE, 5.0);
+
+        // Juste hors de la zone proche, mais rapide : l'intervalle calculé serait sous la base
+        assertSame(BASE, policy.decide(40, 600, ALERT_RADIUS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMaximumBelowTheBaseInterval() {
+        new AdaptiveSamplingPolicy(BASE, 5000, 5, 5.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAMissingMinimumSpeed() {
+        new AdaptiveSamplingPolicy(BASE, 0);
+    }
+
+    @Test
+    public void requestsFewerFixesThanFixedSamplingWithoutMissingAlerts() {
+        String[] tournees = { "pieds", "velo", "voiture" };
+        double[] speeds = { 1.4, 5, 14 };
+        for (int t = 0; t < tournees.length; t++) {
+            TraceSimulator simulator = new TraceSimulator(tripWithAStop(speeds[t]), risksAlong(speeds[t] * 3300));
+            LocationSettings settings = new LocationSettings(tournees[t], 3, 10, 3, ALERT_RADIUS, false, true);
+
+            TraceSimulator.Report fixed = simulator.run(TraceSimulator.Config.forSettings(settings, false));
+            TraceSimulator.Report adaptive = simulator.run(TraceSimulator.Config.forSettings(settings, true));
+
+            assertTrue(tournees[t], fixed.alertsExpected > 0);
+            assertEquals(tournees[t], 0, fixed.alertsMissed);
+            assertEquals(tournees[t], 0, adaptive.alertsMissed);
+            assertEquals(tournees[t], fixed.alertsFired, adaptive.alertsFired);
+            assertTrue(tournees[t], adaptive.fixesRequested < fixed.fixesRequested);
+        }
+    }
+
+    // 1 h vers le nord à vitesse constante, avec un arrêt de 5 min au milieu
+    private static GpsTrace tripWithAStop(double speedMps) {
+        List<GpsTrace.TracePoint> points = new ArrayList<>();
+        double meters = 0;
+        for (int s = 0; s <= 3600; s++) {
+            double speed = s >= 1500 && s < 1800 ? 0 : speedMps;
+            points.add(new GpsTrace.TracePoint(s * 1000L, TestData.north(meters), TestData.LYON_LON, speed));
+            meters += speed;
+        }
+        return new GpsTrace(points);
+    }
+
+    // Un risque sur le trajet tous les 15 % de sa longueur, un autre à 400 m à l'écart
+    private static RiskProximityIndex risksAlong(double lengthMeters) {
+        int count = 12;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "r" + i;
+            latitudes[i] = TestData.north(lengthMeters * (0.05 + 0.15 * (i / 2)));
+            longitudes[i] = i % 2 == 0 ? TestData.LYON_LON : TestData.east(400);
+        }
+        return new RiskProximityIndex(ids, latitudes, longitudes);
+    }
+}
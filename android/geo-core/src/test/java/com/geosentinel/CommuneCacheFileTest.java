@@ -0,0 +1,51 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CommuneCacheFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsCommunes() throws IOException {
+        List<CommuneBoundary> written = Arrays.asList(TestData.communeGrid(45.7, 4.8, 3, 4, 0.01));
+        File file = new File(folder.getRoot(), "communes.bin");
+
+        CommuneCacheFile.write(file, written);
+        List<CommuneBoundary> read = CommuneCacheFile.read(file);
+
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            CommuneBoundary a = written.get(i);
+            CommuneBoundary b = read.get(i);
+            assertEquals(a.code, b.code);
+            assertEquals(a.name, b.name);
+            assertEquals(a.risksJson, b.risksJson);
+            assertEquals(a.fetchedAt, b.fetchedAt);
+            assertEquals(a.rings.length, b.rings.length);
+            for (int r = 0; r < a.rings.length; r++) {
+                assertArrayEquals(a.rings[r], b.rings[r], 0.0);
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFiles() throws IOException {
+        File file = folder.newFile("other.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        }
+
+        CommuneCacheFile.read(file);
+    }
+}
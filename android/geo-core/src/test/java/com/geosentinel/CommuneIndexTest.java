@@ -0,0 +1,76 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import org.junit.Test;
+
+public class CommuneIndexTest {
+
+    @Test
+    public void geohashMatchesReferenceValues() {
+        // Exemple de référence de geohash.org
+        assertEquals("u4pruydqqvj", CommuneIndex.geohash(57.64911, 10.40744, 11));
+        assertEquals("u05kq", CommuneIndex.geohash(TestData.LYON_LAT, TestData.LYON_LON, 5));
+    }
+
+    @Test
+    public void findsTheCommuneContainingEachPoint() {
+        // 20 x 20 communes carrées de ~1,1 km : plusieurs par cellule geohash, et inversement
+        double size = 0.01;
+        double lat0 = 45.7;
+        double lon0 = 4.8;
+        CommuneIndex index = new CommuneIndex();
+        for (CommuneBoundary commune : TestData.communeGrid(lat0, lon0, 20, 20, size)) {
+            index.put(commune);
+        }
+        Random random = new Random(3);
+
+        for (int q = 0; q < 2000; q++) {
+            int row = random.nextInt(20);
+            int col = random.nextInt(20);
+            // À l'intérieur de la case, loin des bords partagés
+            double lat = lat0 + (row + 0.05 + random.nextDouble() * 0.9) * size;
+            double lon = lon0 + (col + 0.05 + random.nextDouble() * 0.9) * size;
+            CommuneBoundary found = index.find(lat, lon);
+            assertEquals("c" + row + "_" + col, found == null ? null : found.code);
+        }
+        assertNull(index.find(lat0 - 0.5, lon0));
+    }
+
+    @Test
+    public void respectsHoles() {
+        double[] outer = TestData.square(4.80, 45.70, 0.10);
+        double[] hole = TestData.square(4.84, 45.74, 0.02);
+        CommuneBoundary commune = new CommuneBoundary("69001", "Trouée", new double[][] { outer, hole }, "[]", 0);
+        CommuneBoundary enclave = new CommuneBoundary("69002", "Enclave",
+            new double[][] { TestData.square(4.84, 45.74, 0.02) }, "[]", 0);
+        CommuneIndex index = new CommuneIndex();
+        index.put(commune);
+        index.put(enclave);
+
+        assertTrue(commune.contains(45.71, 4.81));
+        assertFalse(commune.contains(45.75, 4.85));
+        assertEquals("69002", index.find(45.75, 4.85).code);
+        assertEquals("69001", index.find(45.71, 4.81).code);
+    }
+
+    @Test
+    public void putReplacesAndRemoveForgets() {
+        CommuneIndex index = new CommuneIndex();
+        CommuneBoundary first = new CommuneBoundary("69123", "Lyon",
+            new double[][] { TestData.square(4.77, 45.70, 0.13) }, "[]", 0);
+        index.put(first);
+        index.put(first.withRisks("[{\"num_risque\":\"1\"}]", 10));
+
+        assertEquals(1, index.size());
+        assertEquals(10, index.find(TestData.LYON_LAT, TestData.LYON_LON).fetchedAt);
+
+        index.remove("69123");
+        assertNull(index.find(TestData.LYON_LAT, TestData.LYON_LON));
+        assertEquals(0, index.size());
+    }
+}
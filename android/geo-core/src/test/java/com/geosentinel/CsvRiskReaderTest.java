@@ -0,0 +1,83 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class CsvRiskReaderTest {
+
+    @Test
+    public void readsColumnsByNameInAnyOrder() throws IOException {
+        CsvRiskReader reader = new CsvRiskReader(new StringReader(
+            "lat,lng,Titre,Catégorie,Sévérité\n"
+                + "45.1,4.2,Chaussée glissante,naturel,élevé\n"));
+
+        RiskImport.Row row = reader.next();
+
+        assertEquals(2, row.position);
+        assertEquals("Chaussée glissante", row.title);
+        assertEquals("naturel", row.category);
+        assertEquals("élevé", row.severity);
+        assertEquals("45.1", row.latitude);
+        assertEquals("4.2", row.longitude);
+        assertNull(row.description);
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void detectsSemicolonsAndDecimalCommas() throws IOException {
+        CsvRiskReader reader = new CsvRiskReader(new StringReader(
+            "\uFEFFtitre;latitude;longitude\r\nTrou;45,764;4,8357\r\n"));
+
+        RiskImport.Row row = reader.next();
+
+        assertEquals("Trou", row.title);
+        assertEquals("45,764", row.latitude);
+        assertEquals("4,8357", row.longitude);
+    }
+
+    @Test
+    public void handlesQuotedFieldsAcrossLines() throws IOException {
+        CsvRiskReader reader = new CsvRiskReader(new StringReader(
+            "title,description,latitude,longitude\n"
+                + "\"Chien, méchant\",\"Dit \"\"Rex\"\"\nportail vert\",45,4\n"
+                + "\n"
+                + "Suivant,,46,5"));
+
+        RiskImport.Row first = reader.next();
+        RiskImport.Row second = reader.next();
+
+        assertEquals("Chien, méchant", first.title);
+        assertEquals("Dit \"Rex\"\nportail vert", first.description);
+        assertEquals(2, first.position);
+        assertEquals("Suivant", second.title);
+        assertEquals("", second.description);
+        assertEquals(5, second.position);
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void rejectsFilesWithoutCoordinateColumns() {
+        try {
+            new CsvRiskReader(new StringReader("title,category\nA,naturel\n"));
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // attendu
+        }
+    }
+
+    @Test
+    public void rejectsUnterminatedQuotes() throws IOException {
+        CsvRiskReader reader = new CsvRiskReader(new StringReader("title,lat,lon\n\"A,45,4\n"));
+        try {
+            reader.next();
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // attendu
+        }
+    }
+}
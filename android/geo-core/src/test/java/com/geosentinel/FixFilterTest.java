@@ -0,0 +1,74 @@
+package com.geosentinel;
+
+import static com.geosentinel.TestData.north;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FixFilterTest {
+    private static final double LAT = TestData.LYON_LAT;
+    private static final double LON = TestData.LYON_LON;
+
+    @Test
+    public void rejectsInaccurateFixes() {
+        FixFilter filter = new FixFilter(100, 70);
+
+        assertFalse(filter.accept(LAT, LON, 250, 0));
+        assertTrue(filter.accept(LAT, LON, 20, 1000));
+        // Précision inconnue : acceptée
+        assertTrue(filter.accept(north(10), LON, 0, 2000));
+        assertEquals(2, filter.getAccepted());
+        assertEquals(1, filter.getRejected());
+    }
+
+    @Test
+    public void reportsWhichRejectionsCameFromTheAccuracy() {
+        FixFilter filter = FixFilter.forAlertRadius(150);
+
+        // Seuil à deux rayons d'alerte : 300 m
+        assertTrue(filter.accept(LAT, LON, 250, 0));
+        assertFalse(filter.lastRejectedInaccurate());
+        assertFalse(filter.accept(north(10), LON, 400, 1000));
+        assertTrue(filter.lastRejectedInaccurate());
+        assertFalse(filter.accept(north(10), LON, 10, 0));
+        assertFalse(filter.lastRejectedInaccurate());
+    }
+
+    @Test
+    public void rejectsDuplicatesAndOutOfOrderFixes() {
+        FixFilter filter = new FixFilter();
+
+        assertTrue(filter.accept(LAT, LON, 10, 5000));
+        assertFalse(filter.accept(LAT, LON, 10, 5000));
+        assertFalse(filter.accept(north(5), LON, 10, 4000));
+        assertTrue(filter.accept(north(5), LON, 10, 6000));
+    }
+
+    @Test
+    public void rejectsJumpsBeyondTheAccuracy() {
+        FixFilter filter = new FixFilter(100, 70);
+
+        assertTrue(filter.accept(LAT, LON, 10, 0));
+        // 2 km en 10 s : 200 m/s
+        assertFalse(filter.accept(north(2000), LON, 10, 10000));
+        // 150 m en 1 s, mais 2 x 80 m d'imprécision : plausible
+        assertTrue(filter.accept(north(150), LON, 80, 1000));
+        // Voiture à 30 m/s
+        assertTrue(filter.accept(north(450), LON, 10, 11000));
+    }
+
+    @Test
+    public void acceptsAPersistentRelocation() {
+        FixFilter filter = new FixFilter(100, 70);
+
+        assertTrue(filter.accept(LAT, LON, 10, 0));
+        // Le premier fix était faux : les suivants concordent tous ailleurs
+        for (int i = 1; i <= FixFilter.MAX_CONSECUTIVE_JUMPS; i++) {
+            assertFalse(filter.accept(north(5000), LON, 10, i * 1000L));
+        }
+        assertTrue(filter.accept(north(5000), LON, 10, 5000));
+        assertTrue(filter.accept(north(5010), LON, 10, 6000));
+    }
+}
@@ -0,0 +1,73 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class GeoJsonRiskReaderTest {
+
+    @Test
+    public void streamsPointFeatures() throws IOException {
+        GeoJsonRiskReader reader = new GeoJsonRiskReader(new StringReader(
+            "{\"type\":\"FeatureCollection\",\"name\":\"import\",\"crs\":{\"type\":\"name\",\"properties\":"
+                + "{\"name\":\"urn:ogc:def:crs:OGC:1.3:CRS84\"}},\"features\":["
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[4.8357,45.764]},"
+                + "\"properties\":{\"title\":\"Pont \\u00e9troit\",\"category\":{\"name\":\"naturel\"},"
+                + "\"severity\":\"faible\",\"extra\":[1,2,{\"a\":null}]}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[-1.5e-1,4.5E1]},"
+                + "\"properties\":{\"nom\":\"B\",\"categorie\":\"sanitaire\",\"gravite\":\"critique\"}}"
+                + "]}"));
+
+        RiskImport.Row first = reader.next();
+        RiskImport.Row second = reader.next();
+
+        assertEquals(1, first.position);
+        assertEquals("Pont étroit", first.title);
+        assertEquals("naturel", first.category);
+        assertEquals("45.764", first.latitude);
+        assertEquals("4.8357", first.longitude);
+        assertEquals("B", second.title);
+        assertEquals("sanitaire", second.category);
+        assertEquals("critique", second.severity);
+        assertEquals("4.5E1", second.latitude);
+        assertEquals("-1.5e-1", second.longitude);
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void reportsNonPointGeometriesAsRowErrors() throws IOException {
+        GeoJsonRiskReader reader = new GeoJsonRiskReader(new StringReader(
+            "[{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]},"
+                + "\"properties\":{}},{\"type\":\"Feature\",\"geometry\":null}]"));
+
+        assertEquals("géométrie absente ou non ponctuelle", reader.next().readError);
+        RiskImport.Row second = reader.next();
+        assertEquals(2, second.position);
+        assertEquals("géométrie absente ou non ponctuelle", second.readError);
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void treatsACollectionWithoutFeaturesAsEmpty() throws IOException {
+        GeoJsonRiskReader reader = new GeoJsonRiskReader(new StringReader("{\"type\":\"FeatureCollection\"}"));
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void rejectsTruncatedDocuments() throws IOException {
+        GeoJsonRiskReader reader = new GeoJsonRiskReader(new StringReader(
+            "{\"features\":[{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[4.8"));
+        try {
+            reader.next();
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // attendu
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GeoMathTest {
+
+    @Test
+    public void haversineMatchesKnownDistances() {
+        assertEquals(0.0, GeoMath.haversineMeters(45.0, 4.0, 45.0, 4.0), 1e-9);
+        // Un degré de latitude ≈ 111,195 km sur la sphère de rayon 6371 km
+        assertEquals(111195, GeoMath.haversineMeters(45.0, 4.0, 46.0, 4.0), 1);
+        // Paris (Notre-Dame) – Lyon (Bellecour) : ~392 km
+        assertEquals(392000, GeoMath.haversineMeters(48.853, 2.3499, 45.7578, 4.832), 2000);
+    }
+
+    @Test
+    public void haversineIsSymmetric() {
+        double ab = GeoMath.haversineMeters(45.764, 4.8357, 45.78, 4.9);
+        double ba = GeoMath.haversineMeters(45.78, 4.9, 45.764, 4.8357);
+        assertEquals(ab, ba, 1e-9);
+    }
+
+    @Test
+    public void boundingBoxContainsTheCircle() {
+        double lat = 45.764;
+        double lon = 4.8357;
+        double radius = 1000;
+        double deltaLat = GeoMath.latitudeDelta(radius);
+        double deltaLon = GeoMath.longitudeDelta(lat, deltaLat);
+
+        // Les points cardinaux du cercle sont sur le bord du rectangle
+        assertEquals(radius, GeoMath.haversineMeters(lat, lon, lat + deltaLat, lon), 0.5);
+        assertTrue(GeoMath.haversineMeters(lat, lon, lat, lon + deltaLon) >= radius - 0.5);
+    }
+
+    @Test
+    public void bearingFollowsCompassConvention() {
+        assertEquals(0, GeoMath.bearingDegrees(45.0, 4.0, 46.0, 4.0), 1e-9);
+        assertEquals(180, GeoMath.bearingDegrees(46.0, 4.0, 45.0, 4.0), 1e-9);
+        assertEquals(90, GeoMath.bearingDegrees(45.0, 4.0, 45.0, 4.001), 0.01);
+        assertEquals(270, GeoMath.bearingDegrees(45.0, 4.001, 45.0, 4.0), 0.01);
+    }
+
+    @Test
+    public void longitudeDeltaCoversEverythingAtThePoles() {
+        assertEquals(180.0, GeoMath.longitudeDelta(90.0, 0.01), 0.0);
+        assertEquals(180.0, GeoMath.longitudeDelta(-90.0, 0.01), 0.0);
+    }
+}
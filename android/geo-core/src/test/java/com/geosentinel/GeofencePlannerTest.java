@@ -0,0 +1,152 @@
+package com.geosentinel;
+
+import static com.geosentinel.TestData.east;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+public class GeofencePlannerTest {
+    private static final double LAT = TestData.LYON_LAT;
+    private static final double LON = TestData.LYON_LON;
+
+    // Un risque tous les stepMeters vers l'est, dans le désordre
+    private static RiskProximityIndex line(int count, double stepMeters) {
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            int position = (i * 7) % count;
+            ids[i] = "r" + position;
+            latitudes[i] = LAT;
+            longitudes[i] = east((position + 1) * stepMeters);
+        }
+        return new RiskProximityIndex(ids, latitudes, longitudes);
+    }
+
+    private static String[] ids(RiskProximityIndex index, int[] indices) {
+        String[] ids = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            ids[i] = index.getId(indices[i]);
+        }
+        return ids;
+    }
+
+    @Test
+    public void registersTheNearestAndStopsBeforeTheFirstLeftOut() {
+        RiskProximityIndex index = line(30, 500);
+        GeofencePlanner planner = new GeofencePlanner(5, 100, 3000);
+
+        GeofencePlanner.Plan plan = planner.plan(index, LAT, LON);
+
+        assertArrayEquals(new String[] { "r0", "r1", "r2", "r3", "r4" }, ids(index, plan.riskIndices));
+        // r5 à 3000 m : la frontière s'arrête à 3000 - 100 - 50 m
+        assertEquals(2850, plan.boundaryRadiusMeters, 1);
+        assertTrue(plan.complete);
+        assertTrue(plan.contains(LAT, east(2800)));
+        assertFalse(plan.contains(LAT, east(2900)));
+    }
+
+    @Test
+    public void sparseRisksUseTheMaximalBoundary() {
+        RiskProximityIndex index = line(3, 500);
+        GeofencePlanner planner = new GeofencePlanner(10, 100, 2000);
+
+        GeofencePlanner.Plan plan = planner.plan(index, LAT, LON);
+
+        assertEquals(3, plan.riskIndices.length);
+        assertEquals(2000, plan.boundaryRadiusMeters, 0.0);
+        assertTrue(plan.complete);
+    }
+
+    @Test
+    public void denseAreasAreReportedIncomplete() {
+        RiskProximityIndex index = line(50, 20);
+        GeofencePlanner planner = new GeofencePlanner(10, 100, 2000);
+
+        GeofencePlanner.Plan plan = planner.plan(index, LAT, LON);
+
+        assertEquals(10, plan.riskIndices.length);
+        assertEquals(GeofencePlanner.MIN_BOUNDARY_METERS, plan.boundaryRadiusMeters, 0.0);
+        assertFalse(plan.complete);
+    }
+
+    @Test
+    public void selectionMatchesAFullSort() {
+        RiskCacheFile.Snapshot snapshot = TestData.risks(20000, 0.3, 7);
+        RiskProximityIndex index = snapshot.toIndex();
+        GeofencePlanner planner = new GeofencePlanner(GeofencePlanner.MAX_GEOFENCES - 1, 100, 5000);
+
+        GeofencePlanner.Plan plan = planner.plan(index, LAT, LON);
+
+        Integer[] all = new Integer[index.size()];
+        double[] distances = new double[index.size()];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+            distances[i] = GeoMath.haversineMeters(LAT, LON, index.getLatitude(i), index.getLongitude(i));
+        }
+        Arrays.sort(all, (a, b) -> Double.compare(distances[a], distances[b]));
+        assertEquals(99, plan.riskIndices.length);
+        for (int i = 0; i < plan.riskIndices.length; i++) {
+            assertEquals(all[i].intValue(), plan.riskIndices[i]);
+        }
+        assertEquals(Math.min(5000, distances[all[99]] - 150), plan.boundaryRadiusMeters, 1e-6);
+    }
+
+    @Test
+    public void diffOnlyTouchesChangedFences() {
+        RiskProximityIndex index = line(30, 500);
+        GeofencePlanner planner = new GeofencePlanner(5, 100, 3000);
+        GeofencePlanner.Plan plan = planner.plan(index, LAT, east(1800));
+        Set<String> registered = new HashSet<>(Arrays.asList("r0", "r1", "r2", "r3", "r4"));
+
+        GeofencePlanner.Changes changes = GeofencePlanner.diff(registered, plan, index);
+
+        // Autour de 1,8 km : r0 (1,3 km) sort, r5 (1,2 km) entre
+        assertEquals(Arrays.asList("r0"), changes.removedIds);
+        assertArrayEquals(new String[] { "r5" }, ids(index, changes.addedIndices));
+        assertTrue(GeofencePlanner.diff(new HashSet<>(Arrays.asList(ids(index, plan.riskIndices))),
+            plan, index).isEmpty());
+    }
+
+    @Test
+    public void rotationAlongATraceNeverMissesARisk() {
+        RiskProximityIndex index = TestData.risks(20000, 0.3, 11).toIndex();
+        GeofencePlanner planner = new GeofencePlanner(GeofencePlanner.MAX_GEOFENCES - 1, 100, 2500);
+        Set<String> registered = new HashSet<>();
+        GeofencePlanner.Plan plan = null;
+        int rotations = 0;
+        int entered = 0;
+        int[] nearby = new int[index.size()];
+
+        // 20 km vers le nord-est, un point tous les 10 m
+        for (int step = 0; step <= 2000; step++) {
+            double latitude = LAT + GeoMath.latitudeDelta(step * 7.07);
+            double longitude = LON + GeoMath.longitudeDelta(LAT, GeoMath.latitudeDelta(step * 7.07));
+            if (plan == null || !plan.contains(latitude, longitude)) {
+                plan = planner.plan(index, latitude, longitude);
+                GeofencePlanner.Changes changes = GeofencePlanner.diff(registered, plan, index);
+                registered.removeAll(changes.removedIds);
+                for (int risk : changes.addedIndices) {
+                    registered.add(index.getId(risk));
+                }
+                rotations++;
+            }
+            assertTrue(plan.complete);
+            assertTrue(registered.size() < GeofencePlanner.MAX_GEOFENCES);
+            int found = index.queryWithin(latitude, longitude, 100, nearby, null);
+            for (int i = 0; i < found; i++) {
+                assertTrue(registered.contains(index.getId(nearby[i])));
+            }
+            entered += found;
+        }
+        assertTrue(entered > 0);
+        // Une rotation tous les quelques centaines de mètres, pas à chaque position
+        assertTrue("rotations=" + rotations, rotations < 200);
+    }
+}
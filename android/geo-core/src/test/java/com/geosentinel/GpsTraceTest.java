@@ -0,0 +1,71 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class GpsTraceTest {
+
+    @Test
+    public void readsCsvAndSkipsHeaders() throws IOException {
+        GpsTrace trace = GpsTrace.readCsv(new StringReader(
+            "timeMs,latitude,longitude,speedMps\n# commentaire\n\n0,45.0,4.0,2.5\n1000,45.001,4.0\n"));
+
+        assertEquals(2, trace.getPoints().size());
+        assertEquals(2.5, trace.getPoints().get(0).speedMps, 0.0);
+        assertEquals(-1, trace.getPoints().get(1).speedMps, 0.0);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedCsv() throws IOException {
+        GpsTrace.readCsv(new StringReader("0,45.0\n"));
+    }
+
+    @Test
+    public void readsGpxTrackPoints() throws IOException {
+        String gpx = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<gpx version=\"1.1\" xmlns=\"http://www.topografix.com/GPX/1/1\"><trk><trkseg>"
+            + "<trkpt lat=\"45.764\" lon=\"4.8357\"><ele>170</ele><time>2024-05-02T08:15:30Z</time></trkpt>"
+            + "<trkpt lat=\"45.765\" lon=\"4.8357\"><time>2024-05-02T10:15:31.500+02:00</time></trkpt>"
+            + "</trkseg></trk></gpx>";
+
+        GpsTrace trace = GpsTrace.readGpx(new ByteArrayInputStream(gpx.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, trace.getPoints().size());
+        assertEquals(1714637730000L, trace.getStartMs());
+        assertEquals(1714637731500L, trace.getEndMs());
+        assertEquals(45.765, trace.getPoints().get(1).latitude, 0.0);
+    }
+
+    @Test
+    public void interpolatesPositionAndSpeed() throws IOException {
+        GpsTrace trace = GpsTrace.readCsv(new StringReader("0,45.0,4.0\n10000,45.001,4.0\n20000,45.001,4.0\n"));
+        GpsTrace.Position position = new GpsTrace.Position();
+
+        int segment = trace.positionAt(5000, 0, position);
+        assertEquals(0, segment);
+        assertEquals(45.0005, position.latitude, 1e-9);
+        // 111 m en 10 s
+        assertEquals(11.1, position.speedMps, 0.1);
+        assertEquals(0, position.bearingDegrees, 1e-6);
+
+        segment = trace.positionAt(15000, segment, position);
+        assertEquals(1, segment);
+        assertEquals(0, position.speedMps, 0.0);
+        assertTrue(Double.isNaN(position.bearingDegrees));
+
+        // Retour en arrière avec un segment de départ trop avancé
+        trace.positionAt(2000, segment, position);
+        assertEquals(45.0002, position.latitude, 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnorderedTraces() throws IOException {
+        GpsTrace.readCsv(new StringReader("1000,45.0,4.0\n0,45.001,4.0\n"));
+    }
+}
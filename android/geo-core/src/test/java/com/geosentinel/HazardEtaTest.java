@@ -0,0 +1,120 @@
+package com.geosentinel;
+
+import static com.geosentinel.TestData.east;
+import static com.geosentinel.TestData.north;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HazardEtaTest {
+    private static final double LAT = TestData.LYON_LAT;
+    private static final double LON = TestData.LYON_LON;
+
+    // Risques sur l'axe nord à 500 m et 1 km, un à 300 m à l'est, un à 400 m derrière
+    private static RiskProximityIndex risks() {
+        return new RiskProximityIndex(
+            new String[] { "devant", "loin", "cote", "derriere" },
+            new double[] { north(500), north(1000), LAT, north(-400) },
+            new double[] { LON, LON, east(300), LON });
+    }
+
+    @Test
+    public void etaOnAStraightLine() {
+        // 500 m devant, rayon 100 m, 20 m/s : entrée dans le rayon après 400 m
+        assertEquals(20000, HazardEta.etaMs(0, 500, 0, 20, 100));
+        // Décalé de 60 m : corde plus courte, entrée à 500 - 80 m
+        assertEquals(21000, HazardEta.etaMs(60, 500, 0, 20, 100));
+        assertEquals(0, HazardEta.etaMs(0, 50, 0, 20, 100));
+        // Derrière, trop à l'écart, ou à l'arrêt
+        assertEquals(HazardEta.NO_ETA, HazardEta.etaMs(0, -500, 0, 20, 100));
+        assertEquals(HazardEta.NO_ETA, HazardEta.etaMs(150, 500, 0, 20, 100));
+        assertEquals(HazardEta.NO_ETA, HazardEta.etaMs(0, 500, 0, 0, 100));
+    }
+
+    @Test
+    public void reportsRisksReachedWithinTheHorizon() {
+        HazardEta eta = new HazardEta(100, 30000, false);
+        int[] indices = new int[4];
+        long[] etas = new long[4];
+
+        int found = eta.update(risks(), LAT, LON, 0, 20, 0, indices, etas, null);
+
+        // "devant" dans 20 s ; "loin" dans 45 s, hors horizon ; ni le côté ni l'arrière
+        assertEquals(1, found);
+        assertEquals(0, indices[0]);
+        assertEquals(20000, etas[0], 50);
+    }
+
+    @Test
+    public void withoutHorizonItIsTheDistanceTest() {
+        HazardEta eta = new HazardEta(100, 0, false);
+        int[] indices = new int[4];
+        long[] etas = new long[4];
+        double[] distances = new double[4];
+
+        assertEquals(0, eta.update(risks(), LAT, LON, 0, 20, 0, indices, etas, distances));
+        int found = eta.update(risks(), north(450), LON, 1000, 20, 0, indices, etas, distances);
+
+        assertEquals(1, found);
+        assertEquals(0, etas[0]);
+        assertEquals(50, distances[0], 0.5);
+    }
+
+    @Test
+    public void derivesVelocityFromConsecutiveFixes() {
+        HazardEta eta = new HazardEta(100, 30000, false);
+        int[] indices = new int[4];
+        long[] etas = new long[4];
+
+        // Pas de vitesse ni de cap du fournisseur : 200 m vers le nord en 10 s
+        assertEquals(0, eta.update(risks(), north(-200), LON, 0, Double.NaN, Double.NaN, indices, etas, null));
+        int found = eta.update(risks(), LAT, LON, 10000, Double.NaN, Double.NaN, indices, etas, null);
+
+        assertEquals(20, eta.getSpeedMps(), 0.01);
+        assertEquals(1, found);
+        assertEquals(20000, etas[0], 50);
+    }
+
+    @Test
+    public void staleFixesAreNotUsedForVelocity() {
+        HazardEta eta = new HazardEta(100, 30000, true);
+        int[] indices = new int[4];
+        long[] etas = new long[4];
+
+        eta.update(risks(), north(-200), LON, 0, Double.NaN, Double.NaN, indices, etas, null);
+        int found = eta.update(risks(), LAT, LON, HazardEta.MAX_FIX_GAP_MS + 1, Double.NaN, Double.NaN,
+            indices, etas, null);
+
+        assertEquals(0, eta.getSpeedMps(), 0.0);
+        assertEquals(0, found);
+    }
+
+    @Test
+    public void interpolationCatchesRadiiCrossedBetweenFixes() {
+        // 30 m/s, un fix toutes les 10 s : de 350 m avant à -50 m après "derriere"
+        RiskProximityIndex index = risks();
+        int[] indices = new int[4];
+        long[] etas = new long[4];
+        HazardEta plain = new HazardEta(100, 0, false);
+        HazardEta interpolating = new HazardEta(100, 0, true);
+
+        plain.update(index, north(-750), LON, 0, 30, 0, indices, etas, null);
+        interpolating.update(index, north(-750), LON, 0, 30, 0, indices, etas, null);
+
+        assertEquals(0, plain.update(index, north(-250), LON, 10000, 30, 0, indices, etas, null));
+        int found = interpolating.update(index, north(-250), LON, 10000, 30, 0, indices, etas, null);
+        assertEquals(1, found);
+        assertEquals(3, indices[0]);
+        assertEquals(0, etas[0]);
+    }
+
+    @Test
+    public void outputIsBoundedByTheCallerArrays() {
+        HazardEta eta = new HazardEta(2000, 0, false);
+        int[] indices = new int[2];
+        long[] etas = new long[2];
+
+        assertTrue(eta.update(risks(), LAT, LON, 0, 0, Double.NaN, indices, etas, null) <= 2);
+    }
+}
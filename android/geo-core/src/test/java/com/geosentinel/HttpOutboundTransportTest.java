@@ -0,0 +1,137 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** File d'envoi et transport HTTP contre un serveur stub, panne réseau comprise. */
+public class HttpOutboundTransportTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> receivedKeys = new ArrayList<>();
+    private final Set<String> created = new HashSet<>();
+    private final List<String> authorizations = new ArrayList<>();
+    private HttpServer server;
+    private String serverUrl;
+    private String deadUrl;
+    private volatile String baseUrl;
+    // Réponses forcées avant de traiter normalement (503 = serveur surchargé)
+    private int failuresBeforeSuccess;
+    private boolean loseFirstResponse;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/risks", this::handle);
+        server.start();
+        serverUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        // Port libéré aussitôt : connexion refusée, comme en zone blanche
+        try (ServerSocket socket = new ServerSocket(0)) {
+            deadUrl = "http://127.0.0.1:" + socket.getLocalPort();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /** Serveur idempotent : une clé déjà vue renvoie 200 sans recréer le risque. */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        receivedKeys.add(key);
+        int status;
+        if (failuresBeforeSuccess > 0) {
+            failuresBeforeSuccess--;
+            status = 503;
+        } else {
+            status = created.add(key) ? 201 : 200;
+        }
+        if (loseFirstResponse) {
+            // Requête traitée mais réponse perdue (coupure pendant la lecture)
+            loseFirstResponse = false;
+            exchange.close();
+            return;
+        }
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private OutboundQueue openQueue(long[] now) throws IOException {
+        return new OutboundQueue(new OutboundJournal(new File(folder.getRoot(), "outbound.journal")), () -> now[0]);
+    }
+
+    private HttpOutboundTransport transport() {
+        return new HttpOutboundTransport(() -> baseUrl, () -> "jwt");
+    }
+
+    @Test
+    public void mutationsQueuedDuringAnOutageAreDeliveredOnceWhenTheServerReturns() throws IOException {
+        long[] now = { 0 };
+        OutboundQueue queue = openQueue(now);
+        queue.enqueue("POST", "/risks", "{\"title\":\"Chaussée glissante\"}", null, "cle-1");
+        queue.enqueue("POST", "/risks", "{\"title\":\"Arbre tombé\"}", null, "cle-2");
+
+        baseUrl = deadUrl;
+        OutboundQueue.FlushReport offline = queue.flush(transport(), 10, false);
+        assertEquals(1, offline.requests);
+        assertEquals(2, offline.remaining);
+        assertTrue(queue.getStats().backoffRemainingMs > 0);
+
+        // Serveur revenu mais surchargé, puis disponible
+        baseUrl = serverUrl;
+        failuresBeforeSuccess = 1;
+        now[0] += OutboundQueue.backoffMs(1);
+        assertEquals(2, queue.flush(transport(), 10, false).remaining);
+        now[0] += OutboundQueue.backoffMs(2);
+        OutboundQueue.FlushReport delivered = queue.flush(transport(), 10, false);
+
+        assertEquals(2, delivered.delivered);
+        assertEquals(0, delivered.remaining);
+        assertEquals(List.of("cle-1", "cle-1", "cle-2"), receivedKeys);
+        assertEquals(2, created.size());
+        assertEquals("Bearer jwt", authorizations.get(0));
+    }
+
+    @Test
+    public void lostResponseIsReplayedWithTheSameKey() throws IOException {
+        long[] now = { 0 };
+        OutboundQueue queue = openQueue(now);
+        queue.enqueue("POST", "/risks", "{\"title\":\"Inondation\"}", null, "cle-unique");
+        baseUrl = serverUrl;
+        loseFirstResponse = true;
+
+        assertEquals(1, queue.flush(transport(), 10, false).remaining);
+        // Redémarrage de l'app entre les deux tentatives
+        OutboundQueue restarted = openQueue(now);
+        OutboundQueue.FlushReport replay = restarted.flush(transport(), 10, true);
+
+        assertEquals(1, replay.delivered);
+        assertEquals(List.of("cle-unique", "cle-unique"), receivedKeys);
+        assertEquals(1, created.size());
+    }
+}
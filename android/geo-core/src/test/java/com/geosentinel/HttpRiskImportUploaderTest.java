@@ -0,0 +1,159 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Import contre un serveur stub : les renvois après une réponse perdue ne créent pas de doublons. */
+public class HttpRiskImportUploaderTest {
+    private final List<String> paths = new ArrayList<>();
+    private final List<String> receivedKeys = new ArrayList<>();
+    private final Set<String> created = new HashSet<>();
+    private HttpServer server;
+    private String serverUrl;
+    private boolean bulkSupported = true;
+    private boolean loseFirstResponse;
+    // Requête traitée puis 503 (proxy qui coupe après le traitement)
+    private int processedThenFailed;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/risks", this::handle);
+        server.start();
+        serverUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /** Serveur idempotent : une clé déjà vue renvoie la même réponse sans recréer. */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        String path = exchange.getRequestURI().getPath();
+        String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        paths.add(path);
+        receivedKeys.add(key);
+        if (path.equals("/risks/bulk-create") && !bulkSupported) {
+            respond(exchange, 404, "{}");
+            return;
+        }
+        created.add(key);
+        if (loseFirstResponse) {
+            loseFirstResponse = false;
+            exchange.close();
+            return;
+        }
+        if (processedThenFailed > 0) {
+            processedThenFailed--;
+            respond(exchange, 503, "{}");
+            return;
+        }
+        respond(exchange, 201, path.equals("/risks/bulk-create") ? "{\"success\":[{},{}],\"failed\":[]}" : "{}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private HttpRiskImportUploader uploader() {
+        String payload = "{\"exp\":" + (System.currentTimeMillis() / 1000 + 3600) + "}";
+        String token = "eyJhbGciOiJIUzI1NiJ9."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+        TokenBroker.Store store = new TokenBroker.Store() {
+            @Override
+            public String getAccessToken() {
+                return token;
+            }
+
+            @Override
+            public String getRefreshToken() {
+                return "refresh";
+            }
+
+            @Override
+            public void saveTokens(String accessToken, String refreshToken) {
+            }
+        };
+        TokenBroker broker = new TokenBroker(store, refreshToken -> {
+            throw new IOException("pas de refresh attendu");
+        }, System::currentTimeMillis, 60000);
+        return new HttpRiskImportUploader(() -> serverUrl, broker);
+    }
+
+    private static List<RiskImport.Candidate> chunk() {
+        List<RiskImport.Candidate> chunk = new ArrayList<>();
+        chunk.add(new RiskImport.Candidate(0, "Chaussée glissante", null, "cat-1", "HIGH", 48.85, 2.35));
+        chunk.add(new RiskImport.Candidate(1, "Arbre tombé", "Route barrée", "cat-2", "MEDIUM", 48.86, 2.36));
+        return chunk;
+    }
+
+    @Test
+    public void lostBulkResponseIsRetriedWithTheSameKey() throws IOException {
+        loseFirstResponse = true;
+
+        int count = uploader().upload(chunk());
+
+        assertEquals(2, count);
+        assertEquals(List.of("/risks/bulk-create", "/risks/bulk-create"), paths);
+        assertEquals(receivedKeys.get(0), receivedKeys.get(1));
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void fallbackSendsOneStableKeyPerRisk() throws IOException {
+        bulkSupported = false;
+        HttpRiskImportUploader uploader = uploader();
+        uploader.upload(chunk());
+        assertTrue(uploader.isBulkUnsupported());
+        paths.clear();
+        receivedKeys.clear();
+        created.clear();
+        processedThenFailed = 1;
+
+        int count = uploader.upload(chunk());
+
+        assertEquals(2, count);
+        assertEquals(List.of("/risks", "/risks", "/risks"), paths);
+        // Le premier risque, créé puis 503, est renvoyé avec sa clé ; le second a la sienne
+        assertEquals(receivedKeys.get(0), receivedKeys.get(1));
+        assertNotEquals(receivedKeys.get(1), receivedKeys.get(2));
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void eachChunkHasItsOwnKey() throws IOException {
+        HttpRiskImportUploader uploader = uploader();
+
+        uploader.upload(chunk());
+        uploader.upload(chunk());
+
+        assertNotEquals(receivedKeys.get(0), receivedKeys.get(1));
+        assertFalse(uploader.isBulkUnsupported());
+        assertEquals(2, created.size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class LocationBatchBufferTest {
+
+    private static List<Long> drain(LocationBatchBuffer buffer) {
+        List<Long> timestamps = new ArrayList<>();
+        buffer.drainTo((latitude, longitude, accuracy, timestamp, nearbyRiskCount) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+
+    @Test
+    public void flushIsDueAtMaxBatchSize() {
+        LocationBatchBuffer buffer = new LocationBatchBuffer(16, 3, 60000);
+        buffer.add(45.0, 4.0, 5f, 1, 0, 0);
+        buffer.add(45.1, 4.1, 5f, 2, 0, 0);
+        assertFalse(buffer.shouldFlush(0));
+
+        buffer.add(45.2, 4.2, 5f, 3, 2, 0);
+
+        assertTrue(buffer.shouldFlush(0));
+        assertEquals(List.of(1L, 2L, 3L), drain(buffer));
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void flushIsDueWhenTheOldestFixReachesMaxLatency() {
+        LocationBatchBuffer buffer = new LocationBatchBuffer(16, 10, 5000);
+        assertEquals(-1, buffer.millisUntilDue(0));
+        buffer.add(45.0, 4.0, 5f, 1, 0, 1000);
+        buffer.add(45.0, 4.0, 5f, 2, 0, 4000);
+
+        assertEquals(2000, buffer.millisUntilDue(4000));
+        assertFalse(buffer.shouldFlush(5999));
+        assertTrue(buffer.shouldFlush(6000));
+        assertEquals(0, buffer.millisUntilDue(9000));
+    }
+
+    @Test
+    public void fullBufferOverwritesTheOldestFixes() {
+        LocationBatchBuffer buffer = new LocationBatchBuffer(3, 3, 60000);
+        for (long t = 1; t <= 5; t++) {
+            buffer.add(45.0, 4.0, 5f, t, 0, t);
+        }
+
+        assertEquals(2, buffer.getDropped());
+        assertEquals(List.of(3L, 4L, 5L), drain(buffer));
+    }
+
+    @Test
+    public void drainsEveryFieldInOrder() {
+        LocationBatchBuffer buffer = new LocationBatchBuffer(4, 4, 0);
+        buffer.add(45.5, 4.5, 12.5f, 99, 7, 0);
+        double[] seen = new double[5];
+
+        int count = buffer.drainTo((latitude, longitude, accuracy, timestamp, nearbyRiskCount) -> {
+            seen[0] = latitude;
+            seen[1] = longitude;
+            seen[2] = accuracy;
+            seen[3] = timestamp;
+            seen[4] = nearbyRiskCount;
+        });
+
+        assertEquals(1, count);
+        assertEquals(45.5, seen[0], 0.0);
+        assertEquals(4.5, seen[1], 0.0);
+        assertEquals(12.5, seen[2], 0.0);
+        assertEquals(99, seen[3], 0.0);
+        assertEquals(7, seen[4], 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsABatchLargerThanTheCapacity() {
+        new LocationBatchBuffer(4, 5, 1000);
+    }
+}
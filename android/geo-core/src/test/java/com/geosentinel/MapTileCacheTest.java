@@ -0,0 +1,112 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MapTileCacheTest {
+    private static final long TTL_MS = 60000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final long[] now = { 0 };
+    private int fetches;
+    private boolean offline;
+
+    private final MapTileCache.Fetcher fetcher = url -> {
+        if (offline) {
+            throw new IOException("hors ligne");
+        }
+        fetches++;
+        return (url + "#" + fetches).getBytes(StandardCharsets.UTF_8);
+    };
+
+    private MapTileCache open(long maxBytes) {
+        return new MapTileCache(new File(folder.getRoot(), "tiles"), maxBytes, () -> now[0]);
+    }
+
+    @Test
+    public void servesFreshEntriesFromDisk() throws IOException {
+        MapTileCache cache = open(1 << 20);
+
+        byte[] first = cache.get("tile-16-1-2", "https://t/16/1/2.png", TTL_MS, fetcher);
+        now[0] += TTL_MS;
+        byte[] second = cache.get("tile-16-1-2", "https://t/16/1/2.png", TTL_MS, fetcher);
+
+        assertArrayEquals(first, second);
+        assertEquals(1, fetches);
+        MapTileCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits);
+        assertEquals(1, stats.misses);
+        assertEquals(first.length, stats.bytesSaved);
+        assertEquals(0.5, stats.hitRatio(), 0.0);
+    }
+
+    @Test
+    public void expiredEntryIsRefreshedOnlineAndServedStaleOffline() throws IOException {
+        MapTileCache cache = open(1 << 20);
+        byte[] stored = cache.get("tile-16-1-2", "u", TTL_MS, fetcher);
+        now[0] += TTL_MS + 1;
+        assertFalse(cache.isFresh("tile-16-1-2", TTL_MS));
+
+        offline = true;
+        assertArrayEquals(stored, cache.get("tile-16-1-2", "u", TTL_MS, fetcher));
+        assertEquals(1, cache.getStats().staleHits);
+
+        offline = false;
+        byte[] refreshed = cache.get("tile-16-1-2", "u", TTL_MS, fetcher);
+        assertEquals("u#2", new String(refreshed, StandardCharsets.UTF_8));
+        assertTrue(cache.isFresh("tile-16-1-2", TTL_MS));
+    }
+
+    @Test
+    public void missOfflineFailsAndCountsAsMiss() {
+        MapTileCache cache = open(1 << 20);
+        offline = true;
+
+        try {
+            cache.get("tile-1-0-0", "u", TTL_MS, fetcher);
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // Rien en cache : l'erreur réseau remonte
+        }
+        assertEquals(1, cache.getStats().misses);
+    }
+
+    @Test
+    public void evictsLeastRecentlyReadBeyondMaxBytes() throws IOException {
+        // Chaque entrée fait 3 octets ("a#1") : place pour deux
+        MapTileCache cache = open(6);
+        cache.get("a", "a", TTL_MS, fetcher);
+        cache.get("b", "b", TTL_MS, fetcher);
+        cache.get("a", "a", TTL_MS, fetcher);
+        cache.get("c", "c", TTL_MS, fetcher);
+
+        assertTrue(cache.isFresh("a", TTL_MS));
+        assertFalse(cache.isFresh("b", TTL_MS));
+        assertTrue(cache.isFresh("c", TTL_MS));
+        assertEquals(6, cache.getStats().sizeBytes);
+    }
+
+    @Test
+    public void reloadsEntriesFromDiskAfterARestart() throws IOException {
+        open(1 << 20).get("asset-leaflet.min.js", "https://cdn/leaflet.min.js", TTL_MS, fetcher);
+
+        MapTileCache reopened = open(1 << 20);
+
+        assertEquals(1, reopened.getStats().entries);
+        offline = true;
+        byte[] data = reopened.get("asset-leaflet.min.js", "https://cdn/leaflet.min.js", Long.MAX_VALUE, fetcher);
+        assertEquals("https://cdn/leaflet.min.js#1", new String(data, StandardCharsets.UTF_8));
+    }
+}
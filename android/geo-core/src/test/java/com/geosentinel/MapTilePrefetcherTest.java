@@ -0,0 +1,118 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Préchargement puis affichage hors ligne contre un serveur de tuiles stub. */
+public class MapTilePrefetcherTest {
+    private static final long TTL_MS = 7L * 24 * 3600000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private String template;
+    private MapTileCache cache;
+    private MapTilePrefetcher prefetcher;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        template = "http://127.0.0.1:" + server.getAddress().getPort() + "/{z}/{x}/{y}.png";
+        cache = new MapTileCache(new File(folder.getRoot(), "tiles"), 50L * 1024 * 1024, System::currentTimeMillis);
+        prefetcher = new MapTilePrefetcher(cache, new HttpTileFetcher(), template);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    // Contenu de la tuile = son chemin, pour vérifier ce qui est servi
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        byte[] body = exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    @Test
+    public void prefetchedZoneIsDisplayedOffline() throws IOException {
+        List<int[]> tiles = MapTilePrefetcher.tilesAround(TestData.LYON_LAT, TestData.LYON_LON, 1.0,
+            MapTilePrefetcher.MIN_ZOOM, MapTilePrefetcher.MAX_ZOOM);
+
+        int fetched = prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 1.0, TTL_MS, () -> false);
+        assertEquals(tiles.size(), fetched);
+        assertEquals(tiles.size(), requests.get());
+
+        server.stop(0);
+        for (int[] tile : tiles) {
+            byte[] data = prefetcher.getTile(tile[0], tile[1], tile[2], TTL_MS);
+            assertArrayEquals(("/" + tile[0] + "/" + tile[1] + "/" + tile[2] + ".png").getBytes(StandardCharsets.UTF_8), data);
+        }
+
+        // Le préchargement n'entre pas dans le taux de hits de la carte
+        MapTileCache.Stats stats = cache.getStats();
+        assertEquals(tiles.size(), stats.prefetched);
+        assertEquals(tiles.size(), stats.hits);
+        assertEquals(0, stats.misses);
+        assertEquals(1.0, stats.hitRatio(), 0.0);
+    }
+
+    @Test
+    public void tileOutsideThePrefetchedZoneFailsOffline() throws IOException {
+        prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 1.0, TTL_MS, () -> false);
+        server.stop(0);
+
+        int far = MapTilePrefetcher.tileX(TestData.LYON_LON + 1, MapTilePrefetcher.MAX_ZOOM);
+        try {
+            prefetcher.getTile(MapTilePrefetcher.MAX_ZOOM, far, 0, TTL_MS);
+            fail("IOException attendue hors ligne");
+        } catch (IOException expected) {
+            // Tuile jamais téléchargée
+        }
+        assertEquals(1, cache.getStats().misses);
+    }
+
+    @Test
+    public void secondPrefetchOnlyDownloadsMissingTiles() {
+        int first = prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 0.3, TTL_MS, () -> false);
+        int second = prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 0.6, TTL_MS, () -> false);
+
+        assertTrue(first > 0);
+        assertEquals(first + second, requests.get());
+        assertEquals(0, prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 0.6, TTL_MS, () -> false));
+    }
+
+    @Test
+    public void prefetchStopsWhenTheMapIsClosedOrTheNetworkFails() {
+        AtomicInteger budget = new AtomicInteger(5);
+        assertEquals(5, prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 1.0, TTL_MS,
+            () -> budget.getAndDecrement() <= 0));
+
+        server.stop(0);
+        int before = requests.get();
+        assertEquals(0, prefetcher.prefetch(TestData.LYON_LAT, TestData.LYON_LON, 1.0, TTL_MS, () -> false));
+        assertEquals(before, requests.get());
+    }
+}
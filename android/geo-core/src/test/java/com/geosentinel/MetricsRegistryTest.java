@@ -0,0 +1,93 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void namesAreDeclaredOnce() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertSame(registry.counter("gps_fixes"), registry.counter("gps_fixes"));
+        assertSame(registry.histogram("tick_lateness_ms"), registry.findHistogram("tick_lateness_ms"));
+        assertNull(registry.findCounter("inconnu"));
+        assertEquals(1, registry.getCounters().size());
+    }
+
+    @Test
+    public void percentilesAreBucketBoundsCappedByMax() {
+        MetricsRegistry.Histogram histogram = new MetricsRegistry().histogram("h");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        MetricsRegistry.Histogram.Snapshot s = histogram.snapshot();
+
+        assertEquals(100, s.count);
+        assertEquals(50, s.mean());
+        assertEquals(50, s.percentile(0.50));
+        assertEquals(100, s.percentile(0.95));
+        assertEquals(100, s.max);
+    }
+
+    @Test
+    public void overflowBucketReportsTheMax() {
+        MetricsRegistry.Histogram histogram = new MetricsRegistry().histogram("h");
+        histogram.record(-5);
+        histogram.record(20000000);
+
+        MetricsRegistry.Histogram.Snapshot s = histogram.snapshot();
+
+        assertEquals(1, s.percentile(0.50));
+        assertEquals(20000000, s.percentile(0.99));
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Counter counter = registry.counter("c");
+        MetricsRegistry.Histogram histogram = registry.histogram("h");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = t * 100;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    counter.increment();
+                    histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, counter.get());
+        assertEquals(40000, histogram.snapshot().count);
+        assertEquals(300, histogram.snapshot().max);
+    }
+
+    @Test
+    public void exportsOneJsonLineAndResets() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("gps_fixes").add(3);
+        registry.histogram("tick_lateness_ms").record(40);
+
+        JSONObject line = new JSONObject(registry.toJsonLine(1234));
+
+        assertEquals(1234, line.getLong("ts"));
+        assertEquals(3, line.getJSONObject("counters").getLong("gps_fixes"));
+        JSONObject lateness = line.getJSONObject("histograms").getJSONObject("tick_lateness_ms");
+        assertEquals(1, lateness.getLong("count"));
+        assertEquals(40, lateness.getLong("p99"));
+
+        registry.reset();
+        assertEquals(0, registry.counter("gps_fixes").get());
+        assertEquals(0, registry.histogram("tick_lateness_ms").snapshot().count);
+    }
+}
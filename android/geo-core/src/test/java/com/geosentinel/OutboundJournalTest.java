@@ -0,0 +1,94 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OutboundJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static OutboundQueue.Mutation mutation(long id, String body) {
+        return new OutboundQueue.Mutation(id, "POST", "/risks", body, null, "clé-" + id, 1000 + id);
+    }
+
+    @Test
+    public void replaysEnqueuedMutationsThatWereNotAcknowledged() throws IOException {
+        File file = new File(folder.getRoot(), "outbound.journal");
+        OutboundJournal journal = new OutboundJournal(file);
+        journal.open();
+        journal.appendEnqueue(mutation(1, "un"));
+        journal.appendEnqueue(new OutboundQueue.Mutation(2, "PUT", "/risks/9", "é", "PUT /risks/9", "clé-9", 5));
+        journal.appendAck(1);
+        journal.close();
+
+        List<OutboundQueue.Mutation> pending = new OutboundJournal(file).open();
+
+        assertEquals(1, pending.size());
+        OutboundQueue.Mutation replayed = pending.get(0);
+        assertEquals(2, replayed.id);
+        assertEquals("PUT", replayed.method);
+        assertEquals("/risks/9", replayed.path);
+        assertEquals("é", replayed.body);
+        assertEquals("PUT /risks/9", replayed.coalesceKey);
+        assertEquals("clé-9", replayed.idempotencyKey);
+        assertEquals(5, replayed.createdAt);
+    }
+
+    @Test
+    public void truncatedLastRecordIsDiscarded() throws IOException {
+        File file = new File(folder.getRoot(), "outbound.journal");
+        OutboundJournal journal = new OutboundJournal(file);
+        journal.open();
+        journal.appendEnqueue(mutation(1, "complet"));
+        long valid = journal.length();
+        journal.appendEnqueue(mutation(2, "interrompu"));
+        journal.close();
+        // Écriture coupée au milieu du second enregistrement
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(valid + 10);
+        }
+
+        OutboundJournal reopened = new OutboundJournal(file);
+        List<OutboundQueue.Mutation> pending = reopened.open();
+
+        assertEquals(1, pending.size());
+        assertEquals("complet", pending.get(0).body);
+        assertEquals(valid, file.length());
+        // Les ajouts suivants repartent de l'enregistrement valide
+        reopened.appendEnqueue(mutation(3, "après"));
+        reopened.close();
+        assertEquals(2, new OutboundJournal(file).open().size());
+    }
+
+    @Test
+    public void compactsOnceAcknowledgementsDominate() throws IOException {
+        File file = new File(folder.getRoot(), "outbound.journal");
+        OutboundJournal journal = new OutboundJournal(file);
+        journal.open();
+        List<OutboundQueue.Mutation> pending = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            journal.appendEnqueue(mutation(i, "corps " + i));
+            journal.appendAck(i);
+        }
+        pending.add(mutation(100, "restante"));
+        journal.appendEnqueue(pending.get(0));
+        long before = journal.length();
+
+        journal.maybeCompact(pending);
+
+        assertTrue(journal.length() < before / 50);
+        journal.close();
+        List<OutboundQueue.Mutation> reopened = new OutboundJournal(file).open();
+        assertEquals(1, reopened.size());
+        assertEquals("restante", reopened.get(0).body);
+    }
+}
@@ -0,0 +1,126 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OutboundQueueTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final long[] now = { 0 };
+    private final List<String> sent = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+
+    /** Serveur simulé : répond status à chaque requête, ou lève IOException si status < 0. */
+    private OutboundQueue.Transport server(int status) {
+        return (method, path, body, idempotencyKey) -> {
+            sent.add(method + " " + path + " " + body);
+            keys.add(idempotencyKey);
+            if (status < 0) {
+                throw new IOException("réseau absent");
+            }
+            return status;
+        };
+    }
+
+    private OutboundQueue open() throws IOException {
+        return new OutboundQueue(new OutboundJournal(new File(folder.getRoot(), "outbound.journal")), () -> now[0]);
+    }
+
+    @Test
+    public void coalescesPendingUpdatesOfTheSameRisk() throws IOException {
+        OutboundQueue queue = open();
+        queue.enqueue("POST", "/risks", "{\"a\":1}", null, null);
+        queue.enqueue("PUT", "/risks/42", "{\"v\":1}", "PUT /risks/42", null);
+        queue.enqueue("PUT", "/risks/42", "{\"v\":2}", "PUT /risks/42", null);
+
+        OutboundQueue.FlushReport report = queue.flush(server(200), 10, false);
+
+        assertEquals(2, report.requests);
+        assertEquals(2, report.delivered);
+        assertEquals(0, report.remaining);
+        assertEquals("POST /risks {\"a\":1}", sent.get(0));
+        assertEquals("PUT /risks/42 {\"v\":2}", sent.get(1));
+        assertEquals(1, queue.getStats().coalesced);
+    }
+
+    @Test
+    public void networkFailureSuspendsTheWholeQueueWithBackoff() throws IOException {
+        OutboundQueue queue = open();
+        queue.enqueue("POST", "/risks", "1", null, null);
+        queue.enqueue("POST", "/risks", "2", null, null);
+
+        OutboundQueue.FlushReport failed = queue.flush(server(-1), 10, false);
+        assertEquals(1, failed.requests);
+        assertEquals(2, failed.remaining);
+        assertEquals(OutboundQueue.BASE_BACKOFF_MS, queue.getStats().backoffRemainingMs);
+
+        // Backoff en cours : aucun envoi, sauf flush forcé
+        assertTrue(queue.flush(server(200), 10, false).deferred);
+        assertEquals(1, sent.size());
+        now[0] += OutboundQueue.BASE_BACKOFF_MS;
+        OutboundQueue.FlushReport recovered = queue.flush(server(200), 10, false);
+        assertEquals(2, recovered.delivered);
+        assertEquals("POST /risks 1", sent.get(1));
+    }
+
+    @Test
+    public void serverErrorsAreRetriedAndValidationErrorsDropped() throws IOException {
+        OutboundQueue queue = open();
+        queue.enqueue("PUT", "/risks/7", "x", "PUT /risks/7", null);
+
+        assertEquals(1, queue.flush(server(503), 10, true).remaining);
+        OutboundQueue.FlushReport rejected = queue.flush(server(422), 10, true);
+
+        assertEquals(1, rejected.rejected);
+        assertEquals(0, rejected.remaining);
+        assertEquals(0, queue.getStats().consecutiveFailures);
+    }
+
+    @Test
+    public void pendingMutationsSurviveARestart() throws IOException {
+        OutboundQueue before = open();
+        before.enqueue("POST", "/risks", "premier", null, null);
+        before.enqueue("POST", "/risks", "second", null, null);
+        before.flush(server(201), 1, false);
+
+        OutboundQueue after = open();
+
+        assertEquals(1, after.depth());
+        after.flush(server(201), 10, false);
+        assertEquals("POST /risks second", sent.get(1));
+    }
+
+    @Test
+    public void replaysReuseTheIdempotencyKey() throws IOException {
+        OutboundQueue before = open();
+        before.enqueue("POST", "/risks", "corps", null, "clé-envoi-direct");
+        before.enqueue("POST", "/risks", "autre", null, null);
+        before.flush(server(-1), 10, true);
+        before.flush(server(503), 10, true);
+
+        OutboundQueue after = open();
+        after.flush(server(201), 10, true);
+
+        assertEquals(List.of("clé-envoi-direct", "clé-envoi-direct", "clé-envoi-direct"), keys.subList(0, 3));
+        // Clé générée à la mise en file, conservée par le journal
+        assertTrue(keys.get(3).length() >= 32);
+        assertEquals(4, keys.size());
+    }
+
+    @Test
+    public void backoffIsExponentialAndCapped() {
+        assertEquals(0, OutboundQueue.backoffMs(0));
+        assertEquals(5000, OutboundQueue.backoffMs(1));
+        assertEquals(20000, OutboundQueue.backoffMs(3));
+        assertEquals(OutboundQueue.MAX_BACKOFF_MS, OutboundQueue.backoffMs(40));
+    }
+}
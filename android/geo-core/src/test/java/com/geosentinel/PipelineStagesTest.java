@@ -0,0 +1,48 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class PipelineStagesTest {
+
+    @Test
+    public void parsesStageIds() {
+        PipelineStages stages = PipelineStages.parse(Arrays.asList("sync", "source", " filtre"));
+
+        assertEquals(PipelineStages.JS_ALERTS, stages);
+        assertTrue(stages.has(PipelineStages.Stage.SOURCE));
+        assertFalse(stages.has(PipelineStages.Stage.NOTIFIER));
+        // Ordre du pipeline, quel que soit l'ordre reçu
+        assertEquals(Arrays.asList("source", "filtre", "sync"), stages.ids());
+    }
+
+    @Test
+    public void syncAloneIsValid() {
+        assertEquals(Collections.singletonList("sync"), PipelineStages.parse(Collections.singletonList("sync")).ids());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownStages() {
+        PipelineStages.parse(Arrays.asList("source", "gps"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notifierNeedsProximity() {
+        PipelineStages.of(PipelineStages.Stage.SOURCE, PipelineStages.Stage.NOTIFIER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void proximityNeedsASource() {
+        PipelineStages.of(PipelineStages.Stage.PROXIMITY, PipelineStages.Stage.SYNC);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyPipeline() {
+        PipelineStages.parse(Collections.emptyList());
+    }
+}
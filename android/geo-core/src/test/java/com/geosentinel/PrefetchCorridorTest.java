@@ -0,0 +1,74 @@
+package com.geosentinel;
+
+import static com.geosentinel.TestData.east;
+import static com.geosentinel.TestData.north;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PrefetchCorridorTest {
+    private static final double LAT = TestData.LYON_LAT;
+    private static final double LON = TestData.LYON_LON;
+    private static final long MAX_AGE_MS = 180000;
+
+    @Test
+    public void keepsTheCircleWithoutReliableHeading() {
+        assertTrue(PrefetchCorridor.plan(LAT, LON, 1.0, 0, 3, MAX_AGE_MS).isCircle());
+        assertTrue(PrefetchCorridor.plan(LAT, LON, 20, Double.NaN, 3, MAX_AGE_MS).isCircle());
+        // Zone trop petite pour un couloir
+        assertTrue(PrefetchCorridor.plan(LAT, LON, 20, 0, 1.5, MAX_AGE_MS).isCircle());
+        assertEquals(3000, PrefetchCorridor.plan(LAT, LON, 1.0, 0, 3, MAX_AGE_MS).halfWidthMeters, 0.0);
+    }
+
+    @Test
+    public void circleFollowsTheLegacyRefreshRule() {
+        PrefetchCorridor circle = PrefetchCorridor.circle(LAT, LON, 3000);
+
+        assertFalse(circle.needsRefresh(north(1900), LON));
+        assertTrue(circle.needsRefresh(north(2100), LON));
+        assertEquals(RiskCacheRefresh.isNeeded(10, 0, MAX_AGE_MS, 2100, 3),
+            RiskCacheRefresh.isNeeded(10, 0, MAX_AGE_MS, circle, north(2100), LON));
+    }
+
+    @Test
+    public void corridorPointsAlongTheHeading() {
+        // 20 m/s vers l'est, cache de 3 min : 3,6 km devant, 1,8 km de part et d'autre
+        PrefetchCorridor corridor = PrefetchCorridor.plan(LAT, LON, 20, 90, 3, MAX_AGE_MS);
+
+        assertFalse(corridor.isCircle());
+        assertEquals(3600, corridor.lengthMeters(), 5);
+        assertEquals(1800, corridor.halfWidthMeters, 0.0);
+        assertTrue(corridor.contains(LAT, east(5000)));
+        assertFalse(corridor.contains(LAT, east(-3000)));
+        assertFalse(corridor.contains(north(2000), LON));
+        assertEquals(1000, corridor.distanceToAxisMeters(north(1000), east(2000)), 5);
+    }
+
+    @Test
+    public void corridorLengthIsBounded() {
+        // Marche rapide : au moins la demi-largeur ; autoroute : au plus deux rayons de zone
+        assertEquals(1800, PrefetchCorridor.plan(LAT, LON, 3, 0, 3, MAX_AGE_MS).lengthMeters(), 5);
+        assertEquals(6000, PrefetchCorridor.plan(LAT, LON, 40, 0, 3, MAX_AGE_MS).lengthMeters(), 5);
+    }
+
+    @Test
+    public void prefetchIsDueBeforeLeavingTheZone() {
+        PrefetchCorridor corridor = PrefetchCorridor.plan(LAT, LON, 20, 0, 3, MAX_AGE_MS);
+        long leadMs = PrefetchCorridor.leadMs(10000);
+
+        assertEquals(60000, leadMs);
+        // Bord de rechargement à 3,6 + 0,8 km ; 1,2 km d'anticipation à 20 m/s
+        assertFalse(corridor.prefetchDue(LAT, LON, 20, 0, leadMs));
+        assertFalse(corridor.prefetchDue(north(3000), LON, 20, 0, leadMs));
+        assertTrue(corridor.prefetchDue(north(3300), LON, 20, 0, leadMs));
+        assertFalse(corridor.needsRefresh(north(3300), LON));
+        // Demi-tour : on repart vers l'intérieur de la zone
+        assertFalse(corridor.prefetchDue(north(3300), LON, 20, 180, leadMs));
+        // Virage à angle droit : on sort par le côté
+        assertTrue(corridor.prefetchDue(LAT, LON, 20, 90, leadMs));
+        // À l'arrêt, pas de prévision
+        assertFalse(corridor.prefetchDue(north(3300), LON, 0, 0, leadMs));
+    }
+}
@@ -0,0 +1,58 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class RiskAlertCooldownTest {
+
+    @Test
+    public void notifiesOncePerCooldown() {
+        RiskAlertCooldown cooldown = new RiskAlertCooldown(1000);
+
+        assertEquals(Arrays.asList("a", "b"), cooldown.evaluate(Arrays.asList("a", "b"), 0));
+        assertEquals(Collections.emptyList(), cooldown.evaluate(Arrays.asList("a", "b"), 999));
+        assertEquals(Arrays.asList("a", "b"), cooldown.evaluate(Arrays.asList("a", "b"), 1001));
+    }
+
+    @Test
+    public void forgetsRisksThatLeaveTheRadius() {
+        RiskAlertCooldown cooldown = new RiskAlertCooldown(60000);
+
+        cooldown.evaluate(Arrays.asList("a", "b"), 0);
+        cooldown.evaluate(Collections.singletonList("b"), 10);
+        assertEquals(1, cooldown.trackedCount());
+
+        // Nouvelle approche de "a" : nouvelle alerte malgré le cooldown
+        assertEquals(Collections.singletonList("a"), cooldown.evaluate(Arrays.asList("a", "b"), 20));
+    }
+
+    @Test
+    public void entriesDoNotForgetOtherRisks() {
+        RiskAlertCooldown cooldown = new RiskAlertCooldown(60000);
+
+        cooldown.evaluate(Arrays.asList("a", "b"), 0);
+        assertEquals(Collections.singletonList("c"), cooldown.evaluateEntries(Arrays.asList("c", "a"), 10));
+        assertEquals(3, cooldown.trackedCount());
+        assertEquals(Collections.emptyList(), cooldown.evaluateEntries(Collections.singletonList("c"), 20));
+    }
+
+    @Test
+    public void ignoresDuplicateIds() {
+        RiskAlertCooldown cooldown = new RiskAlertCooldown();
+
+        assertEquals(Collections.singletonList("a"), cooldown.evaluate(Arrays.asList("a", "a"), 0));
+    }
+
+    @Test
+    public void dueDoesNotStartTheCooldown() {
+        RiskAlertCooldown cooldown = new RiskAlertCooldown(1000);
+
+        assertEquals(Arrays.asList("a", "b"), cooldown.due(Arrays.asList("a", "b", "a"), 0));
+        assertEquals(Arrays.asList("a", "b"), cooldown.due(Arrays.asList("a", "b"), 10));
+        cooldown.markNotified(Collections.singletonList("a"), 10);
+        assertEquals(Collections.singletonList("b"), cooldown.due(Arrays.asList("a", "b"), 20));
+    }
+}
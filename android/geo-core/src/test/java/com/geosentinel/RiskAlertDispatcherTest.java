@@ -0,0 +1,188 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RiskAlertDispatcherTest {
+    private static final String CHANNEL = "risk-alerts-final";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<RiskAlertDispatcher.Alert> shown = new ArrayList<>();
+
+    @Test
+    public void groupsATickIntoOneNotificationBySeverityThenDistance() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add);
+
+        RiskAlertDispatcher.Result result = dispatcher.dispatch(CHANNEL, Arrays.asList(
+            hit("a", "faible", 10),
+            hit("b", "critique", 80),
+            hit("c", "élevé", 20),
+            hit("d", "critique", 30),
+            hit("e", null, 5)), 0);
+
+        assertEquals(5, result.notified);
+        assertEquals(1, shown.size());
+        assertEquals(Arrays.asList("d", "b", "c", "a", "e"), ids(shown.get(0)));
+    }
+
+    @Test
+    public void onlyRisksOutOfCooldownAreNotified() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 10, 1000);
+
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        RiskAlertDispatcher.Result result = dispatcher.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 8), hit("b", "modéré", 50)), 1000);
+
+        assertEquals(1, result.notified);
+        assertEquals(Collections.singletonList("b"), ids(shown.get(1)));
+        // Rien de nouveau : pas de notification
+        assertEquals(0, dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 5)), 2000).notified);
+        assertEquals(2, shown.size());
+    }
+
+    @Test
+    public void rateLimitedRisksAreMergedIntoTheNextNotification() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        RiskAlertDispatcher.Result held = dispatcher.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("b", "élevé", 40)), 3000);
+        assertEquals(0, held.notified);
+        assertEquals(1, held.held);
+
+        RiskAlertDispatcher.Result merged = dispatcher.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("b", "élevé", 30), hit("c", "critique", 90)), 10000);
+        assertEquals(2, merged.notified);
+        assertEquals(Arrays.asList("c", "b"), ids(shown.get(1)));
+        assertEquals(2, shown.size());
+    }
+
+    @Test
+    public void channelsHaveSeparateBuckets() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        RiskAlertDispatcher.Result other = dispatcher.dispatchEntries("autre",
+            Arrays.asList(hit("b", "faible", 10)), 0);
+
+        assertEquals(1, other.notified);
+        assertEquals(2, shown.size());
+    }
+
+    @Test
+    public void entriesDoNotForgetOtherRisks() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 10, 1000);
+
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        dispatcher.dispatchEntries(CHANNEL, Arrays.asList(hit("b", "faible", Double.NaN)), 1000);
+
+        assertEquals(2, dispatcher.trackedCount());
+        assertEquals(0, dispatcher.dispatchEntries(CHANNEL, Arrays.asList(hit("a", "faible", 3)), 2000).notified);
+    }
+
+    @Test
+    public void entriesHeldByAnEmptyBucketAreNotifiedOnRefill() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+
+        // Geofence franchie seau vide : l'entrée ne sera pas resignalée par le système
+        RiskAlertDispatcher.Result held = dispatcher.dispatchEntries(CHANNEL,
+            Arrays.asList(hit("g", "élevé", Double.NaN)), 2000);
+        assertEquals(1, held.held);
+        assertEquals(8000, dispatcher.pendingDelayMs(CHANNEL, 2000));
+        assertEquals(0, dispatcher.flushPending(CHANNEL, 5000).notified);
+
+        RiskAlertDispatcher.Result flushed = dispatcher.flushPending(CHANNEL, 10000);
+
+        assertEquals(1, flushed.notified);
+        assertEquals(Collections.singletonList("g"), ids(shown.get(1)));
+        assertEquals(-1, dispatcher.pendingDelayMs(CHANNEL, 10000));
+        assertEquals(0, dispatcher.flushPending(CHANNEL, 30000).notified);
+    }
+
+    @Test
+    public void heldEntriesJoinTheNextPositionCheck() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        dispatcher.dispatchEntries(CHANNEL, Arrays.asList(hit("g", "faible", Double.NaN)), 1000);
+
+        // Le contrôle suivant ne voit pas g (hors du rayon chargé) mais l'inclut
+        RiskAlertDispatcher.Result merged = dispatcher.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("b", "critique", 40)), 10000);
+
+        assertEquals(2, merged.notified);
+        assertEquals(Arrays.asList("b", "g"), ids(shown.get(1)));
+        assertEquals(-1, dispatcher.pendingDelayMs(CHANNEL, 10000));
+    }
+
+    @Test
+    public void stateSurvivesARestart() throws Exception {
+        File file = new File(folder.getRoot(), "alerts.state");
+        RiskAlertDispatcher before = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+        before.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10), hit("b", "élevé", 20)), 1000);
+        before.save(file, 2000);
+
+        RiskAlertDispatcher after = new RiskAlertDispatcher(shown::add, 60000, 1, 10000);
+        after.load(file);
+
+        // a et b toujours en cooldown, et le seau du canal est encore vide
+        assertEquals(0, after.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 3000).notified);
+        RiskAlertDispatcher.Result held = after.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("c", "faible", 50)), 4000);
+        assertEquals(1, held.held);
+        assertEquals(1, after.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("c", "faible", 50)), 11000).notified);
+        // Cooldown de a expiré
+        assertEquals(1, after.dispatch(CHANNEL,
+            Arrays.asList(hit("a", "faible", 10), hit("c", "faible", 50)), 62000).notified);
+    }
+
+    @Test
+    public void expiredCooldownsAreNotPersisted() throws Exception {
+        File file = new File(folder.getRoot(), "alerts.state");
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add, 60000, 3, 10000);
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10), hit("b", "faible", 10)), 50000);
+        dispatcher.save(file, 70000);
+
+        RiskAlertStateFile.State state = RiskAlertStateFile.read(file);
+        assertEquals(Collections.singleton("b"), state.notifiedAt.keySet());
+        assertEquals(Long.valueOf(50000), state.notifiedAt.get("b"));
+        // Seau rempli depuis : non écrit
+        assertTrue(state.buckets.isEmpty());
+        assertTrue(file.length() < 64);
+    }
+
+    @Test
+    public void reportsForgottenRisksAsAStateChange() {
+        RiskAlertDispatcher dispatcher = new RiskAlertDispatcher(shown::add);
+
+        dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 0);
+        assertFalse(dispatcher.dispatch(CHANNEL, Arrays.asList(hit("a", "faible", 10)), 10).stateChanged);
+        assertTrue(dispatcher.dispatch(CHANNEL, Collections.emptyList(), 20).stateChanged);
+    }
+
+    private static RiskAlertDispatcher.Hit hit(String id, String severity, double distance) {
+        return new RiskAlertDispatcher.Hit(id, "Risque " + id, "naturel", severity, distance, 0);
+    }
+
+    private static List<String> ids(RiskAlertDispatcher.Alert alert) {
+        List<String> ids = new ArrayList<>();
+        for (RiskAlertDispatcher.Hit hit : alert.hits) {
+            ids.add(hit.id);
+        }
+        return ids;
+    }
+}
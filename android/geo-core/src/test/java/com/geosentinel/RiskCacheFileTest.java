@@ -0,0 +1,119 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RiskCacheFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsThroughDisk() throws IOException {
+        RiskCacheFile.Snapshot written = TestData.risks(1000, 0.05, 9);
+        File file = folder.newFile("risks.bin");
+
+        RiskCacheFile.write(file, written);
+        RiskCacheFile.Snapshot read = RiskCacheFile.read(file);
+
+        assertArrayEquals(written.ids, read.ids);
+        assertArrayEquals(written.titles, read.titles);
+        assertArrayEquals(written.categories, read.categories);
+        assertArrayEquals(written.severities, read.severities);
+        assertArrayEquals(written.latitudes, read.latitudes, 0.0);
+        assertArrayEquals(written.longitudes, read.longitudes, 0.0);
+        assertEquals(written.centerLat, read.centerLat, 0.0);
+        assertEquals(written.centerLon, read.centerLon, 0.0);
+        assertEquals(written.savedAt, read.savedAt);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void mapsUnknownSeverityToNull() throws IOException {
+        RiskCacheFile.Snapshot written = new RiskCacheFile.Snapshot(
+            new String[] { "a" }, new String[] { "A" }, new String[] { "naturel" },
+            new String[] { "inconnue" }, new double[] { 45 }, new double[] { 4 }, 45, 4, 0);
+
+        RiskCacheFile.Snapshot read = RiskCacheFile.decode(ByteBuffer.wrap(RiskCacheFile.encode(written)));
+
+        assertEquals(null, read.severities[0]);
+    }
+
+    @Test
+    public void roundTripsAnEmptyCache() throws IOException {
+        RiskCacheFile.Snapshot empty = TestData.risks(0, 0.01, 0);
+
+        RiskCacheFile.Snapshot read = RiskCacheFile.decode(ByteBuffer.wrap(RiskCacheFile.encode(empty)));
+
+        assertEquals(0, read.size());
+    }
+
+    @Test
+    public void detectsCorruption() throws IOException {
+        File file = folder.newFile("risks.bin");
+        RiskCacheFile.write(file, TestData.risks(100, 0.01, 2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long position = RiskCacheFile.HEADER_SIZE + 5;
+            raf.seek(position);
+            int value = raf.read();
+            raf.seek(position);
+            raf.write(value ^ 0x01);
+        }
+
+        expectIOException(file);
+    }
+
+    @Test
+    public void detectsCorruptedHeader() throws IOException {
+        File file = folder.newFile("risks.bin");
+        RiskCacheFile.write(file, TestData.risks(100, 0.01, 2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Octet de poids faible de centerLat (offset 24) : centre déplacé sans toucher aux risques
+            raf.seek(24);
+            int value = raf.read();
+            raf.seek(24);
+            raf.write(value ^ 0x01);
+        }
+
+        expectIOException(file);
+    }
+
+    @Test
+    public void detectsTruncation() throws IOException {
+        File file = folder.newFile("risks.bin");
+        RiskCacheFile.write(file, TestData.risks(100, 0.01, 2));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        expectIOException(file);
+    }
+
+    @Test
+    public void rejectsForeignFiles() throws IOException {
+        File file = folder.newFile("other.bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[RiskCacheFile.HEADER_SIZE]);
+        }
+
+        expectIOException(file);
+    }
+
+    private static void expectIOException(File file) {
+        try {
+            RiskCacheFile.read(file);
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // attendu
+        }
+    }
+}
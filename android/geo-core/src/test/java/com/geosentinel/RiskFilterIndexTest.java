@@ -0,0 +1,60 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class RiskFilterIndexTest {
+
+    @Test
+    public void matchesALinearFilter() {
+        RiskCacheFile.Snapshot risks = TestData.risks(1000, 0.05, 4);
+        String[] creators = new String[risks.size()];
+        RiskFilterIndex index = new RiskFilterIndex();
+        for (int i = 0; i < risks.size(); i++) {
+            creators[i] = "user-" + (i % 13);
+            assertEquals(i, index.append(risks.categories[i], risks.severities[i], creators[i]));
+        }
+
+        String[][] filters = {
+            { null, null, null },
+            { "naturel", null, null },
+            { null, "critique", null },
+            { "technologique", "élevé", null },
+            { "sanitaire", "faible", "user-3" },
+            { null, null, "user-12" },
+            { "inconnue", null, null },
+        };
+        for (String[] filter : filters) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < risks.size(); i++) {
+                if ((filter[0] == null || filter[0].equals(risks.categories[i]))
+                        && (filter[1] == null || filter[1].equals(risks.severities[i]))
+                        && (filter[2] == null || Objects.equals(filter[2], creators[i]))) {
+                    expected.add(i);
+                }
+            }
+            int[] actual = index.query(filter[0], filter[1], filter[2]);
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), actual);
+            assertEquals(expected.size(), index.count(filter[0], filter[1], filter[2]));
+        }
+    }
+
+    @Test
+    public void clearRestartsRowNumbering() {
+        RiskFilterIndex index = new RiskFilterIndex();
+        index.append("naturel", "faible", "u1");
+        index.append("naturel", "faible", "u1");
+
+        index.clear();
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.append("technologique", null, null));
+        assertArrayEquals(new int[0], index.query("naturel", null, null));
+        assertArrayEquals(new int[] { 0 }, index.query("technologique", null, null));
+    }
+}
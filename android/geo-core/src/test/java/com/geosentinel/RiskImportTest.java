@@ -0,0 +1,204 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class RiskImportTest {
+    private static final String[] CATEGORY_IDS = { "c1", "c2" };
+    private static final String[] CATEGORY_NAMES = { "naturel", "sanitaire" };
+    private static final String[] CATEGORY_LABELS = { "Naturel", "Sanitaire" };
+
+    private final List<RiskImport.Candidate> uploaded = new ArrayList<>();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    @Test
+    public void validatesEachRow() throws Exception {
+        String csv = "title;category;severity;latitude;longitude\n"
+            + "Ok;Naturel;Élevé;45,1;4,2\n"
+            + ";naturel;faible;45.2;4.2\n"
+            + "Cat;inconnue;faible;45.3;4.2\n"
+            + "Sev;naturel;moyen;45.4;4.2\n"
+            + "Lat;naturel;faible;95;4.2\n"
+            + "Zero;naturel;faible;0;0\n"
+            + "Texte;naturel;faible;abc;4.2\n"
+            + "Id;c2;MODERE;45.5;4.2\n";
+
+        RiskImport.Report report = run(config(null, 1, 3, 10), new CsvRiskReader(new StringReader(csv)));
+
+        assertEquals(8, report.totals.read);
+        assertEquals(6, report.totals.invalid);
+        assertEquals(2, report.totals.uploaded);
+        assertEquals("élevé", uploaded.get(0).severity);
+        assertEquals("c1", uploaded.get(0).categoryId);
+        assertEquals(45.1, uploaded.get(0).latitude, 0.0);
+        assertEquals("modéré", uploaded.get(1).severity);
+        assertEquals("c2", uploaded.get(1).categoryId);
+        assertEquals("ligne 3 : titre manquant", report.errors.get(0));
+        assertTrue(report.errors.get(1), report.errors.get(1).startsWith("ligne 4 : catégorie inconnue"));
+        assertTrue(report.errors.get(2), report.errors.get(2).startsWith("ligne 5 : sévérité inconnue"));
+        assertTrue(report.errors.get(3), report.errors.get(3).startsWith("ligne 6 : coordonnées hors limites"));
+        assertEquals("ligne 7 : coordonnées nulles (0, 0)", report.errors.get(4));
+        assertEquals("ligne 8 : coordonnées manquantes ou illisibles", report.errors.get(5));
+    }
+
+    @Test
+    public void skipsRisksAlreadyInTheCache() throws Exception {
+        RiskProximityIndex existing = new RiskProximityIndex(new String[] { "a", "b" }, null,
+            new String[] { "naturel", "sanitaire" }, new double[] { 45.0, 45.1 }, new double[] { 4.0, 4.1 });
+        String csv = "title,category,severity,latitude,longitude\n"
+            // ~5 m du risque a, même catégorie : doublon
+            + "A,naturel,faible,45.00004,4.0\n"
+            // Même endroit, autre catégorie : gardé
+            + "A2,sanitaire,faible,45.00004,4.0\n"
+            // ~50 m de b : gardé
+            + "B,sanitaire,faible,45.10045,4.1\n";
+
+        RiskImport.Report report = run(config(existing, 2, 1, 10), new CsvRiskReader(new StringReader(csv)));
+
+        assertEquals(1, report.totals.duplicates);
+        assertEquals(2, report.totals.uploaded);
+    }
+
+    @Test
+    public void skipsDuplicatesWithinTheFile() throws Exception {
+        StringBuilder csv = new StringBuilder("title,category,severity,latitude,longitude\n");
+        for (int i = 0; i < 100; i++) {
+            // Chaque risque apparaît deux fois, la seconde à ~3 m
+            csv.append("R").append(i).append(",naturel,faible,").append(45 + i * 0.001).append(",4\n");
+            csv.append("R").append(i).append("bis,naturel,faible,").append(45 + i * 0.001 + 0.00003).append(",4\n");
+        }
+
+        RiskImport.Report report = run(config(null, 4, 7, 25), new CsvRiskReader(new StringReader(csv.toString())));
+
+        assertEquals(200, report.totals.read);
+        assertEquals(100, report.totals.duplicates);
+        assertEquals(100, report.totals.uploaded);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("R" + i, uploaded.get(i).title);
+        }
+    }
+
+    @Test
+    public void uploadsInChunksInFileOrder() throws Exception {
+        RiskImport.Report report = run(config(null, 4, 16, 50), source(1234, new AtomicLong()));
+
+        assertEquals(1234, report.totals.uploaded);
+        assertEquals(25, chunkSizes.size());
+        assertEquals(Integer.valueOf(34), chunkSizes.get(24));
+        for (int i = 0; i < uploaded.size(); i++) {
+            assertEquals(i + 1, uploaded.get(i).position);
+        }
+    }
+
+    @Test
+    public void slowUploadsHoldBackReading() throws Exception {
+        AtomicLong read = new AtomicLong();
+        List<Long> readAtUpload = new ArrayList<>();
+        RiskImport.Config config = config(null, 2, 10, 10);
+
+        new RiskImport(config).run(source(5000, read), chunk -> {
+            readAtUpload.add(read.get());
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return chunk.size();
+        }, progress -> { });
+
+        // Jamais plus que les lots en file, celui en lecture et celui en cours de consommation
+        long maxAhead = (long) (config.maxPendingBatches + 2) * config.batchSize;
+        for (int i = 0; i < readAtUpload.size(); i++) {
+            long consumed = (long) (i + 1) * config.chunkSize;
+            assertTrue("lus " + readAtUpload.get(i) + " pour " + consumed + " envoyés",
+                readAtUpload.get(i) - consumed <= maxAhead);
+        }
+    }
+
+    @Test
+    public void stopsWhenAnUploadFails() throws Exception {
+        AtomicLong read = new AtomicLong();
+        try {
+            new RiskImport(config(null, 2, 10, 10)).run(source(100000, read), chunk -> {
+                throw new IOException("réseau perdu");
+            }, progress -> { });
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            assertEquals("réseau perdu", expected.getMessage());
+        }
+        assertTrue(read.get() < 1000);
+    }
+
+    @Test
+    public void countsRejectedRisksOfAChunkAsFailed() throws Exception {
+        RiskImport.Report report = new RiskImport(config(null, 1, 10, 10))
+            .run(source(30, new AtomicLong()), chunk -> chunk.size() - 1, progress -> { });
+
+        assertEquals(27, report.totals.uploaded);
+        assertEquals(3, report.totals.failed);
+    }
+
+    @Test
+    public void canBeCancelledFromTheListener() throws Exception {
+        RiskImport importer = new RiskImport(config(null, 2, 10, 10));
+        List<RiskImport.Progress> updates = new ArrayList<>();
+
+        RiskImport.Report report = importer.run(source(100000, new AtomicLong()), List::size, progress -> {
+            updates.add(progress);
+            if (progress.read >= 50) {
+                importer.cancel();
+            }
+        });
+
+        assertTrue(report.cancelled);
+        assertTrue(report.totals.read < 1000);
+    }
+
+    private RiskImport.Report run(RiskImport.Config config, RiskImport.Source source) throws Exception {
+        return new RiskImport(config).run(source, chunk -> {
+            uploaded.addAll(chunk);
+            chunkSizes.add(chunk.size());
+            return chunk.size();
+        }, progress -> { });
+    }
+
+    private static RiskImport.Config config(RiskProximityIndex existing, int threads, int batchSize, int chunkSize) {
+        return new RiskImport.Config(CATEGORY_IDS, CATEGORY_NAMES, CATEGORY_LABELS, existing,
+            RiskImport.DEFAULT_DEDUPE_RADIUS_METERS, threads, batchSize, chunkSize, 2);
+    }
+
+    // count risques valides espacés de ~110 m ; read compte les lignes lues
+    private static RiskImport.Source source(int count, AtomicLong read) {
+        return new RiskImport.Source() {
+            private int next;
+
+            @Override
+            public RiskImport.Row next() {
+                if (next == count) {
+                    return null;
+                }
+                next++;
+                read.incrementAndGet();
+                return new RiskImport.Row(next, "R" + next, null, "naturel", "faible",
+                    Double.toString(45 + next * 0.001), "4.0", null);
+            }
+
+            @Override
+            public String positionLabel() {
+                return "ligne";
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
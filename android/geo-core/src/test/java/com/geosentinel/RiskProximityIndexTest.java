@@ -0,0 +1,93 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class RiskProximityIndexTest {
+
+    @Test
+    public void queryMatchesLinearScan() {
+        RiskCacheFile.Snapshot risks = TestData.risks(5000, 0.05, 42);
+        RiskProximityIndex index = risks.toIndex();
+        Random random = new Random(7);
+        int[] expected = new int[risks.size()];
+        int[] actual = new int[risks.size()];
+
+        for (int q = 0; q < 200; q++) {
+            double lat = TestData.LYON_LAT + (random.nextDouble() * 2 - 1) * 0.05;
+            double lon = TestData.LYON_LON + (random.nextDouble() * 2 - 1) * 0.05;
+            double radius = 50 + random.nextDouble() * 2000;
+
+            int expectedCount = RiskProximityIndex.linearScan(risks.latitudes, risks.longitudes,
+                lat, lon, radius, expected);
+            int actualCount = index.queryWithin(lat, lon, radius, actual, null);
+
+            int[] a = Arrays.copyOf(expected, expectedCount);
+            int[] b = Arrays.copyOf(actual, actualCount);
+            Arrays.sort(b);
+            assertArrayEquals("requête " + q, a, b);
+        }
+    }
+
+    @Test
+    public void returnsDistancesAlongsideIndices() {
+        RiskCacheFile.Snapshot risks = TestData.risks(500, 0.02, 1);
+        RiskProximityIndex index = risks.toIndex();
+        int[] found = new int[500];
+        double[] distances = new double[500];
+
+        int count = index.queryWithin(TestData.LYON_LAT, TestData.LYON_LON, 1500, found, distances);
+
+        assertTrue(count > 0);
+        for (int i = 0; i < count; i++) {
+            double expected = GeoMath.haversineMeters(TestData.LYON_LAT, TestData.LYON_LON,
+                index.getLatitude(found[i]), index.getLongitude(found[i]));
+            assertEquals(expected, distances[i], 1e-9);
+            assertTrue(distances[i] <= 1500);
+        }
+    }
+
+    @Test
+    public void stopsAtOutputCapacity() {
+        RiskCacheFile.Snapshot risks = TestData.risks(1000, 0.001, 3);
+        int[] found = new int[10];
+
+        assertEquals(10, risks.toIndex().queryWithin(TestData.LYON_LAT, TestData.LYON_LON, 5000, found, null));
+    }
+
+    @Test
+    public void nearestDistanceMatchesBruteForce() {
+        RiskCacheFile.Snapshot risks = TestData.risks(2000, 0.05, 11);
+        RiskProximityIndex index = risks.toIndex();
+        Random random = new Random(5);
+
+        for (int q = 0; q < 100; q++) {
+            double lat = TestData.LYON_LAT + (random.nextDouble() * 2 - 1) * 0.06;
+            double lon = TestData.LYON_LON + (random.nextDouble() * 2 - 1) * 0.06;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < risks.size(); i++) {
+                best = Math.min(best, GeoMath.haversineMeters(lat, lon, risks.latitudes[i], risks.longitudes[i]));
+            }
+            double expected = best <= 800 ? best : Double.POSITIVE_INFINITY;
+            assertEquals(expected, index.nearestDistance(lat, lon, 800), 1e-9);
+        }
+    }
+
+    @Test
+    public void emptyIndexFindsNothing() {
+        RiskProximityIndex index = new RiskProximityIndex(new String[0], new double[0], new double[0]);
+
+        assertEquals(0, index.queryWithin(45, 4, 1000, new int[4], null));
+        assertEquals(Double.POSITIVE_INFINITY, index.nearestDistance(45, 4, 1000), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMismatchedArrays() {
+        new RiskProximityIndex(new String[] { "a" }, new double[] { 1, 2 }, new double[] { 1 });
+    }
+}
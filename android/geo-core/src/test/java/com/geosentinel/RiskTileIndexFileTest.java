@@ -0,0 +1,66 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RiskTileIndexFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripsTiles() throws IOException {
+        List<RiskTileIndexFile.Tile> written = Arrays.asList(
+            new RiskTileIndexFile.Tile(2715, 3696, "\"42-310\"", 1760000000000L, 18234),
+            new RiskTileIndexFile.Tile(2715, 3697, null, 1760000005000L, 0),
+            new RiskTileIndexFile.Tile(-1, -20, "W/\"é\"", 0, 7)
+        );
+        File file = new File(folder.getRoot(), "risk_tiles.bin");
+
+        RiskTileIndexFile.write(file, written);
+        List<RiskTileIndexFile.Tile> read = RiskTileIndexFile.read(file);
+
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            RiskTileIndexFile.Tile a = written.get(i);
+            RiskTileIndexFile.Tile b = read.get(i);
+            assertEquals(a.row, b.row);
+            assertEquals(a.col, b.col);
+            assertEquals(a.etag, b.etag);
+            assertEquals(a.fetchedAt, b.fetchedAt);
+            assertEquals(a.bytes, b.bytes);
+        }
+        assertNull(read.get(1).etag);
+    }
+
+    @Test
+    public void replacesThePreviousIndex() throws IOException {
+        File file = new File(folder.getRoot(), "risk_tiles.bin");
+        RiskTileIndexFile.write(file, Arrays.asList(new RiskTileIndexFile.Tile(1, 1, "a", 1, 1)));
+
+        RiskTileIndexFile.write(file, Collections.<RiskTileIndexFile.Tile>emptyList());
+
+        assertTrue(RiskTileIndexFile.read(file).isEmpty());
+        assertTrue(!new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFiles() throws IOException {
+        File file = folder.newFile("other.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        }
+
+        RiskTileIndexFile.read(file);
+    }
+}
@@ -0,0 +1,111 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class RiskTileStoreTest {
+    private static final int ROW = RiskTileStore.tileRow(TestData.LYON_LAT);
+    private static final int COL = RiskTileStore.tileCol(TestData.LYON_LON);
+
+    @Test
+    public void keepsOnlyTheRisksInsideTheTile() {
+        RiskTileStore store = new RiskTileStore();
+        RiskCacheFile.Snapshot received = TestData.risks(500, 0.1, 1);
+
+        int kept = store.put(ROW, COL, received, "\"v1\"", 1000, 4096);
+
+        RiskCacheFile.Snapshot risks = store.get(ROW, COL).risks;
+        assertEquals(risks.size(), kept);
+        assertTrue(kept > 0 && kept < received.size());
+        for (int i = 0; i < risks.size(); i++) {
+            assertEquals(ROW, RiskTileStore.tileRow(risks.latitudes[i]));
+            assertEquals(COL, RiskTileStore.tileCol(risks.longitudes[i]));
+        }
+        assertEquals("\"v1\"", store.etag(ROW, COL));
+        assertNull(store.etag(ROW + 1, COL));
+    }
+
+    @Test
+    public void revalidatesOnlyKeptTiles() {
+        RiskTileStore store = new RiskTileStore();
+        int kept = store.put(ROW, COL, TestData.risks(200, 0.05, 2), "\"v1\"", 1000, 4096);
+
+        assertEquals(kept, store.revalidate(ROW, COL, 5000));
+        assertEquals(5000, store.get(ROW, COL).fetchedAt);
+        assertEquals(4096, store.get(ROW, COL).bytes);
+        assertEquals(-1, store.revalidate(ROW + 1, COL, 5000));
+    }
+
+    @Test
+    public void mergesTheZoneTilesWithoutDuplicates() {
+        RiskTileStore store = new RiskTileStore();
+        RiskCacheFile.Snapshot received = TestData.risks(2000, 0.1, 3);
+        int[] rows = new int[9];
+        int[] cols = new int[9];
+        int total = 0;
+        for (int i = 0; i < 9; i++) {
+            rows[i] = ROW - 1 + i / 3;
+            cols[i] = COL - 1 + i % 3;
+            // Chaque tuile reçoit la réponse complète, comme le cercle circonscrit qui déborde
+            total += store.put(rows[i], cols[i], received, null, 1000, 0);
+        }
+
+        RiskCacheFile.Snapshot zone = store.merge(rows, cols, TestData.LYON_LAT, TestData.LYON_LON, 2000);
+
+        assertEquals(total, zone.size());
+        Set<String> ids = new HashSet<>(Arrays.asList(zone.ids));
+        assertEquals(zone.size(), ids.size());
+        assertEquals(2000, zone.savedAt);
+        assertEquals(zone.size(), zone.toIndex().size());
+    }
+
+    @Test
+    public void retainsOnlyTheListedTilesAndReportsMissingOnes() {
+        RiskTileStore store = new RiskTileStore();
+        RiskCacheFile.Snapshot received = TestData.risks(100, 0.1, 4);
+        store.put(ROW, COL, received, null, 1000, 0);
+        store.put(ROW, COL + 1, received, null, 1000, 0);
+
+        store.retain(new int[] { ROW, ROW }, new int[] { COL, COL + 5 });
+
+        assertEquals(1, store.size());
+        List<int[]> missing = store.missing(new int[] { ROW, ROW }, new int[] { COL, COL + 1 });
+        assertEquals(1, missing.size());
+        assertEquals(COL + 1, missing.get(0)[1]);
+    }
+
+    @Test
+    public void restoresTheTilesFromTheZoneAndItsIndex() {
+        RiskTileStore store = new RiskTileStore();
+        RiskCacheFile.Snapshot received = TestData.risks(1000, 0.1, 5);
+        int[] rows = { ROW, ROW, ROW + 40 };
+        int[] cols = { COL, COL + 1, COL };
+        for (int i = 0; i < rows.length; i++) {
+            store.put(rows[i], cols[i], received, "\"t" + i + "\"", 1000 + i, 100 + i);
+        }
+        RiskCacheFile.Snapshot zone = store.merge(rows, cols, TestData.LYON_LAT, TestData.LYON_LON, 2000);
+        List<RiskTileIndexFile.Tile> index = store.index(rows, cols);
+
+        RiskTileStore restored = new RiskTileStore();
+        restored.restore(zone, index);
+
+        assertEquals(3, restored.size());
+        for (int i = 0; i < rows.length; i++) {
+            RiskTileStore.Tile before = store.get(rows[i], cols[i]);
+            RiskTileStore.Tile after = restored.get(rows[i], cols[i]);
+            assertEquals(before.etag, after.etag);
+            assertEquals(before.fetchedAt, after.fetchedAt);
+            assertEquals(before.bytes, after.bytes);
+            assertEquals(new HashSet<>(Arrays.asList(before.risks.ids)), new HashSet<>(Arrays.asList(after.risks.ids)));
+        }
+        // Tuile loin des risques : vide, mais toujours valide
+        assertEquals(0, restored.get(ROW + 40, COL).risks.size());
+    }
+}
@@ -0,0 +1,126 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RiskWireClientTest {
+    private final RiskCacheFile.Snapshot risks = TestData.risks(200, 0.05, 5);
+    private final RiskWireClient client = new RiskWireClient(2000, 2000);
+    private final AtomicReference<String> lastQuery = new AtomicReference<>();
+    private final AtomicReference<String> lastAccept = new AtomicReference<>();
+    private HttpServer server;
+    private String baseUrl;
+    private boolean supportsBinary;
+    private int forcedStatus;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/risks/nearby", this::handle);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void negotiatesTheBinaryFormat() throws IOException {
+        supportsBinary = true;
+
+        RiskWireClient.Response response = client.fetchNearby(baseUrl, "jwt", 45.764, 4.8357, 2.5, null, 11L);
+
+        assertTrue(response.binary);
+        assertEquals(risks.size(), response.risks.size());
+        assertEquals("\"v1\"", response.etag);
+        assertEquals(11L, response.risks.savedAt);
+        assertTrue(lastAccept.get().startsWith(RiskWireFormat.CONTENT_TYPE));
+        assertTrue(lastQuery.get().contains("fields=" + RiskWireFormat.FIELDS));
+        assertTrue(lastQuery.get().contains("radius_km=2.5"));
+    }
+
+    @Test
+    public void fallsBackToJsonWhenTheServerIgnoresTheFormat() throws IOException {
+        supportsBinary = false;
+
+        RiskWireClient.Response response = client.fetchNearby(baseUrl, "jwt", 45.764, 4.8357, 2.5, null, 0L);
+
+        assertFalse(response.binary);
+        assertArrayEquals(risks.ids, response.risks.ids);
+        assertArrayEquals(risks.categories, response.risks.categories);
+        assertEquals(45.764, response.risks.centerLat, 0.0);
+    }
+
+    @Test
+    public void binaryIsSmallerOnTheWire() throws IOException {
+        supportsBinary = true;
+        int binary = client.fetchNearby(baseUrl, "jwt", 45.764, 4.8357, 2.5, null, 0L).bytes;
+        supportsBinary = false;
+        int json = client.fetchNearby(baseUrl, "jwt", 45.764, 4.8357, 2.5, null, 0L).bytes;
+
+        assertTrue("binaire " + binary + " o, JSON " + json + " o", binary * 8 < json);
+    }
+
+    @Test
+    public void reportsNotModified() throws IOException {
+        forcedStatus = 304;
+
+        RiskWireClient.Response response = client.fetchNearby(baseUrl, "jwt", 45.764, 4.8357, 2.5, "\"v1\"", 0L);
+
+        assertTrue(response.notModified);
+        assertNull(response.risks);
+        assertEquals("\"v1\"", response.etag);
+    }
+
+    @Test
+    public void surfacesUnauthorizedSeparately() throws IOException {
+        forcedStatus = 401;
+
+        try {
+            client.fetchNearby(baseUrl, "expired", 45.764, 4.8357, 2.5, null, 0L);
+            fail("UnauthorizedException attendue");
+        } catch (RiskWireClient.UnauthorizedException expected) {
+            // attendu
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        lastQuery.set(exchange.getRequestURI().getQuery());
+        lastAccept.set(exchange.getRequestHeaders().getFirst("Accept"));
+        if (forcedStatus != 0) {
+            exchange.sendResponseHeaders(forcedStatus, -1);
+            exchange.close();
+            return;
+        }
+        byte[] body;
+        if (supportsBinary && lastAccept.get().contains(RiskWireFormat.CONTENT_TYPE)) {
+            body = RiskWireFormat.encode(risks);
+            exchange.getResponseHeaders().set("Content-Type", RiskWireFormat.CONTENT_TYPE);
+        } else {
+            body = TestData.fullRisksJson(risks).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        }
+        exchange.getResponseHeaders().set("ETag", "\"v1\"");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
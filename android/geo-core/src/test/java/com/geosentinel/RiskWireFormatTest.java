@@ -0,0 +1,125 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class RiskWireFormatTest {
+
+    @Test
+    public void roundTripsWithMicroDegreePrecision() throws IOException {
+        RiskCacheFile.Snapshot written = TestData.risks(1000, 0.2, 4);
+
+        RiskCacheFile.Snapshot read = RiskWireFormat.decode(ByteBuffer.wrap(RiskWireFormat.encode(written)), 42L);
+
+        // L'encodage trie par latitude : comparaison par id
+        assertEquals(written.size(), read.size());
+        Map<String, Integer> byId = new HashMap<>();
+        for (int i = 0; i < read.size(); i++) {
+            byId.put(read.ids[i], i);
+        }
+        for (int i = 0; i < written.size(); i++) {
+            int j = byId.get(written.ids[i]);
+            assertEquals(written.titles[i], read.titles[j]);
+            assertEquals(written.categories[i], read.categories[j]);
+            assertEquals(written.severities[i], read.severities[j]);
+            assertEquals(written.latitudes[i], read.latitudes[j], 5e-7);
+            assertEquals(written.longitudes[i], read.longitudes[j], 5e-7);
+        }
+        assertEquals(written.centerLat, read.centerLat, 5e-7);
+        assertEquals(written.centerLon, read.centerLon, 5e-7);
+        assertEquals(42L, read.savedAt);
+    }
+
+    @Test
+    public void roundTripsAnEmptyResponse() throws IOException {
+        RiskCacheFile.Snapshot read = RiskWireFormat.decode(
+            ByteBuffer.wrap(RiskWireFormat.encode(TestData.risks(0, 0.01, 0))), 0L);
+
+        assertEquals(0, read.size());
+    }
+
+    @Test
+    public void handlesNegativeCoordinates() throws IOException {
+        RiskCacheFile.Snapshot written = new RiskCacheFile.Snapshot(
+            new String[] { "a", "b" }, new String[] { "A", "B" }, new String[] { "naturel", "naturel" },
+            new String[] { "critique", "faible" }, new double[] { -33.8688, -34.0 },
+            new double[] { -151.2093, 179.999999 }, -33.9, -151.0, 0);
+
+        RiskCacheFile.Snapshot read = RiskWireFormat.decode(ByteBuffer.wrap(RiskWireFormat.encode(written)), 0L);
+
+        assertArrayEquals(new String[] { "b", "a" }, read.ids);
+        assertArrayEquals(new double[] { -34.0, -33.8688 }, read.latitudes, 5e-7);
+        assertArrayEquals(new double[] { 179.999999, -151.2093 }, read.longitudes, 5e-7);
+    }
+
+    @Test
+    public void isMuchSmallerThanFullJson() {
+        RiskCacheFile.Snapshot risks = TestData.risks(5000, 0.2, 8);
+
+        int binary = RiskWireFormat.encode(risks).length;
+        int json = TestData.fullRisksJson(risks).getBytes(StandardCharsets.UTF_8).length;
+
+        assertTrue("binaire " + binary + " o, JSON " + json + " o", binary * 8 < json);
+    }
+
+    @Test
+    public void rejectsTruncatedResponses() {
+        byte[] encoded = RiskWireFormat.encode(TestData.risks(50, 0.01, 3));
+
+        expectIOException(Arrays.copyOf(encoded, encoded.length - 3));
+        expectIOException(Arrays.copyOf(encoded, 4));
+    }
+
+    @Test
+    public void rejectsTrailingBytesAndForeignPayloads() {
+        byte[] encoded = RiskWireFormat.encode(TestData.risks(50, 0.01, 3));
+
+        expectIOException(Arrays.copyOf(encoded, encoded.length + 1));
+        expectIOException("[{\"id\":\"a\"}]".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void projectsFullJsonWithNestedCategory() throws IOException {
+        RiskCacheFile.Snapshot written = TestData.risks(100, 0.05, 6);
+
+        RiskCacheFile.Snapshot read = RiskWireFormat.decodeJson(
+            TestData.fullRisksJson(written), 45.0, 4.0, 7L);
+
+        assertArrayEquals(written.ids, read.ids);
+        assertArrayEquals(written.titles, read.titles);
+        assertArrayEquals(written.categories, read.categories);
+        assertArrayEquals(written.severities, read.severities);
+        assertArrayEquals(written.latitudes, read.latitudes, 0.0);
+        assertEquals(45.0, read.centerLat, 0.0);
+        assertEquals(7L, read.savedAt);
+    }
+
+    @Test
+    public void readsDenormalizedCategoryNames() throws IOException {
+        RiskCacheFile.Snapshot read = RiskWireFormat.decodeJson(
+            "[{\"id\":\"a\",\"title\":\"A\",\"category\":\"sanitaire\",\"severity\":\"élevé\","
+                + "\"latitude\":45.1,\"longitude\":4.2}]", 45.0, 4.0, 0L);
+
+        assertEquals("sanitaire", read.categories[0]);
+        assertEquals("élevé", read.severities[0]);
+    }
+
+    private static void expectIOException(byte[] bytes) {
+        try {
+            RiskWireFormat.decode(ByteBuffer.wrap(bytes), 0L);
+            fail("IOException attendue");
+        } catch (IOException expected) {
+            // attendu
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class SettingsStoreTest {
+
+    private static LocationSettings settings(int apiCallDelayMinutes) {
+        return new LocationSettings("pieds", apiCallDelayMinutes, 30, 5, 100, false, true);
+    }
+
+    @Test
+    public void rapidWritesPersistOnlyTheLatestSnapshot() {
+        List<Runnable> queued = new ArrayList<>();
+        List<LocationSettings> persisted = new ArrayList<>();
+        SettingsStore store = new SettingsStore(null, persisted::add, queued::add);
+
+        store.set(settings(1));
+        store.set(settings(2));
+        store.set(settings(3));
+        assertEquals(3, store.get().apiCallDelayMinutes);
+        assertEquals(1, queued.size());
+
+        queued.remove(0).run();
+
+        assertEquals(List.of(settings(3)), persisted);
+        assertEquals(1, store.getWriteCount());
+    }
+
+    @Test
+    public void clearPersistsNullAndUnchangedWritesAreIgnored() {
+        List<Runnable> queued = new ArrayList<>();
+        List<LocationSettings> persisted = new ArrayList<>();
+        List<LocationSettings> notified = new ArrayList<>();
+        SettingsStore store = new SettingsStore(settings(5), persisted::add, queued::add);
+        store.addListener(notified::add);
+
+        store.set(settings(5));
+        assertTrue(queued.isEmpty());
+        store.clear();
+        queued.remove(0).run();
+
+        assertNull(store.get());
+        assertEquals(1, persisted.size());
+        assertNull(persisted.get(0));
+        assertEquals(1, notified.size());
+    }
+
+    @Test
+    public void writeScheduledDuringAPersistIsNotLost() {
+        List<Runnable> queued = new ArrayList<>();
+        List<LocationSettings> persisted = new ArrayList<>();
+        SettingsStore[] store = new SettingsStore[1];
+        // Un set() arrive pendant l'écriture disque de l'état précédent
+        store[0] = new SettingsStore(null, settings -> {
+            persisted.add(settings);
+            if (persisted.size() == 1) {
+                store[0].set(settings(2));
+            }
+        }, queued::add);
+
+        store[0].set(settings(1));
+        queued.remove(0).run();
+        assertEquals(1, queued.size());
+        queued.remove(0).run();
+
+        assertEquals(List.of(settings(1), settings(2)), persisted);
+    }
+
+    @Test
+    public void concurrentWritersLeaveTheCurrentSnapshotOnDisk() throws Exception {
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        LocationSettings[] disk = new LocationSettings[1];
+        SettingsStore store = new SettingsStore(null, settings -> disk[0] = settings, writer);
+        Thread[] threads = new Thread[4];
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t * 1000;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= 500; i++) {
+                    store.set(settings(offset + i));
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.shutdown();
+        assertTrue(writer.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertSame(store.get(), disk[0]);
+    }
+}
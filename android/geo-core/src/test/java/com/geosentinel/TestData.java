@@ -0,0 +1,102 @@
+package com.geosentinel;
+
+import java.util.Random;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/** Jeux de données déterministes partagés par les tests et les benchmarks. */
+final class TestData {
+    static final double LYON_LAT = 45.764;
+    static final double LYON_LON = 4.8357;
+
+    private TestData() {
+    }
+
+    /** Latitude à meters mètres au nord de Lyon. */
+    static double north(double meters) {
+        return LYON_LAT + GeoMath.latitudeDelta(meters);
+    }
+
+    /** Longitude à meters mètres à l'est de Lyon, à la latitude de Lyon. */
+    static double east(double meters) {
+        return LYON_LON + GeoMath.longitudeDelta(LYON_LAT, GeoMath.latitudeDelta(meters));
+    }
+
+    /** count risques répartis uniformément dans un carré de demi-côté spreadDeg autour de Lyon. */
+    static RiskCacheFile.Snapshot risks(int count, double spreadDeg, long seed) {
+        Random random = new Random(seed);
+        String[] categories = { "naturel", "technologique", "sanitaire", null };
+        String[] severities = { "faible", "modéré", "élevé", "critique", null };
+        String[] ids = new String[count];
+        String[] titles = new String[count];
+        String[] riskCategories = new String[count];
+        String[] riskSeverities = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "risk-" + i;
+            titles[i] = i % 7 == 0 ? null : "Risque n°" + i + " – é";
+            riskCategories[i] = categories[i % categories.length];
+            riskSeverities[i] = severities[i % severities.length];
+            latitudes[i] = LYON_LAT + (random.nextDouble() * 2 - 1) * spreadDeg;
+            longitudes[i] = LYON_LON + (random.nextDouble() * 2 - 1) * spreadDeg;
+        }
+        return new RiskCacheFile.Snapshot(ids, titles, riskCategories, riskSeverities,
+            latitudes, longitudes, LYON_LAT, LYON_LON, 1700000000000L);
+    }
+
+    /**
+     * Réponse JSON /risks/nearby d'un serveur sans projection : Risk complets,
+     * description et catégorie imbriquée comprises.
+     */
+    static String fullRisksJson(RiskCacheFile.Snapshot snapshot) {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < snapshot.size(); i++) {
+            JSONObject category = new JSONObject()
+                .put("id", "cat-" + snapshot.categories[i])
+                .put("name", snapshot.categories[i] != null ? snapshot.categories[i] : JSONObject.NULL)
+                .put("label", "Catégorie " + snapshot.categories[i])
+                .put("color", "#10B981");
+            array.put(new JSONObject()
+                .put("id", snapshot.ids[i])
+                .put("title", snapshot.titles[i] != null ? snapshot.titles[i] : JSONObject.NULL)
+                .put("description", "Signalé par une équipe terrain, à vérifier lors du prochain passage.")
+                .put("categoryId", "cat-" + snapshot.categories[i])
+                .put("category", category)
+                .put("severity", snapshot.severities[i] != null ? snapshot.severities[i] : JSONObject.NULL)
+                .put("latitude", snapshot.latitudes[i])
+                .put("longitude", snapshot.longitudes[i])
+                .put("tenantId", "tenant-1")
+                .put("creatorId", "user-1")
+                .put("createdAt", "2024-05-01T08:00:00.000Z")
+                .put("updatedAt", "2024-05-01T08:00:00.000Z"));
+        }
+        return array.toString();
+    }
+
+    /** Carré [lon0, lon0 + size] x [lat0, lat0 + size], en coordonnées entrelacées lon, lat. */
+    static double[] square(double lon0, double lat0, double size) {
+        return new double[] {
+            lon0, lat0,
+            lon0 + size, lat0,
+            lon0 + size, lat0 + size,
+            lon0, lat0 + size,
+        };
+    }
+
+    /**
+     * Grille de rows x cols communes carrées de côté sizeDeg, adjacentes, à partir de (lat0, lon0).
+     * Codes "c<ligne>_<colonne>".
+     */
+    static CommuneBoundary[] communeGrid(double lat0, double lon0, int rows, int cols, double sizeDeg) {
+        CommuneBoundary[] communes = new CommuneBoundary[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                double[] ring = square(lon0 + c * sizeDeg, lat0 + r * sizeDeg, sizeDeg);
+                communes[r * cols + c] = new CommuneBoundary("c" + r + "_" + c, "Commune " + r + "/" + c,
+                    new double[][] { ring }, "[]", 0L);
+            }
+        }
+        return communes;
+    }
+}
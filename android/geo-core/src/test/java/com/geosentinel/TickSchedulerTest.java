@@ -0,0 +1,250 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TickSchedulerTest {
+
+    /** Executor à horloge manuelle : les tâches ne s'exécutent que dans advanceTo(). */
+    private static final class ManualExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+        final long[] now;
+        final List<Task> tasks = new ArrayList<>();
+
+        ManualExecutor(long[] now) {
+            this.now = now;
+        }
+
+        void advanceTo(long time) {
+            while (true) {
+                Task next = null;
+                for (Task task : tasks) {
+                    if (!task.cancelled && task.runAt <= time && (next == null || task.runAt < next.runAt)) {
+                        next = task;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                now[0] = Math.max(now[0], next.runAt);
+                next.runnable.run();
+            }
+            now[0] = time;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            Task task = new Task(command, now[0] + unit.toMillis(delay));
+            tasks.add(task);
+            return task;
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    private static final class Task implements ScheduledFuture<Object> {
+        final Runnable runnable;
+        final long runAt;
+        boolean cancelled;
+
+        Task(Runnable runnable, long runAt) {
+            this.runnable = runnable;
+            this.runAt = runAt;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(runAt, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private final long[] now = { 1000 };
+    private final ManualExecutor executor = new ManualExecutor(now);
+    private final List<Long> ticks = new ArrayList<>();
+    private long taskDurationMs;
+    private boolean busy;
+
+    private final TickScheduler scheduler = new TickScheduler(executor, () -> now[0], () -> busy, () -> {
+        ticks.add(now[0]);
+        now[0] += taskDurationMs;
+    });
+
+    @Test
+    public void ticksStayOnTheGridWhateverTheTaskDuration() {
+        taskDurationMs = 300;
+        scheduler.start(1000);
+
+        executor.advanceTo(4500);
+
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L), ticks);
+        assertEquals(0, scheduler.getStats().snapshot().maxLatenessMs);
+    }
+
+    @Test
+    public void busyTicksAreCoalesced() {
+        scheduler.start(1000);
+        executor.advanceTo(1000);
+        busy = true;
+        executor.advanceTo(3000);
+        busy = false;
+        executor.advanceTo(4000);
+
+        assertEquals(List.of(1000L, 4000L), ticks);
+        assertEquals(2, scheduler.getStats().snapshot().coalesced);
+    }
+
+    @Test
+    public void missedSlotsAfterSleepRunOnlyOnce() {
+        scheduler.start(1000);
+        executor.advanceTo(1000);
+        // Veille : l'échéance de 2000 est exécutée à 5500
+        now[0] = 5500;
+        executor.advanceTo(5500);
+        executor.advanceTo(6000);
+
+        assertEquals(List.of(1000L, 5500L, 6000L), ticks);
+        TickStats.Snapshot stats = scheduler.getStats().snapshot();
+        assertEquals(3, stats.skipped);
+        assertEquals(3500, stats.maxLatenessMs);
+    }
+
+    @Test
+    public void setIntervalRealignsFromTheLastTick() {
+        scheduler.start(1000);
+        executor.advanceTo(1000);
+        now[0] = 1200;
+        scheduler.setInterval(5000);
+
+        executor.advanceTo(11000);
+
+        assertEquals(List.of(1000L, 6000L, 11000L), ticks);
+        assertEquals(5000, scheduler.getIntervalMs());
+    }
+
+    @Test
+    public void wakeUpRunsOnlyADueTick() {
+        List<Long> alarms = new ArrayList<>();
+        scheduler.setWakeupListener(alarms::add);
+        scheduler.start(1000);
+        executor.advanceTo(1000);
+
+        assertFalse(scheduler.wakeUp());
+        now[0] = 2000;
+        assertTrue(scheduler.wakeUp());
+        executor.advanceTo(2000);
+
+        assertEquals(List.of(1000L, 2000L), ticks);
+        assertEquals(List.of(1000L, 2000L, 2000L, 3000L), alarms);
+    }
+
+    @Test
+    public void stopCancelsThePendingTick() {
+        scheduler.start(1000);
+        executor.advanceTo(1000);
+        scheduler.stop();
+
+        executor.advanceTo(5000);
+
+        assertEquals(1, ticks.size());
+        assertFalse(scheduler.isRunning());
+    }
+
+    @Test
+    public void failingTaskKeepsTheLoopAlive() {
+        TickScheduler failing = new TickScheduler(executor, () -> now[0], () -> false, () -> {
+            ticks.add(now[0]);
+            throw new IllegalStateException("tick");
+        });
+        failing.start(1000);
+
+        executor.advanceTo(3000);
+
+        assertEquals(3, ticks.size());
+        assertEquals(3, failing.getStats().snapshot().failures);
+    }
+}
@@ -0,0 +1,166 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class TokenBrokerTest {
+    private static final long MARGIN_MS = 60000;
+
+    /** Stockage mémoire, équivalent des SharedPreferences. */
+    private static final class MemoryStore implements TokenBroker.Store {
+        volatile String access;
+        volatile String refresh;
+
+        MemoryStore(String access, String refresh) {
+            this.access = access;
+            this.refresh = refresh;
+        }
+
+        @Override
+        public String getAccessToken() {
+            return access;
+        }
+
+        @Override
+        public String getRefreshToken() {
+            return refresh;
+        }
+
+        @Override
+        public void saveTokens(String accessToken, String refreshToken) {
+            access = accessToken;
+            refresh = refreshToken;
+        }
+    }
+
+    private final long[] now = { 1000000 };
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final CountDownLatch refreshStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseRefresh = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+
+    /** /auth/refresh simulé, bloqué jusqu'à releaseRefresh. */
+    private final TokenBroker.Refresher slowRefresher = refreshToken -> {
+        int n = refreshes.incrementAndGet();
+        refreshStarted.countDown();
+        try {
+            releaseRefresh.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        return new TokenBroker.Tokens(jwt(now[0] + 3600000, "r" + n), "refresh-" + n);
+    };
+
+    @After
+    public void tearDown() {
+        releaseRefresh.countDown();
+        callers.shutdownNow();
+    }
+
+    /** JWT minimal dont seul le claim exp (en ms ici, converti en s) est lu. */
+    private static String jwt(long expiresAtMs, String subject) {
+        String payload = "{\"sub\":\"" + subject + "\",\"exp\":" + (expiresAtMs / 1000) + "}";
+        return "eyJhbGciOiJIUzI1NiJ9."
+            + Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+            + ".signature";
+    }
+
+    @Test
+    public void concurrentCallersShareOneRefresh() throws Exception {
+        MemoryStore store = new MemoryStore(jwt(now[0] + 1000, "expirant"), "refresh-0");
+        TokenBroker broker = new TokenBroker(store, slowRefresher, () -> now[0], MARGIN_MS);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(broker::getAccessToken));
+        }
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+        releaseRefresh.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals(jwt(now[0] + 3600000, "r1"), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, refreshes.get());
+        assertEquals("refresh-1", store.refresh);
+    }
+
+    @Test
+    public void validTokenIsServedWhileARefreshIsInFlight() throws Exception {
+        String valid = jwt(now[0] + 10 * 60000, "valide");
+        MemoryStore store = new MemoryStore(valid, "refresh-0");
+        TokenBroker broker = new TokenBroker(store, slowRefresher, () -> now[0], MARGIN_MS);
+
+        // Refresh anticipé du service (horizon plus long que la validité restante) bloqué sur le réseau
+        Future<Boolean> ahead = callers.submit(() -> broker.refreshIfExpiringWithin(30 * 60000));
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+
+        // Chemin rapide : ni attente du verrou ni du refresh en cours
+        assertEquals(valid, callers.submit(broker::getAccessToken).get(1, TimeUnit.SECONDS));
+        assertEquals(valid, broker.peekValidToken());
+
+        releaseRefresh.countDown();
+        assertTrue(ahead.get(5, TimeUnit.SECONDS));
+        assertEquals(1, broker.getRefreshCount());
+    }
+
+    @Test
+    public void concurrentUnauthorizedRefreshOnlyOnce() throws Exception {
+        String stale = jwt(now[0] + 3600000, "révoqué");
+        MemoryStore store = new MemoryStore(stale, "refresh-0");
+        TokenBroker broker = new TokenBroker(store, slowRefresher, () -> now[0], MARGIN_MS);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(() -> broker.refreshAfterUnauthorized(stale)));
+        }
+        assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+        releaseRefresh.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals(jwt(now[0] + 3600000, "r1"), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, refreshes.get());
+    }
+
+    @Test
+    public void tokenSetFromJsReplacesTheCachedOne() throws IOException {
+        MemoryStore store = new MemoryStore(jwt(now[0] + 3600000, "a"), "refresh-0");
+        TokenBroker broker = new TokenBroker(store, slowRefresher, () -> now[0], MARGIN_MS);
+        broker.getAccessToken();
+
+        store.access = jwt(now[0] + 3600000, "b");
+
+        assertEquals(store.access, broker.getAccessToken());
+        assertEquals(0, refreshes.get());
+    }
+
+    @Test(expected = TokenBroker.SessionExpiredException.class)
+    public void expiredTokenWithoutRefreshTokenEndsTheSession() throws IOException {
+        MemoryStore store = new MemoryStore(jwt(now[0] - 1000, "expiré"), null);
+        TokenBroker broker = new TokenBroker(store, slowRefresher, () -> now[0], MARGIN_MS);
+
+        assertNull(broker.peekValidToken());
+        broker.getAccessToken();
+    }
+
+    @Test
+    public void tokenWithoutExpiryNeverExpires() {
+        assertEquals(Long.MAX_VALUE, TokenBroker.expiryMillis("opaque"));
+        assertEquals(1700000000000L, TokenBroker.expiryMillis(jwt(1700000000000L, "x")));
+    }
+}
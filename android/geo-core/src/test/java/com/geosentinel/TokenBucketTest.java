@@ -0,0 +1,34 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    @Test
+    public void allowsABurstThenOnePerInterval() {
+        TokenBucket bucket = new TokenBucket(2, 1000, 0);
+
+        assertTrue(bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0));
+        assertFalse(bucket.tryAcquire(500));
+        assertEquals(500, bucket.millisUntilAvailable(500));
+        assertTrue(bucket.tryAcquire(1000));
+        assertFalse(bucket.tryAcquire(1000));
+        // Jamais plus que la capacité, même après une longue pause
+        assertEquals(2.0, bucket.available(60000), 0.0);
+    }
+
+    @Test
+    public void clockGoingBackwardsCreditsNothing() {
+        TokenBucket bucket = new TokenBucket(1, 1000, 10000);
+
+        assertTrue(bucket.tryAcquire(10000));
+        assertFalse(bucket.tryAcquire(5000));
+        assertFalse(bucket.tryAcquire(5500));
+        assertTrue(bucket.tryAcquire(6000));
+    }
+}
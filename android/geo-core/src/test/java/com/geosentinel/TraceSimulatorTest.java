@@ -0,0 +1,280 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class TraceSimulatorTest {
+    // Trajet rectiligne vers le nord à 5 m/s pendant 1 h, un point par seconde (~18 km)
+    private static final double SPEED_MPS = 5;
+    private static final int DURATION_S = 3600;
+
+    private static GpsTrace straightTrace() {
+        List<GpsTrace.TracePoint> points = new ArrayList<>();
+        for (int s = 0; s <= DURATION_S; s++) {
+            double lat = TestData.LYON_LAT + GeoMath.latitudeDelta(s * SPEED_MPS);
+            points.add(new GpsTrace.TracePoint(s * 1000L, lat, TestData.LYON_LON, SPEED_MPS));
+        }
+        return new GpsTrace(points);
+    }
+
+    // Un risque sur le trajet tous les kilomètres, plus des risques à 2 km à l'écart
+    private static RiskProximityIndex risksAlongTrace() {
+        int count = 34;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "r" + i;
+            latitudes[i] = TestData.LYON_LAT + GeoMath.latitudeDelta(500 + (i / 2) * 1000);
+            longitudes[i] = TestData.LYON_LON + (i % 2 == 0 ? 0 : 0.03);
+        }
+        return new RiskProximityIndex(ids, latitudes, longitudes);
+    }
+
+    private static TraceSimulator.Config config(long gpsIntervalMs, int testDelayS, boolean nativeAlerts) {
+        LocationSettings settings = new LocationSettings("velo", 3, testDelayS, 3, 100, false, nativeAlerts);
+        return new TraceSimulator.Config("gps=" + gpsIntervalMs, settings,
+            new SamplingPolicy.Fixed(gpsIntervalMs, 0), RiskAlertCooldown.DEFAULT_COOLDOWN_MS);
+    }
+
+    @Test
+    public void frequentChecksCatchEveryRisk() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+
+        TraceSimulator.Report report = simulator.run(config(1000, 1, true));
+
+        assertEquals(17, report.alertsExpected);
+        assertEquals(0, report.alertsMissed);
+        assertEquals(17, report.alertsFired);
+        assertEquals(DURATION_S + 1, report.fixesRequested);
+        assertTrue(report.timeToAlertMaxMs <= 1000);
+    }
+
+    @Test
+    public void sparseChecksMissRisks() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+
+        // 200 m de rayon traversés en 40 s : un contrôle toutes les 60 s en manque une partie
+        TraceSimulator.Report report = simulator.run(config(1000, 60, false));
+
+        assertEquals(17, report.alertsExpected);
+        assertTrue(report.alertsMissed > 0);
+        assertEquals(report.alertsExpected - report.alertsMissed, report.alertsFired);
+    }
+
+    @Test
+    public void jsChecksAreLimitedByTheTickInterval() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+
+        TraceSimulator.Report nativeReport = simulator.run(config(1000, 30, true));
+        TraceSimulator.Report jsReport = simulator.run(config(1000, 30, false));
+
+        assertEquals(0, nativeReport.alertsMissed);
+        assertEquals(0, jsReport.alertsMissed);
+        assertTrue(jsReport.timeToAlertMeanMs > nativeReport.timeToAlertMeanMs);
+        assertTrue(jsReport.timeToAlertMaxMs <= 30000);
+    }
+
+    @Test
+    public void reloadsTheCacheWhenItExpires() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+
+        TraceSimulator.Report report = simulator.run(config(1000, 10, true));
+
+        // Cache de 3 min, vérifié toutes les 10 s : rechargé à 0, 190, 380... 3420 s.
+        // 950 m parcourus entre deux appels : on ne sort jamais de la zone de 3 km.
+        assertEquals(19, report.apiCalls);
+        assertEquals(DURATION_S / 10 + 1, report.ticks);
+    }
+
+    @Test
+    public void reloadsTheCacheWhenLeavingTheZone() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+        LocationSettings settings = new LocationSettings("velo", 60, 10, 1.52, 100, false, true);
+
+        TraceSimulator.Report report = simulator.run(
+            new TraceSimulator.Config("zone", settings, new SamplingPolicy.Fixed(1000, 0), 300000));
+
+        // Rechargement au-delà de 520 m parcourus (zone - 1 km) : au tick de 110 s, puis toutes les 110 s
+        assertEquals(33, report.apiCalls);
+        assertEquals(0, report.alertsMissed);
+    }
+
+    @Test
+    public void adaptiveSamplingRequestsFewerFixes() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+        LocationSettings settings = new LocationSettings("velo", 3, 10, 3, 100, false, true);
+
+        TraceSimulator.Report fixed = simulator.run(TraceSimulator.Config.forSettings(settings, false));
+        TraceSimulator.Report adaptive = simulator.run(TraceSimulator.Config.forSettings(settings, true));
+
+        assertTrue(adaptive.fixesRequested < fixed.fixesRequested);
+        assertEquals(fixed.alertsExpected, adaptive.alertsExpected);
+        // Le premier fix arrive avant le cache : pas d'intervalle maximal tant que la distance est inconnue
+        assertEquals(0, adaptive.alertsMissed);
+    }
+
+    @Test
+    public void jsAlertsNeedOnlyOneFixPerTick() {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+        LocationSettings settings = new LocationSettings("velo", 3, 20, 3, 100, false, false);
+
+        TraceSimulator.Report fixed = simulator.run(TraceSimulator.Config.forSettings(settings, false));
+        TraceSimulator.Report perTick = simulator.run(new TraceSimulator.Config("par tick", settings,
+            new SamplingPolicy.PerTick(settings.taskIntervalMs()), RiskAlertCooldown.DEFAULT_COOLDOWN_MS));
+
+        // La tâche Headless ne lit que le dernier fix : mêmes alertes avec un fix par tick
+        assertEquals(perTick.ticks, perTick.fixesRequested);
+        assertTrue(perTick.fixesRequested < fixed.fixesRequested);
+        assertEquals(fixed.alertsFired, perTick.alertsFired);
+        assertEquals(fixed.alertsMissed, perTick.alertsMissed);
+    }
+
+    @Test
+    public void coarseBalancedFixesStillRestoreHighAccuracyNearRisks() {
+        // Un risque sur le trajet tous les 3 km : entre deux, le GPS passe en précision équilibrée
+        int count = 6;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "r" + i;
+            latitudes[i] = TestData.north(3000 * (i + 1));
+            longitudes[i] = TestData.LYON_LON;
+        }
+        TraceSimulator simulator = new TraceSimulator(straightTrace(),
+            new RiskProximityIndex(ids, latitudes, longitudes));
+        LocationSettings settings = new LocationSettings("velo", 3, 10, 3, 100, false, true);
+        SamplingPolicy policy = AdaptiveSamplingPolicy.forTourneeType("velo");
+
+        // Fixes équilibrés à 300 m de précision : refusés par le filtre (seuil 200 m), ils
+        // doivent quand même ramener la haute précision à l'approche de chaque risque
+        TraceSimulator.Report coarse = simulator.run(
+            new TraceSimulator.Config("grossier", settings, policy, 300000, false, 0, false, 300));
+        TraceSimulator.Report exact = simulator.run(
+            new TraceSimulator.Config("exact", settings, policy, 300000, false, 0, false, 0));
+
+        assertTrue(coarse.fixesRejected > 0);
+        assertEquals(0, exact.fixesRejected);
+        assertEquals(6, coarse.alertsExpected);
+        assertEquals(0, coarse.alertsMissed);
+        assertEquals(0, exact.alertsMissed);
+    }
+
+    @Test
+    public void prefetchKeepsRefreshesOffTheCriticalPath() {
+        // Voiture à 20 m/s vers le nord pendant 10 min, toujours en zone couverte par le jeu de risques.
+        // Les risques à 2,3 km à l'écart sortent du couloir
+        List<GpsTrace.TracePoint> points = new ArrayList<>();
+        for (int s = 0; s <= 600; s++) {
+            double lat = TestData.LYON_LAT + GeoMath.latitudeDelta(s * 20.0);
+            points.add(new GpsTrace.TracePoint(s * 1000L, lat, TestData.LYON_LON, 20));
+        }
+        // Risques sur l'axe à mi-chemin entre deux fixes, et d'autres à 150 m du trajet
+        int count = 28;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "r" + i;
+            latitudes[i] = TestData.LYON_LAT + GeoMath.latitudeDelta(625 + (i / 2) * 1000);
+            longitudes[i] = TestData.LYON_LON
+                + (i % 2 == 0 ? 0 : GeoMath.longitudeDelta(TestData.LYON_LAT, GeoMath.latitudeDelta(150)));
+        }
+        TraceSimulator simulator = new TraceSimulator(new GpsTrace(points),
+            new RiskProximityIndex(ids, latitudes, longitudes));
+        LocationSettings settings = new LocationSettings("voiture", 3, 10, 3, 100, false, true);
+        SamplingPolicy policy = new SamplingPolicy.Fixed(1000, 0);
+
+        TraceSimulator.Report circle = simulator.run(
+            new TraceSimulator.Config("cercle", settings, policy, 300000, false));
+        TraceSimulator.Report corridor = simulator.run(
+            new TraceSimulator.Config("couloir", settings, policy, 300000, true));
+
+        // Sans préchargement, chaque rechargement attend la sortie de zone
+        assertEquals(0, circle.prefetches);
+        assertEquals(circle.apiCalls, circle.blockingRefreshes);
+        // Avec : seul le premier chargement bloque, les suivants sont anticipés
+        assertEquals(1, corridor.blockingRefreshes);
+        assertTrue(corridor.prefetches > 0);
+        assertTrue(corridor.apiCalls <= circle.apiCalls);
+        assertTrue(corridor.risksDownloaded < circle.risksDownloaded);
+        assertEquals(0, corridor.alertsMissed);
+        assertEquals(circle.alertsFired, corridor.alertsFired);
+    }
+
+    @Test
+    public void etaAlertsWarnBeforeFastMovingToursReachTheRisk() {
+        // Voiture à 25 m/s, un fix toutes les 10 s : 250 m entre deux fixes pour un diamètre de 200 m
+        List<GpsTrace.TracePoint> points = new ArrayList<>();
+        for (int s = 0; s <= 600; s++) {
+            double lat = TestData.LYON_LAT + GeoMath.latitudeDelta(s * 25.0);
+            points.add(new GpsTrace.TracePoint(s * 1000L, lat, TestData.LYON_LON, 25));
+        }
+        // Risques sur l'axe à mi-chemin entre deux fixes, et d'autres à 150 m du trajet
+        int count = 28;
+        String[] ids = new String[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = "r" + i;
+            latitudes[i] = TestData.LYON_LAT + GeoMath.latitudeDelta(625 + (i / 2) * 1000);
+            longitudes[i] = TestData.LYON_LON
+                + (i % 2 == 0 ? 0 : GeoMath.longitudeDelta(TestData.LYON_LAT, GeoMath.latitudeDelta(150)));
+        }
+        TraceSimulator simulator = new TraceSimulator(new GpsTrace(points),
+            new RiskProximityIndex(ids, latitudes, longitudes));
+        LocationSettings settings = new LocationSettings("voiture", 3, 10, 3, 100, false, true);
+        SamplingPolicy every10s = new SamplingPolicy.Fixed(10000, 0);
+        SamplingPolicy every20s = new SamplingPolicy.Fixed(20000, 0);
+
+        TraceSimulator.Report distance = simulator.run(
+            new TraceSimulator.Config("distance", settings, every10s, 300000, false, 0, false));
+        TraceSimulator.Report interpolated = simulator.run(
+            new TraceSimulator.Config("interpolation", settings, every10s, 300000, false, 0, true));
+        TraceSimulator.Report eta = simulator.run(
+            new TraceSimulator.Config("eta", settings, every10s, 300000, false, 20000, true));
+        TraceSimulator.Report relaxed = simulator.run(
+            new TraceSimulator.Config("eta gps 20s", settings, every20s, 300000, false, 30000, true));
+
+        assertEquals(14, distance.alertsExpected);
+        assertEquals(14, distance.alertsMissed);
+        // Rattrapées, mais après coup
+        assertEquals(0, interpolated.alertsMissed);
+        assertTrue(interpolated.meanAdvanceMs < 0);
+        // Prévues : toutes signalées avant l'entrée dans le rayon, aucune pour les risques à l'écart
+        assertEquals(0, eta.alertsMissed);
+        assertEquals(eta.alertsExpected, eta.earlyAlerts);
+        assertTrue(eta.meanAdvanceMs >= 10000);
+        assertEquals(0, eta.unexpectedAlerts);
+        // Fixes deux fois plus espacés, l'avance est conservée
+        assertEquals(0, relaxed.alertsMissed);
+        assertEquals(relaxed.alertsExpected, relaxed.earlyAlerts);
+        assertTrue(relaxed.fixesRequested < eta.fixesRequested);
+        assertTrue(relaxed.meanAdvanceMs >= 10000);
+    }
+
+    @Test
+    public void parallelSweepMatchesSequentialRuns() throws InterruptedException {
+        TraceSimulator simulator = new TraceSimulator(straightTrace(), risksAlongTrace());
+        List<TraceSimulator.Config> configs = new ArrayList<>();
+        for (int testDelay : new int[] { 5, 10, 30, 60 }) {
+            for (long gps : new long[] { 1000, 10000, 30000 }) {
+                configs.add(config(gps, testDelay, testDelay % 2 == 0));
+            }
+        }
+
+        List<TraceSimulator.Report> reports = simulator.sweep(configs, 4);
+
+        assertEquals(configs.size(), reports.size());
+        for (int i = 0; i < configs.size(); i++) {
+            TraceSimulator.Report expected = simulator.run(configs.get(i));
+            TraceSimulator.Report actual = reports.get(i);
+            assertEquals(expected.toCsvRow(), actual.toCsvRow());
+        }
+    }
+}
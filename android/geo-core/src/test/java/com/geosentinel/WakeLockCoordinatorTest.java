@@ -0,0 +1,143 @@
+package com.geosentinel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class WakeLockCoordinatorTest {
+
+    /** Verrou simulé : même sémantique qu'un WakeLock non compté avec timeout. */
+    private static final class FakeLock implements WakeLockCoordinator.PlatformLock {
+        final long[] now;
+        long releaseAt = -1;
+        int acquisitions;
+
+        FakeLock(long[] now) {
+            this.now = now;
+        }
+
+        @Override
+        public void acquire(long timeoutMs) {
+            acquisitions++;
+            releaseAt = now[0] + timeoutMs;
+        }
+
+        @Override
+        public void release() {
+            releaseAt = -1;
+        }
+
+        boolean held() {
+            return releaseAt > now[0];
+        }
+    }
+
+    private final long[] now = { 1000 };
+    private final FakeLock lock = new FakeLock(now);
+    private final WakeLockCoordinator coordinator = new WakeLockCoordinator(lock, () -> now[0]);
+
+    @Test
+    public void holdsOnlyWhileWorkIsRunning() {
+        WakeLockCoordinator.Hold hold = coordinator.acquire("tick", 30000);
+        assertTrue(lock.held());
+
+        now[0] += 200;
+        hold.close();
+        assertFalse(lock.held());
+        assertFalse(coordinator.isHeld());
+
+        now[0] += 60000;
+        assertEquals(200, coordinator.getStats().heldMs);
+    }
+
+    @Test
+    public void overlappingHoldsCountOnce() {
+        WakeLockCoordinator.Hold tick = coordinator.acquire("tick", 30000);
+        now[0] += 100;
+        WakeLockCoordinator.Hold api = coordinator.acquire("api", 60000);
+        now[0] += 100;
+        tick.close();
+        assertTrue(lock.held());
+        now[0] += 300;
+        api.close();
+
+        WakeLockCoordinator.Stats stats = coordinator.getStats();
+        assertEquals(500, stats.heldMs);
+        assertEquals(2, stats.holds);
+        assertEquals(Long.valueOf(200), stats.heldMsByReason.get("tick"));
+        assertEquals(Long.valueOf(400), stats.heldMsByReason.get("api"));
+        assertFalse(lock.held());
+    }
+
+    @Test
+    public void platformTimeoutFollowsTheLatestDeadline() {
+        WakeLockCoordinator.Hold longHold = coordinator.acquire("headless", 60000);
+        coordinator.acquire("tick", 10000);
+        assertEquals(now[0] + 60000, lock.releaseAt);
+
+        // La Hold longue se termine : le verrou ne reste armé que pour la courte
+        now[0] += 1000;
+        longHold.close();
+        assertEquals(now[0] + 9000, lock.releaseAt);
+    }
+
+    @Test
+    public void forgottenHoldsExpireAndAreCounted() {
+        coordinator.acquire("alerte", 10000);
+
+        now[0] += 25000;
+        assertFalse(coordinator.isHeld());
+        assertFalse(lock.held());
+
+        WakeLockCoordinator.Stats stats = coordinator.getStats();
+        assertEquals(10000, stats.heldMs);
+        assertEquals(1, stats.timeouts);
+
+        // Une nouvelle Hold réarme le verrou
+        coordinator.acquire("tick", 5000);
+        assertTrue(lock.held());
+    }
+
+    @Test
+    public void closeIsIdempotent() {
+        WakeLockCoordinator.Hold first = coordinator.acquire("tick", 30000);
+        WakeLockCoordinator.Hold second = coordinator.acquire("tick", 30000);
+        first.close();
+        first.close();
+
+        assertTrue(lock.held());
+        assertEquals(1, coordinator.activeCount());
+        second.close();
+        assertFalse(lock.held());
+    }
+
+    @Test
+    public void endSessionResetsCountersButKeepsActiveHolds() {
+        WakeLockCoordinator.Hold hold = coordinator.acquire("tick", 30000);
+        now[0] += 400;
+
+        WakeLockCoordinator.Stats session = coordinator.endSession();
+        assertEquals(400, session.heldMs);
+
+        now[0] += 100;
+        hold.close();
+        WakeLockCoordinator.Stats next = coordinator.getStats();
+        assertEquals(100, next.heldMs);
+        assertEquals(0, next.holds);
+    }
+
+    @Test
+    public void dutyCycleOfATourIsTheWorkNotTheSession() {
+        // 4 h de tournée, un tick de 300 ms toutes les 30 s
+        for (int tick = 0; tick < 4 * 3600 / 30; tick++) {
+            WakeLockCoordinator.Hold hold = coordinator.acquire("tick", 30000);
+            now[0] += 300;
+            hold.close();
+            now[0] += 29700;
+        }
+
+        assertEquals(480 * 300, coordinator.getStats().heldMs);
+    }
+}
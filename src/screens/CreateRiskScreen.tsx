@@ -94,7 +94,7 @@ export default function CreateRiskScreen({ navigation }: Props) {
     if (!validateForm()) return;
     setLoading(true);
     try {
-      await apiClient.createRisk({
+      const { queued } = await apiClient.createRiskOrQueue({
         title: title.trim(),
         description: description.trim() || undefined,
         categoryId: selectedCategoryId,
@@ -102,7 +102,7 @@ export default function CreateRiskScreen({ navigation }: Props) {
         latitude: gpsPosition!.latitude,
         longitude: gpsPosition!.longitude,
       });
-      Alert.alert('Succès', MESSAGES.success.riskCreated, [
+      Alert.alert('Succès', queued ? MESSAGES.success.riskQueued : MESSAGES.success.riskCreated, [
         { text: 'OK', onPress: () => navigation.goBack() },
       ]);
     } catch (error) {
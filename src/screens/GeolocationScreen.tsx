@@ -14,6 +14,7 @@ import { useNavigation } from '@react-navigation/native';
 import  locationService  from '../services/locationService';
 import  notificationService  from '../services/notificationService';
 import  { apiClient }  from '../services/api';
+import { resolveCommune } from '../services/communeResolver';
 import { COLORS } from '../utils/constants';
 
 type TourneeType = 'pieds' | 'velo' | 'voiture' | '';
@@ -156,16 +157,13 @@ export default function GeolocationScreen() {
        // lister les types de risques recensés sur un territoire : 
        //latitude=45.9237;
        //longitude=6.8694;
-       console.log('appel api georisques :');
-       const response = await fetch(
-              `https://georisques.gouv.fr/api/v1/gaspar/risques?latlon=${longitude},${latitude}&rayon=20`             
-        );
-        const data = await response.json();
+       // Contours de communes en cache natif : pas d'appel Géorisques dans une commune connue
+       const commune = await resolveCommune(latitude, longitude);
         // 🛠️ TRANSFORMATION : On prépare les données pour le composant
-        if (data.data && data.data.length > 0) {
+        if (commune) {
             // 📍 Extraction du nom de la commune
-            setCommuneName(data.data[0].libelle_commune);
-            const formattedRisks = data.data[0].risques_detail.map((item: any) => ({
+            setCommuneName(commune.name);
+            const formattedRisks = commune.risks.map((item) => ({
             id: `geo-${item.num_risque}`, // On crée l'ID ici
             title: item.libelle_risque_long,
             category: 'naturel', // Catégorie par défaut pour vos icônes
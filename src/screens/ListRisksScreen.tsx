@@ -1,5 +1,5 @@
 // src/screens/ListRisksScreen.tsx
-import React, { useState, useEffect, useCallback } from 'react';
+import React, { useState, useEffect, useCallback, useMemo, useRef } from 'react';
 import {
   View,
   Text,
@@ -12,8 +12,9 @@ import {
 } from 'react-native';
 import { useFocusEffect } from '@react-navigation/native';
 import { apiClient, getErrorMessage } from '../services/api';
+import { filtersKey, riskListIndex, riskPageCache, RISK_PAGE_SIZE } from '../services/riskListCache';
 import { COLORS, RISK_SEVERITIES } from '../utils/constants';
-import { Risk, RiskCategory, RiskSeverity } from '../types';
+import { Risk, RiskCategory, RiskFilters, RiskPage, RiskSeverity } from '../types';
 
 import { useAuthStore } from '../stores/authStore';
 
@@ -22,14 +23,40 @@ interface Props {
 }
 
 export default function ListRisksScreen({ navigation }: Props) {
-  const [risks, setRisks] = useState<Risk[]>([]);
+  // Incrémenté à chaque ajout dans l'index : relance le filtrage
+  const [indexVersion, setIndexVersion] = useState(0);
   const [filteredRisks, setFilteredRisks] = useState<Risk[]>([]);
   const [selectedRisks, setSelectedRisks] = useState<Set<string>>(new Set());
   const [loading, setLoading] = useState(false);
   const [refreshing, setRefreshing] = useState(false);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [categoryFilter, setCategoryFilter] = useState<string>('all');
   const [severityFilter, setSeverityFilter] = useState<string>('all');
   const [categories, setCategories] = useState<RiskCategory[]>([]);
+  const filterRequest = useRef(0);
+  const user = useAuthStore((state) => state.user);
+
+  // Liste de base demandée au serveur : un simple "UTILISATEUR" ne voit que ses créations
+  const scope = useMemo<RiskFilters>(
+    () => ({ creatorId: user?.role === 'utilisateur' ? user.id : null }),
+    [user]
+  );
+  // Catégorie et sévérité : intersection locale dans l'index natif, sans rechargement
+  const filters = useMemo<RiskFilters>(
+    () => ({
+      ...scope,
+      categoryId: categoryFilter !== 'all' ? categoryFilter : null,
+      severity: severityFilter !== 'all' ? severityFilter : null,
+    }),
+    [scope, categoryFilter, severityFilter]
+  );
+  const hasToggles = Boolean(filters.categoryId || filters.severity);
+  const scopeRef = useRef(scope);
+  // Curseur suivant de chaque liste filtrée par le serveur (null : épuisée)
+  const filteredCursors = useRef(new Map<string, string | null>());
+  // Chargement en cours : une réponse d'une liste abandonnée est ignorée
+  const loadRequest = useRef(0);
 
   // Charger les risques au focus de l'écran
   useFocusEffect(
@@ -48,55 +75,115 @@ export default function ListRisksScreen({ navigation }: Props) {
     }
   };
 
+  const showPages = async (pages: RiskPage[], request: number) => {
+    if (request !== loadRequest.current) {
+      return;
+    }
+    if (await riskListIndex.showBase(pages.flatMap((page) => page.items))) {
+      filteredCursors.current.clear();
+    }
+    setIndexVersion((version) => version + 1);
+    setNextCursor(pages.length > 0 ? pages[pages.length - 1].nextCursor : null);
+  };
+
   const loadRisks = async (isRefreshing = false) => {
+    const request = ++loadRequest.current;
+    const current = scopeRef.current;
+    // Pages encore en cache : affichage immédiat, puis revalidation de la 1re page
+    const cachedPages = isRefreshing ? [] : riskPageCache.getCachedPrefix(current);
+
     if (isRefreshing) {
+      riskPageCache.invalidate();
       setRefreshing(true);
+    } else if (cachedPages.length > 0) {
+      await showPages(cachedPages, request);
     } else {
       setLoading(true);
     }
 
     try {
-      const data = await apiClient.getRisks();
-      setRisks(data);
-      applyFilters(data, categoryFilter, severityFilter);
+      if (cachedPages.length > 0) {
+        if (await riskPageCache.revalidateFirstPage(current)) {
+          await showPages(riskPageCache.getCachedPrefix(current), request);
+        }
+      } else {
+        await showPages([await riskPageCache.getPage(null, false, current)], request);
+      }
     } catch (error) {
-      Alert.alert('Erreur', getErrorMessage(error));
+      if (request === loadRequest.current) {
+        Alert.alert('Erreur', getErrorMessage(error));
+      }
     } finally {
-      setLoading(false);
-      setRefreshing(false);
+      if (request === loadRequest.current) {
+        setLoading(false);
+        setRefreshing(false);
+      }
     }
   };
 
-   const user = useAuthStore((state) => state.user);
-
-  const applyFilters = (
-    risksList: Risk[],
-    catFilter: string,
-    sevFilter: string
-  ) => {
-    let filtered = risksList;
+  // Liste de base complète : l'intersection locale est exacte, rien à demander au serveur
+  const hasMore =
+    nextCursor !== null && (!hasToggles || filteredCursors.current.get(filtersKey(filters)) !== null);
 
-    if (catFilter !== 'all') {
-      filtered = filtered.filter((r) => r.categoryId === catFilter);
+  // Sans filtre : page suivante de la liste de base. Avec filtres : page suivante de la
+  // liste filtrée par le serveur, dont seuls les risques pas encore chargés entrent dans l'index.
+  const loadMoreRisks = async () => {
+    if (!hasMore || loadingMore || loading || refreshing) {
+      return;
     }
-
-    if (sevFilter !== 'all') {
-      filtered = filtered.filter((r) => r.severity === sevFilter);
+    setLoadingMore(true);
+    const request = loadRequest.current;
+    const current = filters;
+    try {
+      if (!hasToggles) {
+        const page = await riskPageCache.getPage(nextCursor, false, scopeRef.current);
+        if (request !== loadRequest.current) {
+          return;
+        }
+        await riskListIndex.appendBase(page.items);
+        setNextCursor(page.nextCursor);
+      } else {
+        const key = filtersKey(current);
+        const page = await riskPageCache.getPage(filteredCursors.current.get(key) ?? null, false, current);
+        if (request !== loadRequest.current) {
+          return;
+        }
+        await riskListIndex.addFiltered(page.items);
+        filteredCursors.current.set(key, page.nextCursor);
+      }
+      setIndexVersion((version) => version + 1);
+    } catch (error) {
+      console.error('Erreur chargement page risques:', error);
+    } finally {
+      setLoadingMore(false);
     }
-
-
-    // NOUVEAU : Filtrage par Utilisateur
-  // Si l'utilisateur est un simple "UTILISATEUR", il ne voit que ses créations
-  if (user?.role === 'utilisateur') { 
-    filtered = filtered.filter((r) => r.createdByUserId === user.id);
-   }
-
-    setFilteredRisks(filtered);
   };
 
+  // Changement d'utilisateur : nouvelle liste de base (ou reprise du cache de cette liste)
   useEffect(() => {
-    applyFilters(risks, categoryFilter, severityFilter);
-  }, [categoryFilter, severityFilter, risks]);
+    if (scopeRef.current !== scope) {
+      scopeRef.current = scope;
+      loadRisks();
+    }
+  }, [scope]);
+
+  // Lignes chargées filtrées par l'index natif (intersection de bitmaps). Si elles ne
+  // remplissent pas une page, la liste filtrée par le serveur complète l'index.
+  useEffect(() => {
+    const request = ++filterRequest.current;
+    riskListIndex
+      .query(filters)
+      .then((filtered) => {
+        if (request !== filterRequest.current) {
+          return;
+        }
+        setFilteredRisks(filtered);
+        if (hasToggles && filtered.length < RISK_PAGE_SIZE) {
+          loadMoreRisks();
+        }
+      })
+      .catch((e) => console.error('Erreur filtrage risques:', e));
+  }, [filters, indexVersion]);
 
   const toggleSelectRisk = (id: string) => {
     setSelectedRisks((prev) => {
@@ -143,6 +230,9 @@ export default function ListRisksScreen({ navigation }: Props) {
                 `${result.success.length} risque(s) supprimé(s)`
               );
               setSelectedRisks(new Set());
+              riskPageCache.invalidate();
+              await riskListIndex.clear();
+              filteredCursors.current.clear();
               await loadRisks();
             } catch (error) {
               Alert.alert('Erreur', getErrorMessage(error));
@@ -367,7 +457,9 @@ export default function ListRisksScreen({ navigation }: Props) {
           <Text style={styles.selectAllText}>Tout sélectionner</Text>
         </TouchableOpacity>
 
-        <Text style={styles.countText}>{filteredRisks.length} risque(s)</Text>
+        <Text style={styles.countText}>
+          {filteredRisks.length}{hasMore ? '+' : ''} risque(s)
+        </Text>
       </View>
     </View>
   );
@@ -387,6 +479,13 @@ export default function ListRisksScreen({ navigation }: Props) {
             renderItem={renderRiskItem}
             ListHeaderComponent={renderHeader}
             contentContainerStyle={styles.list}
+            onEndReached={loadMoreRisks}
+            onEndReachedThreshold={0.5}
+            ListFooterComponent={
+              loadingMore ? (
+                <ActivityIndicator style={styles.loadingMore} color={COLORS.primary} />
+              ) : null
+            }
             refreshControl={
               <RefreshControl
                 refreshing={refreshing}
@@ -443,6 +542,9 @@ const styles = StyleSheet.create({
     color: COLORS.textLight,
     fontSize: 14,
   },
+  loadingMore: {
+    paddingVertical: 15,
+  },
   filters: {
     backgroundColor: '#fff',
     padding: 15,
@@ -79,13 +79,13 @@ export default function RiskDetailScreen({ route, navigation }: Props) {
     }
     setLoading(true);
     try {
-      await apiClient.updateRisk(risk.id, {
+      const { queued } = await apiClient.updateRiskOrQueue(risk.id, {
         title: title.trim(),
         description: description.trim() || undefined,
         categoryId: selectedCategoryId,
         severity,
       });
-      Alert.alert('Succès', MESSAGES.success.riskUpdated, [
+      Alert.alert('Succès', queued ? MESSAGES.success.riskQueued : MESSAGES.success.riskUpdated, [
         { text: 'OK', onPress: () => { setEditMode(false); navigation.goBack(); } },
       ]);
     } catch (error) {
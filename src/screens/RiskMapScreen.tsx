@@ -1,5 +1,5 @@
 // src/screens/RiskMapScreen.tsx
-import React, { useRef, useEffect } from 'react';
+import React, { useRef, useEffect, useMemo, useState } from 'react';
 import {
   View,
   TouchableOpacity,
@@ -7,10 +7,32 @@ import {
   StyleSheet,
   StatusBar,
   Platform,
+  ActivityIndicator,
 } from 'react-native';
-import { WebView } from 'react-native-webview';
+import { WebView, WebViewMessageEvent } from 'react-native-webview';
 import { useNavigation, useRoute, RouteProp } from '@react-navigation/native';
 import { COLORS } from '../utils/constants';
+import {
+  CLUSTER_MAX_ZOOM,
+  MapItem,
+  MapRisk,
+  MapViewport,
+  applyMarkerDiff,
+  diffMarkers,
+  isEmptyDiff,
+  layoutMarkers,
+} from '../utils/mapMarkers';
+import {
+  LEAFLET_CSS_URL,
+  LEAFLET_JS_URL,
+  LeafletAssets,
+  cancelMapPrefetch,
+  getCachedTile,
+  getMapTileCacheStats,
+  hasNativeTileCache,
+  loadLeafletAssets,
+  prefetchMapZone,
+} from '../services/mapTileCache';
 
 // ─── Types ───────────────────────────────────────────────────────────────────
 
@@ -73,27 +95,32 @@ const getCategoryIcon = (category: string, categoryIcon?: string): string => {
 // ─── HTML Leaflet (injecté dans la WebView) ───────────────────────────────────
 // Leaflet est chargé depuis cdnjs. Les tuiles OSM sont restreintes au bbox
 // initial de 1 km autour de l'utilisateur grâce à maxBounds.
+// Le document est construit une seule fois : les risques arrivent ensuite par
+// postMessage sous forme de diffs (MARKERS_DIFF), calculés par utils/mapMarkers
+// à partir du viewport que la carte publie (VIEWPORT).
+
+const toMapRisk = (r: RiskWithDistance): MapRisk => ({
+  id: r.id,
+  title: r.title,
+  category: r.category,
+  severity: r.severity,
+  lat: r.latitude,
+  lng: r.longitude,
+  distance: Math.round(r.distance),
+  description: r.description || '',
+  color: getCategoryColor(r.category, r.categoryColor),
+  icon: getCategoryIcon(r.category, r.categoryIcon),
+});
+
+// Contenu inliné dans un <script>/<style> : neutraliser une balise fermante éventuelle
+const inlineSafe = (source: string): string => source.replace(/<\/(script|style)/gi, '<\\/$1');
 
 const buildLeafletHTML = (
   userLat: number,
   userLng: number,
-  risks: RiskWithDistance[]
+  assets: LeafletAssets | null,
+  nativeTiles: boolean
 ): string => {
-  const risksJson = JSON.stringify(
-    risks.map(r => ({
-      id: r.id,
-      title: r.title,
-      category: r.category,
-      severity: r.severity,
-      lat: r.latitude,
-      lng: r.longitude,
-      distance: Math.round(r.distance),
-      description: r.description || '',
-      color: getCategoryColor(r.category, r.categoryColor),
-      icon: getCategoryIcon(r.category, r.categoryIcon),
-    }))
-  );
-
   // bbox 1 km autour de l'utilisateur (~0.009° par km)
   const delta = 0.009;
   const bounds = [
@@ -107,10 +134,9 @@ const buildLeafletHTML = (
 <head>
   <meta charset="utf-8" />
   <meta name="viewport" content="width=device-width, initial-scale=1.0, maximum-scale=1.0, user-scalable=no" />
-  <link
-    rel="stylesheet"
-    href="https://cdnjs.cloudflare.com/ajax/libs/leaflet/1.9.4/leaflet.min.css"
-  />
+  ${assets
+    ? `<style>${inlineSafe(assets.css)}</style>`
+    : `<link rel="stylesheet" href="${LEAFLET_CSS_URL}" />`}
   <style>
     * { margin: 0; padding: 0; box-sizing: border-box; }
     html, body, #map { width: 100%; height: 100%; }
@@ -211,6 +237,21 @@ const buildLeafletHTML = (
     }
     #legend div { display: flex; align-items: center; gap: 6px; margin-bottom: 4px; }
     .leg-dot { width: 12px; height: 12px; border-radius: 50%; flex-shrink: 0; }
+
+    /* ── Groupe de risques (zoom faible) ── */
+    .risk-cluster {
+      width: 36px;
+      height: 36px;
+      border-radius: 50%;
+      border: 2.5px solid #fff;
+      color: #fff;
+      font-weight: bold;
+      font-size: 13px;
+      display: flex;
+      align-items: center;
+      justify-content: center;
+      box-shadow: 0 2px 6px rgba(0,0,0,0.3);
+    }
     #compass-badge {
       position: absolute;
       top: 10px;
@@ -244,13 +285,16 @@ const buildLeafletHTML = (
   🧭 <span id="compass-text">Cap: --°</span>
 </div>
 
-<script src="https://cdnjs.cloudflare.com/ajax/libs/leaflet/1.9.4/leaflet.min.js"></script>
+${assets
+  ? `<script>${inlineSafe(assets.js)}</script>`
+  : `<script src="${LEAFLET_JS_URL}"></script>`}
 <script>
 (function() {
   var USER_LAT = ${userLat};
   var USER_LNG = ${userLng};
-  var RISKS    = ${risksJson};
   var BOUNDS   = ${boundsJson};
+  var CLUSTER_MAX_ZOOM = ${CLUSTER_MAX_ZOOM};
+  var NATIVE_TILES = ${nativeTiles && assets ? 'true' : 'false'};
 
   // ── Carte ──────────────────────────────────────────────────────────────────
   var map = L.map('map', {
@@ -262,11 +306,48 @@ const buildLeafletHTML = (
     minZoom: 14,                // on ne peut pas trop dézoomer
   });
 
-  L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {
+  var TILE_URL = 'https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png';
+  var tileOptions = {
     attribution: '© <a href="https://www.openstreetmap.org/copyright">OSM</a>',
     maxZoom: 19,
     bounds: BOUNDS,             // ne charge que les tuiles dans le bbox
-  }).addTo(map);
+  };
+
+  // Tuiles servies par le cache disque natif (message TILE → TILE_DATA / TILE_ERROR)
+  var pendingTiles = {};
+  var tileSeq = 0;
+
+  var CachedTileLayer = L.GridLayer.extend({
+    createTile: function(coords, done) {
+      var img = document.createElement('img');
+      img.alt = '';
+      var id = ++tileSeq;
+      pendingTiles[id] = { img: img, done: done, coords: coords };
+      window.ReactNativeWebView.postMessage(JSON.stringify({
+        type: 'TILE', id: id, z: coords.z, x: coords.x, y: coords.y,
+      }));
+      return img;
+    }
+  });
+
+  function resolveTile(msg) {
+    var pending = pendingTiles[msg.id];
+    if (!pending) return;
+    delete pendingTiles[msg.id];
+    pending.img.onload = function() { pending.done(null, pending.img); };
+    pending.img.onerror = function(err) { pending.done(err, pending.img); };
+    if (msg.type === 'TILE_DATA') {
+      pending.img.src = 'data:image/png;base64,' + msg.data;
+    } else {
+      // Cache indisponible : repli sur le serveur de tuiles
+      var c = pending.coords;
+      pending.img.src = L.Util.template(TILE_URL, {
+        s: 'abc'[Math.abs(c.x + c.y) % 3], z: c.z, x: c.x, y: c.y,
+      });
+    }
+  }
+
+  (NATIVE_TILES ? new CachedTileLayer(tileOptions) : L.tileLayer(TILE_URL, tileOptions)).addTo(map);
 
   // ── Cercle de rayon ────────────────────────────────────────────────────────
   L.circle([USER_LAT, USER_LNG], {
@@ -326,24 +407,21 @@ const buildLeafletHTML = (
     }
   }
 
-  // Message depuis React Native pour passer le heading (fallback natif)
-  window.addEventListener('message', function(e) {
+  // Messages depuis React Native : heading natif (fallback), diffs de marqueurs, tuiles
+  function handleMessage(e) {
     try {
       var msg = JSON.parse(e.data);
       if (msg.type === 'HEADING') {
         applyHeading(msg.value);
+      } else if (msg.type === 'MARKERS_DIFF') {
+        applyDiff(msg);
+      } else if (msg.type === 'TILE_DATA' || msg.type === 'TILE_ERROR') {
+        resolveTile(msg);
       }
     } catch (_) {}
-  });
-
-  document.addEventListener('message', function(e) {
-    try {
-      var msg = JSON.parse(e.data);
-      if (msg.type === 'HEADING') {
-        applyHeading(msg.value);
-      }
-    } catch (_) {}
-  });
+  }
+  window.addEventListener('message', handleMessage);
+  document.addEventListener('message', handleMessage);
 
   function handleOrientation(event) {
     var heading = null;
@@ -361,7 +439,10 @@ const buildLeafletHTML = (
   }
 
   // ── Risques ────────────────────────────────────────────────────────────────
-  RISKS.forEach(function(risk) {
+  // Couches Leaflet par id d'élément (risque ou groupe), modifiées sur place par les diffs
+  var layers = {};
+
+  function addRisk(risk) {
     var circleMarker = L.circleMarker([risk.lat, risk.lng], {
       radius: 14,
       fillColor: risk.color,
@@ -380,7 +461,7 @@ const buildLeafletHTML = (
       iconAnchor: [25, -10],
       className: '',
     });
-    L.marker([risk.lat, risk.lng], { icon: labelIcon, interactive: false }).addTo(map);
+    var label = L.marker([risk.lat, risk.lng], { icon: labelIcon, interactive: false }).addTo(map);
 
     // Popup détail
     var severityLabel = { low: 'Faible', medium: 'Moyen', high: 'Élevé' }[risk.severity] || risk.severity;
@@ -403,7 +484,62 @@ const buildLeafletHTML = (
     circleMarker.on('click', function() {
       map.setView([risk.lat, risk.lng], Math.max(map.getZoom(), 17));
     });
-  });
+
+    return [circleMarker, label];
+  }
+
+  function addCluster(cluster) {
+    var icon = L.divIcon({
+      html: '<div class="risk-cluster" style="background:' + cluster.color + ';">' + cluster.count + '</div>',
+      iconSize: [36, 36],
+      iconAnchor: [18, 18],
+      className: '',
+    });
+    var marker = L.marker([cluster.lat, cluster.lng], { icon: icon }).addTo(map);
+    marker.on('click', function() {
+      map.setView([cluster.lat, cluster.lng], CLUSTER_MAX_ZOOM + 1);
+    });
+    return [marker];
+  }
+
+  function addItem(item) {
+    layers[item.id] = item.kind === 'cluster' ? addCluster(item) : addRisk(item);
+  }
+
+  function removeItem(id) {
+    var itemLayers = layers[id];
+    if (!itemLayers) return;
+    itemLayers.forEach(function(layer) { map.removeLayer(layer); });
+    delete layers[id];
+  }
+
+  function applyDiff(diff) {
+    diff.removed.forEach(removeItem);
+    diff.changed.forEach(function(item) {
+      removeItem(item.id);
+      addItem(item);
+    });
+    diff.added.forEach(addItem);
+  }
+
+  // ── Viewport publié vers React Native (layout + clustering côté RN) ────────
+  function postViewport() {
+    if (!window.ReactNativeWebView) return;
+    var b = map.getBounds();
+    window.ReactNativeWebView.postMessage(JSON.stringify({
+      type: 'VIEWPORT',
+      south: b.getSouth(),
+      west: b.getWest(),
+      north: b.getNorth(),
+      east: b.getEast(),
+      zoom: map.getZoom(),
+    }));
+  }
+  map.on('moveend', postViewport);
+  if (window.ReactNativeWebView) {
+    window.ReactNativeWebView.postMessage(JSON.stringify({ type: 'READY' }));
+  }
+  postViewport();
 
 })();
 </script>
@@ -420,6 +556,18 @@ export default function RiskMapScreen() {
 
   const { risks, userPosition } = route.params;
 
+  // Document construit une fois (Leaflet inliné depuis le cache disque) :
+  // de nouveaux risques ne rechargent pas Leaflet
+  const [html, setHtml] = useState<string | null>(null);
+  const [mapReady, setMapReady] = useState(false);
+  // Incrémenté à chaque READY : un rechargement du document renvoie tous les marqueurs
+  const [mapGeneration, setMapGeneration] = useState(0);
+  const [viewport, setViewport] = useState<MapViewport | null>(null);
+  // Éléments actuellement affichés dans la WebView, par id
+  const shownRef = useRef(new Map<string, MapItem>());
+
+  const mapRisks = useMemo(() => risks.map(toMapRisk), [risks]);
+
   // Envoi du heading natif vers la WebView si DeviceOrientation JS ne suffit pas
   // (Android Doze / restrictions de permissions) — optionnel, géré aussi côté HTML
   useEffect(() => {
@@ -429,11 +577,74 @@ export default function RiskMapScreen() {
     // si besoin d'une précision accrue plus tard.
   }, []);
 
-  const html = buildLeafletHTML(
-    userPosition.latitude,
-    userPosition.longitude,
-    risks
-  );
+  useEffect(() => {
+    let cancelled = false;
+    loadLeafletAssets().then((assets) => {
+      if (!cancelled) {
+        setHtml(buildLeafletHTML(
+          userPosition.latitude,
+          userPosition.longitude,
+          assets,
+          hasNativeTileCache()
+        ));
+      }
+    });
+    prefetchMapZone(userPosition.latitude, userPosition.longitude);
+
+    return () => {
+      cancelled = true;
+      cancelMapPrefetch();
+      getMapTileCacheStats()
+        .then((stats) => {
+          if (stats) {
+            console.log(
+              `[RiskMap] Cache tuiles: ${(stats.hitRatio * 100).toFixed(0)}% hits, ` +
+              `${Math.round(stats.bytesSaved / 1024)} Ko économisés`
+            );
+          }
+        })
+        .catch(() => {});
+    };
+  }, []);
+
+  const postToMap = (message: object) => {
+    webViewRef.current?.postMessage(JSON.stringify(message));
+  };
+
+  // Seuls les marqueurs ajoutés / retirés / modifiés traversent le bridge
+  useEffect(() => {
+    if (!mapReady || !viewport) return;
+    const diff = diffMarkers(shownRef.current, layoutMarkers(mapRisks, viewport));
+    if (isEmptyDiff(diff)) return;
+    applyMarkerDiff(shownRef.current, diff);
+    postToMap({ type: 'MARKERS_DIFF', ...diff });
+  }, [mapReady, mapGeneration, viewport, mapRisks]);
+
+  const handleMessage = (event: WebViewMessageEvent) => {
+    try {
+      const msg = JSON.parse(event.nativeEvent.data);
+      if (msg.type === 'READY') {
+        // Document (re)chargé : aucune couche côté carte
+        shownRef.current = new Map();
+        setMapReady(true);
+        setMapGeneration((generation) => generation + 1);
+      } else if (msg.type === 'TILE') {
+        getCachedTile(msg.z, msg.x, msg.y)
+          .then((data) => postToMap({ type: 'TILE_DATA', id: msg.id, data }))
+          .catch(() => postToMap({ type: 'TILE_ERROR', id: msg.id }));
+      } else if (msg.type === 'VIEWPORT') {
+        setViewport({
+          south: msg.south,
+          west: msg.west,
+          north: msg.north,
+          east: msg.east,
+          zoom: msg.zoom,
+        });
+      }
+    } catch (e) {
+      console.warn('[RiskMap] Message WebView invalide:', e);
+    }
+  };
 
   return (
     <View style={styles.container}>
@@ -458,22 +669,31 @@ export default function RiskMapScreen() {
       </View>
 
       {/* ── WebView Leaflet ── */}
-      <WebView
-        ref={webViewRef}
-        source={{ html }}
-        style={styles.map}
-        originWhitelist={['*']}
-        javaScriptEnabled
-        domStorageEnabled
-        allowsInlineMediaPlayback
-        geolocationEnabled={false}      // on passe la position via params
-        mixedContentMode="always"       // Android : permet http dans https WebView
-        onError={(e) =>
-          console.warn('[RiskMap] WebView error:', e.nativeEvent.description)
-        }
-        // Android : autorise DeviceOrientationEvent dans la WebView
-        androidLayerType="hardware"
-      />
+      {html ? (
+        <WebView
+          ref={webViewRef}
+          source={{ html }}
+          style={styles.map}
+          originWhitelist={['*']}
+          javaScriptEnabled
+          domStorageEnabled
+          allowsInlineMediaPlayback
+          geolocationEnabled={false}      // on passe la position via params
+          mixedContentMode="always"       // Android : permet http dans https WebView
+          onMessage={handleMessage}
+          // Rechargement (processus WebView relancé) : plus de diff jusqu'au READY suivant
+          onLoadStart={() => setMapReady(false)}
+          onError={(e) =>
+            console.warn('[RiskMap] WebView error:', e.nativeEvent.description)
+          }
+          // Android : autorise DeviceOrientationEvent dans la WebView
+          androidLayerType="hardware"
+        />
+      ) : (
+        <View style={styles.mapLoading}>
+          <ActivityIndicator size="large" color={COLORS.primary} />
+        </View>
+      )}
     </View>
   );
 }
@@ -520,6 +740,11 @@ const styles = StyleSheet.create({
     fontSize: 12,
     marginTop: 2,
   },
+  mapLoading: {
+    flex: 1,
+    justifyContent: 'center',
+    alignItems: 'center',
+  },
   map: {
     flex: 1,
   },
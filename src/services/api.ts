@@ -1,8 +1,11 @@
 // src/services/api.ts
 import axios, { AxiosInstance, AxiosError } from 'axios';
+import { NativeModules } from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
-import { LoginResponse, Risk, RiskCategory, User } from '../types';
+import { LoginResponse, Risk, RiskCategory, RiskFilters, RiskPage, User } from '../types';
 import { getActiveUrl, resolveActiveUrl, resetActiveUrl, isUsingFallback } from './serverConfig';
+import { getAccessToken, refreshAfterUnauthorized } from './tokenBroker';
+import { timed } from './metrics';
 
 // Types pour system settings
 export interface SystemSetting {
@@ -20,6 +23,30 @@ export interface SystemSetting {
 
 export type TourneeType = 'pieds' | 'velo' | 'voiture';
 
+// Champs de Risk lus par le pipeline : projection demandée à /risks/nearby
+// (même liste que RiskWireFormat.FIELDS côté natif)
+const NEARBY_FIELDS = 'id,title,category,severity,latitude,longitude';
+
+/** Résultat d'une mutation confiée à la file hors ligne si le réseau est absent */
+export interface QueuedResult<T> {
+  data: T | null;
+  queued: boolean;
+}
+
+/**
+ * Clé d'idempotence d'une mutation (en-tête Idempotency-Key) : la même pour
+ * l'envoi direct et pour chaque rejeu par la file native, le serveur ne crée
+ * pas deux fois un risque dont la réponse s'est perdue.
+ */
+function newIdempotencyKey(): string {
+  const random = () => Math.random().toString(36).slice(2, 10).padEnd(8, '0');
+  return `${Date.now().toString(36)}-${random()}${random()}${random()}`;
+}
+
+function idempotencyHeaders(idempotencyKey?: string) {
+  return idempotencyKey ? { headers: { 'Idempotency-Key': idempotencyKey } } : undefined;
+}
+
 
 /**
  * Paramètres de géolocalisation propres au tenant de l'utilisateur connecté.
@@ -49,11 +76,6 @@ export interface TenantLocationSetting {
 
 class ApiClient {
   private client: AxiosInstance;
-  private isRefreshing = false;
-  private failedQueue: Array<{
-    resolve: (value?: any) => void;
-    reject: (reason?: any) => void;
-  }> = [];
 
   // ── L'instance Axios est créée sans baseURL fixe.
   // Le baseURL est injecté dynamiquement dans l'intercepteur de requête
@@ -75,7 +97,12 @@ class ApiClient {
         const baseUrl = await getActiveUrl();
         config.baseURL = baseUrl;
 
-        const token = await AsyncStorage.getItem('accessToken');
+        // Token servi par le courtier natif, rafraîchi avant expiration.
+        // Les endpoints /auth/ (login, logout) n'en déclenchent pas.
+        const isAuthEndpoint = config.url?.includes('/auth/');
+        const token = isAuthEndpoint
+          ? await AsyncStorage.getItem('accessToken')
+          : (await getAccessToken().catch(() => null)) || (await AsyncStorage.getItem('accessToken'));
         if (token) {
           config.headers.Authorization = `Bearer ${token}`;
         }
@@ -96,47 +123,25 @@ class ApiClient {
           !originalRequest._retry &&
           !isAuthEndpoint
         ) {
-          if (this.isRefreshing) {
-            return new Promise((resolve, reject) => {
-              this.failedQueue.push({ resolve, reject });
-            })
-              .then((token) => {
-                originalRequest.headers.Authorization = `Bearer ${token}`;
-                return this.client(originalRequest);
-              })
-              .catch((err) => Promise.reject(err));
-          }
-
           originalRequest._retry = true;
-          this.isRefreshing = true;
 
-          const refreshToken = await AsyncStorage.getItem('refreshToken');
+          // Refresh single-flight côté natif : les 401 simultanés partagent le même refresh
+          const staleToken = originalRequest.headers?.Authorization?.replace('Bearer ', '') || null;
+          let accessToken: string | null = null;
+          try {
+            accessToken = await refreshAfterUnauthorized(staleToken);
+          } catch (refreshError) {
+            // Serveur injoignable : la session n'est pas forcément perdue
+            return Promise.reject(refreshError);
+          }
 
-          if (!refreshToken) {
+          if (!accessToken) {
             await this.clearTokens();
             return Promise.reject(error);
           }
 
-          try {
-            const baseUrl = await getActiveUrl();
-            const response = await axios.post(`${baseUrl}/auth/refresh`, { refreshToken });
-            const { accessToken, refreshToken: newRefreshToken } = response.data;
-
-            await AsyncStorage.setItem('accessToken', accessToken);
-            if (newRefreshToken) {
-              await AsyncStorage.setItem('refreshToken', newRefreshToken);
-            }
-
-            originalRequest.headers.Authorization = `Bearer ${accessToken}`;
-            this.processQueue(null, accessToken);
-            return this.client(originalRequest);
-          } catch (refreshError) {
-            this.processQueue(refreshError, null);
-            await this.clearTokens();
-            return Promise.reject(refreshError);
-          } finally {
-            this.isRefreshing = false;
-          }
+          originalRequest.headers.Authorization = `Bearer ${accessToken}`;
+          return this.client(originalRequest);
         }
 
         return Promise.reject(error);
@@ -144,14 +149,6 @@ class ApiClient {
     );
   }
 
-  private processQueue(error: any, token: string | null = null) {
-    this.failedQueue.forEach((prom) => {
-      if (error) prom.reject(error);
-      else prom.resolve(token);
-    });
-    this.failedQueue = [];
-  }
-
   private async clearTokens() {
     await AsyncStorage.multiRemove(['accessToken', 'refreshToken', 'user']);
     resetActiveUrl(); // Force un nouveau probe au prochain login
@@ -193,6 +190,31 @@ class ApiClient {
     return response.data;
   }
 
+  // Page de risques par curseur. Un serveur non paginé renvoie le tableau complet :
+  // il est traité comme une page unique, sans curseur suivant. Les filtres sont
+  // appliqués par le serveur ; un serveur qui les ignore renvoie la liste entière.
+  async getRisksPage(cursor: string | null, limit: number, filters: RiskFilters = {}): Promise<RiskPage> {
+    const params: Record<string, string | number> = { limit };
+    if (cursor) {
+      params.cursor = cursor;
+    }
+    if (filters.categoryId) {
+      params.categoryId = filters.categoryId;
+    }
+    if (filters.severity) {
+      params.severity = filters.severity;
+    }
+    if (filters.creatorId) {
+      params.creatorId = filters.creatorId;
+    }
+    const response = await this.client.get<Risk[] | RiskPage>('/risks', { params });
+    const data = response.data;
+    if (Array.isArray(data)) {
+      return { items: data, nextCursor: null };
+    }
+    return { items: data.items ?? [], nextCursor: data.nextCursor ?? null };
+  }
+
   async getRiskById(id: string): Promise<Risk> {
     const response = await this.client.get<Risk>(`/risks/${id}`);
     return response.data;
@@ -205,8 +227,8 @@ class ApiClient {
     severity: string;
     latitude: number;
     longitude: number;
-  }): Promise<Risk> {
-    const response = await this.client.post<Risk>('/risks', data);
+  }, idempotencyKey?: string): Promise<Risk> {
+    const response = await this.client.post<Risk>('/risks', data, idempotencyHeaders(idempotencyKey));
     return response.data;
   }
 
@@ -219,12 +241,56 @@ class ApiClient {
       severity?: string;
       latitude?: number;
       longitude?: number;
-    }
+    },
+    idempotencyKey?: string
   ): Promise<Risk> {
-    const response = await this.client.put<Risk>(`/risks/${id}`, data);
+    const response = await this.client.put<Risk>(`/risks/${id}`, data, idempotencyHeaders(idempotencyKey));
     return response.data;
   }
 
+  /**
+   * Variantes hors ligne : sans réseau, la mutation est écrite dans la file
+   * native durable (OutboundQueueModule) et rejouée au retour du réseau, au
+   * démarrage de l'app et par les ticks du pipeline natif, avec la même clé
+   * d'idempotence que l'envoi direct. Les erreurs HTTP (validation, droits)
+   * remontent normalement.
+   */
+  async createRiskOrQueue(data: Parameters<ApiClient['createRisk']>[0]): Promise<QueuedResult<Risk>> {
+    return this.sendOrQueue('POST', '/risks', data, null, key => this.createRisk(data, key));
+  }
+
+  async updateRiskOrQueue(
+    id: string,
+    data: Parameters<ApiClient['updateRisk']>[1]
+  ): Promise<QueuedResult<Risk>> {
+    // Deux modifications hors ligne du même risque : seule la dernière est envoyée
+    return this.sendOrQueue('PUT', `/risks/${id}`, data, `PUT /risks/${id}`, key => this.updateRisk(id, data, key));
+  }
+
+  private async sendOrQueue<T>(
+    method: 'POST' | 'PUT',
+    path: string,
+    data: object,
+    coalesceKey: string | null,
+    send: (idempotencyKey: string) => Promise<T>
+  ): Promise<QueuedResult<T>> {
+    const { OutboundQueueModule } = NativeModules;
+    const idempotencyKey = newIdempotencyKey();
+    try {
+      return { data: await send(idempotencyKey), queued: false };
+    } catch (error: any) {
+      // Réponse reçue = le serveur a tranché, rien à rejouer
+      if (error?.response || !OutboundQueueModule) {
+        throw error;
+      }
+      await OutboundQueueModule.setApiBaseUrl(await getActiveUrl());
+      // Requête peut-être reçue avant la coupure : le rejeu réutilise la même clé
+      await OutboundQueueModule.enqueue(method, path, JSON.stringify(data), coalesceKey, idempotencyKey);
+      console.log(`📥 ${method} ${path} mis en file hors ligne`);
+      return { data: null, queued: true };
+    }
+  }
+
   async deleteRisk(id: string): Promise<void> {
     await this.client.delete(`/risks/${id}`);
   }
@@ -244,13 +310,80 @@ class ApiClient {
   ): Promise<Risk[]> {
     const radiusKm = radiusMeters / 1000;
     console.log(`📡 API getNearbyRisks: lat=${latitude}, lng=${longitude}, radius_km=${radiusKm}`);
-    const response = await this.client.get<Risk[]>('/risks/nearby', {
-      params: { lat: latitude, lng: longitude, radius_km: radiusKm },
-    });
+    const response = await timed('risks_nearby_ms', () =>
+      this.client.get<Risk[]>('/risks/nearby', {
+        params: { lat: latitude, lng: longitude, radius_km: radiusKm },
+      })
+    );
     console.log(`✅ Received ${response.data.length} risks`);
     return response.data;
   }
 
+  /**
+   * Risques d'une tuile géographique (utilisé par riskTileCache).
+   * Réutilise /risks/nearby avec le cercle circonscrit à la tuile et envoie
+   * If-None-Match quand on connaît déjà la version : un 304 évite de
+   * retélécharger une tuile inchangée.
+   */
+  async getRisksInTile(
+    centerLat: number,
+    centerLng: number,
+    radiusKm: number,
+    etag?: string
+  ): Promise<{ notModified: boolean; risks: Risk[]; etag?: string; bytes: number }> {
+    const response = await timed('risks_nearby_ms', () =>
+      this.client.get<Risk[]>('/risks/nearby', {
+        params: { lat: centerLat, lng: centerLng, radius_km: radiusKm, fields: NEARBY_FIELDS },
+        headers: etag ? { 'If-None-Match': etag } : undefined,
+        validateStatus: (status) => (status >= 200 && status < 300) || status === 304,
+      })
+    );
+
+    const contentLength = Number(response.headers['content-length']);
+
+    if (response.status === 304) {
+      return { notModified: true, risks: [], etag, bytes: 0 };
+    }
+
+    return {
+      notModified: false,
+      risks: response.data || [],
+      etag: response.headers.etag,
+      bytes: Number.isFinite(contentLength) ? contentLength : JSON.stringify(response.data).length,
+    };
+  }
+
+  /**
+   * Tuile (row, col) chargée et gardée côté natif (RiskWireModule) : format
+   * binaire compact si le serveur le propose, JSON projeté sinon. Les risques
+   * restent dans le store natif avec leur ETag ; seuls les compteurs repassent le pont.
+   */
+  async fetchRiskTileNative(
+    row: number,
+    col: number,
+    radiusKm: number
+  ): Promise<{ notModified: boolean; etag?: string; bytes: number; downloaded: number; kept: number }> {
+    const { RiskWireModule } = NativeModules;
+    const baseUrl = await getActiveUrl();
+    const fetchTile = (token: string | null) =>
+      timed('risks_nearby_ms', () => RiskWireModule.fetchRiskTile(baseUrl, token, row, col, radiusKm));
+
+    const token = (await getAccessToken().catch(() => null)) || (await AsyncStorage.getItem('accessToken'));
+    try {
+      return await fetchTile(token);
+    } catch (error: any) {
+      if (error?.code !== 'UNAUTHORIZED') {
+        throw error;
+      }
+      // Comme l'intercepteur axios : refresh partagé, puis une seule nouvelle tentative
+      const refreshed = await refreshAfterUnauthorized(token);
+      if (!refreshed) {
+        throw Object.assign(new Error('Session expirée'), { response: { status: 401 } });
+      }
+      return fetchTile(refreshed);
+    }
+  }
+
   // ========== SYSTEM SETTINGS ==========
 
   /**
@@ -0,0 +1,61 @@
+// src/services/communeResolver.ts
+//
+// Commune de la position via le résolveur natif (CommuneResolverModule) : les
+// contours des communes traversées sont gardés sur le disque et testés en local,
+// Géorisques n'est appelé qu'en sortant de toutes les communes connues.
+// Sans module natif, repli sur l'appel Géorisques direct (rayon 20 m).
+import { NativeModules } from 'react-native';
+import axios from 'axios';
+
+const { CommuneResolverModule } = NativeModules;
+
+export interface GeorisquesRiskDetail {
+  num_risque: string;
+  libelle_risque_long: string;
+  [key: string]: unknown;
+}
+
+export interface ResolvedCommune {
+  code: string;
+  name: string;
+  risks: GeorisquesRiskDetail[];
+  fromCache: boolean;
+}
+
+interface GeorisquesResponse {
+  data: Array<{
+    libelle_commune: string;
+    code_insee: string;
+    risques_detail?: GeorisquesRiskDetail[];
+  }>;
+}
+
+export const resolveCommune = async (
+  latitude: number,
+  longitude: number
+): Promise<ResolvedCommune | null> => {
+  if (CommuneResolverModule) {
+    const result = await CommuneResolverModule.resolveCommune(latitude, longitude);
+    return {
+      code: result.code,
+      name: result.name,
+      risks: JSON.parse(result.risksJson || '[]'),
+      fromCache: result.fromCache,
+    };
+  }
+
+  const response = await axios.get<GeorisquesResponse>(
+    `https://georisques.gouv.fr/api/v1/gaspar/risques?latlon=${longitude},${latitude}&rayon=20`,
+    { timeout: 10000, headers: { 'Accept': 'application/json' } }
+  );
+  const commune = response.data?.data?.[0];
+  if (!commune) {
+    return null;
+  }
+  return {
+    code: commune.code_insee,
+    name: commune.libelle_commune,
+    risks: commune.risques_detail ?? [],
+    fromCache: false,
+  };
+};
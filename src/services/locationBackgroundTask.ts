@@ -3,90 +3,36 @@
 import Geolocation from '@react-native-community/geolocation';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { NativeModules } from 'react-native';
-import { apiClient, TourneeType } from './api';
-import notifee, { AndroidImportance } from '@notifee/react-native';
-import axios from 'axios';
-import { ACTIVE_API_URL_KEY } from './serverConfig';
-
-const { PreferencesModule } = NativeModules;
-
-// ── Résolution de l'URL active pour le contexte Headless JS ──────────────────
-// Dans un contexte Headless JS (service de fond), serverConfig.ts n'a pas
-// de mémoire vive persistante. On lit donc directement depuis AsyncStorage
-// l'URL que le LoginScreen a persistée lors de la connexion.
-const getApiUrl = async (): Promise<string> => {
-  const stored = await AsyncStorage.getItem(ACTIVE_API_URL_KEY);
-  if (stored) return stored;
-  // Fallback ultime (ne devrait jamais arriver si l'utilisateur s'est connecté)
-  console.warn('[BG] ⚠️ Aucune URL serveur en storage, utilisation URL par défaut');
-  return 'http://10.0.2.2:3000/api';
-};
-
-// ✅ Lit le token depuis SharedPreferences ou AsyncStorage
-const getTokenFromPrefs = async (key: 'accessToken' | 'refreshToken'): Promise<string | null> => {
-  try {
-    if (PreferencesModule) {
-      const allKeys = await AsyncStorage.getAllKeys();
-      if (allKeys.includes(key)) {
-        return await AsyncStorage.getItem(key);
-      }
-    }
-    return null;
-  } catch {
-    return null;
-  }
-};
-
-// ✅ Rafraîchit le token JWT depuis SharedPreferences
+import { TourneeType } from './api';
+import notifee, { AndroidImportance, AndroidStyle } from '@notifee/react-native';
+import { riskTileCache, TileState, ZoneCommit } from './riskTileCache';
+import { getAccessToken, refreshAfterUnauthorized } from './tokenBroker';
+import { resolveCommune } from './communeResolver';
+import { incrementCounter } from './metrics';
+import {
+  CacheZone,
+  Heading,
+  circleZone,
+  describeZone,
+  isCircle,
+  isPrefetchDue,
+  isRefreshNeeded,
+  leadMs,
+  planZone,
+} from './prefetchCorridor';
+
+const { PreferencesModule, LocationServiceBridge, RiskCacheModule, SettingsStoreModule } = NativeModules;
+
+// ✅ Renouvelle le token JWT via le courtier natif partagé avec l'UI :
+// un seul refresh en vol même si l'app fait le sien au même moment
 const refreshTokenIfNeeded = async (): Promise<boolean> => {
   try {
-    console.log('[BG] PreferencesModule disponible:', !!PreferencesModule);
-    console.log('[BG] getRefreshToken disponible:', !!PreferencesModule?.getRefreshToken);
-
-    let refreshToken: string | null = null;
-
-    if (PreferencesModule?.getRefreshToken) {
-      refreshToken = await PreferencesModule.getRefreshToken();
-      console.log('[BG] refreshToken depuis SharedPreferences:', !!refreshToken);
-    }
-
-    // Fallback sur AsyncStorage
-    if (!refreshToken) {
-      refreshToken = await AsyncStorage.getItem('refreshToken');
-    }
-
-    const allKeys = await AsyncStorage.getAllKeys();
-    console.log('[BG] Clés AsyncStorage disponibles:', allKeys);
-
-    if (!refreshToken) {
-      console.error('[BG] ❌ Pas de refreshToken — impossible de renouveler la session');
+    const staleToken = await AsyncStorage.getItem('accessToken');
+    const accessToken = await refreshAfterUnauthorized(staleToken);
+    if (!accessToken) {
+      console.error('[BG] ❌ Pas de refreshToken valide — impossible de renouveler la session');
       return false;
     }
-
-    console.log('[BG] 🔄 Tentative de refresh du token JWT...');
-
-    // Lire l'URL active depuis AsyncStorage (persistée au login)
-    const apiUrl = await getApiUrl();
-
-    const response = await axios.post(
-      `${apiUrl}/auth/refresh`,
-      { refreshToken },
-      { timeout: 10000 }
-    );
-
-    const { accessToken, refreshToken: newRefreshToken } = response.data;
-
-    await AsyncStorage.setItem('accessToken', accessToken);
-    if (newRefreshToken) {
-      await AsyncStorage.setItem('refreshToken', newRefreshToken);
-    }
-
-    if (PreferencesModule?.setTokens) {
-      await PreferencesModule.setTokens(accessToken, newRefreshToken || refreshToken);
-    } else if (PreferencesModule?.setAccessToken) {
-      await PreferencesModule.setAccessToken(accessToken);
-    }
-
     console.log('[BG] ✅ Token JWT renouvelé avec succès');
     return true;
   } catch (error: any) {
@@ -104,35 +50,48 @@ interface Risk {
   longitude: number;
   description?: string;
   distance?: number;
+  etaMs?: number;
 }
 
 interface LocationConfig {
   radiusRecherche: number; // km
   alertRadius: number;     // m
   updateInterval: number;  // ms
+  taskInterval: number;    // ms, positionTestDelaySeconds
+  etaHorizonMs: number;    // ms, alerte au temps d'arrivée (0 = distance seule)
+  notifyCommuneChange: boolean;
+  nativeAlerts: boolean;
 }
 
-interface CachedPosition {
-  latitude: number;
-  longitude: number;
-}
-
-interface GeorisquesResponse {
-  data: Array<{
-    libelle_commune: string;
-    code_insee: string;
-  }>;
+interface LocationSettings {
+  tourneeType: TourneeType;
+  apiCallDelayMinutes: number;
+  positionTestDelaySeconds: number;
+  riskLoadZoneKm: number;
+  alertRadiusMeters: number;
+  notifyCommuneChange: boolean;
+  nativeAlerts: boolean;
 }
 
+// Risques de la zone quand ils sont gardés en JS (sans RiskCacheModule) ; côté natif,
+// seul leur nombre est connu ici
 let cachedRisks: Risk[] = [];
+let cachedRisksById = new Map<string, Risk>();
+let cachedRiskCount = 0;
 let lastApiCall = 0;
-let lastKnownPosition: CachedPosition | null = null;
+// Zone couverte par le cache : cercle autour de la position du dernier refresh,
+// ou couloir orienté vers l'avant (prefetchCorridor)
+let cachedZone: CacheZone | null = null;
 
 // Valeurs par défaut
 let LOCATION_CONFIG: LocationConfig = {
   radiusRecherche: 3,   // km
   alertRadius: 100,     // m
   updateInterval: 180000, // 3 min
+  taskInterval: 30000,
+  etaHorizonMs: 0,
+  notifyCommuneChange: false,
+  nativeAlerts: false,
 };
 
 const notifiedRisks = new Set<string>();
@@ -197,38 +156,61 @@ export const resetNotificationCooldowns = () => {
   notificationTimestamps.clear();
   lastSlowdownNotification = 0;
   hasSentWarning = false;
+  LocationServiceBridge?.resetAlertCooldowns?.();
   console.log('[BG] 🧹 Tous les cooldowns ont été réinitialisés');
 };
 
+// ✅ Snapshot des paramètres de session : un seul appel au SettingsStore natif
+// (mémoire, sans I/O) ; AsyncStorage en un multiGet si le module est absent
+const readLocationSettings = async (): Promise<LocationSettings | null> => {
+  if (SettingsStoreModule) {
+    return SettingsStoreModule.getLocationSettings();
+  }
+  const entries = Object.fromEntries(await AsyncStorage.multiGet([
+    'tourneeType', 'apiCallDelayMinutes', 'positionTestDelaySeconds', 'riskLoadZoneKm',
+    'alertRadiusMeters', 'notifyCommuneChange', 'nativeAlerts',
+  ]));
+  if (!entries.tourneeType || !entries.apiCallDelayMinutes || !entries.alertRadiusMeters || !entries.riskLoadZoneKm) {
+    return null;
+  }
+  return {
+    tourneeType: entries.tourneeType as TourneeType,
+    apiCallDelayMinutes: parseInt(entries.apiCallDelayMinutes),
+    positionTestDelaySeconds: parseInt(entries.positionTestDelaySeconds || '0'),
+    riskLoadZoneKm: parseInt(entries.riskLoadZoneKm),
+    alertRadiusMeters: parseInt(entries.alertRadiusMeters),
+    notifyCommuneChange: entries.notifyCommuneChange === 'true',
+    nativeAlerts: entries.nativeAlerts === 'true',
+  };
+};
+
 const loadConfigFromStorage = async (): Promise<void> => {
   try {
-    console.log('[BG] 📖 Lecture configuration depuis AsyncStorage');
-
-    const tourneeType = await AsyncStorage.getItem('tourneeType');
-    const apiCallDelayMinutes = await AsyncStorage.getItem('apiCallDelayMinutes');
-    const alertRadiusMeters = await AsyncStorage.getItem('alertRadiusMeters');
-    const riskLoadZoneKm = await AsyncStorage.getItem('riskLoadZoneKm');
-    const positionTestDelaySeconds = await AsyncStorage.getItem('positionTestDelaySeconds');
-
-    if (apiCallDelayMinutes && alertRadiusMeters && riskLoadZoneKm) {
-      LOCATION_CONFIG.updateInterval = parseInt(apiCallDelayMinutes) * 60 * 1000;
-      LOCATION_CONFIG.alertRadius = parseInt(alertRadiusMeters);
-      LOCATION_CONFIG.radiusRecherche = parseInt(riskLoadZoneKm);
+    const settings = await readLocationSettings();
+
+    if (settings) {
+      LOCATION_CONFIG.updateInterval = settings.apiCallDelayMinutes * 60 * 1000;
+      LOCATION_CONFIG.alertRadius = settings.alertRadiusMeters;
+      LOCATION_CONFIG.radiusRecherche = settings.riskLoadZoneKm;
+      LOCATION_CONFIG.notifyCommuneChange = settings.notifyCommuneChange;
+      LOCATION_CONFIG.nativeAlerts = settings.nativeAlerts;
+      // En voiture, un rayon d'alerte se traverse entre deux contrôles : on alerte
+      // sur le temps d'arrivée prévu plutôt que sur la distance
+      LOCATION_CONFIG.etaHorizonMs = settings.tourneeType === 'voiture' ? 20000 : 0;
 
       // ✅ Recalcul dynamique de EXPECTED_TASK_INTERVAL :
       // positionTestDelaySeconds du tenant + 30s de marge pour Android Doze/throttling
-      if (positionTestDelaySeconds) {
-        EXPECTED_TASK_INTERVAL = (parseInt(positionTestDelaySeconds) + 30) * 1000;
-        console.log(`[BG]    - Intervalle attendu: ${parseInt(positionTestDelaySeconds)}s + 30s = ${EXPECTED_TASK_INTERVAL / 1000}s`);
+      if (settings.positionTestDelaySeconds) {
+        LOCATION_CONFIG.taskInterval = settings.positionTestDelaySeconds * 1000;
+        EXPECTED_TASK_INTERVAL = (settings.positionTestDelaySeconds + 30) * 1000;
       } else {
         console.warn('[BG] ⚠️ positionTestDelaySeconds absent — EXPECTED_TASK_INTERVAL conservé à', EXPECTED_TASK_INTERVAL / 1000, 's');
       }
 
-      console.log(`[BG] ✅ Configuration chargée:`);
-      console.log(`[BG]    - Type: ${tourneeType}`);
-      console.log(`[BG]    - Rayon alerte: ${LOCATION_CONFIG.alertRadius}m`);
-      console.log(`[BG]    - Refresh API: ${parseInt(apiCallDelayMinutes)}min`);
-      console.log(`[BG]    - Zone recherche: ${LOCATION_CONFIG.radiusRecherche}km`);
+      console.log(
+        `[BG] ✅ Configuration: ${settings.tourneeType}, alerte ${LOCATION_CONFIG.alertRadius}m, ` +
+        `refresh ${settings.apiCallDelayMinutes}min, zone ${LOCATION_CONFIG.radiusRecherche}km`
+      );
     } else {
       console.warn('[BG] ⚠️ Paramètres manquants, valeurs par défaut');
     }
@@ -237,19 +219,45 @@ const loadConfigFromStorage = async (): Promise<void> => {
   }
 };
 
+// ✅ Retard mesuré par le planificateur natif (TickScheduler) : on compare le
+// retard réel du tick à la marge de 30s au lieu d'estimer l'écart entre deux exécutions
+const SLOWDOWN_LATENESS_THRESHOLD = 30000;
+
+const getMeasuredDelay = async (now: number): Promise<number | null> => {
+  if (LocationServiceBridge?.getTickStats) {
+    try {
+      const stats = await LocationServiceBridge.getTickStats();
+      if (stats) {
+        console.log(
+          `[BG] ⏱️ Tick: retard ${Math.round(stats.lastLatenessMs / 1000)}s ` +
+          `(max ${Math.round(stats.maxLatenessMs / 1000)}s, ${stats.coalesced} coalescés, ${stats.skipped} sautés)`
+        );
+        return stats.lastLatenessMs > SLOWDOWN_LATENESS_THRESHOLD ? stats.lastLatenessMs : 0;
+      }
+    } catch (error: any) {
+      console.error('[BG] ❌ Erreur lecture stats natives:', error.message);
+    }
+  }
+
+  // Fallback : heuristique sur l'écart entre deux exécutions
+  const lastTaskRunStr = await AsyncStorage.getItem('lastTaskRun');
+  if (!lastTaskRunStr) {
+    console.log('[BG] 📍 Première exécution de la tâche');
+    return null;
+  }
+  const timeSinceLastRun = now - parseInt(lastTaskRunStr);
+  console.log(`[BG] ⏱️ Temps depuis dernière activation: ${Math.round(timeSinceLastRun / 1000)}s`);
+  return timeSinceLastRun > EXPECTED_TASK_INTERVAL ? timeSinceLastRun : 0;
+};
+
 const checkTaskSlowdown = async (): Promise<void> => {
   try {
     const now = Date.now();
-    const lastTaskRunStr = await AsyncStorage.getItem('lastTaskRun');
+    const measuredDelay = await getMeasuredDelay(now);
 
-    if (lastTaskRunStr) {
-      const lastTaskRun = parseInt(lastTaskRunStr);
-      const timeSinceLastRun = now - lastTaskRun;
-
-      console.log(`[BG] ⏱️ Temps depuis dernière activation: ${Math.round(timeSinceLastRun / 1000)}s`);
-
-      if (timeSinceLastRun > EXPECTED_TASK_INTERVAL) {
-        const delayInSeconds = Math.round(timeSinceLastRun / 1000);
+    if (measuredDelay !== null) {
+      if (measuredDelay > 0) {
+        const delayInSeconds = Math.round(measuredDelay / 1000);
         console.warn(`[BG] ⚠️ RALENTISSEMENT DÉTECTÉ: ${delayInSeconds}s`);
 
         const timeSinceLastSlowdownNotif = now - lastSlowdownNotification;
@@ -272,10 +280,8 @@ const checkTaskSlowdown = async (): Promise<void> => {
           console.log('[BG] ✅ Notification ralentissement envoyée');
         }
       } else {
-        console.log(`[BG] ✅ Intervalle normal (${Math.round(timeSinceLastRun / 1000)}s)`);
+        console.log('[BG] ✅ Intervalle normal');
       }
-    } else {
-      console.log('[BG] 📍 Première exécution de la tâche');
     }
 
     await AsyncStorage.setItem('lastTaskRun', String(Date.now()));
@@ -297,26 +303,26 @@ const calculateDistance = (lat1: number, lon1: number, lat2: number, lon2: numbe
 
 const checkCommuneChange = async (latitude: number, longitude: number): Promise<void> => {
   try {
-    const notifyCommune = await AsyncStorage.getItem('notifyCommuneChange');
-    if (notifyCommune !== 'true') {
+    if (!LOCATION_CONFIG.notifyCommuneChange) {
       console.log('[BG] 🏘️ Surveillance commune désactivée');
       return;
     }
 
     console.log('[BG] 🏘️ Vérification changement de commune...');
-    const apiUrl = `https://georisques.gouv.fr/api/v1/gaspar/risques?latlon=${longitude},${latitude}&rayon=20`;
-    const response = await axios.get<GeorisquesResponse>(apiUrl, {
-      timeout: 10000,
-      headers: { 'Accept': 'application/json' },
-    });
+    // Contours en cache : pas d'appel réseau tant qu'on reste dans une commune connue
+    const commune = await resolveCommune(latitude, longitude);
 
-    if (response.data?.data?.length > 0) {
-      const currentCommune = response.data.data[0].libelle_commune;
-      console.log(`[BG] 🏘️ Commune actuelle: ${currentCommune}`);
+    if (commune) {
+      const currentCommune = commune.name;
+      console.log(`[BG] 🏘️ Commune actuelle: ${currentCommune} (${commune.fromCache ? 'cache' : 'réseau'})`);
 
-      const lastCommune = await AsyncStorage.getItem('lastKnownCommune');
+      // Comparaison sur le code INSEE : le libellé varie selon la source
+      const [[, lastCommuneCode], [, lastCommune]] = await AsyncStorage.multiGet([
+        'lastKnownCommuneCode',
+        'lastKnownCommune',
+      ]);
 
-      if (lastCommune && lastCommune !== currentCommune) {
+      if (lastCommuneCode && lastCommuneCode !== commune.code) {
         console.log(`[BG] 🚨 CHANGEMENT DE COMMUNE: ${lastCommune} → ${currentCommune}`);
         await notifee.displayNotification({
           title: '🏘️ Changement de commune',
@@ -330,13 +336,16 @@ const checkCommuneChange = async (latitude: number, longitude: number): Promise<
           },
         });
         console.log('[BG] ✅ Notification changement commune envoyée');
-      } else if (!lastCommune) {
+      } else if (!lastCommuneCode) {
         console.log(`[BG] 🏘️ Première détection: ${currentCommune}`);
       } else {
         console.log(`[BG] ✅ Toujours dans la même commune: ${currentCommune}`);
       }
 
-      await AsyncStorage.setItem('lastKnownCommune', currentCommune);
+      await AsyncStorage.multiSet([
+        ['lastKnownCommune', currentCommune],
+        ['lastKnownCommuneCode', commune.code],
+      ]);
     } else {
       console.warn("[BG] ⚠️ Aucune donnée commune retournée par l'API");
     }
@@ -351,34 +360,187 @@ const checkCommuneChange = async (latitude: number, longitude: number): Promise<
   }
 };
 
-const refreshRiskCache = async (latitude: number, longitude: number): Promise<void> => {
+// ✅ Zone fusionnée par le store des tuiles. Avec RiskCacheModule, elle est déjà persistée et
+// l'index natif à jour ; les risques gardés en JS passent par LocationServiceBridge.updateRiskIndex
+// pour que les tests de proximité ne refassent pas un haversine sur tout le cache
+const setCachedRisks = async (commit: ZoneCommit, zone: CacheZone): Promise<void> => {
+  cachedRisks = commit.risks ?? [];
+  cachedRisksById = new Map(cachedRisks.map((risk) => [risk.id, risk]));
+  cachedRiskCount = commit.count;
+  cachedZone = zone;
+
+  try {
+    if (commit.risks && LocationServiceBridge?.updateRiskIndex) {
+      const projected = commit.risks.map(({ id, title, category, severity, latitude, longitude }) => ({
+        id,
+        title,
+        category,
+        severity,
+        latitude,
+        longitude,
+      }));
+      await LocationServiceBridge.updateRiskIndex(projected, zone.startLat, zone.startLon);
+    }
+    // Le service natif en a besoin pour décider quand réveiller la tâche (alertes natives)
+    if (!isCircle(zone) && LocationServiceBridge?.setRiskZone) {
+      await LocationServiceBridge.setRiskZone(
+        zone.startLat, zone.startLon, zone.endLat, zone.endLon, zone.halfWidthMeters
+      );
+    }
+  } catch (error: any) {
+    console.error('[BG] ❌ Erreur mise à jour index natif:', error.message);
+  }
+};
+
+// ✅ Contexte Headless neuf : on repart du cache persistant au lieu d'un appel /risks/nearby
+const restoreRiskCache = async (): Promise<void> => {
+  if (cachedRiskCount > 0 || !RiskCacheModule?.loadRiskCache) return;
+
+  try {
+    // Les risques restent côté natif (index et store des tuiles) : seuls leur nombre
+    // et les métadonnées des tuiles sont relus
+    const saved: {
+      count: number;
+      centerLat: number;
+      centerLon: number;
+      savedAt: number;
+      tiles: TileState[];
+    } | null = await RiskCacheModule.loadRiskCache();
+    if (!saved) return;
+
+    // Âge de chaque tuile : le prochain refresh revalide (304) au lieu de tout retélécharger
+    if (riskTileCache.size === 0) {
+      riskTileCache.restore(saved.tiles);
+    }
+
+    cachedRiskCount = saved.count;
+    lastApiCall = saved.savedAt;
+    // Le fichier ne garde que le centre : on repart du cercle, plus prudent qu'un couloir
+    cachedZone = circleZone(saved.centerLat, saved.centerLon, LOCATION_CONFIG.radiusRecherche * 1000);
+    console.log(`[BG] 📦 Cache persistant relu: ${cachedRiskCount} risques`);
+  } catch (error: any) {
+    console.error('[BG] ❌ Erreur lecture cache persistant:', error.message);
+  }
+};
+
+// Résultat des requêtes de l'index natif : de quoi notifier sans que le JS garde les risques
+interface NativeRiskHit {
+  id: string;
+  title: string;
+  category: string | null;
+  severity: string;
+  latitude: number;
+  longitude: number;
+  distance: number;
+}
+
+const riskFromHit = (hit: NativeRiskHit): Risk =>
+  cachedRisksById.get(hit.id) ??
+  ({
+    id: hit.id,
+    title: hit.title,
+    category: hit.category ?? undefined,
+    severity: hit.severity,
+    latitude: hit.latitude,
+    longitude: hit.longitude,
+  } as Risk);
+
+// Risques du cache dans le rayon d'alerte : index natif si disponible, sinon parcours linéaire.
+// Avec etaHorizonMs, aussi ceux que la trajectoire atteint avant l'horizon (HazardEta)
+const findRisksInAlertRadius = async (
+  latitude: number,
+  longitude: number,
+  heading: Heading,
+  timestamp: number
+): Promise<Risk[]> => {
+  if (LOCATION_CONFIG.etaHorizonMs > 0 && LocationServiceBridge?.queryRisksAhead) {
+    try {
+      const hits: Array<NativeRiskHit & { etaMs: number }> =
+        await LocationServiceBridge.queryRisksAhead(
+          latitude,
+          longitude,
+          heading.speedMps ?? -1,
+          heading.headingDeg ?? -1,
+          timestamp,
+          LOCATION_CONFIG.alertRadius,
+          LOCATION_CONFIG.etaHorizonMs
+        );
+      return hits.map((hit) => ({ ...riskFromHit(hit), distance: hit.distance, etaMs: hit.etaMs }));
+    } catch (error: any) {
+      console.error('[BG] ❌ Erreur ETA natif, test de distance:', error.message);
+    }
+  }
+
+  if (LocationServiceBridge?.queryNearbyRisks) {
+    try {
+      const hits: NativeRiskHit[] =
+        await LocationServiceBridge.queryNearbyRisks(latitude, longitude, LOCATION_CONFIG.alertRadius);
+      return hits.map((hit) => ({ ...riskFromHit(hit), distance: hit.distance }));
+    } catch (error: any) {
+      console.error('[BG] ❌ Erreur index natif, parcours linéaire:', error.message);
+    }
+  }
+
+  const nearbyRisks: Risk[] = [];
+  cachedRisks.forEach((risk) => {
+    const distance = calculateDistance(latitude, longitude, risk.latitude, risk.longitude);
+    if (distance <= LOCATION_CONFIG.alertRadius) {
+      nearbyRisks.push({ ...risk, distance });
+    }
+  });
+  return nearbyRisks;
+};
+
+const logTileMetrics = (): void => {
+  const m = riskTileCache.getMetrics();
+  console.log(
+    `[BG] 🧩 Tuiles: ${m.tilesFetched} téléchargées, ${m.tilesNotModified} inchangées (304), ` +
+    `${m.tileHits} en cache, ${m.tilesFailed} en échec — hit ratio ${Math.round(m.hitRatio * 100)}%, ` +
+    `${Math.round(m.bytesDownloaded / 1024)} Ko téléchargés (${Math.round(m.overlapRatio * 100)}% hors tuile), ` +
+    `${Math.round(m.bytesSaved / 1024)} Ko non retéléchargés`
+  );
+};
+
+// Cercle riskLoadZoneKm, ou couloir orienté si le GPS donne un cap fiable
+const syncRiskZone = async (zone: CacheZone): Promise<void> => {
+  const commit = isCircle(zone)
+    ? await riskTileCache.syncZone(
+        zone.startLat,
+        zone.startLon,
+        LOCATION_CONFIG.radiusRecherche,
+        LOCATION_CONFIG.updateInterval
+      )
+    : await riskTileCache.syncCorridor(zone, LOCATION_CONFIG.updateInterval);
+  await setCachedRisks(commit, zone);
+  lastApiCall = Date.now();
+};
+
+const refreshRiskCache = async (latitude: number, longitude: number, heading: Heading): Promise<void> => {
   try {
     const now = new Date();
     const dateStr = `${String(now.getDate()).padStart(2, '0')}/${String(now.getMonth() + 1).padStart(2, '0')} ${String(now.getHours()).padStart(2, '0')}:${String(now.getMinutes()).padStart(2, '0')}:${String(now.getSeconds()).padStart(2, '0')}`;
     console.log(`[BG] date : ${dateStr} - Tentative refresh cache`);
 
-    const token = await AsyncStorage.getItem('accessToken');
+    // Token valide ou rafraîchi avant expiration par le courtier natif
+    const token = await getAccessToken().catch(() => AsyncStorage.getItem('accessToken'));
     if (!token) {
-      console.warn('[BG] ⚠️ Pas de token — tentative de refresh avant appel API');
-      const refreshed = await refreshTokenIfNeeded();
-      if (!refreshed) {
-        console.error('[BG] ❌ Impossible de renouveler la session — utilisation du cache');
-        return;
-      }
+      console.error('[BG] ❌ Impossible de renouveler la session — utilisation du cache');
+      return;
     }
 
-    console.log('[BG] ✅ Token présent, appel getNearbyRisks');
+    const zone = planZone(
+      latitude,
+      longitude,
+      heading,
+      LOCATION_CONFIG.radiusRecherche,
+      LOCATION_CONFIG.updateInterval
+    );
+    console.log(`[BG] ✅ Token présent, chargement ${describeZone(zone)}`);
 
     try {
-      const risks = await apiClient.getNearbyRisks(
-        latitude,
-        longitude,
-        LOCATION_CONFIG.radiusRecherche * 1000
-      );
-      cachedRisks = risks || [];
-      lastApiCall = Date.now();
-      lastKnownPosition = { latitude, longitude };
-      console.log(`[BG] ✅ Cache rafraîchi: ${cachedRisks.length} risques`);
+      await syncRiskZone(zone);
+      console.log(`[BG] ✅ Cache rafraîchi: ${cachedRiskCount} risques`);
+      logTileMetrics();
     } catch (error: any) {
       if (error.response?.status === 401) {
         console.warn('[BG] ⚠️ Token expiré (401) — tentative de refresh...');
@@ -386,15 +548,8 @@ const refreshRiskCache = async (latitude: number, longitude: number): Promise<vo
         if (refreshed) {
           console.log('[BG] 🔁 Nouvelle tentative après refresh token...');
           try {
-            const risks = await apiClient.getNearbyRisks(
-              latitude,
-              longitude,
-              LOCATION_CONFIG.radiusRecherche * 1000
-            );
-            cachedRisks = risks || [];
-            lastApiCall = Date.now();
-            lastKnownPosition = { latitude, longitude };
-            console.log(`[BG] ✅ Cache rafraîchi après refresh: ${cachedRisks.length} risques`);
+            await syncRiskZone(zone);
+            console.log(`[BG] ✅ Cache rafraîchi après refresh: ${cachedRiskCount} risques`);
           } catch (retryError: any) {
             console.error('[BG] ❌ Échec après refresh token:', retryError.message);
           }
@@ -413,58 +568,110 @@ const refreshRiskCache = async (latitude: number, longitude: number): Promise<vo
 };
 
 const shouldRefreshCache = (latitude: number, longitude: number): boolean => {
-  if (cachedRisks.length === 0 || !lastKnownPosition) return true;
+  if (cachedRiskCount === 0 || !cachedZone) return true;
   if (Date.now() - lastApiCall > LOCATION_CONFIG.updateInterval) return true;
+  return isRefreshNeeded(cachedZone, latitude, longitude);
+};
 
-  const distance = calculateDistance(
-    lastKnownPosition.latitude,
-    lastKnownPosition.longitude,
-    latitude,
-    longitude
+// ✅ Sortie de zone prévue avant deux ticks : on recharge maintenant, une fois le
+// contrôle des risques fait, plutôt que de bloquer le tick où l'on atteint le bord
+const prefetchAhead = async (latitude: number, longitude: number, heading: Heading): Promise<void> => {
+  if (!cachedZone || !isPrefetchDue(cachedZone, latitude, longitude, heading, leadMs(LOCATION_CONFIG.taskInterval))) {
+    return;
+  }
+  console.log(
+    `[BG] 🛰️ Préchargement vers ${Math.round(heading.headingDeg || 0)}° à ${Math.round((heading.speedMps || 0) * 3.6)} km/h`
   );
-  return distance > (LOCATION_CONFIG.radiusRecherche - 1) * 1000;
+  incrementCounter('risk_prefetches');
+  await refreshRiskCache(latitude, longitude, heading);
 };
 
-const checkRisksFromCache = async (latitude: number, longitude: number): Promise<Risk[]> => {
-  const nearbyRisks: Risk[] = [];
-  const now = Date.now();
+// "À 80m" une fois dans le rayon, "Dans ~12s (350m)" quand l'alerte est anticipée
+const describeProximity = (risk: Risk): string =>
+  risk.etaMs && risk.etaMs > 0
+    ? `Dans ~${Math.max(1, Math.round(risk.etaMs / 1000))}s (${Math.round(risk.distance || 0)}m)`
+    : `À ${Math.round(risk.distance || 0)}m`;
+
+// Plus grave d'abord, puis plus proche : même ordre que RiskAlertDispatcher côté natif
+const SEVERITY_RANK: Record<string, number> = { critique: 3, 'élevé': 2, 'modéré': 1, faible: 0 };
+const byPriority = (a: Risk, b: Risk): number =>
+  (SEVERITY_RANK[b.severity] ?? -1) - (SEVERITY_RANK[a.severity] ?? -1) ||
+  (a.distance ?? Infinity) - (b.distance ?? Infinity);
+
+// ✅ Sans dispatcher natif : une seule notification groupée par tick, remplacée au tick suivant
+const displayGroupedAlert = async (risks: Risk[]): Promise<void> => {
+  const sorted = [...risks].sort(byPriority);
+  const first = sorted[0];
+  const lines = sorted.map(
+    (risk) => `[${risk.severity}] ${risk.category} : ${describeProximity(risk)} - ${risk.title}`
+  );
+  await notifee.displayNotification({
+    id: 'risk-alerts',
+    title: sorted.length === 1 ? `⚠️ Risque : ${first.category}` : `⚠️ ${sorted.length} risques à proximité`,
+    body: sorted.length === 1 ? `${describeProximity(first)} - ${first.title}` : lines[0],
+    android: {
+      channelId: 'risk-alerts-final',
+      importance: AndroidImportance.HIGH,
+      vibrationPattern: [300, 500],
+      sound: 'default',
+      pressAction: { id: 'default' },
+      ...(sorted.length > 1 ? { style: { type: AndroidStyle.INBOX, lines: lines.slice(0, 6) } } : {}),
+    },
+  });
+};
 
-  cachedRisks.forEach((risk) => {
-    const distance = calculateDistance(latitude, longitude, risk.latitude, risk.longitude);
-    if (distance <= LOCATION_CONFIG.alertRadius) {
-      nearbyRisks.push({ ...risk, distance });
+const checkRisksFromCache = async (
+  latitude: number,
+  longitude: number,
+  heading: Heading,
+  timestamp: number
+): Promise<Risk[]> => {
+  const nearbyRisks = await findRisksInAlertRadius(latitude, longitude, heading, timestamp);
+
+  // ✅ Dispatcher natif : regroupement, limite par canal et cooldowns persistés
+  // (partagés avec les alertes natives, conservés entre deux démarrages du Headless JS)
+  if (LocationServiceBridge?.dispatchRiskAlerts) {
+    try {
+      const { notified, held } = await LocationServiceBridge.dispatchRiskAlerts(
+        nearbyRisks.map(({ id, title, category, severity, distance, etaMs }) => ({
+          id,
+          title,
+          category,
+          severity,
+          distance: distance ?? 0,
+          etaMs: etaMs ?? 0,
+        }))
+      );
+      if (notified > 0) {
+        console.log(`[BG] 🚨 Notification groupée: ${notified} risque(s)`);
+      }
+      if (held > 0) {
+        console.log(`[BG] ⏳ ${held} risque(s) retenu(s) par la limite de notifications`);
+      }
+      return nearbyRisks;
+    } catch (error: any) {
+      console.error('[BG] ❌ Erreur dispatcher natif, notification JS:', error.message);
     }
-  });
+  }
 
+  const now = Date.now();
   const nearbyRiskIds = new Set(nearbyRisks.map((r) => r.id));
 
-  for (const risk of nearbyRisks) {
+  const toNotify = nearbyRisks.filter((risk) => {
     const lastNotification = notificationTimestamps.get(risk.id) || 0;
-    const timeSinceLastNotif = now - lastNotification;
-    const canNotify = timeSinceLastNotif > NOTIFICATION_COOLDOWN;
+    return now - lastNotification > NOTIFICATION_COOLDOWN || !notifiedRisks.has(risk.id);
+  });
 
-    if (canNotify || !notifiedRisks.has(risk.id)) {
-      console.log(`[BG] 🚨 Notification risque ${risk.id}`);
-      try {
-        await notifee.displayNotification({
-          title: `⚠️ Risque : ${risk.category}`,
-          body: `À ${Math.round(risk.distance || 0)}m - ${risk.title}`,
-          android: {
-            channelId: 'risk-alerts-final',
-            importance: AndroidImportance.HIGH,
-            vibrationPattern: [300, 500],
-            sound: 'default',
-            pressAction: { id: 'default' },
-          },
-        });
+  if (toNotify.length > 0) {
+    console.log(`[BG] 🚨 Notification groupée: ${toNotify.map((r) => r.id).join(', ')}`);
+    try {
+      await displayGroupedAlert(toNotify);
+      toNotify.forEach((risk) => {
         notifiedRisks.add(risk.id);
         notificationTimestamps.set(risk.id, now);
-      } catch (error) {
-        console.error('[BG] Erreur notification:', error);
-      }
-    } else {
-      const remainingMinutes = Math.ceil((NOTIFICATION_COOLDOWN - timeSinceLastNotif) / 1000 / 60);
-      console.log(`[BG] ⏳ Risque ${risk.id} - cooldown actif (${remainingMinutes}min)`);
+      });
+    } catch (error) {
+      console.error('[BG] Erreur notification:', error);
     }
   }
 
@@ -484,6 +691,42 @@ const checkRisksFromCache = async (latitude: number, longitude: number): Promise
   return nearbyRisks;
 };
 
+// Contrôle d'une position : rafraîchissement du cache, alertes JS, préchargement
+const processPosition = async (
+  latitude: number,
+  longitude: number,
+  motion: Heading,
+  timestamp: number
+): Promise<void> => {
+  console.log(`[BG] 📍 Position: ${latitude.toFixed(4)}, ${longitude.toFixed(4)}`);
+
+  const blocking = shouldRefreshCache(latitude, longitude);
+  if (blocking) {
+    console.log('[BG] 🔄 Refresh du cache nécessaire');
+    incrementCounter('risk_blocking_refreshes');
+    await refreshRiskCache(latitude, longitude, motion);
+  } else {
+    console.log(`[BG] ✅ Cache valide (${cachedRiskCount} risques)`);
+  }
+
+  // En mode alertes natives, LocationTrackingService notifie déjà à chaque fix
+  if (LOCATION_CONFIG.nativeAlerts) {
+    console.log('[BG] 🔕 Alertes natives actives — pas de contrôle JS');
+  } else {
+    const nearbyRisks = await checkRisksFromCache(latitude, longitude, motion, timestamp);
+
+    if (nearbyRisks.length > 0) {
+      console.log(`[BG] ⚠️ ${nearbyRisks.length} risque(s) dans ${LOCATION_CONFIG.alertRadius}m`);
+    } else {
+      console.log(`[BG] ✅ Aucun risque dans ${LOCATION_CONFIG.alertRadius}m`);
+    }
+  }
+
+  if (!blocking) {
+    await prefetchAhead(latitude, longitude, motion);
+  }
+};
+
 export const locationBackgroundTask = async (taskData?: any): Promise<void> => {
   console.log('[BG] 🚀 Headless JS Task démarré');
 
@@ -494,29 +737,33 @@ export const locationBackgroundTask = async (taskData?: any): Promise<void> => {
   // à partir de positionTestDelaySeconds avant que checkTaskSlowdown s'en serve
   await loadConfigFromStorage();
   await checkTaskSlowdown();
+  await restoreRiskCache();
+
+  // Dernier fix du pipeline natif (LocationTaskService.putFix) : pas de second
+  // abonnement GPS tant qu'il date de moins d'un intervalle de tâche
+  if (
+    typeof taskData?.latitude === 'number' &&
+    Date.now() - taskData.timestamp <= Math.max(LOCATION_CONFIG.taskInterval, 30000)
+  ) {
+    try {
+      const motion: Heading = {
+        speedMps: taskData.speed >= 0 ? taskData.speed : null,
+        headingDeg: taskData.heading >= 0 ? taskData.heading : null,
+      };
+      await processPosition(taskData.latitude, taskData.longitude, motion, taskData.timestamp);
+    } catch (error) {
+      console.error('[BG] Erreur dans la tâche:', error);
+    }
+    return;
+  }
 
   return new Promise((resolve) => {
     Geolocation.getCurrentPosition(
       async (position) => {
         try {
-          const { latitude, longitude } = position.coords;
-          console.log(`[BG] 📍 Position: ${latitude.toFixed(4)}, ${longitude.toFixed(4)}`);
-
-          if (shouldRefreshCache(latitude, longitude)) {
-            console.log('[BG] 🔄 Refresh du cache nécessaire');
-            await refreshRiskCache(latitude, longitude);
-          } else {
-            console.log(`[BG] ✅ Cache valide (${cachedRisks.length} risques)`);
-          }
-
-          const nearbyRisks = await checkRisksFromCache(latitude, longitude);
-
-          if (nearbyRisks.length > 0) {
-            console.log(`[BG] ⚠️ ${nearbyRisks.length} risque(s) dans ${LOCATION_CONFIG.alertRadius}m`);
-          } else {
-            console.log(`[BG] ✅ Aucun risque dans ${LOCATION_CONFIG.alertRadius}m`);
-          }
-
+          const { latitude, longitude, speed, heading } = position.coords;
+          const motion: Heading = { speedMps: speed, headingDeg: heading };
+          await processPosition(latitude, longitude, motion, position.timestamp);
           resolve();
         } catch (error) {
           console.error('[BG] Erreur dans la tâche:', error);
@@ -6,7 +6,57 @@ import { apiClient, SystemSetting, TourneeType } from './api';
 import { resetNotificationCooldowns } from './locationBackgroundTask'; // Importez la nouvelle fonction
 
 
-const { LocationServiceBridge, PreferencesModule } = NativeModules;
+const { LocationServiceBridge, PreferencesModule, SettingsStoreModule } = NativeModules;
+
+// Étapes du pipeline natif (PipelineStages côté Java)
+const JS_ALERT_STAGES = ['source', 'filtre', 'sync'];
+const NATIVE_ALERT_STAGES = ['source', 'filtre', 'proximite', 'notification', 'sync'];
+
+interface SessionSettings {
+  positionTestDelaySeconds: number;
+  apiCallDelayMinutes: number;
+  riskLoadZoneKm: number;
+  alertRadiusMeters: number;
+}
+
+const SESSION_KEYS = [
+  'tourneeType', 'positionTestDelaySeconds', 'apiCallDelayMinutes', 'riskLoadZoneKm',
+  'alertRadiusMeters', 'notifyCommuneChange', 'nativeAlerts',
+];
+
+// ✅ Publie les paramètres de session en un appel : snapshot natif (lu par les
+// services et le Headless JS sans I/O) + un seul multiSet AsyncStorage pour l'UI
+const saveSessionSettings = async (
+  tourneeType: TourneeType,
+  settings: SessionSettings,
+  notifyCommuneChange: boolean,
+  nativeAlerts: boolean
+): Promise<void> => {
+  if (SettingsStoreModule) {
+    await SettingsStoreModule.setLocationSettings({
+      tourneeType,
+      positionTestDelaySeconds: settings.positionTestDelaySeconds,
+      apiCallDelayMinutes: settings.apiCallDelayMinutes,
+      riskLoadZoneKm: settings.riskLoadZoneKm,
+      alertRadiusMeters: settings.alertRadiusMeters,
+      notifyCommuneChange,
+      nativeAlerts,
+    });
+  } else if (PreferencesModule) {
+    await PreferencesModule.setTourneeType(tourneeType);
+    await PreferencesModule.setTaskInterval(settings.positionTestDelaySeconds * 1000);
+  }
+
+  await AsyncStorage.multiSet([
+    ['tourneeType', tourneeType],
+    ['positionTestDelaySeconds', String(settings.positionTestDelaySeconds)],
+    ['apiCallDelayMinutes', String(settings.apiCallDelayMinutes)],
+    ['riskLoadZoneKm', String(settings.riskLoadZoneKm)],
+    ['alertRadiusMeters', String(settings.alertRadiusMeters)],
+    ['notifyCommuneChange', notifyCommuneChange ? 'true' : 'false'],
+    ['nativeAlerts', nativeAlerts ? 'true' : 'false'],
+  ]);
+};
 
 interface LocationPosition {
   latitude: number;
@@ -158,9 +208,17 @@ export const locationService = {
 
   startBackgroundLocationTracking: async (
     tourneeType: TourneeType,
-    notifyCommuneChange: boolean = false  // 🆕 NOUVEAU PARAMÈTRE
+    notifyCommuneChange: boolean = false,  // 🆕 NOUVEAU PARAMÈTRE
+    nativeAlerts: boolean = false          // Alertes évaluées par LocationTrackingService
   ): Promise<boolean> => {
     try {
+      let nativeTrackingOptions: {
+        tourneeType: TourneeType;
+        alertRadiusMeters: number;
+        riskLoadZoneKm: number;
+        apiCallDelayMinutes: number;
+      } | null = null;
+
       // ✅ ON RÉINITIALISE ICI
       resetNotificationCooldowns();
       // Enregistrer l'heure de début
@@ -185,29 +243,18 @@ export const locationService = {
           console.log(`   - Zone recherche: ${setting.riskLoadZoneKm}km`);
           console.log(`   - Rayon alerte: ${setting.alertRadiusMeters}m`);
           
-          // ✅ SAUVEGARDER TOUS LES PARAMÈTRES DANS ASYNCSTORAGE (une seule fois)
-          await AsyncStorage.setItem('tourneeType', tourneeType);
-          await AsyncStorage.setItem('positionTestDelaySeconds', String(setting.positionTestDelaySeconds));
-          await AsyncStorage.setItem('apiCallDelayMinutes', String(setting.apiCallDelayMinutes));
-          await AsyncStorage.setItem('riskLoadZoneKm', String(setting.riskLoadZoneKm));
-          await AsyncStorage.setItem('alertRadiusMeters', String(setting.alertRadiusMeters));
-          
-          // 🆕 SAUVEGARDER LE PARAMÈTRE DE SURVEILLANCE DE COMMUNE
-          await AsyncStorage.setItem('notifyCommuneChange', notifyCommuneChange ? 'true' : 'false');
+          // ✅ SAUVEGARDER TOUS LES PARAMÈTRES (une seule fois, un seul appel)
+          // L'intervalle des ticks (positionTestDelaySeconds) suit via le SettingsStore natif
+          await saveSessionSettings(tourneeType, setting, notifyCommuneChange, nativeAlerts);
           
-          console.log('✅ Paramètres sauvegardés dans AsyncStorage');
+          console.log('✅ Paramètres sauvegardés');
           
-          // Calculer l'intervalle pour le module natif
-          const taskInterval = setting.positionTestDelaySeconds * 1000;
-          
-          // Utiliser le module natif pour configurer l'intervalle
-          if (PreferencesModule) {
-            await PreferencesModule.setTourneeType(tourneeType);
-            await PreferencesModule.setTaskInterval(taskInterval);
-            console.log(`✅ Configuration module natif: ${taskInterval}ms`);
-          } else {
-            console.warn('⚠️ PreferencesModule non disponible');
-          }
+          nativeTrackingOptions = {
+            tourneeType,
+            alertRadiusMeters: setting.alertRadiusMeters,
+            riskLoadZoneKm: setting.riskLoadZoneKm,
+            apiCallDelayMinutes: setting.apiCallDelayMinutes,
+          };
           
         } else {
           // Fallback sur valeurs par défaut
@@ -248,23 +295,16 @@ export const locationService = {
               break;
           }
           
-          await AsyncStorage.setItem('tourneeType', tourneeType);
-          await AsyncStorage.setItem('positionTestDelaySeconds', String(defaults.positionTestDelaySeconds));
-          await AsyncStorage.setItem('apiCallDelayMinutes', String(defaults.apiCallDelayMinutes));
-          await AsyncStorage.setItem('riskLoadZoneKm', String(defaults.riskLoadZoneKm));
-          await AsyncStorage.setItem('alertRadiusMeters', String(defaults.alertRadiusMeters));
-          
-          // 🆕 SAUVEGARDER LE PARAMÈTRE DE SURVEILLANCE DE COMMUNE
-          await AsyncStorage.setItem('notifyCommuneChange', notifyCommuneChange ? 'true' : 'false');
+          await saveSessionSettings(tourneeType, defaults, notifyCommuneChange, nativeAlerts);
           
           console.log('✅ Valeurs par défaut sauvegardées');
           
-          const taskInterval = defaults.positionTestDelaySeconds * 1000;
-          
-          if (PreferencesModule) {
-            await PreferencesModule.setTourneeType(tourneeType);
-            await PreferencesModule.setTaskInterval(taskInterval);
-          }
+          nativeTrackingOptions = {
+            tourneeType,
+            alertRadiusMeters: defaults.alertRadiusMeters,
+            riskLoadZoneKm: defaults.riskLoadZoneKm,
+            apiCallDelayMinutes: defaults.apiCallDelayMinutes,
+          };
         }
       }
       
@@ -282,10 +322,35 @@ export const locationService = {
       
       console.log('✅ Module natif disponible');
       
-      // Démarrer le service natif Android
-      await LocationServiceBridge.startService();
+      // Démarrer le pipeline natif : un seul service, un seul abonnement GPS.
+      // Mode alertes natives : le fix est comparé au cache côté Java, le Headless JS
+      // n'est plus réveillé que pour rafraîchir le cache. Sinon, la tâche Headless
+      // reçoit le dernier fix du pipeline et fait le contrôle elle-même.
+      const stages = nativeAlerts && nativeTrackingOptions ? NATIVE_ALERT_STAGES : JS_ALERT_STAGES;
+      await LocationServiceBridge.startService({
+        ...(nativeTrackingOptions ?? { tourneeType }),
+        stages,
+        ...(stages === NATIVE_ALERT_STAGES
+          ? {
+              // Échantillonnage adaptatif : GPS espacé loin des risques, resserré à l'approche
+              adaptiveSampling: true,
+              // En voiture, alerte au temps d'arrivée (HazardEta) : un rayon de 100 m se
+              // traverse entre deux fixes ; signalé ~20 s avant d'y entrer
+              etaAlertSeconds: tourneeType === 'voiture' ? 20 : 0,
+              etaInterpolate: true,
+              // À pied et à vélo, les risques proches sont confiés aux geofences du système :
+              // le GPS passe en fixes passifs entre deux transitions
+              geofencing: tourneeType !== 'voiture',
+            }
+          : {
+              // Seule la tâche Headless lit la position, une fois par tick : un fix équilibré
+              // par intervalle de tâche au lieu d'un abonnement haute précision continu
+              tickSampling: true,
+            }),
+      });
       
       isNativeServiceRunning = true;
+      console.log(`✅ Pipeline natif démarré (${stages.join(' → ')})`);
       
       console.log('✅ Service natif démarré - Survie illimitée en arrière-plan !');
       console.log('🛡️ Notification permanente "Gestion Risques Active" devrait être visible');
@@ -306,18 +371,14 @@ export const locationService = {
       }
       
       // Nettoyer TOUS les paramètres sauvegardés
-      await AsyncStorage.removeItem('tourneeType');
-      await AsyncStorage.removeItem('positionTestDelaySeconds');
-      await AsyncStorage.removeItem('apiCallDelayMinutes');
-      await AsyncStorage.removeItem('riskLoadZoneKm');
-      await AsyncStorage.removeItem('alertRadiusMeters');
-      await AsyncStorage.removeItem('taskInterval');
+      await SettingsStoreModule?.clearLocationSettings();
+      await AsyncStorage.multiRemove([...SESSION_KEYS, 'taskInterval']);
       
-      // 🆕 SUPPRIMER LE PARAMÈTRE DE SURVEILLANCE DE COMMUNE
-      await AsyncStorage.removeItem('notifyCommuneChange');
+      // Le cache persistant appartient à la session de tracking
+      await NativeModules.RiskCacheModule?.clearRiskCache();
       
       // 🆕 SUPPRIMER LA DERNIÈRE COMMUNE CONNUE
-      await AsyncStorage.removeItem('lastKnownCommune');
+      await AsyncStorage.multiRemove(['lastKnownCommune', 'lastKnownCommuneCode']);
 
       // 🆕 SUPPRIMER LE TIMESTAMP DE LA DERNIÈRE EXÉCUTION
       await AsyncStorage.removeItem('lastTaskRun');
@@ -0,0 +1,71 @@
+// src/services/mapTileCache.ts
+//
+// Accès au cache disque natif (MapTileCacheModule) des fichiers Leaflet et des
+// tuiles OSM utilisés par RiskMapScreen. react-native-webview n'offre pas
+// d'interception des requêtes côté JS : la WebView demande donc ses tuiles par
+// postMessage et reçoit des data URLs servies depuis ce cache.
+// Sans module natif (iOS), la carte garde le chargement réseau direct.
+import { NativeModules } from 'react-native';
+
+export const LEAFLET_JS_URL = 'https://cdnjs.cloudflare.com/ajax/libs/leaflet/1.9.4/leaflet.min.js';
+export const LEAFLET_CSS_URL = 'https://cdnjs.cloudflare.com/ajax/libs/leaflet/1.9.4/leaflet.min.css';
+
+const { MapTileCacheModule } = NativeModules;
+
+export interface LeafletAssets {
+  js: string;
+  css: string;
+}
+
+export interface MapTileCacheStats {
+  hits: number;
+  misses: number;
+  staleHits: number;
+  // Tuiles téléchargées par préchargement (hors hits/misses)
+  prefetched: number;
+  bytesSaved: number;
+  bytesDownloaded: number;
+  hitRatio: number;
+  entries: number;
+  sizeBytes: number;
+}
+
+export const hasNativeTileCache = (): boolean => !!MapTileCacheModule;
+
+/**
+ * Leaflet JS + CSS depuis le cache disque ; null si indisponible (liens CDN en repli).
+ */
+export const loadLeafletAssets = async (): Promise<LeafletAssets | null> => {
+  if (!MapTileCacheModule) return null;
+  try {
+    const [js, css] = await Promise.all([
+      MapTileCacheModule.getAsset(LEAFLET_JS_URL),
+      MapTileCacheModule.getAsset(LEAFLET_CSS_URL),
+    ]);
+    return { js, css };
+  } catch (error) {
+    console.warn('[MapTileCache] Leaflet indisponible hors ligne:', error);
+    return null;
+  }
+};
+
+/** Tuile PNG en base64 (cache disque, sinon réseau). */
+export const getCachedTile = (z: number, x: number, y: number): Promise<string> =>
+  MapTileCacheModule.getTile(z, x, y);
+
+/**
+ * Préchargement des tuiles autour de la position, tant que la carte est ouverte :
+ * appeler cancelMapPrefetch à sa fermeture (politique d'usage OSM).
+ */
+export const prefetchMapZone = (latitude: number, longitude: number): void => {
+  MapTileCacheModule?.prefetchZone(latitude, longitude).catch((error: unknown) =>
+    console.warn('[MapTileCache] Préchargement interrompu:', error)
+  );
+};
+
+export const cancelMapPrefetch = (): void => {
+  MapTileCacheModule?.cancelPrefetch().catch(() => {});
+};
+
+export const getMapTileCacheStats = async (): Promise<MapTileCacheStats | null> =>
+  MapTileCacheModule ? MapTileCacheModule.getStats() : null;
@@ -0,0 +1,53 @@
+// src/services/metrics.ts
+//
+// Mesures faites côté JS, remontées dans le registre natif (MetricsModule) pour
+// être lues et exportées avec celles du pipeline natif. Les noms doivent être
+// déclarés dans Metrics.java ; sans module natif (iOS), les appels sont ignorés.
+import { NativeModules } from 'react-native';
+
+const { MetricsModule } = NativeModules;
+
+export type MetricName = 'risks_nearby_ms';
+export type CounterName =
+  | 'risk_cache_hits'
+  | 'risk_cache_misses'
+  | 'risk_blocking_refreshes'
+  | 'risk_prefetches';
+
+export interface HistogramSnapshot {
+  count: number;
+  mean: number;
+  p50: number;
+  p95: number;
+  p99: number;
+  max: number;
+}
+
+export interface MetricsSnapshot {
+  counters: Record<string, number>;
+  histograms: Record<string, HistogramSnapshot>;
+}
+
+export const recordDuration = (name: MetricName, durationMs: number): void => {
+  MetricsModule?.recordDuration(name, durationMs);
+};
+
+export const incrementCounter = (name: CounterName, delta = 1): void => {
+  MetricsModule?.incrementCounter(name, delta);
+};
+
+/** Chronomètre une promesse et enregistre sa durée, succès ou échec. */
+export const timed = async <T>(name: MetricName, operation: () => Promise<T>): Promise<T> => {
+  const start = Date.now();
+  try {
+    return await operation();
+  } finally {
+    recordDuration(name, Date.now() - start);
+  }
+};
+
+export const getMetrics = async (): Promise<MetricsSnapshot | null> =>
+  MetricsModule ? MetricsModule.getMetrics() : null;
+
+export const dumpMetrics = async (): Promise<string | null> =>
+  MetricsModule ? MetricsModule.dumpMetrics() : null;
@@ -0,0 +1,127 @@
+// src/services/prefetchCorridor.ts
+//
+// Zone de risques chargée en cache : ensemble des points à moins de halfWidthMeters
+// du segment start → end (un cercle est un segment réduit à son centre).
+// En mouvement, la zone devient un couloir orienté selon le cap du GPS : moins
+// large que le cercle riskLoadZoneKm, il ne charge presque rien derrière
+// l'utilisateur. isPrefetchDue prévoit la sortie de zone dans les prochains ticks
+// pour recharger après le contrôle des risques, au lieu de bloquer le tick suivant.
+// Même logique que PrefetchCorridor.java (validée par le simulateur de traces).
+
+// En dessous, le cap du GPS n'est pas fiable
+const MIN_SPEED_MPS = 2.5;
+const WIDTH_RATIO = 0.6;
+const MIN_CORRIDOR_ZONE_KM = 2;
+// Marge historique de shouldRefreshCache : rechargement à 1 km du bord de la zone
+const REFRESH_MARGIN_METERS = 1000;
+const MIN_LEAD_MS = 60000;
+const EARTH_RADIUS_METERS = 6371000;
+const METERS_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_METERS / 180;
+
+export interface CacheZone {
+  startLat: number;
+  startLon: number;
+  endLat: number;
+  endLon: number;
+  halfWidthMeters: number;
+}
+
+export interface Heading {
+  speedMps: number | null;
+  headingDeg: number | null;
+}
+
+const haversineMeters = (lat1: number, lon1: number, lat2: number, lon2: number): number => {
+  const dLat = (lat2 - lat1) * Math.PI / 180;
+  const dLon = (lon2 - lon1) * Math.PI / 180;
+  const a =
+    Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+    Math.cos(lat1 * Math.PI / 180) * Math.cos(lat2 * Math.PI / 180) *
+    Math.sin(dLon / 2) * Math.sin(dLon / 2);
+  return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+};
+
+// Le GPS renvoie heading = -1 ou null quand le cap est inconnu
+const hasHeading = ({ speedMps, headingDeg }: Heading): boolean =>
+  speedMps != null && speedMps >= MIN_SPEED_MPS && headingDeg != null && headingDeg >= 0;
+
+// Point à `meters` dans la direction `headingDeg` (projection plane, quelques km)
+const moveBy = (latitude: number, longitude: number, headingDeg: number, meters: number) => {
+  const bearing = headingDeg * Math.PI / 180;
+  const cosLat = Math.max(Math.cos(latitude * Math.PI / 180), 1e-6);
+  return {
+    latitude: latitude + (meters * Math.cos(bearing)) / METERS_PER_DEGREE_LAT,
+    longitude: longitude + (meters * Math.sin(bearing)) / (METERS_PER_DEGREE_LAT * cosLat),
+  };
+};
+
+export const circleZone = (latitude: number, longitude: number, radiusMeters: number): CacheZone => ({
+  startLat: latitude,
+  startLon: longitude,
+  endLat: latitude,
+  endLon: longitude,
+  halfWidthMeters: radiusMeters,
+});
+
+export const isCircle = (zone: CacheZone): boolean =>
+  zone.startLat === zone.endLat && zone.startLon === zone.endLon;
+
+/**
+ * Zone à charger depuis cette position : cercle riskLoadZoneKm sans cap fiable,
+ * sinon couloir jusqu'à la distance parcourue avant expiration du cache (maxAgeMs).
+ */
+export const planZone = (
+  latitude: number,
+  longitude: number,
+  heading: Heading,
+  riskLoadZoneKm: number,
+  maxAgeMs: number
+): CacheZone => {
+  const radiusMeters = riskLoadZoneKm * 1000;
+  if (!hasHeading(heading) || riskLoadZoneKm < MIN_CORRIDOR_ZONE_KM) {
+    return circleZone(latitude, longitude, radiusMeters);
+  }
+  const halfWidthMeters = WIDTH_RATIO * radiusMeters;
+  const length = Math.min(2 * radiusMeters, Math.max(halfWidthMeters, heading.speedMps! * maxAgeMs / 1000));
+  const end = moveBy(latitude, longitude, heading.headingDeg!, length);
+  return { startLat: latitude, startLon: longitude, endLat: end.latitude, endLon: end.longitude, halfWidthMeters };
+};
+
+/** Anticipation : deux ticks, au moins une minute. */
+export const leadMs = (taskIntervalMs: number): number => Math.max(MIN_LEAD_MS, 2 * taskIntervalMs);
+
+export const distanceToAxisMeters = (zone: CacheZone, latitude: number, longitude: number): number => {
+  if (isCircle(zone)) {
+    return haversineMeters(zone.startLat, zone.startLon, latitude, longitude);
+  }
+  const cosLat = Math.cos(zone.startLat * Math.PI / 180);
+  const ex = (zone.endLon - zone.startLon) * cosLat * METERS_PER_DEGREE_LAT;
+  const ey = (zone.endLat - zone.startLat) * METERS_PER_DEGREE_LAT;
+  const px = (longitude - zone.startLon) * cosLat * METERS_PER_DEGREE_LAT;
+  const py = (latitude - zone.startLat) * METERS_PER_DEGREE_LAT;
+  const t = Math.max(0, Math.min(1, (px * ex + py * ey) / (ex * ex + ey * ey)));
+  return Math.hypot(px - t * ex, py - t * ey);
+};
+
+/** Position sortie de la zone à 1 km près : rechargement avant le contrôle des risques. */
+export const isRefreshNeeded = (zone: CacheZone, latitude: number, longitude: number): boolean =>
+  distanceToAxisMeters(zone, latitude, longitude) > zone.halfWidthMeters - REFRESH_MARGIN_METERS;
+
+/** Vrai si, à ce cap et cette vitesse, isRefreshNeeded deviendra vrai dans les lead ms. */
+export const isPrefetchDue = (
+  zone: CacheZone,
+  latitude: number,
+  longitude: number,
+  heading: Heading,
+  lead: number
+): boolean => {
+  if (!hasHeading(heading)) return false;
+  const ahead = moveBy(latitude, longitude, heading.headingDeg!, heading.speedMps! * lead / 1000);
+  return isRefreshNeeded(zone, ahead.latitude, ahead.longitude);
+};
+
+export const describeZone = (zone: CacheZone): string =>
+  isCircle(zone)
+    ? `cercle ${Math.round(zone.halfWidthMeters)}m`
+    : `couloir ${Math.round(haversineMeters(zone.startLat, zone.startLon, zone.endLat, zone.endLon))}m ` +
+      `x ${Math.round(2 * zone.halfWidthMeters)}m`;
@@ -0,0 +1,79 @@
+// src/services/riskImport.ts
+//
+// Import en masse de risques depuis un fichier GeoJSON ou CSV via RiskImportModule :
+// le fichier est lu en flux côté natif, validé sur plusieurs threads, dédoublonné
+// contre le cache local puis envoyé par lots (/risks/bulk-create). Le JS ne reçoit
+// que la progression et le rapport final, jamais le contenu du fichier.
+import { DeviceEventEmitter, NativeModules } from 'react-native';
+import { apiClient } from './api';
+import { getActiveUrl } from './serverConfig';
+
+const { RiskImportModule, OutboundQueueModule } = NativeModules;
+
+export type RiskImportFormat = 'geojson' | 'csv';
+
+export interface RiskImportProgress {
+  read: number;
+  invalid: number;
+  duplicates: number;
+  uploaded: number;
+  failed: number;
+  done?: boolean;
+}
+
+export interface RiskImportReport extends RiskImportProgress {
+  cancelled: boolean;
+  durationMs: number;
+  errors: string[]; // « ligne 12 : catégorie inconnue ... », 100 premières erreurs
+}
+
+export function isRiskImportAvailable(): boolean {
+  return !!RiskImportModule;
+}
+
+export function formatFromFileName(name: string): RiskImportFormat {
+  return /\.csv$/i.test(name) ? 'csv' : 'geojson';
+}
+
+export async function importRisksFromFile(
+  uri: string,
+  format: RiskImportFormat,
+  onProgress?: (progress: RiskImportProgress) => void,
+  dedupeRadiusMeters: number = 15
+): Promise<RiskImportReport> {
+  if (!RiskImportModule) {
+    throw new Error('Import de fichiers indisponible sur cette plateforme');
+  }
+
+  const categories = await apiClient.getRiskCategories();
+  if (categories.length === 0) {
+    throw new Error('Catégories de risques indisponibles');
+  }
+  // L'envoi natif relit l'URL de l'API depuis les préférences partagées
+  if (OutboundQueueModule) {
+    await OutboundQueueModule.setApiBaseUrl(await getActiveUrl());
+  }
+
+  const subscription = onProgress
+    ? DeviceEventEmitter.addListener('onRiskImportProgress', onProgress)
+    : null;
+  try {
+    const report: RiskImportReport = await RiskImportModule.startImport(
+      uri,
+      format,
+      categories.map(({ id, name, label }) => ({ id, name, label })),
+      dedupeRadiusMeters
+    );
+    console.log(
+      `📥 Import ${format}: ${report.uploaded} créés, ${report.duplicates} doublons, ` +
+        `${report.invalid} invalides, ${report.failed} refusés en ${report.durationMs} ms`
+    );
+    return report;
+  } finally {
+    subscription?.remove();
+  }
+}
+
+export async function cancelRiskImport(): Promise<boolean> {
+  return RiskImportModule ? RiskImportModule.cancelImport() : false;
+}
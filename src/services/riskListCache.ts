@@ -0,0 +1,275 @@
+// src/services/riskListCache.ts
+//
+// Liste des risques de ListRisksScreen chargée par pages (GET /risks?cursor=&limit=).
+// - RiskPageCache : pages gardées en mémoire quelques minutes par jeu de filtres, pour
+//   réafficher la liste instantanément pendant que la 1re page est revalidée.
+// - RiskListIndex : les filtres catégorie / sévérité sont des intersections de bitmaps
+//   (RiskFilterModule) sur les lignes déjà chargées, sans requête. Les paramètres de
+//   filtre du serveur ne servent qu'à charger des pages supplémentaires quand
+//   l'intersection locale ne remplit pas la liste.
+import { NativeModules } from 'react-native';
+import { apiClient } from './api';
+import { Risk, RiskFilters, RiskPage } from '../types';
+
+export const RISK_PAGE_SIZE = 100;
+const PAGE_TTL_MS = 2 * 60 * 1000;
+
+type PageFetcher = (cursor: string | null, limit: number, filters: RiskFilters) => Promise<RiskPage>;
+
+interface CachedPage extends RiskPage {
+  fetchedAt: number;
+}
+
+// Ancien et nouveau nom du champ créateur selon les versions du backend
+export const riskCreatorId = (risk: Risk): string | null =>
+  risk.creatorId ?? risk.createdByUserId ?? null;
+
+// Une liste de pages par jeu de filtres : les curseurs d'une liste filtrée ne valent pas pour une autre
+export const filtersKey = (filters: RiskFilters): string =>
+  [filters.categoryId ?? '', filters.severity ?? '', filters.creatorId ?? ''].join('|');
+
+const pageKey = (cursor: string | null, filters: RiskFilters): string =>
+  `${filtersKey(filters)}#${cursor ?? ''}`;
+
+export class RiskPageCache {
+  private pages = new Map<string, CachedPage>();
+
+  constructor(
+    private fetchPage: PageFetcher = (cursor, limit, filters) => apiClient.getRisksPage(cursor, limit, filters),
+    private ttlMs: number = PAGE_TTL_MS,
+    private pageSize: number = RISK_PAGE_SIZE
+  ) {}
+
+  /**
+   * Page suivant `cursor` (null = première page), depuis le cache si elle a moins de ttlMs.
+   */
+  async getPage(cursor: string | null, force = false, filters: RiskFilters = {}): Promise<RiskPage> {
+    const key = pageKey(cursor, filters);
+    const cached = this.pages.get(key);
+    if (!force && cached && Date.now() - cached.fetchedAt <= this.ttlMs) {
+      return cached;
+    }
+
+    const page = await this.fetchPage(cursor, this.pageSize, filters);
+    this.pages.set(key, { ...page, fetchedAt: Date.now() });
+    return page;
+  }
+
+  /**
+   * Pages consécutives encore fraîches depuis le début de la liste, sans requête.
+   */
+  getCachedPrefix(filters: RiskFilters = {}): RiskPage[] {
+    const now = Date.now();
+    const prefix: RiskPage[] = [];
+    let cursor: string | null = null;
+    do {
+      const page = this.pages.get(pageKey(cursor, filters));
+      if (!page || now - page.fetchedAt > this.ttlMs) {
+        break;
+      }
+      prefix.push(page);
+      cursor = page.nextCursor;
+    } while (cursor);
+    return prefix;
+  }
+
+  /**
+   * Recharge la première page ; retourne false si elle est identique à celle
+   * en cache (mêmes risques, même updatedAt), auquel cas les pages suivantes restent valables.
+   */
+  async revalidateFirstPage(filters: RiskFilters = {}): Promise<boolean> {
+    const firstKey = pageKey(null, filters);
+    const previous = this.pages.get(firstKey);
+    const fresh = await this.getPage(null, true, filters);
+    if (previous && samePage(previous, fresh)) {
+      return false;
+    }
+    // La liste a changé en tête : les curseurs suivants ne sont plus fiables,
+    // ni ceux des autres jeux de filtres
+    const first = this.pages.get(firstKey);
+    this.pages.clear();
+    if (first) {
+      this.pages.set(firstKey, first);
+    }
+    return true;
+  }
+
+  invalidate(): void {
+    this.pages.clear();
+  }
+}
+
+const samePage = (a: RiskPage, b: RiskPage): boolean =>
+  a.nextCursor === b.nextCursor &&
+  a.items.length === b.items.length &&
+  a.items.every((risk, i) => risk.id === b.items[i].id && risk.updatedAt === b.items[i].updatedAt);
+
+const hasFilter = (filters: RiskFilters): boolean =>
+  Boolean(filters.categoryId || filters.severity || filters.creatorId);
+
+/**
+ * Lignes chargées + index de filtrage natif. Les lignes viennent de la liste de
+ * base (pages non filtrées, dans l'ordre du serveur) ou de pages filtrées par le
+ * serveur ; chaque risque n'est envoyé qu'une fois au module natif. Les ajouts
+ * sont sérialisés pour que les numéros de lignes natifs restent alignés sur le tableau JS.
+ */
+export class RiskListIndex {
+  private rows: Risk[] = [];
+  private rowById = new Map<string, number>();
+  // Lignes de la liste de base, dans l'ordre du serveur, et position de chacune
+  private base: number[] = [];
+  private basePosition = new Map<number, number>();
+  private baseRisks: Risk[] = [];
+  // true tant que chaque ligne est à sa position dans la liste de base (pas de tri à faire)
+  private ordered = true;
+  private pending: Promise<unknown> = Promise.resolve();
+
+  /** Liste de base chargée, sans filtre. */
+  get risks(): Risk[] {
+    return this.baseRisks;
+  }
+
+  /**
+   * Affiche les pages de base `risks`. Si elles prolongent la liste déjà indexée
+   * (mêmes risques, même updatedAt en tête), seules les nouvelles lignes sont
+   * envoyées au module natif ; sinon l'index est reconstruit. Retourne true dans ce cas.
+   */
+  showBase(risks: Risk[]): Promise<boolean> {
+    return this.enqueue(async () => {
+      if (this.extendsBase(risks)) {
+        await this.addRows(risks.slice(this.base.length), true);
+        return false;
+      }
+      await this.resetRows();
+      await this.addRows(risks, true);
+      return true;
+    });
+  }
+
+  /** Page suivante de la liste de base. */
+  appendBase(risks: Risk[]): Promise<void> {
+    return this.enqueue(() => this.addRows(risks, true));
+  }
+
+  /** Page filtrée par le serveur : ajoute les risques pas encore chargés. */
+  addFiltered(risks: Risk[]): Promise<void> {
+    return this.enqueue(() => this.addRows(risks, false));
+  }
+
+  clear(): Promise<void> {
+    return this.enqueue(() => this.resetRows());
+  }
+
+  /**
+   * Lignes chargées satisfaisant tous les filtres : celles de la liste de base
+   * dans son ordre, puis celles des pages filtrées dans leur ordre d'arrivée.
+   */
+  async query(filters: RiskFilters): Promise<Risk[]> {
+    await this.pending;
+    const rows = this.rows;
+    if (!hasFilter(filters)) {
+      return this.baseRisks;
+    }
+
+    const native = NativeModules.RiskFilterModule;
+    let matches: number[];
+    if (!native) {
+      // Pas de module natif (iOS, tests) : filtrage JS
+      matches = [];
+      rows.forEach((risk, row) => {
+        if (
+          (!filters.categoryId || risk.categoryId === filters.categoryId) &&
+          (!filters.severity || risk.severity === filters.severity) &&
+          (!filters.creatorId || riskCreatorId(risk) === filters.creatorId)
+        ) {
+          matches.push(row);
+        }
+      });
+    } else {
+      const found: number[] = await native.query({
+        categoryId: filters.categoryId ?? null,
+        severity: filters.severity ?? null,
+        creatorId: filters.creatorId ?? null,
+      });
+      matches = found.filter((row) => row < rows.length);
+    }
+
+    if (!this.ordered) {
+      const outside = this.base.length;
+      const position = (row: number): number => this.basePosition.get(row) ?? outside + row;
+      matches.sort((a, b) => position(a) - position(b));
+    }
+    return matches.map((row) => rows[row]);
+  }
+
+  private extendsBase(risks: Risk[]): boolean {
+    if (risks.length < this.base.length) {
+      return false;
+    }
+    return this.base.every((row, i) => {
+      const current = this.rows[row];
+      return current.id === risks[i].id && current.updatedAt === risks[i].updatedAt;
+    });
+  }
+
+  private async resetRows(): Promise<void> {
+    await NativeModules.RiskFilterModule?.resetIndex();
+    this.rows = [];
+    this.rowById = new Map();
+    this.base = [];
+    this.basePosition = new Map();
+    this.baseRisks = [];
+    this.ordered = true;
+  }
+
+  private async addRows(risks: Risk[], inBase: boolean): Promise<void> {
+    const fresh: Risk[] = [];
+    const freshIds = new Set<string>();
+    for (const risk of risks) {
+      if (!this.rowById.has(risk.id) && !freshIds.has(risk.id)) {
+        fresh.push(risk);
+        freshIds.add(risk.id);
+      }
+    }
+
+    if (fresh.length > 0) {
+      // Seuls les champs indexés traversent le bridge, une seule fois par risque
+      await NativeModules.RiskFilterModule?.appendRisks(
+        fresh.map((risk) => ({
+          categoryId: risk.categoryId,
+          severity: risk.severity,
+          creatorId: riskCreatorId(risk),
+        }))
+      );
+      fresh.forEach((risk, i) => this.rowById.set(risk.id, this.rows.length + i));
+      this.rows = this.rows.concat(fresh);
+    }
+
+    if (!inBase) {
+      this.ordered = this.ordered && fresh.length === 0;
+      return;
+    }
+    const added: Risk[] = [];
+    for (const risk of risks) {
+      const row = this.rowById.get(risk.id)!;
+      if (!this.basePosition.has(row)) {
+        this.ordered = this.ordered && row === this.base.length;
+        this.basePosition.set(row, this.base.length);
+        this.base.push(row);
+        added.push(this.rows[row]);
+      }
+    }
+    if (added.length > 0) {
+      this.baseRisks = this.baseRisks.concat(added);
+    }
+  }
+
+  private enqueue<T>(step: () => Promise<T>): Promise<T> {
+    const next = this.pending.then(step, step);
+    this.pending = next.catch(() => undefined);
+    return next;
+  }
+}
+
+export const riskPageCache = new RiskPageCache();
+export const riskListIndex = new RiskListIndex();
@@ -0,0 +1,414 @@
+// src/services/riskTileCache.ts
+//
+// Cache des risques découpé en tuiles géographiques fixes.
+// Au lieu de recharger tout le cercle /risks/nearby à chaque refresh, la zone
+// de chargement est couverte par des tuiles : quand l'utilisateur se déplace,
+// seules les tuiles manquantes ou périmées sont téléchargées, puis fusionnées.
+// Chaque tuile garde son ETag pour un rechargement conditionnel (304).
+// Éviction LRU par distance : on supprime d'abord les tuiles les plus éloignées.
+// Chaque tuile est demandée avec son cercle circonscrit, qui déborde sur les
+// voisines : une synchronisation à froid télécharge plus qu'un seul cercle
+// /risks/nearby. Le gain vient des refresh suivants (hits et 304) ; la part
+// téléchargée hors tuile est mesurée par overlapRatio.
+// Une tuile en échec est sautée (l'ancienne version reste servie si elle existe) ;
+// la synchronisation n'échoue que si aucune tuile n'a pu être chargée.
+// La zone peut aussi être un couloir orienté (prefetchCorridor) : seules les
+// tuiles qui le recoupent sont chargées.
+// Les tuiles à télécharger partent en parallèle, au plus MAX_CONCURRENT_FETCHES
+// à la fois.
+// Les risques et l'ETag de chaque tuile vivent dans un TileStore : côté natif
+// sur Android (RiskWireModule / RiskCacheModule, qui persistent aussi la zone
+// et l'index des tuiles), en mémoire JS sinon. Ce cache ne garde que la date de
+// chargement, la taille et le nombre de risques de chaque tuile ; après un
+// redémarrage, restore() repart des métadonnées relues par RiskCacheModule.
+import { NativeModules } from 'react-native';
+import { apiClient } from './api';
+import { Risk } from '../types';
+import { incrementCounter } from './metrics';
+import { CacheZone, distanceToAxisMeters } from './prefetchCorridor';
+
+// ~5,5 km en latitude : quelques tuiles couvrent une zone riskLoadZoneKm typique
+export const TILE_SIZE_DEG = 0.05;
+const MAX_TILES = 64;
+// Aligné sur les threads de RiskWireModule
+const MAX_CONCURRENT_FETCHES = 4;
+const KM_PER_DEG_LAT = 111.32;
+
+type TileFetcher = (
+  centerLat: number,
+  centerLng: number,
+  radiusKm: number,
+  etag?: string
+) => Promise<{ notModified: boolean; risks: Risk[]; etag?: string; bytes: number }>;
+
+type TileRef = { row: number; col: number };
+
+/** Chargement d'une tuile par le store : compteurs seulement, les risques restent dans le store. */
+export interface TileLoad {
+  notModified: boolean;
+  etag?: string;
+  bytes: number;
+  downloaded: number;  // risques reçus, y compris hors tuile
+  kept: number;        // risques gardés dans la tuile ; -1 : 304 pour une tuile que le store n'a plus
+}
+
+/** Zone fusionnée par le store. */
+export interface ZoneCommit {
+  count: number;
+  missing: string[];      // tuiles de la zone que le store ne garde plus, à recharger
+  risks: Risk[] | null;   // null : risques gardés côté natif
+}
+
+/** Où vivent les risques et l'ETag des tuiles. */
+export interface TileStore {
+  load(row: number, col: number, radiusKm: number): Promise<TileLoad>;
+  // retained : toutes les tuiles gardées par le cache, les autres sont oubliées
+  commit(zone: TileRef[], retained: TileRef[], latitude: number, longitude: number): Promise<ZoneCommit>;
+}
+
+/** Métadonnées d'une tuile relues par RiskCacheModule.loadRiskCache. */
+export interface TileState {
+  row: number;
+  col: number;
+  fetchedAt: number;
+  bytes: number;
+  count: number;
+}
+
+interface TileEntry {
+  key: string;
+  row: number;
+  col: number;
+  count: number;
+  bytes: number;
+  fetchedAt: number;
+}
+
+export interface TileCacheMetrics {
+  tilesFetched: number;      // tuiles téléchargées (200)
+  tilesNotModified: number;  // tuiles revalidées par 304
+  tileHits: number;          // tuiles servies depuis le cache sans requête
+  tilesFailed: number;       // tuiles sautées sur erreur réseau ou serveur
+  bytesDownloaded: number;   // réponses complètes, débordement sur les voisines compris
+  bytesSaved: number;        // octets des réponses de tuiles non retéléchargées (hits + 304)
+  risksDownloaded: number;   // risques reçus, y compris hors tuile
+  risksKept: number;         // risques gardés (position dans la tuile)
+  overlapRatio: number;      // part des risques reçus hors de leur tuile, jetés
+  hitRatio: number;
+}
+
+const tileKey = (row: number, col: number): string => `${row}:${col}`;
+
+const tileRow = (latitude: number): number => Math.floor((latitude + 90) / TILE_SIZE_DEG);
+const tileCol = (longitude: number): number => Math.floor((longitude + 180) / TILE_SIZE_DEG);
+
+const tileCenter = (row: number, col: number): { latitude: number; longitude: number } => ({
+  latitude: (row + 0.5) * TILE_SIZE_DEG - 90,
+  longitude: (col + 0.5) * TILE_SIZE_DEG - 180,
+});
+
+// Demi-diagonale d'une tuile : cercle circonscrit, utilisé pour la requête et le test de recouvrement
+const tileHalfDiagonalKm = (centerLatitude: number): number =>
+  Math.hypot(
+    TILE_SIZE_DEG * KM_PER_DEG_LAT,
+    TILE_SIZE_DEG * KM_PER_DEG_LAT * Math.cos(centerLatitude * Math.PI / 180)
+  ) / 2;
+
+const distanceKm = (lat1: number, lon1: number, lat2: number, lon2: number): number => {
+  const R = 6371;
+  const dLat = (lat2 - lat1) * Math.PI / 180;
+  const dLon = (lon2 - lon1) * Math.PI / 180;
+  const a =
+    Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+    Math.cos(lat1 * Math.PI / 180) * Math.cos(lat2 * Math.PI / 180) *
+    Math.sin(dLon / 2) * Math.sin(dLon / 2);
+  return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+};
+
+/** Risques gardés en mémoire JS, chargés par fetchTile (sans module natif, et en test). */
+export class MemoryTileStore implements TileStore {
+  private tiles = new Map<string, { risks: Risk[]; etag?: string }>();
+
+  constructor(private fetchTile: TileFetcher) {}
+
+  async load(row: number, col: number, radiusKm: number): Promise<TileLoad> {
+    const key = tileKey(row, col);
+    const cached = this.tiles.get(key);
+    const center = tileCenter(row, col);
+    const result = await this.fetchTile(center.latitude, center.longitude, radiusKm, cached?.etag);
+
+    if (result.notModified) {
+      return {
+        notModified: true,
+        etag: cached?.etag,
+        bytes: 0,
+        downloaded: 0,
+        kept: cached ? cached.risks.length : -1,
+      };
+    }
+
+    // Le cercle circonscrit déborde sur les tuiles voisines : on ne garde que
+    // les risques dont la position tombe dans cette tuile
+    const risks = result.risks.filter(
+      (risk) => tileRow(risk.latitude) === row && tileCol(risk.longitude) === col
+    );
+    this.tiles.set(key, { risks, etag: result.etag });
+    return {
+      notModified: false,
+      etag: result.etag,
+      bytes: result.bytes,
+      downloaded: result.risks.length,
+      kept: risks.length,
+    };
+  }
+
+  async commit(zone: TileRef[], retained: TileRef[], _latitude: number, _longitude: number): Promise<ZoneCommit> {
+    const keep = new Set(retained.map(({ row, col }) => tileKey(row, col)));
+    for (const key of Array.from(this.tiles.keys())) {
+      if (!keep.has(key)) this.tiles.delete(key);
+    }
+
+    const merged = new Map<string, Risk>();
+    const missing: string[] = [];
+    for (const { row, col } of zone) {
+      const tile = this.tiles.get(tileKey(row, col));
+      if (tile) {
+        tile.risks.forEach((risk) => merged.set(risk.id, risk));
+      } else {
+        missing.push(tileKey(row, col));
+      }
+    }
+    return { count: merged.size, missing, risks: Array.from(merged.values()) };
+  }
+}
+
+/**
+ * Risques gardés côté natif : RiskWireModule charge et décode chaque tuile,
+ * RiskCacheModule fusionne la zone, l'écrit sur disque et met à jour l'index
+ * de proximité. Aucun risque ne repasse le pont React Native.
+ */
+export class NativeTileStore implements TileStore {
+  async load(row: number, col: number, radiusKm: number): Promise<TileLoad> {
+    return apiClient.fetchRiskTileNative(row, col, radiusKm);
+  }
+
+  async commit(zone: TileRef[], retained: TileRef[], latitude: number, longitude: number): Promise<ZoneCommit> {
+    const result: { count: number; missing: string[] } =
+      await NativeModules.RiskCacheModule.commitRiskTiles(zone, retained, latitude, longitude);
+    return { count: result.count, missing: result.missing, risks: null };
+  }
+}
+
+const defaultStore = (): TileStore =>
+  NativeModules.RiskWireModule && NativeModules.RiskCacheModule
+    ? new NativeTileStore()
+    : new MemoryTileStore((lat, lng, radiusKm, etag) => apiClient.getRisksInTile(lat, lng, radiusKm, etag));
+
+export class RiskTileCache {
+  private tiles = new Map<string, TileEntry>();
+  private metrics = {
+    tilesFetched: 0,
+    tilesNotModified: 0,
+    tileHits: 0,
+    tilesFailed: 0,
+    bytesDownloaded: 0,
+    bytesSaved: 0,
+    risksDownloaded: 0,
+    risksKept: 0,
+  };
+
+  constructor(
+    private store: TileStore = defaultStore(),
+    private maxTiles: number = MAX_TILES,
+    private maxConcurrentFetches: number = MAX_CONCURRENT_FETCHES
+  ) {}
+
+  /**
+   * Tuiles qui recoupent le rectangle englobant du cercle (latitude, longitude, radiusKm).
+   */
+  tilesForZone(latitude: number, longitude: number, radiusKm: number): Array<{ row: number; col: number }> {
+    const deltaLat = radiusKm / KM_PER_DEG_LAT;
+    const cosLat = Math.max(Math.cos(latitude * Math.PI / 180), 1e-6);
+    const deltaLon = deltaLat / cosLat;
+
+    const tiles: Array<{ row: number; col: number }> = [];
+    for (let row = tileRow(latitude - deltaLat); row <= tileRow(latitude + deltaLat); row++) {
+      for (let col = tileCol(longitude - deltaLon); col <= tileCol(longitude + deltaLon); col++) {
+        tiles.push({ row, col });
+      }
+    }
+    return tiles;
+  }
+
+  /**
+   * Tuiles qui recoupent un couloir (capsule autour du segment start → end) :
+   * celles du rectangle englobant dont le cercle circonscrit touche le couloir.
+   */
+  tilesForCorridor(zone: CacheZone): Array<{ row: number; col: number }> {
+    const halfLengthKm = distanceKm(zone.startLat, zone.startLon, zone.endLat, zone.endLon) / 2;
+    const candidates = this.tilesForZone(
+      (zone.startLat + zone.endLat) / 2,
+      (zone.startLon + zone.endLon) / 2,
+      halfLengthKm + zone.halfWidthMeters / 1000
+    );
+    return candidates.filter(({ row, col }) => {
+      const center = tileCenter(row, col);
+      const distance = distanceToAxisMeters(zone, center.latitude, center.longitude);
+      return distance <= zone.halfWidthMeters + tileHalfDiagonalKm(center.latitude) * 1000;
+    });
+  }
+
+  /**
+   * Synchronise la zone : télécharge uniquement les tuiles absentes ou plus
+   * vieilles que maxAgeMs, puis fait fusionner la zone par le store.
+   */
+  async syncZone(latitude: number, longitude: number, radiusKm: number, maxAgeMs: number): Promise<ZoneCommit> {
+    return this.syncTiles(this.tilesForZone(latitude, longitude, radiusKm), latitude, longitude, maxAgeMs);
+  }
+
+  /** Comme syncZone, pour un couloir de préchargement. */
+  async syncCorridor(zone: CacheZone, maxAgeMs: number): Promise<ZoneCommit> {
+    return this.syncTiles(this.tilesForCorridor(zone), zone.startLat, zone.startLon, maxAgeMs);
+  }
+
+  private async syncTiles(
+    needed: Array<{ row: number; col: number }>,
+    latitude: number,
+    longitude: number,
+    maxAgeMs: number
+  ): Promise<ZoneCommit> {
+    const now = Date.now();
+    const stale: Array<{ row: number; col: number; cached?: TileEntry }> = [];
+
+    for (const { row, col } of needed) {
+      const cached = this.tiles.get(tileKey(row, col));
+      if (cached && now - cached.fetchedAt <= maxAgeMs) {
+        this.metrics.tileHits++;
+        this.metrics.bytesSaved += cached.bytes;
+        incrementCounter('risk_cache_hits');
+      } else {
+        stale.push({ row, col, cached });
+      }
+    }
+
+    let failed = 0;
+    let lastError: unknown = null;
+    let next = 0;
+    // Chaque worker prend la tuile suivante dès que la sienne est chargée
+    const worker = async (): Promise<void> => {
+      while (next < stale.length) {
+        const { row, col, cached } = stale[next++];
+        try {
+          await this.loadTile(row, col, cached, now);
+        } catch (error) {
+          // Tuile sautée : les autres sont chargées, la version périmée reste servie
+          lastError = error;
+          failed++;
+          this.metrics.tilesFailed++;
+          console.warn(`[BG] ⚠️ Tuile ${tileKey(row, col)} non chargée:`, error);
+        }
+      }
+    };
+    const workers = Math.min(Math.max(1, this.maxConcurrentFetches), stale.length);
+    await Promise.all(Array.from({ length: workers }, worker));
+
+    // Rien n'a pu être chargé (hors ligne) : l'appelant garde son cache
+    if (stale.length > 0 && failed === stale.length) {
+      throw lastError;
+    }
+
+    this.evict(latitude, longitude, new Set(needed.map(({ row, col }) => tileKey(row, col))));
+
+    const retained = Array.from(this.tiles.values(), ({ row, col }) => ({ row, col }));
+    const commit = await this.store.commit(needed, retained, latitude, longitude);
+    // Tuiles connues ici mais plus gardées par le store (processus natif redémarré) :
+    // elles seront rechargées au prochain refresh
+    const lost = commit.missing.filter((key) => this.tiles.delete(key));
+    if (lost.length > 0) {
+      console.warn(`[BG] ⚠️ ${lost.length} tuile(s) perdue(s) par le store, rechargées au prochain refresh`);
+    }
+    return commit;
+  }
+
+  getMetrics(): TileCacheMetrics {
+    const requests = this.metrics.tilesFetched + this.metrics.tilesNotModified;
+    const lookups = requests + this.metrics.tileHits;
+    return {
+      ...this.metrics,
+      overlapRatio: this.metrics.risksDownloaded > 0
+        ? 1 - this.metrics.risksKept / this.metrics.risksDownloaded
+        : 0,
+      hitRatio: lookups > 0 ? (this.metrics.tileHits + this.metrics.tilesNotModified) / lookups : 0,
+    };
+  }
+
+  /**
+   * Reprend les métadonnées des tuiles persistées avec la zone (nouveau contexte
+   * Headless) : les tuiles fraîches restent des hits, les autres repartent en
+   * requête conditionnelle avec l'ETag gardé par le store.
+   */
+  restore(states: TileState[]): void {
+    for (const { row, col, fetchedAt, bytes, count } of states) {
+      const key = tileKey(row, col);
+      this.tiles.set(key, { key, row, col, count, bytes, fetchedAt });
+    }
+  }
+
+  clear(): void {
+    this.tiles.clear();
+  }
+
+  get size(): number {
+    return this.tiles.size;
+  }
+
+  private async loadTile(row: number, col: number, cached: TileEntry | undefined, now: number): Promise<void> {
+    const key = tileKey(row, col);
+    const center = tileCenter(row, col);
+    const result = await this.store.load(row, col, tileHalfDiagonalKm(center.latitude));
+
+    if (result.notModified) {
+      if (result.kept < 0) {
+        // 304 pour une tuile que le store n'a plus : rechargée complètement au prochain refresh
+        this.tiles.delete(key);
+        throw new Error(`Tuile ${key} absente du store`);
+      }
+      // Tuile gardée par le store mais inconnue de ce contexte JS : reprise telle quelle
+      const entry = cached ?? { key, row, col, count: 0, bytes: 0, fetchedAt: now };
+      entry.fetchedAt = now;
+      entry.count = result.kept;
+      this.tiles.set(key, entry);
+      this.metrics.tilesNotModified++;
+      this.metrics.bytesSaved += entry.bytes;
+      incrementCounter('risk_cache_hits');
+      return;
+    }
+
+    this.tiles.set(key, { key, row, col, count: result.kept, bytes: result.bytes, fetchedAt: now });
+    this.metrics.tilesFetched++;
+    this.metrics.bytesDownloaded += result.bytes;
+    this.metrics.risksDownloaded += result.downloaded;
+    this.metrics.risksKept += result.kept;
+    incrementCounter('risk_cache_misses');
+  }
+
+  // Supprime les tuiles hors zone les plus éloignées de la position courante
+  private evict(latitude: number, longitude: number, keep: Set<string>): void {
+    if (this.tiles.size <= this.maxTiles) return;
+
+    const candidates = Array.from(this.tiles.values())
+      .filter((tile) => !keep.has(tile.key))
+      .map((tile) => {
+        const center = tileCenter(tile.row, tile.col);
+        return { key: tile.key, distance: distanceKm(latitude, longitude, center.latitude, center.longitude) };
+      })
+      .sort((a, b) => b.distance - a.distance);
+
+    for (const { key } of candidates) {
+      if (this.tiles.size <= this.maxTiles) break;
+      this.tiles.delete(key);
+    }
+  }
+}
+
+export const riskTileCache = new RiskTileCache();
@@ -0,0 +1,46 @@
+// src/services/tokenBroker.ts
+// Accès unique au token JWT pour l'UI (api.ts) et le Headless JS (locationBackgroundTask.ts).
+// Le refresh est fait côté natif (TokenBrokerModule) : un seul refresh en vol pour
+// tous les appelants, refresh anticipé avant l'expiration du JWT.
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import { NativeModules } from 'react-native';
+import { getActiveUrl } from './serverConfig';
+
+const { TokenBrokerModule } = NativeModules;
+
+// AsyncStorage reste la copie lue par le reste de l'app (authStore, écrans)
+const mirror = async (token: string | null): Promise<void> => {
+  if (token && token !== (await AsyncStorage.getItem('accessToken'))) {
+    await AsyncStorage.setItem('accessToken', token);
+  }
+};
+
+/**
+ * Token d'accès valide, rafraîchi si nécessaire.
+ * null si la session a expiré (refresh token refusé ou absent).
+ */
+export const getAccessToken = async (): Promise<string | null> => {
+  if (!TokenBrokerModule) {
+    return AsyncStorage.getItem('accessToken');
+  }
+  const token: string | null = await TokenBrokerModule.getAccessToken(await getActiveUrl());
+  await mirror(token);
+  return token;
+};
+
+/**
+ * Le serveur a répondu 401 avec staleToken. Plusieurs requêtes en échec
+ * simultané ne déclenchent qu'un seul refresh.
+ * null si la session a expiré.
+ */
+export const refreshAfterUnauthorized = async (staleToken: string | null): Promise<string | null> => {
+  if (!TokenBrokerModule) {
+    return null;
+  }
+  const token: string | null = await TokenBrokerModule.refreshAfterUnauthorized(
+    await getActiveUrl(),
+    staleToken || ''
+  );
+  await mirror(token);
+  return token;
+};
@@ -84,6 +84,8 @@ export const useAuthStore = create<AuthState>((set) => ({
           } else {
             // Service inactif — tout effacer
             await PreferencesModule.clearTokens();
+            // Les mutations hors ligne en attente ne doivent pas partir avec le compte suivant
+            await NativeModules.OutboundQueueModule?.clear();
           }
         } catch (e) {}
       }
@@ -72,11 +72,25 @@ export interface Risk {
   longitude: number;
   tenantId: string;
   creatorId: string;
+  createdByUserId?: string; // ancien nom du créateur, encore renvoyé par certains backends
   creatorEmail?: string;
   createdAt: string;
   updatedAt: string;
 }
 
+// Page de GET /risks paginé par curseur (nextCursor null = dernière page)
+export interface RiskPage {
+  items: Risk[];
+  nextCursor: string | null;
+}
+
+// Filtres de la liste, envoyés en paramètres de GET /risks (null = pas de filtre)
+export interface RiskFilters {
+  categoryId?: string | null;
+  severity?: string | null;
+  creatorId?: string | null;
+}
+
 export interface AuthTokens {
   accessToken: string;
   refreshToken: string;
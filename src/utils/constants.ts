@@ -80,6 +80,7 @@ export const MESSAGES = {
     riskUpdated: 'Risque mis à jour',
     riskDeleted: 'Risque supprimé',
     risksDeleted: 'Risques supprimés',
+    riskQueued: 'Pas de réseau : le risque est enregistré et sera envoyé dès le retour de la connexion',
   },
   info: {
     noRisks: 'Aucun risque à afficher',
@@ -0,0 +1,184 @@
+// src/utils/mapMarkers.ts
+//
+// Calcul des marqueurs de RiskMapScreen, sans dépendance React ni Leaflet :
+// - layoutMarkers : ne garde que les risques du viewport (avec une marge) et,
+//   aux zooms faibles, les regroupe par grille de cellules en pixels Web Mercator ;
+// - diffMarkers : compare la dernière disposition envoyée à la WebView avec la
+//   nouvelle et ne produit que les ajouts, suppressions et modifications.
+// La WebView se contente d'appliquer ces diffs sur les couches déjà créées.
+
+export interface MapRisk {
+  id: string;
+  lat: number;
+  lng: number;
+  title: string;
+  category: string;
+  severity: string;
+  distance: number;
+  description: string;
+  color: string;
+  icon: string;
+}
+
+export interface MapViewport {
+  south: number;
+  west: number;
+  north: number;
+  east: number;
+  zoom: number;
+}
+
+export type MapItem =
+  | ({ kind: 'risk' } & MapRisk)
+  | { kind: 'cluster'; id: string; lat: number; lng: number; count: number; color: string };
+
+export interface MarkerDiff {
+  added: MapItem[];
+  removed: string[];
+  changed: MapItem[];
+}
+
+// Regroupement jusqu'au zoom 15 inclus ; au-delà chaque risque a son marqueur
+export const CLUSTER_MAX_ZOOM = 15;
+export const CLUSTER_CELL_PX = 64;
+// Marge autour du viewport (fraction de sa taille) pour éviter les apparitions au bord
+const VIEWPORT_PADDING = 0.2;
+const TILE_SIZE_PX = 256;
+
+const SEVERITY_RANK: Record<string, number> = {
+  faible: 1, low: 1,
+  modéré: 2, moyen: 2, medium: 2,
+  élevé: 3, high: 3,
+  critique: 4, critical: 4,
+};
+
+const worldPx = (zoom: number): number => TILE_SIZE_PX * Math.pow(2, zoom);
+
+const projectX = (lng: number, size: number): number => ((lng + 180) / 360) * size;
+
+const projectY = (lat: number, size: number): number => {
+  const sin = Math.sin((lat * Math.PI) / 180);
+  return (0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI)) * size;
+};
+
+/**
+ * Éléments à afficher pour un viewport : risques visibles, regroupés si zoom <= CLUSTER_MAX_ZOOM.
+ * Une cellule d'un seul risque reste un marqueur de risque ; l'id d'un groupe dépend
+ * de sa cellule, il reste donc stable tant que le zoom ne change pas.
+ */
+export const layoutMarkers = (risks: MapRisk[], viewport: MapViewport | null): MapItem[] => {
+  const visible = viewport ? risks.filter(inPaddedViewport(viewport)) : risks;
+
+  if (!viewport || viewport.zoom > CLUSTER_MAX_ZOOM) {
+    return visible.map((risk) => ({ kind: 'risk' as const, ...risk }));
+  }
+
+  const zoom = Math.round(viewport.zoom);
+  const size = worldPx(zoom);
+  const cells = new Map<string, MapRisk[]>();
+  for (const risk of visible) {
+    const key = `${Math.floor(projectX(risk.lng, size) / CLUSTER_CELL_PX)}:${Math.floor(
+      projectY(risk.lat, size) / CLUSTER_CELL_PX
+    )}`;
+    const cell = cells.get(key);
+    if (cell) {
+      cell.push(risk);
+    } else {
+      cells.set(key, [risk]);
+    }
+  }
+
+  const items: MapItem[] = [];
+  cells.forEach((members, key) => {
+    if (members.length === 1) {
+      items.push({ kind: 'risk', ...members[0] });
+      return;
+    }
+    let lat = 0;
+    let lng = 0;
+    let worst = members[0];
+    for (const risk of members) {
+      lat += risk.lat;
+      lng += risk.lng;
+      if ((SEVERITY_RANK[risk.severity?.toLowerCase()] ?? 0) > (SEVERITY_RANK[worst.severity?.toLowerCase()] ?? 0)) {
+        worst = risk;
+      }
+    }
+    items.push({
+      kind: 'cluster',
+      id: `cluster:${zoom}:${key}`,
+      lat: lat / members.length,
+      lng: lng / members.length,
+      count: members.length,
+      color: worst.color,
+    });
+  });
+  return items;
+};
+
+const inPaddedViewport = (viewport: MapViewport) => {
+  const padLat = (viewport.north - viewport.south) * VIEWPORT_PADDING;
+  const padLng = (viewport.east - viewport.west) * VIEWPORT_PADDING;
+  const south = viewport.south - padLat;
+  const north = viewport.north + padLat;
+  const west = viewport.west - padLng;
+  const east = viewport.east + padLng;
+  return (risk: MapRisk): boolean =>
+    risk.lat >= south && risk.lat <= north && risk.lng >= west && risk.lng <= east;
+};
+
+const sameItem = (a: MapItem, b: MapItem): boolean => {
+  if (a.kind !== b.kind || a.lat !== b.lat || a.lng !== b.lng || a.color !== b.color) {
+    return false;
+  }
+  if (a.kind === 'cluster' && b.kind === 'cluster') {
+    return a.count === b.count;
+  }
+  if (a.kind === 'risk' && b.kind === 'risk') {
+    return (
+      a.title === b.title &&
+      a.icon === b.icon &&
+      a.category === b.category &&
+      a.severity === b.severity &&
+      a.distance === b.distance &&
+      a.description === b.description
+    );
+  }
+  return false;
+};
+
+/**
+ * Diff entre la disposition affichée (indexée par id) et la suivante, en O(n).
+ */
+export const diffMarkers = (previous: Map<string, MapItem>, next: MapItem[]): MarkerDiff => {
+  const diff: MarkerDiff = { added: [], removed: [], changed: [] };
+  const seen = new Set<string>();
+
+  for (const item of next) {
+    seen.add(item.id);
+    const before = previous.get(item.id);
+    if (!before) {
+      diff.added.push(item);
+    } else if (!sameItem(before, item)) {
+      diff.changed.push(item);
+    }
+  }
+  previous.forEach((_, id) => {
+    if (!seen.has(id)) {
+      diff.removed.push(id);
+    }
+  });
+  return diff;
+};
+
+export const isEmptyDiff = (diff: MarkerDiff): boolean =>
+  diff.added.length === 0 && diff.removed.length === 0 && diff.changed.length === 0;
+
+/**
+ * Applique un diff sur l'état affiché (même opération que la WebView).
+ */
+export const applyMarkerDiff = (shown: Map<string, MapItem>, diff: MarkerDiff): void => {
+  diff.removed.forEach((id) => shown.delete(id));
+  diff.added.forEach((item) => shown.set(item.id, item));
+  diff.changed.forEach((item) => shown.set(item.id, item));
+};